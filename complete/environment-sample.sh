@@ -5,3 +5,13 @@ export POLARIS_PAT_TOKEN="my polaris personal access token"
 export CODEDX_PAT_TOKEN="my code dx personal access token"
 export POLARIS_APPLICATION_ID="my polaris application"
 export CODEDX_PROJECT_ID="my code dx parent project"
+# optional: number of Polaris findings enriched concurrently (defaults to 1)
+export POLARIS_ENRICHMENT_PARALLELISM="8"
+# optional: snapshot file used to warm the Polaris issue type name cache between runs
+export POLARIS_ISSUE_TYPE_CACHE_FILE="cache/issue-types.tsv"
+# optional: parse Code Dx findings as they stream in instead of loading the whole table (defaults to false)
+export CODEDX_STREAM_FINDINGS="true"
+# optional: seconds before expiry that the Polaris JWT is refreshed in the background (defaults to 120)
+export POLARIS_TOKEN_REFRESH_MARGIN_SECONDS="120"
+# optional: file that remembers findings between runs so unchanged Polaris issues skip their lookups
+export HARVEST_STATE_FILE="cache/harvest-state.tsv"
@@ -0,0 +1,60 @@
+package com.example.consumingrest;
+
+import org.json.JSONArray;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Code Dx findings table, read with the streaming reader and with the org.json tree it replaced
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CodeDxFindingsBenchmark {
+
+    /**
+     * Rows in the findings table
+     */
+    @Param({"10", "1000", "10000"})
+    int size;
+
+    private byte[] table;
+
+    @Setup
+    public void setUp() {
+        table = Fixtures.codeDxFindingsTable(size).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public int streamed(Blackhole bh) throws IOException {
+        return CodeDxFindingsReader.read(new ByteArrayInputStream(table),
+                finding -> bh.consume(FindingParsers.codeDxFinding(finding)));
+    }
+
+    @Benchmark
+    public int tree(Blackhole bh) {
+        JSONArray findings = new JSONArray(new String(table, StandardCharsets.UTF_8));
+        for (int i = 0; i < findings.length(); i++) {
+            bh.consume(FindingParsers.codeDxFinding(CodeDxFinding.fromJson(findings.getJSONObject(i))));
+        }
+        return findings.length();
+    }
+}
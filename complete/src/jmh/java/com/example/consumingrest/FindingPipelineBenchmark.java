@@ -0,0 +1,86 @@
+package com.example.consumingrest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The CPU side of reporting Polaris findings, with every HTTP response replaced by a recorded one.  Logging is set to
+ * WARN, so each report line is built but not written
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FindingPipelineBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Issues on the page
+     */
+    @Param({"10", "100", "1000"})
+    int size;
+
+    private String issuesPage;
+    private byte[] issueDetail;
+    private String triage;
+    private Map<String, String> severities;
+    private Finding finding;
+
+    @Setup
+    public void setUp() {
+        issuesPage = Fixtures.polarisIssuesPage(size);
+        issueDetail = Fixtures.polarisIssueDetail(2).getBytes(StandardCharsets.UTF_8);
+        triage = Fixtures.polarisTriageCurrent();
+        severities = Collections.singletonMap("SQL injection", "high");
+        finding = new Finding("1a9e1f4f2b1c4a3e8c0d5f6a7b8c9d01", "SQL injection", "Static Analysis", "high",
+                Instant.parse("2021-03-04T17:21:09.123456Z"), "NOT_DISMISSED");
+    }
+
+    @Benchmark
+    public void logFindingInfo() {
+        ConsumingRestApplication.logFindingInfo(finding);
+    }
+
+    /**
+     * Everything done for one page of issues once the responses are in: reading the page, then for each issue
+     * extracting its open date and triage status and reporting it
+     */
+    @Benchmark
+    public int perFindingLoop() throws IOException {
+        int reported = 0;
+        for (PolarisIssue issue : FindingParsers.polarisIssues(new JSONObject(issuesPage).getJSONArray("data"))) {
+            Instant mostRecentOpen = FindingParsers.mostRecentOpen(
+                    MAPPER.readValue(issueDetail, PolarisIssueDetail.class));
+            JSONObject triageData = new JSONObject(triage);
+            String issueTypeName = "SQL injection";
+            ConsumingRestApplication.logFindingInfo(new Finding(issue.getId(), issueTypeName, "Static Analysis",
+                    severities.getOrDefault(issueTypeName, "Unknown"), mostRecentOpen,
+                    ConsumingRestApplication.getTriageStatusPolaris(triageData)));
+            if (ConsumingRestApplication.getDismissalStatusPolaris(triageData).equals("REQUESTED")) {
+                reported++;
+            }
+        }
+        return reported;
+    }
+}
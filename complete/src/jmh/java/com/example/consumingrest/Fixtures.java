@@ -0,0 +1,94 @@
+package com.example.consumingrest;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Recorded Polaris and Code Dx responses, scaled up to a requested size by repeating their entries with fresh ids
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    static String load(String name) {
+        try (InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + name)) {
+            if (in == null) {
+                throw new IllegalArgumentException("no fixture named " + name);
+            }
+            return StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param issues number of issues on the page
+     * @return a page of the Polaris issues query
+     */
+    static String polarisIssuesPage(int issues) {
+        JSONObject page = new JSONObject(load("polaris-issues-page.json"));
+        JSONArray recorded = page.getJSONArray("data");
+        JSONArray data = new JSONArray();
+        for (int i = 0; i < issues; i++) {
+            JSONObject issue = new JSONObject(recorded.getJSONObject(i % recorded.length()).toString());
+            issue.put("id", issue.getString("id") + "-" + i);
+            JSONObject attributes = issue.getJSONObject("attributes");
+            attributes.put("issue-key", attributes.getString("issue-key") + "-" + i);
+            data.put(issue);
+        }
+        page.put("data", data);
+        page.getJSONObject("meta").put("total", issues);
+        return page.toString();
+    }
+
+    /**
+     * @param transitions number of transitions in the issue's history, alternating opened and closed
+     * @return the Polaris single issue response
+     */
+    static String polarisIssueDetail(int transitions) {
+        JSONObject detail = new JSONObject(load("polaris-issue-detail.json"));
+        JSONArray recorded = detail.getJSONArray("included");
+        JSONArray included = new JSONArray();
+        long day = 24L * 60 * 60;
+        for (int i = 0; i < transitions; i++) {
+            JSONObject transition = new JSONObject(recorded.getJSONObject(i % 2).toString());
+            transition.put("id", "tr-" + i);
+            // spread the dates out so the running maximum is not always the first or last one
+            long seconds = 1609459200L + ((i * 7919L) % Math.max(transitions, 1)) * day;
+            transition.getJSONObject("attributes").put("transition-date",
+                    java.time.Instant.ofEpochSecond(seconds, 123456000L).toString());
+            included.put(transition);
+        }
+        for (int i = 2; i < recorded.length(); i++) {
+            included.put(recorded.getJSONObject(i));
+        }
+        detail.put("included", included);
+        return detail.toString();
+    }
+
+    static String polarisTriageCurrent() {
+        return load("polaris-triage-current.json");
+    }
+
+    /**
+     * @param findings number of rows in the table
+     * @return the Code Dx findings table response
+     */
+    static String codeDxFindingsTable(int findings) {
+        JSONArray recorded = new JSONArray(load("codedx-findings-table.json"));
+        JSONArray table = new JSONArray();
+        for (int i = 0; i < findings; i++) {
+            JSONObject finding = new JSONObject(recorded.getJSONObject(i % recorded.length()).toString());
+            finding.put("id", 10000 + i);
+            table.put(finding);
+        }
+        return table.toString();
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.consumingrest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of the three Polaris responses read for every issue: the issues page, the issue detail and its triage
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PolarisParsingBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Issues on the page, and transitions in the issue detail
+     */
+    @Param({"10", "100", "1000"})
+    int size;
+
+    private String issuesPage;
+    private byte[] issueDetail;
+    private String triage;
+
+    @Setup
+    public void setUp() {
+        issuesPage = Fixtures.polarisIssuesPage(size);
+        issueDetail = Fixtures.polarisIssueDetail(size).getBytes(java.nio.charset.StandardCharsets.UTF_8);
+        triage = Fixtures.polarisTriageCurrent();
+    }
+
+    @Benchmark
+    public List<PolarisIssue> issuePage() {
+        return FindingParsers.polarisIssues(new JSONObject(issuesPage).getJSONArray("data"));
+    }
+
+    @Benchmark
+    public Instant openDate() throws IOException {
+        return FindingParsers.mostRecentOpen(MAPPER.readValue(issueDetail, PolarisIssueDetail.class));
+    }
+
+    @Benchmark
+    public void triageStatus(Blackhole bh) {
+        JSONObject triageData = new JSONObject(triage);
+        bh.consume(ConsumingRestApplication.getTriageStatusPolaris(triageData));
+        bh.consume(ConsumingRestApplication.getDismissalStatusPolaris(triageData));
+    }
+}
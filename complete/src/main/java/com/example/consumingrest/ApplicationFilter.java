@@ -0,0 +1,69 @@
+package com.example.consumingrest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Chooses which discovered applications or parent projects are harvested.  Patterns are globs, where {@code *}
+ * matches any run of characters and {@code ?} any single one, matched without regard to case against both the id and
+ * the name.  An application is harvested when it matches an include pattern, or there are none, and matches no
+ * exclude pattern.
+ */
+public class ApplicationFilter {
+
+    private final List<Pattern> include;
+    private final List<Pattern> exclude;
+
+    public ApplicationFilter(List<String> include, List<String> exclude) {
+        this.include = compile(include);
+        this.exclude = compile(exclude);
+    }
+
+    /**
+     * @param id   the application's id
+     * @param name the application's name, or null if it has none
+     * @return true if the application should be harvested
+     */
+    public boolean test(String id, String name) {
+        return (include.isEmpty() || matchesAny(include, id, name)) && !matchesAny(exclude, id, name);
+    }
+
+    private static boolean matchesAny(List<Pattern> patterns, String id, String name) {
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(id).matches() || (name != null && pattern.matcher(name).matches())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<Pattern> compile(List<String> globs) {
+        List<Pattern> patterns = new ArrayList<>();
+        if (globs != null) {
+            for (String glob : globs) {
+                patterns.add(glob(glob.trim()));
+            }
+        }
+        return patterns;
+    }
+
+    static Pattern glob(String glob) {
+        StringBuilder regex = new StringBuilder();
+        int literal = 0;
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*' || c == '?') {
+                if (i > literal) {
+                    regex.append(Pattern.quote(glob.substring(literal, i)));
+                }
+                regex.append(c == '*' ? ".*" : ".");
+                literal = i + 1;
+            }
+        }
+        if (literal < glob.length()) {
+            regex.append(Pattern.quote(glob.substring(literal)));
+        }
+        return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.DOTALL);
+    }
+}
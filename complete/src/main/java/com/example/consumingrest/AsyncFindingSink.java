@@ -0,0 +1,220 @@
+package com.example.consumingrest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands findings to another sink on a dedicated writer thread, so formatting and output I/O are off the harvest's
+ * path.  {@link #accept} only publishes the finding into a lock-free ring buffer; it waits only when the writer has
+ * fallen a whole buffer behind, and such stalls are counted in {@link #toString()}.
+ * <p>
+ * Findings are written in the order they were accepted.  Any failure of the underlying sink is thrown from the next
+ * call to {@link #accept}, {@link #flush}, {@link #endRun} or {@link #close}.
+ */
+public class AsyncFindingSink implements FindingSink {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncFindingSink.class);
+
+    /**
+     * Most findings written between checks for a flush or end of run request or shutdown
+     */
+    private static final int BATCH_SIZE = 1024;
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final FindingSink delegate;
+    private final MpscRingBuffer<Entry> ring;
+    private final Thread writer;
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong stalls = new AtomicLong();
+    private final AtomicLong flushRequests = new AtomicLong();
+    private volatile long flushesDone;
+    private final AtomicLong endRunRequests = new AtomicLong();
+    private volatile long endRunsDone;
+    private volatile long written;
+    private volatile boolean closing;
+    private volatile Throwable failure;
+
+    /**
+     * @param delegate     the sink that does the writing, only ever called from the writer thread
+     * @param ringCapacity findings that may be waiting to be written before {@link #accept} has to wait
+     */
+    public AsyncFindingSink(FindingSink delegate, int ringCapacity) {
+        this.delegate = delegate;
+        this.ring = new MpscRingBuffer<>(ringCapacity);
+        this.writer = new Thread(this::writeLoop, "finding-sink");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void accept(String tool, String applicationId, String projectId, Finding finding) {
+        if (closing) {
+            throw new IllegalStateException("finding sink is closed");
+        }
+        checkFailure();
+        Entry entry = new Entry(tool, applicationId, projectId, finding);
+        if (!ring.offer(entry)) {
+            stalls.incrementAndGet();
+            do {
+                LockSupport.unpark(writer);
+                LockSupport.parkNanos(FULL_PARK_NANOS);
+                checkFailure();
+            } while (!ring.offer(entry));
+        }
+        accepted.incrementAndGet();
+    }
+
+    /**
+     * Wait until every finding accepted before this call has been written and the underlying sink flushed
+     */
+    @Override
+    public void flush() throws IOException {
+        long request = flushRequests.incrementAndGet();
+        while (flushesDone < request && writer.isAlive()) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+        }
+        rethrowFailure();
+    }
+
+    /**
+     * Wait until every finding accepted before this call has been written and the underlying sink's run ended
+     */
+    @Override
+    public void endRun() throws IOException {
+        long request = endRunRequests.incrementAndGet();
+        while (endRunsDone < request && writer.isAlive()) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+        }
+        rethrowFailure();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closing) {
+            return;
+        }
+        closing = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            delegate.close();
+        } catch (IOException | RuntimeException e) {
+            if (failure == null) {
+                failure = e;
+            }
+        }
+        rethrowFailure();
+    }
+
+    private void writeLoop() {
+        while (true) {
+            int drained;
+            try {
+                drained = ring.drain(this::write, BATCH_SIZE);
+            } catch (Throwable t) {
+                fail(t);
+                return;
+            }
+            if (drained > 0) {
+                continue;
+            }
+
+            long request = flushRequests.get();
+            if (request > flushesDone && ring.isEmpty()) {
+                try {
+                    delegate.flush();
+                } catch (Throwable t) {
+                    fail(t);
+                    return;
+                }
+                flushesDone = request;
+                continue;
+            }
+
+            long endRunRequest = endRunRequests.get();
+            if (endRunRequest > endRunsDone && ring.isEmpty()) {
+                try {
+                    delegate.endRun();
+                } catch (Throwable t) {
+                    fail(t);
+                    return;
+                }
+                endRunsDone = endRunRequest;
+                continue;
+            }
+            if (closing && ring.isEmpty()) {
+                return;
+            }
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+    }
+
+    private void write(Entry entry) {
+        delegate.accept(entry.tool, entry.applicationId, entry.projectId, entry.finding);
+        written++;
+    }
+
+    private void fail(Throwable t) {
+        log.error("writing findings failed, no more findings will be written", t);
+        failure = t;
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            throw new IllegalStateException("writing findings failed", failure);
+        }
+    }
+
+    private void rethrowFailure() throws IOException {
+        Throwable t = failure;
+        if (t instanceof IOException) {
+            throw (IOException) t;
+        }
+        if (t instanceof UncheckedIOException) {
+            throw ((UncheckedIOException) t).getCause();
+        }
+        if (t != null) {
+            throw new IllegalStateException("writing findings failed", t);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "AsyncFindingSink{" +
+                "delegate=" + delegate.getClass().getSimpleName() +
+                ", accepted=" + accepted.get() +
+                ", written=" + written +
+                ", stalls=" + stalls.get() +
+                '}';
+    }
+
+    private static class Entry {
+        final String tool;
+        final String applicationId;
+        final String projectId;
+        final Finding finding;
+
+        Entry(String tool, String applicationId, String projectId, Finding finding) {
+            this.tool = tool;
+            this.applicationId = applicationId;
+            this.projectId = projectId;
+            this.finding = finding;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.consumingrest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes one text record per finding to a file.  Records are encoded straight into a direct buffer, which goes to
+ * the file channel in a single write whenever it fills up, so a batch of many findings costs one system call.
+ * <p>
+ * Not thread safe; {@link AsyncFindingSink} calls it from its writer thread only.
+ */
+public abstract class ChannelFindingSink implements FindingSink {
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final StringBuilder record = new StringBuilder(256);
+
+    /**
+     * @param file       created, or truncated if it already exists
+     * @param bufferSize bytes of records collected before they are written to the file
+     */
+    protected ChannelFindingSink(Path file, int bufferSize) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        appendHeader(record);
+        write(record);
+    }
+
+    /**
+     * Append anything that comes before the first record, such as column names
+     */
+    protected void appendHeader(StringBuilder out) {
+    }
+
+    /**
+     * Append one finding's record, including its line separator
+     */
+    protected abstract void appendRecord(String tool, String applicationId, String projectId, Finding finding,
+                                         StringBuilder out);
+
+    @Override
+    public void accept(String tool, String applicationId, String projectId, Finding finding) {
+        record.setLength(0);
+        appendRecord(tool, applicationId, projectId, finding, record);
+        try {
+            write(record);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void write(CharSequence chars) throws IOException {
+        CharBuffer in = CharBuffer.wrap(chars);
+        encoder.reset();
+        CoderResult result;
+        while ((result = encoder.encode(in, buffer, true)).isOverflow()) {
+            drain();
+        }
+        if (result.isError()) {
+            result.throwException();
+        }
+        while (encoder.flush(buffer).isOverflow()) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            drain();
+        } finally {
+            channel.close();
+        }
+    }
+}
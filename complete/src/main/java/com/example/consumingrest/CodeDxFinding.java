@@ -0,0 +1,105 @@
+package com.example.consumingrest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.json.JSONObject;
+
+/**
+ * The handful of fields read from each row of the Code Dx findings table
+ */
+public final class CodeDxFinding {
+
+    private final int id;
+    private final String severity;
+    private final String detectionMethod;
+    private final String descriptor;
+    private final String firstSeenOn;
+    private final String statusName;
+
+    public CodeDxFinding(int id, String severity, String detectionMethod, String descriptor, String firstSeenOn,
+                         String statusName) {
+        this.id = id;
+        this.severity = severity;
+        this.detectionMethod = detectionMethod;
+        this.descriptor = descriptor;
+        this.firstSeenOn = firstSeenOn;
+        this.statusName = statusName;
+    }
+
+    /**
+     * @param finding one element of the array returned by the findings table API
+     * @return the fields of interest from the finding, with the repeated ones pooled
+     */
+    public static CodeDxFinding fromJson(JSONObject finding) {
+        StringPool pool = StringPool.FINDING_VALUES;
+        return new CodeDxFinding(
+                finding.getInt("id"),
+                pool.intern(finding.getJSONObject("severity").getString("name")),
+                pool.intern(finding.getJSONObject("detectionMethod").getString("name")),
+                pool.intern(finding.getJSONObject("descriptor").getString("name")),
+                finding.getString("firstSeenOn"),
+                pool.intern(finding.getString("statusName")));
+    }
+
+    /**
+     * @param finding one element of the findings table, already decoded by Jackson
+     * @return the fields of interest from the finding
+     */
+    public static CodeDxFinding fromJson(JsonNode finding) {
+        StringPool pool = StringPool.FINDING_VALUES;
+        return new CodeDxFinding(
+                finding.path("id").asInt(),
+                pool.intern(finding.path("severity").path("name").textValue()),
+                pool.intern(finding.path("detectionMethod").path("name").textValue()),
+                pool.intern(finding.path("descriptor").path("name").textValue()),
+                finding.path("firstSeenOn").textValue(),
+                pool.intern(finding.path("statusName").textValue()));
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return the name of the finding's severity, e.g. "High"
+     */
+    public String getSeverity() {
+        return severity;
+    }
+
+    /**
+     * @return the name of the tool category that found the issue, e.g. "Static Analysis"
+     */
+    public String getDetectionMethod() {
+        return detectionMethod;
+    }
+
+    /**
+     * @return the name of the rule that was violated
+     */
+    public String getDescriptor() {
+        return descriptor;
+    }
+
+    /**
+     * @return first seen date formatted as MM/dd/yyyy
+     */
+    public String getFirstSeenOn() {
+        return firstSeenOn;
+    }
+
+    public String getStatusName() {
+        return statusName;
+    }
+
+    @Override
+    public String toString() {
+        return "CodeDxFinding{" +
+                "id=" + id +
+                ", severity='" + severity + '\'' +
+                ", detectionMethod='" + detectionMethod + '\'' +
+                ", descriptor='" + descriptor + '\'' +
+                ", firstSeenOn='" + firstSeenOn + '\'' +
+                ", statusName='" + statusName + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.consumingrest;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds requests for one page of a project's Code Dx findings table.  The severities and statuses to harvest are
+ * sent as a filter, so findings that would be thrown away are never sent, and every page holds at most
+ * {@code pageSize} findings, so no response grows with the size of the project.
+ * <p>
+ * The table API has no way to choose its columns.  {@link CodeDxFindingsReader} skips the ones the harvest does not
+ * read as they stream past instead.
+ */
+public class CodeDxFindingsQuery {
+
+    private final List<String> severities;
+    private final List<String> statuses;
+    private final int pageSize;
+
+    /**
+     * @param severities severity names to harvest, e.g. "Critical", or empty for all of them
+     * @param statuses   statuses to harvest, e.g. "new" or "false-positive", or empty for all of them
+     * @param pageSize   the most findings requested per page
+     */
+    public CodeDxFindingsQuery(List<String> severities, List<String> statuses, int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("page size must be positive, was " + pageSize);
+        }
+        this.severities = severities == null ? new ArrayList<>() : new ArrayList<>(severities);
+        this.statuses = statuses == null ? new ArrayList<>() : new ArrayList<>(statuses);
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * @param page one-based number of the page to request
+     * @return the JSON request body
+     */
+    public String body(int page) {
+        JSONObject filter = new JSONObject();
+        if (!severities.isEmpty()) {
+            filter.put("severity", new JSONArray(severities));
+        }
+        if (!statuses.isEmpty()) {
+            filter.put("status", new JSONArray(statuses));
+        }
+        JSONObject pagination = new JSONObject();
+        pagination.put("page", page);
+        pagination.put("perPage", pageSize);
+        JSONObject body = new JSONObject();
+        body.put("filter", filter);
+        body.put("pagination", pagination);
+        return body.toString();
+    }
+
+    /**
+     * @param findings the number of findings on the page just read
+     * @return true if there may be more findings after it.  A page larger than was asked for means the server ignored
+     * the paging, so it already held every finding
+     */
+    public boolean hasMore(int findings) {
+        return findings == pageSize;
+    }
+
+    /**
+     * @return a walk through the pages of one project's findings
+     */
+    public Paging paging() {
+        return new Paging();
+    }
+
+    /**
+     * Requests the pages of one project's findings in turn and decides when to stop.  A server that ignores the page
+     * number answers every request with the same page, which would never end when that page is full.  So a page that
+     * starts with the same finding as the one before it is taken to be a repeat: its findings are dropped and no more
+     * pages are requested.  Finding ids are unique within a project, so a page that really is the next one never
+     * starts with the previous page's first finding.
+     * <p>
+     * Not thread safe; the pages of a project are read one after another.
+     */
+    public class Paging {
+
+        private int page;
+        private Integer previousFirstId;
+        private Integer firstId;
+        private int read;
+        private boolean repeated;
+
+        /**
+         * @return the request body for the next page
+         */
+        public String nextBody() {
+            previousFirstId = firstId;
+            firstId = null;
+            read = 0;
+            return body(++page);
+        }
+
+        /**
+         * Called for each finding of the page in the order they were returned
+         *
+         * @return true to report the finding, false if its page repeats the previous one
+         */
+        public boolean accept(int findingId) {
+            if (read++ == 0) {
+                firstId = findingId;
+                repeated = previousFirstId != null && previousFirstId == findingId;
+            }
+            return !repeated;
+        }
+
+        /**
+         * @return true if the page just read may be followed by more findings
+         */
+        public boolean hasMore() {
+            return !repeated && CodeDxFindingsQuery.this.hasMore(read);
+        }
+
+        /**
+         * @return true if the server answered with the previous page again, so the walk stopped there
+         */
+        public boolean isRepeated() {
+            return repeated;
+        }
+
+        /**
+         * @return one-based number of the page requested last
+         */
+        public int getPage() {
+            return page;
+        }
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    @Override
+    public String toString() {
+        return "CodeDxFindingsQuery{" +
+                "severities=" + severities +
+                ", statuses=" + statuses +
+                ", pageSize=" + pageSize +
+                '}';
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.consumingrest;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+/**
+ * Reads the array returned by the Code Dx findings table API one token at a time.  Each finding is handed to the
+ * consumer as soon as its closing brace is read, and columns other than the ones in {@link CodeDxFinding} are skipped
+ * without being materialized, so memory use does not grow with the number of findings in the project.  Names and
+ * statuses come from {@link StringPool#FINDING_VALUES}, straight from the parser's buffer, so the values every finding
+ * repeats are not allocated again for each one.
+ */
+public final class CodeDxFindingsReader {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private CodeDxFindingsReader() {
+    }
+
+    /**
+     * @param body     the response body of a findings table request.  Not closed by this method
+     * @param consumer receives each finding in the order it appears in the response
+     * @return number of findings read
+     * @throws IOException if the body cannot be read or is not an array of findings
+     */
+    public static int read(InputStream body, Consumer<CodeDxFinding> consumer) throws IOException {
+        int count = 0;
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "expected an array of findings");
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                consumer.accept(readFinding(parser));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static CodeDxFinding readFinding(JsonParser parser) throws IOException {
+        int id = 0;
+        String severity = null;
+        String detectionMethod = null;
+        String descriptor = null;
+        String firstSeenOn = null;
+        String statusName = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "id":
+                    id = parser.getValueAsInt();
+                    break;
+                case "severity":
+                    severity = readName(parser);
+                    break;
+                case "detectionMethod":
+                    detectionMethod = readName(parser);
+                    break;
+                case "descriptor":
+                    descriptor = readName(parser);
+                    break;
+                case "firstSeenOn":
+                    firstSeenOn = parser.getValueAsString();
+                    break;
+                case "statusName":
+                    statusName = pooledText(parser);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        return new CodeDxFinding(id, severity, detectionMethod, descriptor, firstSeenOn, statusName);
+    }
+
+    private static String pooledText(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.VALUE_STRING) {
+            return StringPool.FINDING_VALUES.intern(parser.getValueAsString());
+        }
+        return StringPool.FINDING_VALUES.intern(parser.getTextCharacters(), parser.getTextOffset(),
+                parser.getTextLength());
+    }
+
+    /**
+     * Read the "name" member of a nested object such as {@code "severity": {"id": 3, "name": "High"}}
+     */
+    private static String readName(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        String name = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if (field.equals("name")) {
+                name = pooledText(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return name;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.consumingrest;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Builds requests for one page of Code Dx's {@code /codedx/api/projects/query}, which lists the direct children of a
+ * project.  Up to and including v2022.1.2 the server reads {@code offset} as the page size and {@code limit} as where
+ * the page starts, so whether to swap them depends on the version of the server being queried.
+ */
+public final class CodeDxProjectQuery {
+
+    public enum Paging {
+        /**
+         * Swap {@code offset} and {@code limit} if the server's version is one known to need it
+         */
+        AUTO,
+        SWAPPED,
+        STANDARD
+    }
+
+    /**
+     * The endpoint that reports the Code Dx version, relative to the base URL
+     */
+    public static final String SYSTEM_INFO_PATH = "/codedx/x/system-info";
+
+    private CodeDxProjectQuery() {
+    }
+
+    /**
+     * @param parentId the project whose direct children are listed
+     * @param offset   index of the first child on the page
+     * @param limit    the most children on the page
+     * @param swapped  whether the server swaps {@code offset} and {@code limit}
+     * @return the JSON request body
+     */
+    public static String body(int parentId, int offset, int limit, boolean swapped) {
+        JSONObject filter = new JSONObject();
+        filter.put("parentId", parentId);
+        JSONObject body = new JSONObject();
+        body.put("filter", filter);
+        body.put("offset", swapped ? limit : offset);
+        body.put("limit", swapped ? offset : limit);
+        return body.toString();
+    }
+
+    /**
+     * @param paging         how paging was configured
+     * @param version        the version the server reports, or null if it is not known
+     * @param swappedThrough the last version known to swap {@code offset} and {@code limit}
+     * @return true if requests to this server should swap {@code offset} and {@code limit}
+     */
+    public static boolean isSwapped(Paging paging, String version, String swappedThrough) {
+        if (paging != Paging.AUTO) {
+            return paging == Paging.SWAPPED;
+        }
+        // an unknown version is treated the way this harvest always has
+        return version == null || compareVersions(version, swappedThrough) <= 0;
+    }
+
+    /**
+     * @param systemInfo the response from {@link #SYSTEM_INFO_PATH}
+     * @return the version it reports, or null if it has none
+     */
+    public static String version(String systemInfo) {
+        return new JSONObject(systemInfo).optString("version", null);
+    }
+
+    /**
+     * Compare dotted versions numerically, part by part, so that 2022.10.0 is after 2022.9.1.  Anything after the
+     * digits of a part, such as a build suffix, is ignored
+     */
+    static int compareVersions(String a, String b) {
+        String[] left = a.trim().split("\\.");
+        String[] right = b.trim().split("\\.");
+        for (int i = 0; i < Math.max(left.length, right.length); i++) {
+            long l = i < left.length ? leadingNumber(left[i]) : 0;
+            long r = i < right.length ? leadingNumber(right[i]) : 0;
+            if (l != r) {
+                return Long.compare(l, r);
+            }
+        }
+        return 0;
+    }
+
+    private static long leadingNumber(String part) {
+        long value = 0;
+        for (int i = 0; i < part.length() && Character.isDigit(part.charAt(i)) && i < 18; i++) {
+            value = value * 10 + (part.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    /**
+     * @param page     one page of the query's response
+     * @param pageSize the {@code limit} that was asked for
+     * @return true if there may be more children after this page.  A page larger than was asked for means the server
+     * ignored the paging, so it already holds every child
+     */
+    public static boolean hasMore(JSONArray page, int pageSize) {
+        return page.length() == pageSize;
+    }
+}
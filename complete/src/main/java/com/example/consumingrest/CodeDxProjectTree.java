@@ -0,0 +1,168 @@
+package com.example.consumingrest;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Walks every descendant of a Code Dx project, paging through the children of each one.  The children of different
+ * projects are queried concurrently on the given executor, and each project is reported as soon as the page it is on
+ * arrives, so callers can start on it while the rest of the tree is still being walked.
+ */
+public class CodeDxProjectTree {
+
+    /**
+     * Requests one page of a project's direct children, e.g. with a {@link CodeDxProjectQuery#body} request
+     */
+    @FunctionalInterface
+    public interface PageQuery {
+        JSONArray children(int parentId, int offset, int limit);
+    }
+
+    public static final class Project {
+        private final int id;
+        private final String name;
+        private final int parentId;
+
+        public Project(int id, String name, int parentId) {
+            this.id = id;
+            this.name = name;
+            this.parentId = parentId;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getParentId() {
+            return parentId;
+        }
+
+        @Override
+        public String toString() {
+            return "Project{id=" + id + ", name='" + name + "', parentId=" + parentId + '}';
+        }
+    }
+
+    private final PageQuery query;
+    private final int pageSize;
+    private final Executor executor;
+
+    /**
+     * @param query    requests one page of a project's children
+     * @param pageSize the most children requested per page
+     * @param executor runs the queries
+     */
+    public CodeDxProjectTree(PageQuery query, int pageSize, Executor executor) {
+        this.query = query;
+        this.pageSize = pageSize;
+        this.executor = executor;
+    }
+
+    /**
+     * Walk the tree below {@code rootId}, blocking until every project in it has been reported
+     *
+     * @param rootId    the project whose descendants are walked.  It is not reported itself
+     * @param onProject called once for each descendant, from the executor's threads
+     * @return the number of projects reported
+     */
+    public int walk(int rootId, Consumer<Project> onProject) {
+        try {
+            return walkAsync(rootId, onProject).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Start walking the tree below {@code rootId}.  If a query fails, the walk stops reporting projects and completes
+     * exceptionally once the queries already running have finished, so no project is reported after it completes
+     *
+     * @param rootId    the project whose descendants are walked.  It is not reported itself
+     * @param onProject called once for each descendant, from the executor's threads
+     * @return completes with the number of projects reported
+     */
+    public CompletableFuture<Integer> walkAsync(int rootId, Consumer<Project> onProject) {
+        Walk walk = new Walk(onProject);
+        walk.seen.add(rootId);
+        walk.submit(rootId);
+        return walk.done;
+    }
+
+    private class Walk {
+        final Consumer<Project> onProject;
+        final Set<Integer> seen = ConcurrentHashMap.newKeySet();
+        final AtomicInteger pending = new AtomicInteger();
+        final AtomicInteger reported = new AtomicInteger();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final CompletableFuture<Integer> done = new CompletableFuture<>();
+
+        Walk(Consumer<Project> onProject) {
+            this.onProject = onProject;
+        }
+
+        void submit(int parentId) {
+            pending.incrementAndGet();
+            try {
+                executor.execute(() -> visit(parentId));
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+                finished();
+            }
+        }
+
+        void visit(int parentId) {
+            try {
+                int offset = 0;
+                boolean more = true;
+                while (more && failure.get() == null) {
+                    JSONArray page = query.children(parentId, offset, pageSize);
+                    int added = 0;
+                    for (int i = 0; i < page.length() && failure.get() == null; i++) {
+                        JSONObject child = page.getJSONObject(i);
+                        int id = child.getInt("id");
+                        // a child seen twice would otherwise be harvested twice, and a cycle would never end
+                        if (seen.add(id)) {
+                            added++;
+                            reported.incrementAndGet();
+                            onProject.accept(new Project(id, child.optString("name", null), parentId));
+                            submit(id);
+                        }
+                    }
+                    offset += page.length();
+                    more = added > 0 && CodeDxProjectQuery.hasMore(page, pageSize);
+                }
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                finished();
+            }
+        }
+
+        void finished() {
+            if (pending.decrementAndGet() == 0) {
+                Throwable t = failure.get();
+                if (t != null) {
+                    done.completeExceptionally(t);
+                } else {
+                    done.complete(reported.get());
+                }
+            }
+        }
+    }
+}
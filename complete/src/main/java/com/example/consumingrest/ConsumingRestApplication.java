@@ -1,30 +1,64 @@
 package com.example.consumingrest;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.UriComponentsBuilder;
 
-import java.text.DateFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @SpringBootApplication
+@EnableConfigurationProperties(HarvestProperties.class)
 public class ConsumingRestApplication {
 
     private static final Logger log = LoggerFactory.getLogger(ConsumingRestApplication.class);
@@ -34,54 +68,353 @@ public class ConsumingRestApplication {
     }
 
     @Bean
-    public RestTemplate restTemplate(RestTemplateBuilder builder) {
-        return builder.build();
+    public RestTemplate restTemplate(RestTemplateBuilder builder, CloseableHttpClient httpClient,
+                                     ObjectProvider<ClientHttpRequestInterceptor> interceptors) {
+        return builder
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(httpClient))
+                .additionalInterceptors(interceptors.orderedStream().collect(Collectors.toList()))
+                .build();
     }
 
     /**
      * The URL of the Polaris Instance you are working with
      */
-    private static final String POLARIS_BASE_URL = System.getenv("POLARIS_BASE_URL");
+    private final String polarisBaseUrl;
     /**
      * The URL of the Code Dx Instance you are working with
      */
-    private static final String CODEDX_BASE_URL = System.getenv("CODEDX_BASE_URL");
+    private final String codeDxBaseUrl;
 
     /**
      * The Personal Access Token generated in Polaris.  Note it must come from an account with appropriate permissions
      */
-    private static final String POLARIS_PAT_TOKEN = System.getenv("POLARIS_PAT_TOKEN");
+    private final String polarisPatToken;
     /**
      * The Personal Access Token generated in Code Dx.  Note it must come from an account with appropriate permissions
      */
-    private static final String CODEDX_PAT_TOKEN = System.getenv("CODEDX_PAT_TOKEN");
+    private final String codeDxPatToken;
 
     /**
-     * This is a sample for fetching data from one application in Polaris.  You would want to loop over all
-     * applications.  A Polaris application is simply a container for projects
+     * The one application in Polaris that is harvested, unless {@code harvest.discovery.enabled} harvests all of
+     * them.  A Polaris application is simply a container for projects
      */
-    private static final String POLARIS_APPLICATON_ID = System.getenv("POLARIS_APPLICATION_ID");
+    private final String polarisApplicationId;
     /**
-     * This is a sample for fetching data from one parent project in Code Dx.  You would want to loop over all parent
-     * projects of interest.  This is the same concept as the Polaris application above
+     * The one parent project in Code Dx that is harvested, unless {@code harvest.discovery.enabled} harvests all of
+     * them.  This is the same concept as the Polaris application above
      */
-    private static final String CODEDX_PROJECT_ID = System.getenv("CODEDX_PROJECT_ID");
+    private final String codeDxProjectId;
+
+    public ConsumingRestApplication() {
+        this(System::getenv);
+    }
+
+    /**
+     * @param env looks up the settings above by the name of their environment variable, so a harvest can be pointed
+     *            at somewhere other than what the environment says, such as a stand-in server in a test
+     */
+    ConsumingRestApplication(Function<String, String> env) {
+        polarisBaseUrl = env.apply("POLARIS_BASE_URL");
+        codeDxBaseUrl = env.apply("CODEDX_BASE_URL");
+        polarisPatToken = env.apply("POLARIS_PAT_TOKEN");
+        codeDxPatToken = env.apply("CODEDX_PAT_TOKEN");
+        polarisApplicationId = env.apply("POLARIS_APPLICATION_ID");
+        codeDxProjectId = env.apply("CODEDX_PROJECT_ID");
+        harvestStateFile = env.apply("HARVEST_STATE_FILE");
+    }
+
+    /**
+     * How many findings in a Polaris project are enriched (issue type, deep data, triage and run lookups) at the same
+     * time.  Defaults to 1, which performs the lookups one finding after another
+     */
+    private static final int POLARIS_ENRICHMENT_PARALLELISM = getIntEnv("POLARIS_ENRICHMENT_PARALLELISM", 1);
+
+    /**
+     * Optional file the issue type name cache is warm-loaded from at start up and saved to when the run finishes
+     */
+    private static final String POLARIS_ISSUE_TYPE_CACHE_FILE = System.getenv("POLARIS_ISSUE_TYPE_CACHE_FILE");
+
+    /**
+     * Cleared the first time Polaris answers the bulk triage query with one of {@link #BULK_TRIAGE_UNSUPPORTED}, so
+     * later projects go straight to per-issue requests
+     */
+    private volatile boolean polarisBulkTriageSupported = true;
+
+    /**
+     * Answers to the bulk triage query that mean this Polaris does not have it, rather than that it failed this time
+     */
+    static final Set<HttpStatus> BULK_TRIAGE_UNSUPPORTED = EnumSet.of(HttpStatus.BAD_REQUEST,
+            HttpStatus.NOT_FOUND, HttpStatus.METHOD_NOT_ALLOWED, HttpStatus.NOT_IMPLEMENTED);
+
+    /**
+     * Optional file that holds per-finding fingerprints between runs.  When set, Polaris issues whose latest run and
+     * triage have not changed since the last run are reported from the saved results without repeating their lookups
+     */
+    private final String harvestStateFile;
+
+    /**
+     * Open for the duration of a run when {@link #harvestStateFile} is set, otherwise null
+     */
+    private volatile HarvestStateStore harvestState;
+
+    /**
+     * False during a bulk run, which looks up every Polaris finding again and only refreshes its saved state
+     */
+    private volatile boolean polarisReuseUnchanged = true;
+
+    private final AtomicLong polarisFindingsUnchanged = new AtomicLong();
+
+    /**
+     * Revision id of each Polaris run seen so far, keyed by run id
+     */
+    private final Map<String, String> polarisRunRevisions = new ConcurrentHashMap<>();
+
+    /**
+     * Issue type names are shared by every project and application in a run, so they are only fetched once
+     */
+    private final IssueTypeNameCache issueTypeNameCache = new IssueTypeNameCache(
+            getIntEnv("POLARIS_ISSUE_TYPE_CACHE_SIZE", 10000),
+            getIntEnv("POLARIS_ISSUE_TYPE_CACHE_TTL_MINUTES", 24 * 60), TimeUnit.MINUTES);
+
+    /**
+     * When true, Code Dx findings are parsed straight off the response stream and handled one at a time instead of
+     * loading the whole findings table into memory first
+     */
+    private static final boolean CODEDX_STREAM_FINDINGS = Boolean.parseBoolean(System.getenv("CODEDX_STREAM_FINDINGS"));
+
+    private static int getIntEnv(String name, int defaultValue) {
+        String value = System.getenv(name);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        return Integer.parseInt(value.trim());
+    }
+
+    /**
+     * How long before the Polaris JWT expires that it is refreshed in the background
+     */
+    private static final int POLARIS_TOKEN_REFRESH_MARGIN_SECONDS = getIntEnv("POLARIS_TOKEN_REFRESH_MARGIN_SECONDS",
+            120);
+
+    @Bean
+    public PolarisTokenManager polarisTokenManager(RestTemplate restTemplate) {
+        return new PolarisTokenManager(() -> authenticateToPolaris(restTemplate),
+                TimeUnit.SECONDS.toMillis(POLARIS_TOKEN_REFRESH_MARGIN_SECONDS));
+    }
+
+    /**
+     * Every finding goes through a writer thread, so the harvest never waits on logging or file I/O.  The NDJSON and
+     * CSV files are reopened for each run, so a daemon's file holds its latest run rather than every run appended
+     */
+    @Bean
+    public FindingSink findingSink(HarvestProperties harvestProperties) {
+        HarvestProperties.Output output = harvestProperties.getOutput();
+        int bufferSize = (int) output.getBufferSize().toBytes();
+        FindingSink sink;
+        switch (output.getFormat()) {
+            case NDJSON:
+                sink = new PerRunFindingSink(() -> new NdjsonFindingSink(outputFile(output, "findings.ndjson"),
+                        bufferSize));
+                break;
+            case CSV:
+                sink = new PerRunFindingSink(() -> new CsvFindingSink(outputFile(output, "findings.csv"),
+                        bufferSize));
+                break;
+            default:
+                sink = new LogFindingSink();
+        }
+        HarvestProperties.Store store = harvestProperties.getStore();
+        if (store.isEnabled()) {
+            sink = new TeeFindingSink(sink, new FindingStore(store.getDirectory(), store.getRetainRuns()));
+        }
+        return new AsyncFindingSink(sink, output.getRingCapacity());
+    }
+
+    private static Path outputFile(HarvestProperties.Output output, String defaultName) {
+        return output.getFile() != null ? output.getFile() : Paths.get(defaultName);
+    }
 
     @Bean
-    public CommandLineRunner run(RestTemplate restTemplate) throws Exception {
+    @ConditionalOnProperty(prefix = "harvest", name = "engine", havingValue = "reactive")
+    public ReactiveHarvestEngine reactiveHarvestEngine(WebClient.Builder webClientBuilder,
+                                                       PolarisTokenManager polarisTokenManager,
+                                                       HarvestMetrics harvestMetrics,
+                                                       FindingSink findingSink,
+                                                       HarvestProperties harvestProperties,
+                                                       ObjectProvider<HostRateLimiter> hostRateLimiter) {
+        hostRateLimiter.ifAvailable(limiter -> webClientBuilder.filter(limiter.webClientFilter()));
+        return new ReactiveHarvestEngine(webClientBuilder, polarisTokenManager, harvestMetrics, findingSink,
+                harvestProperties.getReactive(), harvestProperties.getCodeDx(),
+                polarisBaseUrl, codeDxBaseUrl, codeDxPatToken);
+    }
+
+    /**
+     * One harvest of everything configured, run once at start up or on each of the {@code harvest.daemon} schedules.
+     * The same beans and caches serve every run, so later runs start warm
+     */
+    @Bean
+    public HarvestDaemon harvestDaemon(RestTemplate restTemplate, PolarisTokenManager polarisTokenManager,
+                                       PoolingHttpClientConnectionManager httpConnectionManager,
+                                       ObjectProvider<DiskCacheInterceptor> httpCache,
+                                       HarvestProperties harvestProperties,
+                                       ObjectProvider<ReactiveHarvestEngine> reactiveHarvestEngine,
+                                       HarvestMetrics harvestMetrics,
+                                       FindingSink findingSink,
+                                       ObjectProvider<HostRateLimiter> hostRateLimiter,
+                                       MeterRegistry meterRegistry) {
+        HarvestProperties.Discovery discovery = harvestProperties.getDiscovery();
+        ApplicationFilter applicationFilter = new ApplicationFilter(discovery.getInclude(), discovery.getExclude());
+        HarvestDaemon.Pass harvest = mode -> {
+            if (harvestProperties.getEngine() == HarvestProperties.Engine.REACTIVE) {
+                ReactiveHarvestEngine engine = reactiveHarvestEngine.getObject();
+                if (discovery.isEnabled()) {
+                    // the engine's own concurrency settings apply; harvest.discovery.parallelism is for blocking
+                    engine.harvestPolaris(getApplicationIdsPolaris(restTemplate, polarisTokenManager,
+                            applicationFilter));
+                    engine.harvestCodeDx(getCodeDxParentProjectIds(restTemplate, applicationFilter));
+                } else {
+                    engine.harvestPolaris(Collections.singletonList(polarisApplicationId));
+                    engine.harvestCodeDx(Collections.singletonList(codeDxProjectId));
+                }
+                return;
+            }
+
+            polarisReuseUnchanged = mode == HarvestDaemon.Mode.DELTA;
+            if (mode == HarvestDaemon.Mode.BULK) {
+                // revisions of runs from before the last bulk harvest are unlikely to be asked for again
+                polarisRunRevisions.clear();
+            }
+            if (harvestStateFile != null) {
+                harvestState = HarvestStateStore.open(Paths.get(harvestStateFile));
+            }
+            try {
+                /*********************  This is the Polaris section   *************************/
+                Timer.Sample polarisRun = harvestMetrics.start();
+                if (discovery.isEnabled()) {
+                    runPolarisTenant(restTemplate, polarisTokenManager, harvestMetrics, findingSink,
+                            applicationFilter, discovery.getParallelism());
+                } else {
+                    ArrayList<String> polarisApplicationsOfInterest = new ArrayList<>();
+                    polarisApplicationsOfInterest.add(polarisApplicationId);
+                    for (String app : polarisApplicationsOfInterest) {
+                        runPolarisTest(restTemplate, polarisTokenManager, harvestMetrics, findingSink, app);
+                    }
+                }
+                harvestMetrics.recordRun(polarisRun, "polaris");
+                log.info(issueTypeNameCache.toString());
+                if (harvestState != null && polarisReuseUnchanged) {
+                    log.info(polarisFindingsUnchanged.getAndSet(0) + " Polaris findings were unchanged since the "
+                            + "last run and reused their saved results");
+                }
+                if (POLARIS_ISSUE_TYPE_CACHE_FILE != null) {
+                    issueTypeNameCache.saveSnapshot(Paths.get(POLARIS_ISSUE_TYPE_CACHE_FILE));
+                }
+
+
+                /*********************  This is the Code Dx section   *************************/
+                Timer.Sample codeDxRun = harvestMetrics.start();
+                HarvestProperties.CodeDx codeDx = harvestProperties.getCodeDx();
+                boolean swapped = isCodeDxPagingSwapped(restTemplate, codeDx);
+                CodeDxFindingsQuery findingsQuery = codeDx.findingsQuery();
+                log.info(findingsQuery.toString());
+                ExecutorService treePool = Executors.newFixedThreadPool(codeDx.getTreeConcurrency(),
+                        new CustomizableThreadFactory("codedx-tree-"));
+                try {
+                    CodeDxProjectTree tree = new CodeDxProjectTree((parentId, offset, limit) ->
+                            getCodeDxChildProjects(restTemplate, parentId, offset, limit, swapped),
+                            codeDx.getPageSize(), treePool);
+                    if (discovery.isEnabled()) {
+                        runCodeDxTenant(restTemplate, harvestMetrics, findingSink, tree, findingsQuery,
+                                applicationFilter, discovery.getParallelism());
+                    } else {
+                        ArrayList<String> codeDxApplicationsOfInterest = new ArrayList<>();
+                        codeDxApplicationsOfInterest.add(codeDxProjectId);
+                        for (String app : codeDxApplicationsOfInterest) {
+                            runCodeDxTest(restTemplate, harvestMetrics, findingSink, tree, findingsQuery, app);
+                        }
+                    }
+                } finally {
+                    treePool.shutdownNow();
+                }
+                harvestMetrics.recordRun(codeDxRun, "codedx");
+            } finally {
+                if (harvestState != null) {
+                    harvestState.close();
+                    harvestState = null;
+                }
+            }
+        };
+
+        return new HarvestDaemon(mode -> {
+            HarvestMetrics.Snapshot runStart = harvestMetrics.snapshot();
+            try {
+                harvest.run(mode);
+            } finally {
+                // ends the run's output file and store segment even when the run failed part way
+                findingSink.endRun();
+            }
+
+            log.info(findingSink.toString());
+            hostRateLimiter.ifAvailable(limiter -> log.info(limiter.toString()));
+            if (harvestProperties.getEngine() != HarvestProperties.Engine.REACTIVE) {
+                httpCache.ifAvailable(cache -> log.info(cache.toString()));
+                log.info("http connection pool " + httpConnectionManager.getTotalStats());
+                for (HttpRoute route : httpConnectionManager.getRoutes()) {
+                    log.info("http connection pool for " + route.getTargetHost() + " "
+                            + httpConnectionManager.getStats(route));
+                }
+            }
+            harvestMetrics.logSummary(runStart);
+        }, meterRegistry);
+    }
+
+    @Bean
+    public HarvestDaemonEndpoint harvestDaemonEndpoint(HarvestDaemon harvestDaemon) {
+        return new HarvestDaemonEndpoint(harvestDaemon);
+    }
+
+    /**
+     * A thread for each schedule, so that a bulk run waiting for the run in progress does not delay the others
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "harvest.daemon", name = "enabled", havingValue = "true")
+    public ThreadPoolTaskScheduler harvestScheduler(HarvestProperties harvestProperties) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(Math.max(1, harvestProperties.getDaemon().getSchedules().size()));
+        scheduler.setThreadNamePrefix("harvest-schedule-");
+        scheduler.setWaitForTasksToCompleteOnShutdown(true);
+        return scheduler;
+    }
+
+    @Bean
+    public CommandLineRunner run(RestTemplate restTemplate, HarvestProperties harvestProperties,
+                                 HarvestDaemon harvestDaemon,
+                                 ObjectProvider<ThreadPoolTaskScheduler> harvestScheduler) throws Exception {
+        HarvestProperties.Discovery discovery = harvestProperties.getDiscovery();
+        HarvestProperties.Daemon daemon = harvestProperties.getDaemon();
         return args -> {
 
             log.info("#################### Environment Variables ####################");
             StringJoiner sj = new StringJoiner(" ");
             sj
-                    .add("POLARIS_BASE_URL").add(POLARIS_BASE_URL)
-                    .add("CODEDX_BASE_URL").add(CODEDX_BASE_URL)
-                    .add("POLARIS_PAT_TOKEN").add(POLARIS_PAT_TOKEN)
-                    .add("CODEDX_PAT_TOKEN").add(CODEDX_PAT_TOKEN)
-                    .add("POLARIS_APPLICATON_ID").add(POLARIS_APPLICATON_ID)
-                    .add("CODEDX_PROJECT_ID").add(CODEDX_PROJECT_ID);
+                    .add("POLARIS_BASE_URL").add(polarisBaseUrl)
+                    .add("CODEDX_BASE_URL").add(codeDxBaseUrl)
+                    .add("POLARIS_PAT_TOKEN").add(polarisPatToken)
+                    .add("CODEDX_PAT_TOKEN").add(codeDxPatToken)
+                    .add("POLARIS_APPLICATON_ID").add(polarisApplicationId)
+                    .add("CODEDX_PROJECT_ID").add(codeDxProjectId)
+                    .add("POLARIS_ENRICHMENT_PARALLELISM").add(Integer.toString(POLARIS_ENRICHMENT_PARALLELISM))
+                    .add("POLARIS_ISSUE_TYPE_CACHE_FILE").add(String.valueOf(POLARIS_ISSUE_TYPE_CACHE_FILE))
+                    .add("CODEDX_STREAM_FINDINGS").add(Boolean.toString(CODEDX_STREAM_FINDINGS))
+                    .add("HARVEST_STATE_FILE").add(String.valueOf(harvestStateFile))
+                    .add("harvest.engine").add(harvestProperties.getEngine().toString())
+                    .add("harvest.discovery.enabled").add(Boolean.toString(discovery.isEnabled()))
+                    .add("harvest.daemon.enabled").add(Boolean.toString(daemon.isEnabled()));
 
             log.info(sj.toString());
+            if (harvestProperties.isStartupOnly()) {
+                return;
+            }
 
             /*********************  Quick xkcd test   *************************/
             XKCD quote = restTemplate.getForObject(
@@ -89,171 +422,520 @@ public class ConsumingRestApplication {
             log.info(quote.toString());
 
 
-            /*********************  This is the Polaris section   *************************/
-            ArrayList<String> polarisApplicationsOfInterest = new ArrayList<>();
-            polarisApplicationsOfInterest.add(POLARIS_APPLICATON_ID);
-            for (String app : polarisApplicationsOfInterest) {
-                runPolarisTest(restTemplate, app);
+            // loaded once, since in daemon mode the cache stays warm between runs
+            if (POLARIS_ISSUE_TYPE_CACHE_FILE != null) {
+                issueTypeNameCache.loadSnapshot(Paths.get(POLARIS_ISSUE_TYPE_CACHE_FILE));
             }
 
-
-            /*********************  This is the Code Dx section   *************************/
-            ArrayList<String> codeDxApplicationsOfInterest = new ArrayList<>();
-            codeDxApplicationsOfInterest.add(CODEDX_PROJECT_ID);
-            for (String app : codeDxApplicationsOfInterest) {
-                runCodeDxTest(restTemplate, app);
+            if (daemon.isEnabled()) {
+                harvestDaemon.start(harvestScheduler.getObject(), daemon.getSchedules(), daemon.getZone());
+                return;
+            }
+            harvestDaemon.runNow("once", HarvestDaemon.Mode.DELTA);
+            HarvestDaemon.Run once = harvestDaemon.getLastRuns().get("once");
+            if (once.getStatus() == HarvestDaemon.Status.FAILED) {
+                throw new IllegalStateException("harvest failed: " + once.getError());
             }
-
         };
     }
 
-    private void runPolarisTest(RestTemplate restTemplate, String appId) {
+    private void runPolarisTest(RestTemplate restTemplate, PolarisTokenManager tokens, HarvestMetrics metrics,
+                                FindingSink findings, String appId) {
         log.info("#################### Starting Polaris Tests ####################");
-        // authenticate
-        String jwt = authenticateToPolaris(restTemplate);
 
-        JSONObject severityTaxonomy = getSeverityTaxonomyPolaris(restTemplate, jwt);
-        HashMap<String, String> issueTypeNameToSeverity = new LinkedHashMap<>();
-        // build a hash map first time through
-        JSONArray taxas = severityTaxonomy.getJSONObject("taxonomy").getJSONArray("taxa");
-        for (int j = 0; j < taxas.length(); j++) {
-            JSONObject tax = taxas.getJSONObject(j);
-            JSONArray issue_types = tax.getJSONArray("issue-types");
-            String issueSeverity = tax.getString("id");
-            for (int k = 0; k < issue_types.length(); k++) {
-                issueTypeNameToSeverity.put(issue_types.getString(k), issueSeverity);
+        JSONObject severityTaxonomy = getSeverityTaxonomyPolaris(restTemplate, tokens);
+        Map<String, String> issueTypeNameToSeverity = getIssueTypeSeveritiesPolaris(severityTaxonomy);
+
+        List<String> projectURLs = getApplicationProjectIdsPolaris(restTemplate, tokens, appId);
+
+        // with a parallelism of 1 the lookups run inline on this thread, exactly as before
+        ExecutorService enrichmentPool = newEnrichmentPoolPolaris();
+        Executor enrichmentExecutor = enrichmentPool != null ? enrichmentPool : Runnable::run;
+        // fetches the next page of issues while the current page is being enriched
+        ExecutorService prefetchPool = Executors.newSingleThreadExecutor(new CustomizableThreadFactory(
+                "polaris-prefetch-"));
+
+        try {
+            for (String projId : projectURLs) {
+                harvestProjectPolaris(restTemplate, tokens, metrics, findings, issueTypeNameToSeverity,
+                        enrichmentExecutor, prefetchPool, appId, projId);
+            }
+        } finally {
+            if (enrichmentPool != null) {
+                enrichmentPool.shutdownNow();
             }
+            prefetchPool.shutdownNow();
         }
 
-        AppAndProjectsPolaris aAndP = getApplicationProjectsPolaris(restTemplate, jwt, appId);
-        JSONArray projectData = aAndP.projectList;
-        String appName = aAndP.appName;
-        log.info("fetching projects for application " + appId + " name " + appName);
-        ArrayList<String> projectURLs = getProjectURLsPolaris(projectData);
+    }
 
-        for (String projId : projectURLs) {
-            String branchId = getProjectDefaultBranchPolaris(restTemplate, jwt, projId);
-            String projectName = getProjectNamePolaris(restTemplate, jwt, projId);
+    /**
+     * Harvest every application in the tenant that the filter lets through.  Each project is a task on a
+     * {@link WorkStealingHarvest}, so a few very large applications are spread over every worker rather than
+     * holding up the end of the run
+     *
+     * @param restTemplate
+     * @param tokens
+     * @param metrics
+     * @param findings
+     * @param filter      chooses the applications to harvest
+     * @param parallelism the most projects harvested at the same time
+     */
+    private void runPolarisTenant(RestTemplate restTemplate, PolarisTokenManager tokens, HarvestMetrics metrics,
+                                  FindingSink findings, ApplicationFilter filter, int parallelism) {
+        log.info("#################### Starting Polaris Tenant Harvest ####################");
+
+        JSONObject severityTaxonomy = getSeverityTaxonomyPolaris(restTemplate, tokens);
+        Map<String, String> issueTypeNameToSeverity = getIssueTypeSeveritiesPolaris(severityTaxonomy);
+
+        List<String> applicationIds = getApplicationIdsPolaris(restTemplate, tokens, filter);
+        log.info("harvesting " + applicationIds.size() + " Polaris applications");
+
+        // the enrichment pool is shared, so POLARIS_ENRICHMENT_PARALLELISM caps lookups across all projects
+        ExecutorService enrichmentPool = newEnrichmentPoolPolaris();
+        Executor enrichmentExecutor = enrichmentPool != null ? enrichmentPool : Runnable::run;
+        // one prefetch thread for each project that can be harvested at once
+        ExecutorService prefetchPool = Executors.newFixedThreadPool(parallelism, new CustomizableThreadFactory(
+                "polaris-prefetch-"));
+
+        try (WorkStealingHarvest harvest = new WorkStealingHarvest(parallelism, "polaris-harvest-")) {
+            harvest.run("polaris", applicationIds,
+                    (appId, found) -> getApplicationProjectIdsPolaris(restTemplate, tokens, appId).forEach(found),
+                    (appId, projId) -> harvestProjectPolaris(restTemplate, tokens, metrics, findings,
+                            issueTypeNameToSeverity, enrichmentExecutor, prefetchPool, appId, projId));
+            log.info(harvest.toString());
+        } finally {
+            if (enrichmentPool != null) {
+                enrichmentPool.shutdownNow();
+            }
+            prefetchPool.shutdownNow();
+        }
+    }
 
-            if (branchId != null) {
-                log.info("fetching issues for project " + projId + " name " + projectName);
-                JSONObject issues = getIssuesPolaris(restTemplate, jwt, projId, branchId);
+    /**
+     * @return a pool of {@link #POLARIS_ENRICHMENT_PARALLELISM} threads, or null when the lookups should run inline
+     */
+    private static ExecutorService newEnrichmentPoolPolaris() {
+        return POLARIS_ENRICHMENT_PARALLELISM > 1
+                ? Executors.newFixedThreadPool(POLARIS_ENRICHMENT_PARALLELISM, new CustomizableThreadFactory(
+                "polaris-enrich-"))
+                : null;
+    }
 
-                JSONArray issueData = issues.getJSONArray("data");
-                for (int i = 0; i < issueData.length(); i++) {
-                    JSONObject finding = issueData.getJSONObject(i);
+    /**
+     * Report every issue on the default branch of one Polaris project.  Safe to call for several projects at once
+     *
+     * @param restTemplate
+     * @param tokens
+     * @param metrics
+     * @param findings
+     * @param issueTypeNameToSeverity lookup built from the severity taxonomy
+     * @param enrichmentExecutor      runs the per-issue lookups
+     * @param prefetchPool            fetches the next page of issues while the current page is being enriched
+     * @param appId                   unique identifier for the Application in Polaris
+     * @param projId                  unique identifier for the Project in Polaris
+     */
+    private void harvestProjectPolaris(RestTemplate restTemplate, PolarisTokenManager tokens, HarvestMetrics metrics,
+                                       FindingSink findings, Map<String, String> issueTypeNameToSeverity,
+                                       Executor enrichmentExecutor, Executor prefetchPool, String appId,
+                                       String projId) {
+        String branchId = getProjectDefaultBranchPolaris(restTemplate, tokens, projId);
+        String projectName = getProjectNamePolaris(restTemplate, tokens, projId);
+
+        if (branchId != null) {
+            log.info("fetching issues for project " + projId + " name " + projectName);
+            Map<String, JSONObject> triageByIssueKey = getProjectTriagePolaris(restTemplate, tokens, projId);
+            boolean triagePreloaded = triageByIssueKey != null;
+            if (!triagePreloaded) {
+                triageByIssueKey = new ConcurrentHashMap<>();
+            }
 
-                    String issueTypeId = finding.getJSONObject("relationships").getJSONObject("issue-type")
-                            .getJSONObject("data").getString("id");
+            PolarisPager issuePages = getIssuesPolaris(restTemplate, tokens, projId, branchId, prefetchPool);
+            // issue id -> latest run id, resolved into approval links once the project is done
+            Map<String, String> pendingApprovals = new LinkedHashMap<>();
+
+            while (issuePages.hasNext()) {
+                List<PolarisIssue> issueData = FindingParsers.polarisIssues(issuePages.next(),
+                        issuePages.getIncluded());
+                for (PolarisIssue finding : issueData) {
+                    // a run side-loaded with its revision needs no lookup when approvals are logged
+                    if (finding.getLatestRunRevisionId() != null) {
+                        polarisRunRevisions.putIfAbsent(finding.getLatestRunId(), finding.getLatestRunRevisionId());
+                    }
+                }
+                // triage is part of every issue's fingerprint, so in incremental mode too it is needed up front
+                if (!triagePreloaded) {
+                    prefetchTriagePolaris(restTemplate, tokens, projId, issueData, enrichmentExecutor,
+                            triageByIssueKey);
+                }
 
-                    String latestRunId = finding.getJSONObject("relationships").getJSONObject("latest-observed-on-run").getJSONObject("data").getString("id");
+                Map<String, JSONObject> triage = triageByIssueKey;
+                List<FutureTask<PolarisFindingResult>> pending = new ArrayList<>(issueData.size());
+                List<String> fingerprints = new ArrayList<>(issueData.size());
+                for (PolarisIssue finding : issueData) {
+                    FutureTask<PolarisFindingResult> task = new FutureTask<>(() -> enrichFindingPolaris(
+                            restTemplate, tokens, issueTypeNameToSeverity, triage, projId, branchId,
+                            finding));
+
+                    String fingerprint = null;
+                    if (harvestState != null) {
+                        fingerprint = fingerprintPolaris(finding, triage);
+                        PolarisFindingResult unchanged = polarisReuseUnchanged
+                                ? getUnchangedFindingPolaris(projId, finding, fingerprint) : null;
+                        if (unchanged != null) {
+                            task = new FutureTask<>(() -> unchanged);
+                            task.run();
+                            fingerprint = null;
+                            polarisFindingsUnchanged.incrementAndGet();
+                        }
+                    }
+                    fingerprints.add(fingerprint);
 
-                    String issueTypeName = getIssueTypeNamePolaris(restTemplate, jwt, issueTypeId);
+                    if (!task.isDone()) {
+                        enrichmentExecutor.execute(task);
+                    }
+                    pending.add(task);
+                }
 
-                    String issueSeverity = issueTypeNameToSeverity.getOrDefault(issueTypeName, "Unknown");
+                // results are reported in issue order regardless of which lookups finish first
+                for (int i = 0; i < pending.size(); i++) {
+                    PolarisFindingResult result = awaitTask(pending.get(i), pending);
+                    if (fingerprints.get(i) != null) {
+                        harvestState.put(polarisStateKey(projId, issueData.get(i)),
+                                fingerprints.get(i) + "\t" + result.toJson());
+                    }
+                    if (result.approvalRunId != null) {
+                        pendingApprovals.put(result.finding.getId(), result.approvalRunId);
+                    }
+                    findings.accept("polaris", appId, projId, result.finding);
+                    metrics.findingProcessed("polaris");
+                }
+            }
 
+            logDismissalApprovalsPolaris(restTemplate, tokens, projId, branchId, pendingApprovals,
+                    enrichmentExecutor);
+        }
+    }
 
-                    String type = "Static Analysis";
+    /**
+     * Performs the per-issue lookups (issue type, deep data and triage) for a single finding, skipping the ones that
+     * were answered by resources side-loaded with the issue.  Safe to call from multiple threads at once.
+     *
+     * @param restTemplate
+     * @param tokens
+     * @param issueTypeNameToSeverity lookup built from the severity taxonomy
+     * @param triageByIssueKey        triage data already loaded for the project.  Issues missing from it are looked
+     *                                up individually
+     * @param projId                  unique identifier for the Project in Polaris
+     * @param branchId                unique identifier for the Branch in Polaris
+     * @param finding                 an issue returned by the issues query
+     * @return everything needed to report on the finding
+     */
+    private PolarisFindingResult enrichFindingPolaris(RestTemplate restTemplate, PolarisTokenManager tokens,
+                                                      Map<String, String> issueTypeNameToSeverity,
+                                                      Map<String, JSONObject> triageByIssueKey, String projId,
+                                                      String branchId, PolarisIssue finding) {
+        String issueTypeName = issueTypeNameCache.get(finding.getIssueTypeId(),
+                id -> finding.getIssueTypeName() != null ? finding.getIssueTypeName()
+                        : getIssueTypeNamePolaris(restTemplate, tokens, id));
+
+        String issueSeverity = issueTypeNameToSeverity.getOrDefault(issueTypeName, "Unknown");
+
+
+        String type = "Static Analysis";
+
+        Instant mostRecentOpen;
+        if (finding.isTransitionsIncluded()) {
+            mostRecentOpen = finding.getMostRecentOpen();
+        } else {
+            PolarisIssueDetail issueDeepData = getIssueDeepDataPolaris(restTemplate, tokens, finding.getId(), projId,
+                    branchId);
+            mostRecentOpen = FindingParsers.mostRecentOpen(issueDeepData);
+        }
 
-                    JSONObject issueDeepData = getIssueDeepDataPolaris(restTemplate, jwt, finding.getString("id"),
-                            projId, branchId);
-                    Date mostRecentOpen = getMostRecentOpenDatePolaris(issueDeepData);
+        String issueKey = finding.getIssueKey();
+        JSONObject triageStatus = triageByIssueKey.get(issueKey);
+        if (triageStatus == null) {
+            triageStatus = getTriageDataPolaris(restTemplate, tokens, projId, issueKey);
+        }
 
-                    JSONObject triageStatus = getTriageDataPolaris(restTemplate, jwt, projId, finding.getJSONObject(
-                            "attributes").getString("issue-key"));
+        String dismissalStatus = getDismissalStatusPolaris(triageStatus);
 
-                    String dismissalStatus;
-                    try {
-                        dismissalStatus = triageStatus.getJSONObject("data").getJSONObject("attributes").getString("dismissal-status");
-                    } catch (JSONException e) {
-                        dismissalStatus = "";
-                    }
+        // the approval link needs the revision of the latest run, which is resolved once per run at the end of the
+        // project rather than once per issue here
+        String approvalRunId = dismissalStatus.equals("REQUESTED") ? finding.getLatestRunId() : null;
 
-                    if (dismissalStatus.equals("REQUESTED")) {
-                        JSONObject runInfo = getRunInfoPolaris(restTemplate, jwt, latestRunId);
+        String status = getTriageStatusPolaris(triageStatus);
 
-                        String revId = runInfo.getJSONObject("data").getJSONObject("relationships").getJSONObject("revision").getJSONObject("data").getString("id");
+        return new PolarisFindingResult(new Finding(finding.getId(), issueTypeName, type, issueSeverity,
+                mostRecentOpen, status), approvalRunId);
+    }
 
-                        String approvalReviewUrl = POLARIS_BASE_URL
-                                + "/projects/" + projId
-                                + "/branches/" + branchId
-                                + "/revisions/" + revId
-                                + "/issues/" + finding.getString("id");
+    /**
+     * Log the review link for every issue in a project whose dismissal is awaiting approval.  Each distinct run is
+     * looked up only once, concurrently, and run revisions are cached for the rest of the process since a run never
+     * changes after it completes.
+     *
+     * @param restTemplate
+     * @param tokens
+     * @param projId           unique identifier for the Project in Polaris
+     * @param branchId         unique identifier for the Branch in Polaris
+     * @param pendingApprovals issue id to latest run id, in the order the issues were reported
+     * @param executor         runs the run lookups
+     */
+    private void logDismissalApprovalsPolaris(RestTemplate restTemplate, PolarisTokenManager tokens, String projId,
+                                              String branchId, Map<String, String> pendingApprovals,
+                                              Executor executor) {
+        if (pendingApprovals.isEmpty()) {
+            return;
+        }
 
-                        log.info("This issue requires dismissal approval.  Please visit the following link to approve " + approvalReviewUrl);
-                    }
+        Map<String, FutureTask<String>> lookups = new LinkedHashMap<>();
+        for (String runId : pendingApprovals.values()) {
+            if (!polarisRunRevisions.containsKey(runId) && !lookups.containsKey(runId)) {
+                FutureTask<String> task = new FutureTask<>(() -> getRevisionIdPolaris(getRunInfoPolaris(restTemplate,
+                        tokens, runId)));
+                executor.execute(task);
+                lookups.put(runId, task);
+            }
+        }
 
-                    String status = getTriageStatusPolaris(triageStatus);
+        List<FutureTask<String>> pending = new ArrayList<>(lookups.values());
+        for (Map.Entry<String, FutureTask<String>> lookup : lookups.entrySet()) {
+            polarisRunRevisions.put(lookup.getKey(), awaitTask(lookup.getValue(), pending));
+        }
 
-                    logFindingInfo(finding.getString("id"), issueTypeName, type, issueSeverity, mostRecentOpen, status);
+        for (Map.Entry<String, String> approval : pendingApprovals.entrySet()) {
+            String revId = polarisRunRevisions.get(approval.getValue());
+            logDismissalApprovalPolaris(polarisBaseUrl, projId, branchId, revId, approval.getKey());
+        }
+    }
 
-                }
+    static void logDismissalApprovalPolaris(String polarisBaseUrl, String projId, String branchId, String revId,
+                                            String issueId) {
+        String approvalReviewUrl = polarisBaseUrl
+                + "/projects/" + projId
+                + "/branches/" + branchId
+                + "/revisions/" + revId
+                + "/issues/" + issueId;
+
+        log.info("This issue requires dismissal approval.  Please visit the following link to approve " + approvalReviewUrl);
+    }
+
+    /**
+     * Waits for one of a batch of tasks.  If it failed, the remaining tasks in the batch are cancelled and the failure
+     * is rethrown so the run aborts just as it would have when the lookups ran one after another
+     *
+     * @param task    the task to wait on
+     * @param pending every task in the batch
+     * @return the task's result
+     */
+    private <T> T awaitTask(FutureTask<T> task, List<? extends Future<?>> pending) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.forEach(t -> t.cancel(true));
+            throw new IllegalStateException("interrupted while waiting for Polaris lookups", e);
+        } catch (ExecutionException e) {
+            pending.forEach(t -> t.cancel(true));
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
             }
+            throw new IllegalStateException("Polaris lookup failed", cause);
+        }
+    }
 
+    private static String polarisStateKey(String projId, PolarisIssue finding) {
+        return "polaris:" + projId + ":" + finding.getIssueKey();
+    }
+
+    /**
+     * An issue only needs its lookups repeated when it was seen on a newer run or its triage changed, so its current
+     * triage values are part of the fingerprint.  Triage comes from the bulk query, or from per-issue requests when
+     * that is not available; an issue with no triage at all falls back to its own attributes.
+     *
+     * @param finding an issue returned by the issues query
+     * @param triage  triage data loaded for the project's issues so far, keyed by issue key
+     * @return fingerprint of the issue key, latest run and triage revision
+     */
+    private static String fingerprintPolaris(PolarisIssue finding, Map<String, JSONObject> triage) {
+        String issueKey = finding.getIssueKey();
+        String latestRunId = finding.getLatestRunId();
+
+        Object triageRevision;
+        JSONObject triageData = triage.get(issueKey);
+        if (triageData != null) {
+            triageRevision = triageData.getJSONObject("data").opt("attributes");
+        } else {
+            triageRevision = finding.getAttributes();
         }
 
+        return issueKey + "|" + latestRunId + "|" + HarvestStateStore.digest(triageRevision);
     }
 
-    private void runCodeDxTest(RestTemplate restTemplate, String appId) {
-        log.info("#################### Starting CodeDx Tests ####################");
+    /**
+     * @return the result saved on an earlier run if the issue's fingerprint has not changed since, otherwise null
+     */
+    private PolarisFindingResult getUnchangedFindingPolaris(String projId, PolarisIssue finding, String fingerprint) {
+        String saved = harvestState.get(polarisStateKey(projId, finding));
+        if (saved == null || !saved.startsWith(fingerprint + "\t")) {
+            return null;
+        }
+        return PolarisFindingResult.fromJson(new JSONObject(saved.substring(fingerprint.length() + 1)));
+    }
 
-        JSONArray r_json = getCodeDxChildProject(restTemplate, appId);
+    private void runCodeDxTest(RestTemplate restTemplate, HarvestMetrics metrics, FindingSink findings,
+                               CodeDxProjectTree tree, CodeDxFindingsQuery query, String appId)
+            throws InterruptedException {
+        log.info("#################### Starting CodeDx Tests ####################");
 
         String appName = getCodeDxProjectName(restTemplate, appId);
         log.info("fetching projects for application " + appId + " name " + appName);
 
+        // each project is harvested as soon as the walk finds it, while the rest of the tree is still being queried
+        BlockingQueue<CodeDxProjectTree.Project> discovered = new LinkedBlockingQueue<>();
+        CodeDxProjectTree.Project end = new CodeDxProjectTree.Project(-1, null, -1);
+        CompletableFuture<Integer> walk = tree.walkAsync(Integer.parseInt(appId), discovered::add);
+        walk.whenComplete((count, e) -> discovered.add(end));
 
-        for (int i = 0; i < r_json.length(); i++) {
-            JSONObject proj = r_json.getJSONObject(i);
-            Integer p_id = (Integer) proj.get("id");
-            String p_name = proj.getString("name");
-
-            log.info("fetching all subfindings for project " + p_id + " with name " + p_name);
-
-
-            JSONArray findingsArray = getCodeDxFindingsForProject(restTemplate, Integer.toString(p_id));
+        for (CodeDxProjectTree.Project proj = discovered.take(); proj != end; proj = discovered.take()) {
+            harvestProjectCodeDx(restTemplate, metrics, findings, query, appId, proj.getId(), proj.getName());
+        }
+        log.info("harvested " + walk.join() + " projects for application " + appId);
+    }
 
-            for (int j = 0; j < findingsArray.length(); j++) {
-                JSONObject finding = findingsArray.getJSONObject(j);
+    /**
+     * Harvest every parent project in the tenant that the filter lets through, with each project below it a task on a
+     * {@link WorkStealingHarvest}
+     *
+     * @param restTemplate
+     * @param metrics
+     * @param findings
+     * @param tree        walks the projects below each parent
+     * @param query       the findings to request from each project
+     * @param filter      chooses the parent projects to harvest
+     * @param parallelism the most projects harvested at the same time
+     */
+    private void runCodeDxTenant(RestTemplate restTemplate, HarvestMetrics metrics, FindingSink findings,
+                                 CodeDxProjectTree tree, CodeDxFindingsQuery query, ApplicationFilter filter,
+                                 int parallelism) {
+        log.info("#################### Starting CodeDx Tenant Harvest ####################");
+
+        List<String> parentIds = getCodeDxParentProjectIds(restTemplate, filter);
+        log.info("harvesting " + parentIds.size() + " Code Dx parent projects");
+
+        Map<String, String> childNames = new ConcurrentHashMap<>();
+        try (WorkStealingHarvest harvest = new WorkStealingHarvest(parallelism, "codedx-harvest-")) {
+            harvest.run("codedx", parentIds, (appId, found) -> {
+                int count = tree.walk(Integer.parseInt(appId), proj -> {
+                    String childId = Integer.toString(proj.getId());
+                    childNames.put(childId, proj.getName());
+                    found.accept(childId);
+                });
+                log.info("found " + count + " projects for application " + appId);
+            }, (appId, childId) -> harvestProjectCodeDx(restTemplate, metrics, findings, query, appId,
+                    Integer.parseInt(childId), childNames.get(childId)));
+            log.info(harvest.toString());
+        }
+    }
 
+    /**
+     * Report every finding in one Code Dx project that the query asks for.  Safe to call for several projects at once
+     *
+     * @param restTemplate
+     * @param metrics
+     * @param findings
+     * @param query        the findings to request, a page at a time
+     * @param appId        unique identifier for the parent Project in Code Dx
+     * @param p_id         unique identifier for the Project in Code Dx
+     * @param p_name       the Project's name
+     */
+    private void harvestProjectCodeDx(RestTemplate restTemplate, HarvestMetrics metrics, FindingSink findings,
+                                      CodeDxFindingsQuery query, String appId, int p_id, String p_name) {
+        log.info("fetching all subfindings for project " + p_id + " with name " + p_name);
 
-                String severity = finding.getJSONObject("severity").getString("name");
-                String toolCategory = finding.getJSONObject("detectionMethod").getString("name");
-                String firstSeenDateString = finding.getString("firstSeenOn");
-                int findingId = finding.getInt("id");
-                String type = finding.getJSONObject("descriptor").getString("name");
-                String status = finding.getString("statusName");
 
+        int[] delta = new int[2];
+        // one copy of the project id for every finding in the project
+        String projectId = Integer.toString(p_id);
+        Consumer<CodeDxFinding> handler = finding -> {
+            if (harvestState != null) {
+                delta[recordCodeDxFinding(p_id, finding) ? 0 : 1]++;
+            }
+            handleCodeDxFinding(finding, appId, projectId, findings);
+            metrics.findingProcessed("codedx");
+        };
 
-                DateFormat mdyDf = new SimpleDateFormat("MM/dd/yyyy");
-                try {
-                    Date firstSeenDate = mdyDf.parse(firstSeenDateString);
-                    logFindingInfo(Integer.toString(findingId), type, toolCategory, severity, firstSeenDate, status);
-                } catch (ParseException e) {
-                    log.error("failed to parse date");
+        CodeDxFindingsQuery.Paging paging = query.paging();
+        Consumer<CodeDxFinding> pageHandler = finding -> {
+            if (paging.accept(finding.getId())) {
+                handler.accept(finding);
+            }
+        };
+        do {
+            String body = paging.nextBody();
+            if (CODEDX_STREAM_FINDINGS) {
+                streamCodeDxFindingsForProject(restTemplate, Integer.toString(p_id), body, pageHandler);
+            } else {
+                JSONArray findingsArray = getCodeDxFindingsForProject(restTemplate, Integer.toString(p_id), body);
+
+                for (int j = 0; j < findingsArray.length(); j++) {
+                    pageHandler.accept(CodeDxFinding.fromJson(findingsArray.getJSONObject(j)));
                 }
             }
+        } while (paging.hasMore());
+        if (paging.isRepeated()) {
+            log.warn("Code Dx answered page " + paging.getPage() + " of project " + p_id
+                    + " with the page before it, so it ignores paging; stopped there");
+        }
 
+        if (harvestState != null) {
+            log.info("project " + p_id + " has " + delta[0] + " new or changed findings and " + delta[1]
+                    + " unchanged since the last run");
+        }
+    }
+
+    /**
+     * Save the finding's id and status to the harvest state
+     *
+     * @return true if the finding is new or its status changed since the last run
+     */
+    private boolean recordCodeDxFinding(int projectId, CodeDxFinding finding) {
+        String key = "codedx:" + projectId + ":" + finding.getId();
+        String fingerprint = finding.getId() + "|" + finding.getStatusName();
+        boolean changed = !fingerprint.equals(harvestState.get(key));
+        if (changed) {
+            harvestState.put(key, fingerprint);
+        }
+        return changed;
+    }
 
+    static void handleCodeDxFinding(CodeDxFinding finding, String appId, String projectId, FindingSink findings) {
+        Finding parsed = FindingParsers.codeDxFinding(finding);
+        if (parsed != null) {
+            findings.accept("codedx", appId, projectId, parsed);
         }
     }
 
-    private void logFindingInfo(String findingId, String type, String toolCategory, String severity,
-                                Date firstSeenDate, String triage) {
-        DateFormat ymdDf = new SimpleDateFormat("yyyy-MM-dd");
+    private static final DateTimeFormatter FIRST_SEEN_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd")
+            .withZone(ZoneId.systemDefault());
 
-        String fid = findingId;
+    static void logFindingInfo(Finding finding) {
+        String fid = finding.getId();
         if (fid.length() > 4) {
             fid = fid.substring(0, 5) + "...";
         }
-        log.info("Finding number " + fid + " rule " + type
-                + " from " + toolCategory + " with severity " + severity + " first seen "
-                + ymdDf.format(firstSeenDate) + " status " + triage);
+        String firstSeen = finding.getFirstSeen() == null ? "unknown" : FIRST_SEEN_FORMAT.format(finding.getFirstSeen());
+        log.info("Finding number " + fid + " rule " + finding.getRule()
+                + " from " + finding.getToolCategory() + " with severity " + finding.getSeverity() + " first seen "
+                + firstSeen + " status " + finding.getStatus());
     }
 
     /**
      * Uses the Polaris Personal Access Token to obtain a JWT token for further calls.  This token is short-lived, so
-     * you may need to repeat this authentication several times during a long script execution
+     * it is refreshed by the {@link PolarisTokenManager} rather than called directly
      *
      * @param restTemplate
      * @return JWT Token needed for subsequent API calls.  Used as a header as follows {@code headers.set
@@ -263,18 +945,49 @@ public class ConsumingRestApplication {
         HttpHeaders headers = new HttpHeaders();
 
         MultiValueMap<String, String> auth_map = new LinkedMultiValueMap<>();
-        auth_map.add("accesstoken", POLARIS_PAT_TOKEN);
+        auth_map.add("accesstoken", polarisPatToken);
 
         HttpEntity<MultiValueMap<String, String>> request = new HttpEntity<>(auth_map,
                 headers);
 
 
         PolarisAuth auth_response = restTemplate.postForObject(
-                POLARIS_BASE_URL + "/api/auth/v1/authenticate", request, PolarisAuth.class);
+                polarisBaseUrl + "/api/auth/v1/authenticate", request, PolarisAuth.class);
 
         return auth_response.getJwt();
     }
 
+    /**
+     * Send a GET request to Polaris with the current JWT attached.  A 401 response triggers one re-authentication and
+     * retry
+     *
+     * @param restTemplate
+     * @param tokens
+     * @param url           fully built request URL
+     * @param requestEntity request headers and body, without the Authorization header
+     * @return the response with its body as a String
+     */
+    private ResponseEntity<String> exchangePolaris(RestTemplate restTemplate, PolarisTokenManager tokens, String url,
+                                                   HttpEntity<?> requestEntity) {
+        return exchangePolaris(restTemplate, tokens, url, requestEntity, String.class);
+    }
+
+    /**
+     * Like {@link #exchangePolaris(RestTemplate, PolarisTokenManager, String, HttpEntity)}, but binds the response
+     * body straight to {@code responseType} with Jackson, without building an intermediate JSON tree
+     */
+    private <T> ResponseEntity<T> exchangePolaris(RestTemplate restTemplate, PolarisTokenManager tokens, String url,
+                                                  HttpEntity<?> requestEntity, Class<T> responseType) {
+        return tokens.call(jwt -> {
+            HttpHeaders headers = new HttpHeaders();
+            headers.putAll(requestEntity.getHeaders());
+            headers.set("Authorization", "Bearer " + jwt);
+
+            return restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(requestEntity.getBody(), headers),
+                    responseType);
+        });
+    }
+
     static class AppAndProjectsPolaris {
         JSONArray projectList;
         String appName;
@@ -286,16 +999,48 @@ public class ConsumingRestApplication {
 
     }
 
+    static class PolarisFindingResult {
+        Finding finding;
+        String approvalRunId;
+
+        PolarisFindingResult(Finding f, String runId) {
+            finding = f;
+            approvalRunId = runId;
+        }
+
+        JSONObject toJson() {
+            return new JSONObject()
+                    .put("findingId", finding.getId())
+                    .put("issueTypeName", finding.getRule())
+                    .put("type", finding.getToolCategory())
+                    .put("issueSeverity", finding.getSeverity())
+                    .putOpt("mostRecentOpen", finding.getFirstSeen() == null ? null
+                            : finding.getFirstSeen().toEpochMilli())
+                    .put("status", finding.getStatus())
+                    .putOpt("approvalRunId", approvalRunId);
+        }
+
+        static PolarisFindingResult fromJson(JSONObject json) {
+            Instant mostRecentOpen = json.has("mostRecentOpen")
+                    ? Instant.ofEpochMilli(json.getLong("mostRecentOpen")) : null;
+            StringPool pool = StringPool.FINDING_VALUES;
+            return new PolarisFindingResult(new Finding(json.getString("findingId"),
+                    pool.intern(json.getString("issueTypeName")), pool.intern(json.getString("type")),
+                    pool.intern(json.getString("issueSeverity")), mostRecentOpen,
+                    pool.intern(json.getString("status"))), json.optString("approvalRunId", null));
+        }
+
+    }
+
     /**
      * @param restTemplate
-     * @param jwt
+     * @param tokens
      * @param applicationId unique identifier for the Applications in Polaris
      * @return Information about the Application human-readable name and projects that are part of the Application
      */
-    private AppAndProjectsPolaris getApplicationProjectsPolaris(RestTemplate restTemplate, String jwt,
-                                                                String applicationId) {
+    private AppAndProjectsPolaris getApplicationProjectsPolaris(RestTemplate restTemplate,
+                                                                PolarisTokenManager tokens, String applicationId) {
         HttpHeaders headers = new HttpHeaders();
-        headers.set("Authorization", "Bearer " + jwt);
 
         MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
         params.add("application-id", applicationId);
@@ -303,9 +1048,8 @@ public class ConsumingRestApplication {
         HttpEntity<MultiValueMap<String, String>> appRequestEntity =
                 new HttpEntity<>(params, headers);
 
-        ResponseEntity<String> app_response = restTemplate.exchange(
-                POLARIS_BASE_URL + "/api/common/v0/applications/" + applicationId, HttpMethod.GET, appRequestEntity,
-                String.class);
+        ResponseEntity<String> app_response = exchangePolaris(restTemplate, tokens,
+                polarisBaseUrl + "/api/common/v0/applications/" + applicationId, appRequestEntity);
 
         String app_info = app_response.getBody();
         JSONObject json = new JSONObject(app_info);
@@ -317,13 +1061,69 @@ public class ConsumingRestApplication {
         return new AppAndProjectsPolaris(projects_list, appName);
     }
 
+    /**
+     * @param restTemplate
+     * @param tokens
+     * @param applicationId unique identifier for the Application in Polaris
+     * @return the ids of the Application's Projects
+     */
+    private List<String> getApplicationProjectIdsPolaris(RestTemplate restTemplate, PolarisTokenManager tokens,
+                                                         String applicationId) {
+        AppAndProjectsPolaris aAndP = getApplicationProjectsPolaris(restTemplate, tokens, applicationId);
+        log.info("fetching projects for application " + applicationId + " name " + aAndP.appName);
+        return getProjectURLsPolaris(aAndP.projectList);
+    }
+
+    /**
+     * @param restTemplate
+     * @param tokens
+     * @param filter       chooses the Applications to return
+     * @return the ids of every Application in the tenant that the filter lets through
+     */
+    private List<String> getApplicationIdsPolaris(RestTemplate restTemplate, PolarisTokenManager tokens,
+                                                  ApplicationFilter filter) {
+        String url = polarisBaseUrl + "/api/common/v0/applications";
+
+        HttpEntity<MultiValueMap<String, String>> requestEntity =
+                new HttpEntity<>(new LinkedMultiValueMap<>(), new HttpHeaders());
+
+        int pageLimit = 500;
+        PolarisPager pages = new PolarisPager(offset -> {
+            String urlBuilt = UriComponentsBuilder.fromHttpUrl(url)
+                    .queryParam("page[limit]", pageLimit)
+                    .queryParam("page[offset]", offset)
+                    .buildAndExpand()
+                    .toUriString();
+
+            ResponseEntity<String> response = exchangePolaris(restTemplate, tokens, urlBuilt, requestEntity);
+            return new JSONObject(response.getBody());
+        }, pageLimit, null);
+
+        List<String> applicationIds = new ArrayList<>();
+        while (pages.hasNext()) {
+            JSONArray applications = pages.next();
+            for (int i = 0; i < applications.length(); i++) {
+                JSONObject application = applications.getJSONObject(i);
+                String id = application.getString("id");
+                JSONObject attributes = application.optJSONObject("attributes");
+                String name = attributes == null ? null : attributes.optString("name", null);
+                if (filter.test(id, name)) {
+                    applicationIds.add(id);
+                } else {
+                    log.info("skipping application " + id + " name " + name);
+                }
+            }
+        }
+        return applicationIds;
+    }
+
     /**
      * Extract project urls from project data in the API
      *
      * @param projects_list
      * @return list of project urls
      */
-    private ArrayList<String> getProjectURLsPolaris(JSONArray projects_list) {
+    static ArrayList<String> getProjectURLsPolaris(JSONArray projects_list) {
         ArrayList<String> project_urls = new ArrayList<>();
         for (int i = 0; i < projects_list.length(); i++) {
             project_urls.add(projects_list.getJSONObject(i).getString("id"));
@@ -334,13 +1134,12 @@ public class ConsumingRestApplication {
 
     /**
      * @param restTemplate
-     * @param jwt
+     * @param tokens
      * @param projectId    unique identifier for the Project in Polaris
      * @return the human-readable name of the Project in Polaris
      */
-    private String getProjectNamePolaris(RestTemplate restTemplate, String jwt, String projectId) {
+    private String getProjectNamePolaris(RestTemplate restTemplate, PolarisTokenManager tokens, String projectId) {
         HttpHeaders headers = new HttpHeaders();
-        headers.set("Authorization", "Bearer " + jwt);
 
         MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
         params.add("project-id", projectId);
@@ -348,9 +1147,8 @@ public class ConsumingRestApplication {
         HttpEntity<MultiValueMap<String, String>> appRequestEntity =
                 new HttpEntity<>(params, headers);
 
-        ResponseEntity<String> app_response = restTemplate.exchange(
-                POLARIS_BASE_URL + "/api/common/v0/projects/" + projectId, HttpMethod.GET, appRequestEntity,
-                String.class);
+        ResponseEntity<String> app_response = exchangePolaris(restTemplate, tokens,
+                polarisBaseUrl + "/api/common/v0/projects/" + projectId, appRequestEntity);
 
         String app_info = app_response.getBody();
         JSONObject json = new JSONObject(app_info);
@@ -360,44 +1158,49 @@ public class ConsumingRestApplication {
 
     /**
      * @param restTemplate
-     * @param jwt
+     * @param tokens
      * @param projectId    unique identifier for the Project in Polaris
      * @return the unique identifier for the default Branch for this Project in Polaris
      */
-    private String getProjectDefaultBranchPolaris(RestTemplate restTemplate, String jwt, String projectId) {
-        String url = POLARIS_BASE_URL + "/api/common/v0/branches";
+    private String getProjectDefaultBranchPolaris(RestTemplate restTemplate, PolarisTokenManager tokens,
+                                                  String projectId) {
+        String url = polarisBaseUrl + "/api/common/v0/branches";
 
         HttpHeaders proj_headers = new HttpHeaders();
-        proj_headers.set("Authorization", "Bearer " + jwt);
-
-        String urlBuilt = UriComponentsBuilder.fromHttpUrl(url)
-                .queryParam("page[limit]", 500)
-                .queryParam("page[offset]", 0)
-                .queryParam("filter[branch][project][id][$eq]", projectId)
-                .buildAndExpand()
-                .toUriString();
 
         HttpEntity<MultiValueMap<String, String>> projRequestEntity =
                 new HttpEntity<>(new LinkedMultiValueMap<>(), proj_headers);
 
-        ResponseEntity<String> proj_response = restTemplate.exchange(
-                urlBuilt, HttpMethod.GET, projRequestEntity, String.class);
+        int pageLimit = 500;
+        PolarisPager pages = new PolarisPager(offset -> {
+            String urlBuilt = UriComponentsBuilder.fromHttpUrl(url)
+                    .queryParam("page[limit]", pageLimit)
+                    .queryParam("page[offset]", offset)
+                    .queryParam("filter[branch][project][id][$eq]", projectId)
+                    .buildAndExpand()
+                    .toUriString();
+
+            ResponseEntity<String> proj_response = exchangePolaris(restTemplate, tokens,
+                    urlBuilt, projRequestEntity);
 
+            return new JSONObject(proj_response.getBody());
+        }, pageLimit, null);
 
-        String responseString = proj_response.getBody();
-        JSONObject responseJson = new JSONObject(responseString);
         String branchId = null;
         try {
-            JSONArray branches = responseJson.getJSONArray("data");
-            for (int i = 0; i < branches.length(); i++) {
-                JSONObject branch = branches.getJSONObject(i);
-                Boolean isMain = branch.getJSONObject("attributes").getBoolean("main-for-project");
-                if (isMain) {
-                    branchId = branch.getString("id");
-                    break;
+            while (branchId == null && pages.hasNext()) {
+                JSONArray branches = pages.next();
+                for (int i = 0; i < branches.length(); i++) {
+                    JSONObject branch = branches.getJSONObject(i);
+                    Boolean isMain = branch.getJSONObject("attributes").getBoolean("main-for-project");
+                    if (isMain) {
+                        branchId = branch.getString("id");
+                        break;
+                    }
                 }
             }
-        } catch (Exception e) {
+        } catch (JSONException e) {
+            // only a malformed branch is skipped, a failed request fails the run like any other page fetch
             log.error("failed to extract a branch for this project " + projectId);
         }
 
@@ -406,75 +1209,104 @@ public class ConsumingRestApplication {
 
     /**
      * @param restTemplate
-     * @param jwt
+     * @param tokens
      * @param projectId    unique identifier for the Project in Polaris
      * @param branchId     unique identifier for the Branch in Polaris
-     * @return a JSONObject representing the issues retrieved by the API.  The object contains an array of "data"
-     * which is a list of issues
+     * @param prefetch     runs the request for the next page while the current one is processed, or null to fetch
+     *                     pages only when asked for
+     * @return the issues retrieved by the API, one page of the "data" array at a time, with the issue types,
+     * transitions and runs side-loaded with each page
      */
-    private JSONObject getIssuesPolaris(RestTemplate restTemplate, String jwt, String projectId, String branchId) {
-        String issues_url = POLARIS_BASE_URL + "/api/query/v1/issues";
+    private PolarisPager getIssuesPolaris(RestTemplate restTemplate, PolarisTokenManager tokens,
+                                                 String projectId, String branchId, Executor prefetch) {
+        String issues_url = polarisBaseUrl + "/api/query/v1/issues";
 
         HttpHeaders proj_issue_headers = new HttpHeaders();
-        proj_issue_headers.set("Authorization", "Bearer " + jwt);
         proj_issue_headers.set("accept", "application/vnd.api+json");
 
-        String urlBuilt = UriComponentsBuilder.fromHttpUrl(issues_url)
-                .queryParam("project-id", projectId)
-                .queryParam("branch-id", branchId)
-                .queryParam("page[limit]", 1000)
-                .queryParam("page[offset]", 0)
-                .buildAndExpand()
-                .toUriString();
-
         HttpEntity<MultiValueMap<String, String>> projIssueRequestEntity =
                 new HttpEntity<>(new LinkedMultiValueMap<>(), proj_issue_headers);
 
-        ResponseEntity<String> proj_issue_response = restTemplate.exchange(
-                urlBuilt, HttpMethod.GET, projIssueRequestEntity, String.class);
+        int pageLimit = 1000;
+        return new PolarisPager(offset -> {
+            String urlBuilt = UriComponentsBuilder.fromHttpUrl(issues_url)
+                    .queryParam("project-id", projectId)
+                    .queryParam("branch-id", branchId)
+                    .queryParam("include[issue][]", (Object[]) FindingParsers.POLARIS_ISSUE_INCLUDES)
+                    .queryParam("page[limit]", pageLimit)
+                    .queryParam("page[offset]", offset)
+                    .buildAndExpand()
+                    .toUriString();
 
-        String pi_response = proj_issue_response.getBody();
-        return new JSONObject(pi_response);
+            ResponseEntity<String> proj_issue_response = exchangePolaris(restTemplate, tokens,
+                    urlBuilt, projIssueRequestEntity);
+
+            String pi_response = proj_issue_response.getBody();
+            return new JSONObject(pi_response);
+        }, pageLimit, prefetch);
 
     }
 
+    /**
+     * @param severityTaxonomy the severity taxonomy returned by
+     *                         {@link #getSeverityTaxonomyPolaris(RestTemplate, PolarisTokenManager)}
+     * @return severity of each issue type, keyed by human-readable issue type name
+     */
+    static Map<String, String> getIssueTypeSeveritiesPolaris(JSONObject severityTaxonomy) {
+        Map<String, String> issueTypeNameToSeverity = new LinkedHashMap<>();
+        JSONArray taxas = severityTaxonomy.getJSONObject("taxonomy").getJSONArray("taxa");
+        for (int j = 0; j < taxas.length(); j++) {
+            JSONObject tax = taxas.getJSONObject(j);
+            JSONArray issue_types = tax.getJSONArray("issue-types");
+            String issueSeverity = tax.getString("id");
+            for (int k = 0; k < issue_types.length(); k++) {
+                issueTypeNameToSeverity.put(issue_types.getString(k), issueSeverity);
+            }
+        }
+        return issueTypeNameToSeverity;
+    }
+
     /**
      * This object is useful for determining issue severity based on the issue type id/issue name
      *
      * @param restTemplate
-     * @param jwt
+     * @param tokens
      * @return The JSON Object representing the taxonomy that organizes all Polaris detectable issues into a severity
      * category
      */
-    private JSONObject getSeverityTaxonomyPolaris(RestTemplate restTemplate, String jwt) {
-        String url = POLARIS_BASE_URL + "/api/taxonomy/v0/taxonomies";
+    private JSONObject getSeverityTaxonomyPolaris(RestTemplate restTemplate, PolarisTokenManager tokens) {
+        String url = polarisBaseUrl + "/api/taxonomy/v0/taxonomies";
 
         HttpHeaders headers = new HttpHeaders();
-        headers.set("Authorization", "Bearer " + jwt);
         headers.set("Accept", "application/json");
         headers.set("Content-Type", "application/json");
 
-        String urlBuilt = UriComponentsBuilder.fromHttpUrl(url)
-                .queryParam("page[limit]", 1000)
-                .queryParam("page[offset]", 0)
-                .buildAndExpand()
-                .toUriString();
-
-
         HttpEntity<MultiValueMap<String, String>> requestEntity =
                 new HttpEntity<>(new LinkedMultiValueMap<>(), headers);
 
-        ResponseEntity<String> response = restTemplate.exchange(
-                urlBuilt, HttpMethod.GET, requestEntity, String.class);
-
-        String rString = response.getBody();
-        JSONObject rJSON = new JSONObject(rString);
-        JSONArray taxonomies = rJSON.getJSONArray("data");
-        for (int i = 0; i < taxonomies.length(); i++) {
-            JSONObject taxonomy = taxonomies.getJSONObject(i);
-            String type = taxonomy.getString("taxonomy-type");
-            if (type.equals("severity")) {
-                return taxonomy;
+        int pageLimit = 1000;
+        PolarisPager pages = new PolarisPager(offset -> {
+            String urlBuilt = UriComponentsBuilder.fromHttpUrl(url)
+                    .queryParam("page[limit]", pageLimit)
+                    .queryParam("page[offset]", offset)
+                    .buildAndExpand()
+                    .toUriString();
+
+            ResponseEntity<String> response = exchangePolaris(restTemplate, tokens,
+                    urlBuilt, requestEntity);
+
+            String rString = response.getBody();
+            return new JSONObject(rString);
+        }, pageLimit, null);
+
+        while (pages.hasNext()) {
+            JSONArray taxonomies = pages.next();
+            for (int i = 0; i < taxonomies.length(); i++) {
+                JSONObject taxonomy = taxonomies.getJSONObject(i);
+                String type = taxonomy.getString("taxonomy-type");
+                if (type.equals("severity")) {
+                    return taxonomy;
+                }
             }
         }
 
@@ -487,15 +1319,15 @@ public class ConsumingRestApplication {
      * for severity lookup
      *
      * @param restTemplate
-     * @param jwt
+     * @param tokens
      * @param issueTypeId  unique identifier for the issue type
      * @return human-readable issue name
      */
-    private String getIssueTypeNamePolaris(RestTemplate restTemplate, String jwt, String issueTypeId) {
-        String url = POLARIS_BASE_URL + "/api/query/v0/issue-types/" + issueTypeId;
+    private String getIssueTypeNamePolaris(RestTemplate restTemplate, PolarisTokenManager tokens,
+                                           String issueTypeId) {
+        String url = polarisBaseUrl + "/api/query/v0/issue-types/" + issueTypeId;
 
         HttpHeaders headers = new HttpHeaders();
-        headers.set("Authorization", "Bearer " + jwt);
         headers.set("Accept", "application/vnd.api+json");
         headers.set("Content-Type", "application/json");
 
@@ -507,29 +1339,30 @@ public class ConsumingRestApplication {
         HttpEntity<MultiValueMap<String, String>> request =
                 new HttpEntity<>(new LinkedMultiValueMap<>(), headers);
 
-        ResponseEntity<String> response = restTemplate.exchange(
-                urlBuilt, HttpMethod.GET, request, String.class);
+        ResponseEntity<PolarisIssueType> response = exchangePolaris(restTemplate, tokens,
+                urlBuilt, request, PolarisIssueType.class);
 
-        String responseString = response.getBody();
-        JSONObject responseJson = new JSONObject(responseString);
-        return responseJson.getJSONObject("data").getJSONObject("attributes").getString("issue-type-id");
+        String issueTypeName = response.getBody() == null ? null : response.getBody().getName();
+        if (issueTypeName == null) {
+            throw new IllegalStateException("Polaris returned no name for issue type " + issueTypeId);
+        }
+        return issueTypeName;
 
     }
 
     /**
      * @param restTemplate
-     * @param jwt
+     * @param tokens
      * @param issueId      unique identifier for a specific Issue in Polaris
      * @param projectId    unique identifier for a Project in Polaris
      * @param branchId     unique identifier for a Branch in Polaris
      * @return detailed data about the issue, including triage transitions and last detected time
      */
-    private JSONObject getIssueDeepDataPolaris(RestTemplate restTemplate, String jwt, String issueId,
-                                               String projectId, String branchId) {
-        String url = POLARIS_BASE_URL + "/api/query/v1/issues/" + issueId;
+    private PolarisIssueDetail getIssueDeepDataPolaris(RestTemplate restTemplate, PolarisTokenManager tokens,
+                                                       String issueId, String projectId, String branchId) {
+        String url = polarisBaseUrl + "/api/query/v1/issues/" + issueId;
 
         HttpHeaders headers = new HttpHeaders();
-        headers.set("Authorization", "Bearer " + jwt);
         headers.set("Accept", "application/vnd.api+json");
         headers.set("Content-Type", "application/json");
 
@@ -543,60 +1376,26 @@ public class ConsumingRestApplication {
         HttpEntity<MultiValueMap<String, String>> requestEntity =
                 new HttpEntity<>(new LinkedMultiValueMap<>(), headers);
 
-        ResponseEntity<String> response = restTemplate.exchange(
-                urlBuilt, HttpMethod.GET, requestEntity, String.class);
+        ResponseEntity<PolarisIssueDetail> response = exchangePolaris(restTemplate, tokens,
+                urlBuilt, requestEntity, PolarisIssueDetail.class);
 
-        String rString = response.getBody();
-        return new JSONObject(rString);
+        return response.getBody() == null ? new PolarisIssueDetail() : response.getBody();
 
     }
 
-    /**
-     * @param issueDeepData detailed issue data provided by the API
-     * @return most recent date when the issue transitioned to an Open state.  A decent proxy for first seen date.
-     */
-    private Date getMostRecentOpenDatePolaris(JSONObject issueDeepData) {
-        JSONArray included = issueDeepData.getJSONArray("included");
-
-        TreeSet<Date> openDates = new TreeSet<>();
-
-        for (int i = 0; i < included.length(); i++) {
-            JSONObject item = included.getJSONObject(i);
-            String itemType = item.getString("type");
-            if (itemType.equals("transition")) {
-                String transitionType = item.getJSONObject("attributes").getString("transition-type");
-                if (transitionType.equals("opened")) {
-                    TimeZone tz = TimeZone.getTimeZone("UTC");
-                    DateFormat df = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSSSS'Z'"); // Quoted "Z" to
-                    // indicate UTC, no timezone offset
-                    df.setTimeZone(tz);
-                    try {
-                        String dateString = item.getJSONObject("attributes").getString("transition-date");
-                        Date openDate = df.parse(dateString);
-                        openDates.add(openDate);
-                    } catch (ParseException e) {
-                        log.error("couldn't parse date");
-                    }
-                }
-            }
-        }
-
-        return openDates.last();
-    }
-
     /**
      * @param restTemplate
-     * @param jwt
+     * @param tokens
      * @param projectId    unique identifier for a Project in Polaris
      * @param issueKey     another unique identifier for an Issue in a Project
      * @return current triage status data for this Issue
      */
-    private JSONObject getTriageDataPolaris(RestTemplate restTemplate, String jwt, String projectId, String issueKey) {
+    private JSONObject getTriageDataPolaris(RestTemplate restTemplate, PolarisTokenManager tokens, String projectId,
+                                            String issueKey) {
         String url =
-                POLARIS_BASE_URL + "/api/triage/v1/triage-current/" + "project-id:" + projectId + ":issue-key:" + issueKey;
+                polarisBaseUrl + "/api/triage/v1/triage-current/" + "project-id:" + projectId + ":issue-key:" + issueKey;
 
         HttpHeaders headers = new HttpHeaders();
-        headers.set("Authorization", "Bearer " + jwt);
         headers.set("Accept", "application/vnd.api+json");
         headers.set("Content-Type", "application/json");
 
@@ -608,20 +1407,141 @@ public class ConsumingRestApplication {
         HttpEntity<MultiValueMap<String, String>> requestEntity =
                 new HttpEntity<>(new LinkedMultiValueMap<>(), headers);
 
-        ResponseEntity<String> response = restTemplate.exchange(
-                urlBuilt, HttpMethod.GET, requestEntity, String.class);
+        ResponseEntity<String> response = exchangePolaris(restTemplate, tokens,
+                urlBuilt, requestEntity);
 
         String rString = response.getBody();
         return new JSONObject(rString);
     }
 
+    /**
+     * Load the current triage state of every issue in a Project with paged collection queries, instead of one request
+     * per issue.  If the server rejects the collection query, the per-issue endpoint is used for the rest of the run.
+     *
+     * @param restTemplate
+     * @param tokens
+     * @param projectId    unique identifier for a Project in Polaris
+     * @return triage data keyed by issue key, each in the same form returned by
+     * {@link #getTriageDataPolaris(RestTemplate, PolarisTokenManager, String, String)}, or null if it has to be
+     * fetched per issue
+     */
+    private Map<String, JSONObject> getProjectTriagePolaris(RestTemplate restTemplate, PolarisTokenManager tokens,
+                                                            String projectId) {
+        if (!polarisBulkTriageSupported) {
+            return null;
+        }
+
+        String url = polarisBaseUrl + "/api/triage/v1/triage-current";
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Accept", "application/vnd.api+json");
+        headers.set("Content-Type", "application/json");
+
+        HttpEntity<MultiValueMap<String, String>> requestEntity =
+                new HttpEntity<>(new LinkedMultiValueMap<>(), headers);
+
+        int pageLimit = 500;
+        PolarisPager pages = new PolarisPager(offset -> {
+            String urlBuilt = UriComponentsBuilder.fromHttpUrl(url)
+                    .queryParam("filter[triage-current][project-id][$eq]", projectId)
+                    .queryParam("page[limit]", pageLimit)
+                    .queryParam("page[offset]", offset)
+                    .buildAndExpand()
+                    .toUriString();
+
+            ResponseEntity<String> response = exchangePolaris(restTemplate, tokens, urlBuilt, requestEntity);
+            return new JSONObject(response.getBody());
+        }, pageLimit, null);
+
+        Map<String, JSONObject> triageByIssueKey = new ConcurrentHashMap<>();
+        try {
+            while (pages.hasNext()) {
+                JSONArray triageData = pages.next();
+                for (int i = 0; i < triageData.length(); i++) {
+                    JSONObject item = triageData.getJSONObject(i);
+                    triageByIssueKey.put(getTriageIssueKeyPolaris(item), new JSONObject().put("data", item));
+                }
+            }
+        } catch (HttpStatusCodeException e) {
+            if (BULK_TRIAGE_UNSUPPORTED.contains(e.getStatusCode())) {
+                log.warn("bulk triage query not available (" + e.getStatusCode() + "), falling back to per-issue "
+                        + "triage requests");
+                polarisBulkTriageSupported = false;
+            } else {
+                // e.g. a 429 the rate limiter gave up on; the next project tries the bulk query again
+                log.warn("bulk triage query failed (" + e.getStatusCode() + "), falling back to per-issue triage "
+                        + "requests for project " + projectId);
+            }
+            return null;
+        }
+
+        return triageByIssueKey;
+    }
+
+    /**
+     * @param triageItem one item of the triage collection query
+     * @return the key of the issue it belongs to
+     */
+    static String getTriageIssueKeyPolaris(JSONObject triageItem) {
+        String issueKey = triageItem.getJSONObject("attributes").optString("issue-key", null);
+        if (issueKey == null) {
+            // ids look like project-id:<project>:issue-key:<key>
+            String id = triageItem.getString("id");
+            issueKey = id.substring(id.lastIndexOf(':') + 1);
+        }
+        return issueKey;
+    }
+
+    /**
+     * Fetch triage data for a page of issues with concurrent per-issue requests.  Used when the bulk query in
+     * {@link #getProjectTriagePolaris(RestTemplate, PolarisTokenManager, String)} is not available.
+     *
+     * @param restTemplate
+     * @param tokens
+     * @param projectId        unique identifier for a Project in Polaris
+     * @param issueData        a page of issues from the issues query
+     * @param executor         runs the requests
+     * @param triageByIssueKey receives the triage data keyed by issue key
+     */
+    private void prefetchTriagePolaris(RestTemplate restTemplate, PolarisTokenManager tokens, String projectId,
+                                       List<PolarisIssue> issueData, Executor executor,
+                                       Map<String, JSONObject> triageByIssueKey) {
+        Map<String, FutureTask<JSONObject>> requests = new LinkedHashMap<>();
+        for (PolarisIssue issue : issueData) {
+            String issueKey = issue.getIssueKey();
+            if (!triageByIssueKey.containsKey(issueKey) && !requests.containsKey(issueKey)) {
+                FutureTask<JSONObject> task = new FutureTask<>(() -> getTriageDataPolaris(restTemplate, tokens,
+                        projectId, issueKey));
+                executor.execute(task);
+                requests.put(issueKey, task);
+            }
+        }
+
+        List<FutureTask<JSONObject>> pending = new ArrayList<>(requests.values());
+        for (Map.Entry<String, FutureTask<JSONObject>> request : requests.entrySet()) {
+            triageByIssueKey.put(request.getKey(), awaitTask(request.getValue(), pending));
+        }
+    }
+
+    /**
+     * @param triageData current triage data for an Issue
+     * @return the dismissal status, e.g. "REQUESTED", or an empty string if the Issue has none
+     */
+    static String getDismissalStatusPolaris(JSONObject triageData) {
+        try {
+            return triageData.getJSONObject("data").getJSONObject("attributes").getString("dismissal-status");
+        } catch (JSONException e) {
+            return "";
+        }
+    }
+
     /**
      * Parse the triage data from the API call and determine current status
      *
      * @param triageData
      * @return
      */
-    private String getTriageStatusPolaris(JSONObject triageData) {
+    static String getTriageStatusPolaris(JSONObject triageData) {
         String status = "Unknown";
 
         JSONArray triageCurrentValues =
@@ -639,22 +1559,22 @@ public class ConsumingRestApplication {
             }
         }
 
-        return status;
+        // the same few statuses repeat across every issue in the tenant
+        return StringPool.FINDING_VALUES.intern(status);
     }
 
     /**
      *
      * @param restTemplate
-     * @param jwt
+     * @param tokens
      * @param runId unique identifier for the scan run in Polaris
      * @return JSONObject of information about the run
      */
-    private JSONObject getRunInfoPolaris(RestTemplate restTemplate, String jwt, String runId) {
+    private JSONObject getRunInfoPolaris(RestTemplate restTemplate, PolarisTokenManager tokens, String runId) {
         String url =
-                POLARIS_BASE_URL + "/api/common/v0/runs/" + runId;
+                polarisBaseUrl + "/api/common/v0/runs/" + runId;
 
         HttpHeaders headers = new HttpHeaders();
-        headers.set("Authorization", "Bearer " + jwt);
         headers.set("Accept", "application/vnd.api+json");
         headers.set("Content-Type", "application/json");
 
@@ -666,23 +1586,33 @@ public class ConsumingRestApplication {
         HttpEntity<MultiValueMap<String, String>> requestEntity =
                 new HttpEntity<>(new LinkedMultiValueMap<>(), headers);
 
-        ResponseEntity<String> response = restTemplate.exchange(
-                urlBuilt, HttpMethod.GET, requestEntity, String.class);
+        ResponseEntity<String> response = exchangePolaris(restTemplate, tokens,
+                urlBuilt, requestEntity);
 
         String rString = response.getBody();
         return new JSONObject(rString);
     }
 
+    /**
+     * @param runInfo information about a run returned by
+     *                {@link #getRunInfoPolaris(RestTemplate, PolarisTokenManager, String)}
+     * @return unique identifier for the revision the run analyzed
+     */
+    static String getRevisionIdPolaris(JSONObject runInfo) {
+        return runInfo.getJSONObject("data").getJSONObject("relationships").getJSONObject("revision")
+                .getJSONObject("data").getString("id");
+    }
+
     /**
      * @param restTemplate
      * @param projectId    unique identifier for a Project in Code Dx
      * @return The human-readable name for a Project in Code Dx
      */
     private String getCodeDxProjectName(RestTemplate restTemplate, String projectId) {
-        String url = CODEDX_BASE_URL + "/codedx/api/projects/" + projectId;
+        String url = codeDxBaseUrl + "/codedx/api/projects/" + projectId;
 
         HttpHeaders headers = new HttpHeaders();
-        headers.set("Authorization", "Bearer " + CODEDX_PAT_TOKEN);
+        headers.set("Authorization", "Bearer " + codeDxPatToken);
         headers.set("Content-Type", "application/json");
         headers.set("Accept", "application/json");
 
@@ -700,17 +1630,82 @@ public class ConsumingRestApplication {
         return new JSONObject(responseString).getString("name");
     }
 
+    /**
+     * @param restTemplate
+     * @param filter       chooses the parent Projects to return
+     * @return the ids of every top-level Project in Code Dx that the filter lets through
+     */
+    private List<String> getCodeDxParentProjectIds(RestTemplate restTemplate, ApplicationFilter filter) {
+        String url = codeDxBaseUrl + "/codedx/api/projects";
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + codeDxPatToken);
+        headers.set("Accept", "application/json");
+
+        ResponseEntity<String> response = restTemplate.exchange(
+                url, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+
+        JSONArray projects = new JSONObject(response.getBody()).getJSONArray("projects");
+        List<String> parentIds = new ArrayList<>();
+        for (int i = 0; i < projects.length(); i++) {
+            JSONObject project = projects.getJSONObject(i);
+            if (!project.isNull("parentId")) {
+                continue;
+            }
+            String id = Integer.toString(project.getInt("id"));
+            String name = project.optString("name", null);
+            if (filter.test(id, name)) {
+                parentIds.add(id);
+            } else {
+                log.info("skipping parent project " + id + " name " + name);
+            }
+        }
+        return parentIds;
+    }
+
+    /**
+     * Ask the server for its version to decide whether {@code offset} and {@code limit} are swapped in project
+     * queries.  A server that won't say is treated as one that swaps them
+     *
+     * @param restTemplate
+     * @param codeDx       how paging was configured
+     * @return true if project queries should swap {@code offset} and {@code limit}
+     */
+    private boolean isCodeDxPagingSwapped(RestTemplate restTemplate, HarvestProperties.CodeDx codeDx) {
+        String version = null;
+        if (codeDx.getPaging() == CodeDxProjectQuery.Paging.AUTO) {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set("Authorization", "Bearer " + codeDxPatToken);
+            headers.set("Accept", "application/json");
+            try {
+                ResponseEntity<String> response = restTemplate.exchange(
+                        codeDxBaseUrl + CodeDxProjectQuery.SYSTEM_INFO_PATH, HttpMethod.GET,
+                        new HttpEntity<>(headers), String.class);
+                version = CodeDxProjectQuery.version(response.getBody());
+            } catch (RuntimeException e) {
+                log.warn("could not read the Code Dx version, assuming project queries swap offset and limit", e);
+            }
+        }
+        boolean swapped = CodeDxProjectQuery.isSwapped(codeDx.getPaging(), version, codeDx.getSwappedPagingThrough());
+        log.info("Code Dx version " + version + ", paging " + codeDx.getPaging() + ", swapped " + swapped);
+        return swapped;
+    }
+
     /**
      * @param restTemplate
      * @param parentProjectId unique identifier for a parent Project of interest in Code Dx.  Similar to an
      *                        Application in Polaris
-     * @return list of child Projects directly under the parent Project
+     * @param offset          index of the first child on the page
+     * @param limit           the most children on the page
+     * @param swapped         whether the server swaps {@code offset} and {@code limit}
+     * @return one page of the child Projects directly under the parent Project
      */
-    private JSONArray getCodeDxChildProject(RestTemplate restTemplate, String parentProjectId) {
-        String url = CODEDX_BASE_URL + "/codedx/api/projects/query";
+    private JSONArray getCodeDxChildProjects(RestTemplate restTemplate, int parentProjectId, int offset, int limit,
+                                             boolean swapped) {
+        String url = codeDxBaseUrl + "/codedx/api/projects/query";
 
         HttpHeaders headers = new HttpHeaders();
-        headers.set("Authorization", "Bearer " + CODEDX_PAT_TOKEN);
+        headers.set("Authorization", "Bearer " + codeDxPatToken);
         headers.set("Content-Type", "application/json");
         headers.set("Accept", "application/json");
 
@@ -718,10 +1713,8 @@ public class ConsumingRestApplication {
                 .buildAndExpand()
                 .toUriString();
 
-        // TODO: due to a bug offset and limit are logically swapped in the back end as of v2022.1.2.  This will need
-        //  to be swapped back when that is fixed in the API
-        HttpEntity<String> request = new HttpEntity<>("{\"offset\": 100, \"limit\": 0, \"filter\": " +
-                "{\"parentId\": " + parentProjectId + "}}", headers);
+        HttpEntity<String> request = new HttpEntity<>(
+                CodeDxProjectQuery.body(parentProjectId, offset, limit, swapped), headers);
 
         ResponseEntity<String> response = restTemplate.exchange(
                 urlBuilt, HttpMethod.POST, request, String.class);
@@ -733,18 +1726,18 @@ public class ConsumingRestApplication {
     }
 
     /**
-     * Recursively search a project through all children and return a collection of all issues.
-     * TODO: may need to paginate this depending on the size of queries
+     * Return one page of the issues in one project.  Its child projects are harvested on their own
      *
      * @param restTemplate
      * @param projectId
+     * @param query        request body from {@link CodeDxFindingsQuery#body(int)}
      * @return
      */
-    private JSONArray getCodeDxFindingsForProject(RestTemplate restTemplate, String projectId) {
-        String url = CODEDX_BASE_URL + "/codedx/api/projects/" + "d" + projectId + "/findings/table";
+    private JSONArray getCodeDxFindingsForProject(RestTemplate restTemplate, String projectId, String query) {
+        String url = codeDxBaseUrl + "/codedx/api/projects/" + projectId + "/findings/table";
 
         HttpHeaders headers = new HttpHeaders();
-        headers.set("Authorization", "Bearer " + CODEDX_PAT_TOKEN);
+        headers.set("Authorization", "Bearer " + codeDxPatToken);
         headers.set("Content-Type", "application/json");
         headers.set("Accept", "application/json");
 
@@ -754,7 +1747,7 @@ public class ConsumingRestApplication {
                 .toUriString();
 
 
-        HttpEntity<String> request = new HttpEntity<>("{}", headers);
+        HttpEntity<String> request = new HttpEntity<>(query, headers);
 
         ResponseEntity<String> response = restTemplate.exchange(
                 builtURL, HttpMethod.POST, request, String.class);
@@ -764,4 +1757,38 @@ public class ConsumingRestApplication {
         return new JSONArray(responseString);
 
     }
+
+    /**
+     * Same request as {@link #getCodeDxFindingsForProject(RestTemplate, String, String)}, but the response is parsed as it
+     * arrives and each finding is passed to the consumer, so the body is never held in memory as a whole
+     *
+     * @param restTemplate
+     * @param projectId    unique identifier for a Project in Code Dx
+     * @param query        request body from {@link CodeDxFindingsQuery#body(int)}
+     * @param consumer     receives each finding in the order returned by the API
+     * @return number of findings read
+     */
+    private int streamCodeDxFindingsForProject(RestTemplate restTemplate, String projectId, String query,
+                                               Consumer<CodeDxFinding> consumer) {
+        String url = codeDxBaseUrl + "/codedx/api/projects/" + projectId + "/findings/table";
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + codeDxPatToken);
+        headers.set("Content-Type", "application/json");
+        headers.set("Accept", "application/json");
+
+
+        String builtURL = UriComponentsBuilder.fromHttpUrl(url)
+                .buildAndExpand()
+                .toUriString();
+
+
+        HttpEntity<String> request = new HttpEntity<>(query, headers);
+
+        Integer count = restTemplate.execute(builtURL, HttpMethod.POST, restTemplate.httpEntityCallback(request),
+                response -> CodeDxFindingsReader.read(response.getBody(), consumer));
+
+        return count == null ? 0 : count;
+
+    }
 }
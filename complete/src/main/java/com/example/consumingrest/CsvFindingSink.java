@@ -0,0 +1,62 @@
+package com.example.consumingrest;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * RFC 4180 CSV with a header row.  {@code first_seen} is an ISO-8601 instant, or empty when it is unknown
+ */
+public class CsvFindingSink extends ChannelFindingSink {
+
+    public CsvFindingSink(Path file, int bufferSize) throws IOException {
+        super(file, bufferSize);
+    }
+
+    @Override
+    protected void appendHeader(StringBuilder out) {
+        out.append("tool,application_id,project_id,id,rule,tool_category,severity,first_seen,status\r\n");
+    }
+
+    @Override
+    protected void appendRecord(String tool, String applicationId, String projectId, Finding finding,
+                                StringBuilder out) {
+        appendField(tool, out).append(',');
+        appendField(applicationId, out).append(',');
+        appendField(projectId, out).append(',');
+        appendField(finding.getId(), out).append(',');
+        appendField(finding.getRule(), out).append(',');
+        appendField(finding.getToolCategory(), out).append(',');
+        appendField(finding.getSeverity(), out).append(',');
+        if (finding.getFirstSeen() != null) {
+            out.append(finding.getFirstSeen());
+        }
+        out.append(',');
+        appendField(finding.getStatus(), out).append("\r\n");
+    }
+
+    /**
+     * Quote the value if it contains a separator, a quote or a line break, doubling any quotes inside it
+     */
+    static StringBuilder appendField(String value, StringBuilder out) {
+        if (value == null) {
+            return out;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quote) {
+            return out.append(value);
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c);
+        }
+        return out.append('"');
+    }
+}
@@ -0,0 +1,345 @@
+package com.example.consumingrest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Caches GET responses for reference data on disk together with their ETag and Last-Modified validators.  A cached
+ * response is served without a request until its TTL runs out, then it is revalidated with a conditional request so
+ * that an unchanged resource costs a 304 rather than a full body.
+ * <p>
+ * Responses are keyed by URL only.  The Authorization header is left out of the key because the JWT changes on every
+ * refresh while the data it grants access to does not.
+ */
+public class DiskCacheInterceptor implements ClientHttpRequestInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(DiskCacheInterceptor.class);
+
+    private final Path directory;
+    private final long maxSizeBytes;
+    private final Map<String, Duration> ttlByPattern;
+    private final LongSupplier clock;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong revalidated = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Bytes of all cached bodies, scanned once at startup and kept up to date as bodies are stored and evicted.
+     * Guarded by this, like every change to the bodies on disk
+     */
+    private long bodyBytes;
+
+    public DiskCacheInterceptor(HttpCacheProperties properties) {
+        this(properties, System::currentTimeMillis);
+    }
+
+    DiskCacheInterceptor(HttpCacheProperties properties, LongSupplier clock) {
+        this.directory = properties.getDirectory();
+        this.maxSizeBytes = properties.getMaxSize().toBytes();
+        this.ttlByPattern = properties.getTtl();
+        this.clock = clock;
+        try {
+            Files.createDirectories(directory);
+            for (Path body : bodies()) {
+                bodyBytes += sizeOf(body);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot create http cache directory " + directory, e);
+        }
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        Duration ttl = request.getMethod() == HttpMethod.GET ? ttlFor(request.getURI().getPath()) : null;
+        if (ttl == null) {
+            return execution.execute(request, body);
+        }
+
+        String key = DigestUtils.md5DigestAsHex(request.getURI().toString().getBytes(StandardCharsets.UTF_8));
+        Path bodyFile = directory.resolve(key + ".body");
+        Path metaFile = directory.resolve(key + ".meta");
+        Properties meta = readMeta(metaFile);
+
+        if (meta != null && !Files.exists(bodyFile)) {
+            meta = null;
+        }
+        if (meta != null && clock.getAsLong() - Long.parseLong(meta.getProperty("storedAt", "0")) < ttl.toMillis()) {
+            try {
+                ClientHttpResponse cached = cachedResponse(meta, bodyFile);
+                hits.incrementAndGet();
+                touch(metaFile);
+                return cached;
+            } catch (NoSuchFileException e) {
+                // evicted since it was looked up, fetch it like any other miss
+                meta = null;
+            }
+        }
+        if (meta != null) {
+            if (meta.getProperty("etag") != null) {
+                request.getHeaders().setIfNoneMatch(meta.getProperty("etag"));
+            }
+            if (meta.getProperty("lastModified") != null) {
+                request.getHeaders().set(HttpHeaders.IF_MODIFIED_SINCE, meta.getProperty("lastModified"));
+            }
+        }
+
+        ClientHttpResponse response = execution.execute(request, body);
+
+        if (response.getRawStatusCode() == HttpStatus.NOT_MODIFIED.value() && meta != null) {
+            response.close();
+            try {
+                ClientHttpResponse cached = cachedResponse(meta, bodyFile);
+                revalidated.incrementAndGet();
+                meta.setProperty("storedAt", Long.toString(clock.getAsLong()));
+                writeMeta(metaFile, meta);
+                return cached;
+            } catch (NoSuchFileException e) {
+                // the body was evicted while it was being revalidated, so the 304 has nothing to confirm
+                Files.deleteIfExists(metaFile);
+                request.getHeaders().remove(HttpHeaders.IF_NONE_MATCH);
+                request.getHeaders().remove(HttpHeaders.IF_MODIFIED_SINCE);
+                response = execution.execute(request, body);
+            }
+        }
+
+        misses.incrementAndGet();
+        if (response.getRawStatusCode() != HttpStatus.OK.value()) {
+            return response;
+        }
+
+        byte[] responseBody;
+        try {
+            responseBody = StreamUtils.copyToByteArray(response.getBody());
+        } finally {
+            response.close();
+        }
+        HttpHeaders headers = response.getHeaders();
+        store(request, headers, responseBody, bodyFile, metaFile);
+        return new BufferedResponse(HttpStatus.OK, headers, responseBody);
+    }
+
+    private Duration ttlFor(String path) {
+        for (Map.Entry<String, Duration> entry : ttlByPattern.entrySet()) {
+            if (pathMatcher.match(entry.getKey(), path)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private void store(HttpRequest request, HttpHeaders headers, byte[] responseBody, Path bodyFile, Path metaFile) {
+        Properties meta = new Properties();
+        meta.setProperty("url", request.getURI().toString());
+        meta.setProperty("storedAt", Long.toString(clock.getAsLong()));
+        if (headers.getETag() != null) {
+            meta.setProperty("etag", headers.getETag());
+        }
+        if (headers.getFirst(HttpHeaders.LAST_MODIFIED) != null) {
+            meta.setProperty("lastModified", headers.getFirst(HttpHeaders.LAST_MODIFIED));
+        }
+        if (headers.getFirst(HttpHeaders.CONTENT_TYPE) != null) {
+            meta.setProperty("contentType", headers.getFirst(HttpHeaders.CONTENT_TYPE));
+        }
+        try {
+            Path tmp = Files.createTempFile(directory, bodyFile.getFileName().toString(), ".tmp");
+            Files.write(tmp, responseBody);
+            replaceBody(tmp, bodyFile, responseBody.length);
+            writeMeta(metaFile, meta);
+            evictIfNeeded();
+        } catch (IOException e) {
+            // the cache is an optimization, a failure to write it should not fail the request
+            log.warn("failed to cache response for " + request.getURI() + ": " + e.getMessage());
+        }
+    }
+
+    private synchronized void replaceBody(Path tmp, Path bodyFile, long length) throws IOException {
+        long replaced = sizeOf(bodyFile);
+        Files.move(tmp, bodyFile, StandardCopyOption.REPLACE_EXISTING);
+        bodyBytes += length - replaced;
+    }
+
+    /**
+     * Once the bodies no longer fit within the configured size, remove the least recently used entries until they
+     * take up at most 90% of it, so a full cache is not listed again on the very next store
+     */
+    private synchronized void evictIfNeeded() throws IOException {
+        if (bodyBytes <= maxSizeBytes) {
+            return;
+        }
+
+        long target = maxSizeBytes / 10 * 9;
+        List<Path> byLastUse = bodies();
+        byLastUse.sort(Comparator.comparing(this::lastUsed));
+        for (Path body : byLastUse) {
+            if (bodyBytes <= target) {
+                break;
+            }
+            bodyBytes -= sizeOf(body);
+            String name = body.getFileName().toString();
+            Files.deleteIfExists(body);
+            Files.deleteIfExists(directory.resolve(name.replace(".body", ".meta")));
+        }
+    }
+
+    private List<Path> bodies() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(".body")).collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * @return the size of a file, or 0 if it does not exist
+     */
+    private static long sizeOf(Path file) throws IOException {
+        try {
+            return Files.size(file);
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+    }
+
+    private FileTime lastUsed(Path body) {
+        Path meta = directory.resolve(body.getFileName().toString().replace(".body", ".meta"));
+        try {
+            return Files.getLastModifiedTime(Files.exists(meta) ? meta : body);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private void touch(Path metaFile) {
+        try {
+            Files.setLastModifiedTime(metaFile, FileTime.fromMillis(clock.getAsLong()));
+        } catch (IOException ignored) {
+            // only affects eviction order
+        }
+    }
+
+    private static Properties readMeta(Path metaFile) {
+        if (!Files.exists(metaFile)) {
+            return null;
+        }
+        Properties meta = new Properties();
+        try (InputStream in = Files.newInputStream(metaFile)) {
+            meta.load(in);
+            return meta;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void writeMeta(Path metaFile, Properties meta) throws IOException {
+        Path tmp = Files.createTempFile(directory, metaFile.getFileName().toString(), ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            meta.store(out, null);
+        }
+        Files.move(tmp, metaFile, StandardCopyOption.REPLACE_EXISTING);
+        touch(metaFile);
+    }
+
+    private static ClientHttpResponse cachedResponse(Properties meta, Path bodyFile) throws IOException {
+        HttpHeaders headers = new HttpHeaders();
+        if (meta.getProperty("contentType") != null) {
+            headers.set(HttpHeaders.CONTENT_TYPE, meta.getProperty("contentType"));
+        }
+        if (meta.getProperty("etag") != null) {
+            headers.setETag(meta.getProperty("etag"));
+        }
+        return new BufferedResponse(HttpStatus.OK, headers, Files.readAllBytes(bodyFile));
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getRevalidated() {
+        return revalidated.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    @Override
+    public String toString() {
+        return "http cache hits " + getHits() + " revalidated " + getRevalidated() + " misses " + getMisses();
+    }
+
+    /**
+     * A response whose body has already been read into memory
+     */
+    static class BufferedResponse implements ClientHttpResponse {
+        private final HttpStatus status;
+        private final HttpHeaders headers;
+        private final byte[] body;
+
+        BufferedResponse(HttpStatus status, HttpHeaders headers, byte[] body) {
+            this.status = status;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        @Override
+        public HttpStatus getStatusCode() {
+            return status;
+        }
+
+        @Override
+        public int getRawStatusCode() {
+            return status.value();
+        }
+
+        @Override
+        public String getStatusText() {
+            return status.getReasonPhrase();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
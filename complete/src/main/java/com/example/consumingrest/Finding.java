@@ -0,0 +1,73 @@
+package com.example.consumingrest;
+
+import java.time.Instant;
+
+/**
+ * A single finding as reported by this tool, whichever system it came from
+ */
+public final class Finding {
+
+    private final String id;
+    private final String rule;
+    private final String toolCategory;
+    private final String severity;
+    private final Instant firstSeen;
+    private final String status;
+
+    /**
+     * @param id           the finding's identifier in its source system
+     * @param rule         the name of the rule or issue type that was violated
+     * @param toolCategory the kind of tool that found it, e.g. "Static Analysis"
+     * @param severity     the name of the finding's severity
+     * @param firstSeen    when the finding was first seen, or null if unknown
+     * @param status       the current triage status
+     */
+    public Finding(String id, String rule, String toolCategory, String severity, Instant firstSeen, String status) {
+        this.id = id;
+        this.rule = rule;
+        this.toolCategory = toolCategory;
+        this.severity = severity;
+        this.firstSeen = firstSeen;
+        this.status = status;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getRule() {
+        return rule;
+    }
+
+    public String getToolCategory() {
+        return toolCategory;
+    }
+
+    public String getSeverity() {
+        return severity;
+    }
+
+    /**
+     * @return when the finding was first seen, or null if unknown.  For Polaris this is the most recent time the
+     * issue was opened
+     */
+    public Instant getFirstSeen() {
+        return firstSeen;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    @Override
+    public String toString() {
+        return "Finding{" +
+                "id='" + id + '\'' +
+                ", rule='" + rule + '\'' +
+                ", toolCategory='" + toolCategory + '\'' +
+                ", severity='" + severity + '\'' +
+                ", firstSeen=" + firstSeen +
+                ", status='" + status + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.consumingrest;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Turns Polaris and Code Dx responses into {@link Finding}s.  The formatters are immutable and shared by every thread,
+ * so nothing is allocated per finding beyond the parsed values themselves.
+ */
+public final class FindingParsers {
+
+    private static final Logger log = LoggerFactory.getLogger(FindingParsers.class);
+
+    /**
+     * Polaris transition dates, e.g. {@code 2021-06-01T12:34:56.123456Z}
+     */
+    private static final DateTimeFormatter POLARIS_TIMESTAMP = DateTimeFormatter.ISO_INSTANT;
+
+    /**
+     * Code Dx first seen dates, e.g. {@code 06/01/2021}, taken as midnight in the local time zone
+     */
+    private static final DateTimeFormatter CODEDX_DATE = DateTimeFormatter.ofPattern("M/d/yyyy");
+
+    /**
+     * Relationships of each issue that the issues query asks Polaris to side-load with {@code include[issue][]}, so
+     * that the issue type name, first seen date and approval link need no request of their own
+     */
+    public static final String[] POLARIS_ISSUE_INCLUDES = {"issue-type", "transitions", "latest-observed-on-run"};
+
+    private FindingParsers() {
+    }
+
+    /**
+     * @param issueData the "data" array of one page of the Polaris issues query
+     * @return the issues in the order they appear on the page
+     */
+    public static List<PolarisIssue> polarisIssues(JSONArray issueData) {
+        return polarisIssues(issueData, JsonApiIncluded.empty());
+    }
+
+    /**
+     * @param issueData the "data" array of one page of the Polaris issues query
+     * @param included  the resources side-loaded with the page
+     * @return the issues in the order they appear on the page
+     */
+    public static List<PolarisIssue> polarisIssues(JSONArray issueData, JsonApiIncluded included) {
+        List<PolarisIssue> issues = new ArrayList<>(issueData.length());
+        for (int i = 0; i < issueData.length(); i++) {
+            issues.add(polarisIssue(issueData.getJSONObject(i), included));
+        }
+        return issues;
+    }
+
+    /**
+     * @param finding a single entry of the "data" array returned by the issues query
+     * @return the identifiers of the issue
+     * @throws IllegalArgumentException naming the missing field if the entry is incomplete
+     */
+    public static PolarisIssue polarisIssue(JSONObject finding) {
+        return polarisIssue(finding, JsonApiIncluded.empty());
+    }
+
+    /**
+     * @param finding  a single entry of the "data" array returned by the issues query
+     * @param included the resources side-loaded with the page the entry is on
+     * @return the identifiers of the issue, and whatever its side-loaded relationships answer
+     * @throws IllegalArgumentException naming the missing field if the entry is incomplete
+     */
+    public static PolarisIssue polarisIssue(JSONObject finding, JsonApiIncluded included) {
+        JSONObject attributes = finding.optJSONObject("attributes");
+        JSONObject relationships = finding.optJSONObject("relationships");
+        String issueTypeId = required(relationshipId(relationships, "issue-type"), "relationships.issue-type",
+                finding);
+        String latestRunId = required(relationshipId(relationships, "latest-observed-on-run"),
+                "relationships.latest-observed-on-run", finding);
+
+        JSONObject issueType = included.get("issue-type", issueTypeId);
+        JSONObject issueTypeAttributes = issueType == null ? null : issueType.optJSONObject("attributes");
+        JSONObject run = included.get("run", latestRunId);
+        List<JSONObject> transitions = included.resolveAll(relationships, "transitions");
+
+        return new PolarisIssue(
+                required(finding.optString("id", null), "id", finding),
+                required(attributes == null ? null : attributes.optString("issue-key", null),
+                        "attributes.issue-key", finding),
+                issueTypeId,
+                latestRunId,
+                attributes,
+                // the same attribute the issue type endpoint is read for
+                issueTypeAttributes == null ? null
+                        : StringPool.FINDING_VALUES.intern(issueTypeAttributes.optString("issue-type-id", null)),
+                transitions != null,
+                transitions == null ? null : mostRecentOpen(transitions),
+                run == null ? null : relationshipId(run.optJSONObject("relationships"), "revision"));
+    }
+
+    private static String relationshipId(JSONObject relationships, String name) {
+        JSONObject relationship = relationships == null ? null : relationships.optJSONObject(name);
+        JSONObject data = relationship == null ? null : relationship.optJSONObject("data");
+        return data == null ? null : data.optString("id", null);
+    }
+
+    private static String required(String value, String field, JSONObject finding) {
+        if (value == null) {
+            throw new IllegalArgumentException("Polaris issue has no " + field + ": " + finding.optString("id"));
+        }
+        return value;
+    }
+
+    /**
+     * @param detail detailed issue data provided by the API
+     * @return most recent time the issue transitioned to an Open state, a decent proxy for first seen date, or null
+     * if it never did
+     */
+    public static Instant mostRecentOpen(PolarisIssueDetail detail) {
+        Instant mostRecent = null;
+        for (PolarisIssueDetail.Included item : detail.getIncluded()) {
+            PolarisIssueDetail.Attributes attributes = item.getAttributes();
+            if ("transition".equals(item.getType()) && attributes != null) {
+                mostRecent = laterOpen(mostRecent, attributes.getTransitionType(), attributes.getTransitionDate());
+            }
+        }
+        return mostRecent;
+    }
+
+    /**
+     * @param transitions transition resources side-loaded with an issue
+     * @return most recent time one of them opened the issue, or null if none did
+     */
+    public static Instant mostRecentOpen(List<JSONObject> transitions) {
+        Instant mostRecent = null;
+        for (JSONObject transition : transitions) {
+            JSONObject attributes = transition.optJSONObject("attributes");
+            if ("transition".equals(transition.optString("type")) && attributes != null) {
+                mostRecent = laterOpen(mostRecent, attributes.optString("transition-type", null),
+                        attributes.optString("transition-date", null));
+            }
+        }
+        return mostRecent;
+    }
+
+    private static Instant laterOpen(Instant mostRecent, String transitionType, String transitionDate) {
+        if (!"opened".equals(transitionType)) {
+            return mostRecent;
+        }
+        try {
+            if (transitionDate == null) {
+                throw new DateTimeParseException("missing transition-date", "", 0);
+            }
+            Instant opened = POLARIS_TIMESTAMP.parse(transitionDate, Instant::from);
+            return mostRecent == null || opened.isAfter(mostRecent) ? opened : mostRecent;
+        } catch (DateTimeParseException e) {
+            log.error("couldn't parse date");
+            return mostRecent;
+        }
+    }
+
+    /**
+     * @param finding a row of the Code Dx findings table
+     * @return the finding, or null if its first seen date cannot be parsed
+     */
+    public static Finding codeDxFinding(CodeDxFinding finding) {
+        Instant firstSeen;
+        try {
+            if (finding.getFirstSeenOn() == null) {
+                throw new DateTimeParseException("missing firstSeenOn", "", 0);
+            }
+            firstSeen = LocalDate.parse(finding.getFirstSeenOn(), CODEDX_DATE).atStartOfDay(ZoneId.systemDefault())
+                    .toInstant();
+        } catch (DateTimeParseException e) {
+            log.error("failed to parse date");
+            return null;
+        }
+        return new Finding(Integer.toString(finding.getId()), finding.getDescriptor(),
+                finding.getDetectionMethod(), finding.getSeverity(), firstSeen, finding.getStatusName());
+    }
+}
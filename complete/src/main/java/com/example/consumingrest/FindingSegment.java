@@ -0,0 +1,407 @@
+package com.example.consumingrest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * A read-only, memory-mapped view of a findings segment written by {@link FindingSegmentWriter}.
+ * <p>
+ * A segment is a header, a stream of records and, once the writer has sealed it, a footer and a trailer:
+ * <pre>
+ * header   int "FSEG", byte version
+ * record   byte 1 (string), varint length, UTF-8 bytes    -- the next string id, starting at 1
+ *          byte 2 (finding), varint tool, application, project (string ids, 0 for null),
+ *          varint length + 1 and UTF-8 bytes of the finding id (0 for null),
+ *          varint rule, tool category, severity, status (string ids),
+ *          varlong first seen epoch second + 1 (0 for null), varint nanos if present
+ * footer   varint string count, each string as varint length and UTF-8 bytes,
+ *          varint key count, each key as varint application, project, severity, finding count and the
+ *          findings' record offsets as varint deltas
+ * trailer  long footer offset, int "FSES"
+ * </pre>
+ * Opening a sealed segment reads only the footer, so {@link #countBySeverity} never touches a record and
+ * {@link #find} decodes only the records it returns.  A segment whose writer never sealed it, because the run died,
+ * is read by scanning its records instead.
+ * <p>
+ * Reads work on duplicates of the mapping, so a segment may be read from several threads at once.
+ */
+public final class FindingSegment implements Closeable {
+
+    static final int MAGIC = 0x46534547;
+    static final int SEALED_MAGIC = 0x46534553;
+    static final byte VERSION = 1;
+    static final byte TYPE_STRING = 1;
+    static final byte TYPE_FINDING = 2;
+    static final int HEADER_SIZE = 5;
+    static final int TRAILER_SIZE = 12;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final List<String> strings = new ArrayList<>();
+    private final Map<String, Integer> stringIds = new HashMap<>();
+    private final Map<Key, int[]> index = new LinkedHashMap<>();
+    private final boolean sealed;
+    private int recordsEnd;
+    private int size;
+
+    private FindingSegment(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long length = channel.size();
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException(file + " is too large to be a findings segment");
+            }
+            if (length < HEADER_SIZE) {
+                throw new IOException(file + " is not a findings segment");
+            }
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            if (buffer.getInt(0) != MAGIC || buffer.get(4) != VERSION) {
+                throw new IOException(file + " is not a findings segment, or one from another version");
+            }
+            strings.add(null);
+            this.sealed = length >= HEADER_SIZE + TRAILER_SIZE
+                    && buffer.getInt((int) length - 4) == SEALED_MAGIC;
+            if (sealed) {
+                readFooter((int) buffer.getLong((int) length - TRAILER_SIZE));
+            } else {
+                scan();
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @param file a segment, sealed or not
+     * @return the mapped segment, with its index loaded
+     * @throws IOException if the file cannot be read or is not a findings segment
+     */
+    public static FindingSegment open(Path file) throws IOException {
+        return new FindingSegment(file);
+    }
+
+    private void readFooter(int footerOffset) {
+        ByteBuffer in = buffer.duplicate();
+        in.position(footerOffset);
+        int stringCount = getVarint(in);
+        for (int i = 0; i < stringCount; i++) {
+            addString(getString(in, getVarint(in)));
+        }
+        int keyCount = getVarint(in);
+        for (int i = 0; i < keyCount; i++) {
+            Key key = new Key(getVarint(in), getVarint(in), getVarint(in));
+            int[] offsets = new int[getVarint(in)];
+            int offset = 0;
+            for (int j = 0; j < offsets.length; j++) {
+                offset += getVarint(in);
+                offsets[j] = offset;
+            }
+            index.put(key, offsets);
+            size += offsets.length;
+        }
+        recordsEnd = footerOffset;
+    }
+
+    /**
+     * Rebuild the string table and index of an unsealed segment.  A record cut short by a crash ends the scan, as
+     * does the zero fill after the last record
+     */
+    private void scan() {
+        ByteBuffer in = buffer.duplicate();
+        in.position(HEADER_SIZE);
+        Map<Key, int[]> offsets = new LinkedHashMap<>();
+        Map<Key, Integer> counts = new HashMap<>();
+        int end = HEADER_SIZE;
+        try {
+            while (in.hasRemaining()) {
+                int offset = in.position();
+                byte type = in.get();
+                if (type == TYPE_STRING) {
+                    addString(getString(in, getVarint(in)));
+                } else if (type == TYPE_FINDING) {
+                    getVarint(in);
+                    int application = getVarint(in);
+                    int project = getVarint(in);
+                    skipInline(in);
+                    getVarint(in);
+                    getVarint(in);
+                    Key key = new Key(application, project, getVarint(in));
+                    getVarint(in);
+                    getInstant(in);
+                    int count = counts.getOrDefault(key, 0);
+                    int[] keyOffsets = offsets.get(key);
+                    if (keyOffsets == null || keyOffsets.length == count) {
+                        keyOffsets = keyOffsets == null ? new int[16] : Arrays.copyOf(keyOffsets, count * 2);
+                        offsets.put(key, keyOffsets);
+                    }
+                    keyOffsets[count] = offset;
+                    counts.put(key, count + 1);
+                } else {
+                    break;
+                }
+                end = in.position();
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            // a record cut short by a crash; everything before it is intact
+        }
+        for (Map.Entry<Key, int[]> entry : offsets.entrySet()) {
+            int count = counts.get(entry.getKey());
+            index.put(entry.getKey(), Arrays.copyOf(entry.getValue(), count));
+            size += count;
+        }
+        recordsEnd = end;
+    }
+
+    private void addString(String value) {
+        stringIds.put(value, strings.size());
+        strings.add(value);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * @return false if the writer never finished the segment, so it was read by scanning its records
+     */
+    public boolean isSealed() {
+        return sealed;
+    }
+
+    /**
+     * @return the number of findings in the segment
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param applicationId the application to match, or null for any
+     * @param projectId     the project to match, or null for any
+     * @param severity      the severity to match, or null for any
+     * @return the matching findings, in the order they were written
+     */
+    public List<StoredFinding> find(String applicationId, String projectId, String severity) {
+        int[] matches = new int[0];
+        int count = 0;
+        for (Map.Entry<Key, int[]> entry : index.entrySet()) {
+            if (matches(entry.getKey(), applicationId, projectId, severity)) {
+                int[] offsets = entry.getValue();
+                if (count + offsets.length > matches.length) {
+                    matches = Arrays.copyOf(matches, Math.max(count + offsets.length, matches.length * 2));
+                }
+                System.arraycopy(offsets, 0, matches, count, offsets.length);
+                count += offsets.length;
+            }
+        }
+        if (count == 0) {
+            return Collections.emptyList();
+        }
+        Arrays.sort(matches, 0, count);
+        ByteBuffer in = buffer.duplicate();
+        List<StoredFinding> found = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            in.position(matches[i] + 1);
+            found.add(readFinding(in));
+        }
+        return found;
+    }
+
+    /**
+     * Answered from the index alone, without reading any findings
+     *
+     * @param applicationId the application to count, or null for all
+     * @param projectId     the project to count, or null for all
+     * @return the number of findings of each severity, in the order the severities were first written
+     */
+    public Map<String, Integer> countBySeverity(String applicationId, String projectId) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (Map.Entry<Key, int[]> entry : index.entrySet()) {
+            if (matches(entry.getKey(), applicationId, projectId, null)) {
+                counts.merge(strings.get(entry.getKey().severity), entry.getValue().length, Integer::sum);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Read every finding in the segment, in the order they were written
+     */
+    public void forEach(Consumer<StoredFinding> action) {
+        ByteBuffer in = buffer.duplicate();
+        in.position(HEADER_SIZE);
+        while (in.position() < recordsEnd) {
+            byte type = in.get();
+            if (type == TYPE_STRING) {
+                int length = getVarint(in);
+                in.position(in.position() + length);
+            } else {
+                action.accept(readFinding(in));
+            }
+        }
+    }
+
+    private StoredFinding readFinding(ByteBuffer in) {
+        String tool = strings.get(getVarint(in));
+        String applicationId = strings.get(getVarint(in));
+        String projectId = strings.get(getVarint(in));
+        int idLength = getVarint(in);
+        String id = idLength == 0 ? null : getString(in, idLength - 1);
+        String rule = strings.get(getVarint(in));
+        String toolCategory = strings.get(getVarint(in));
+        String severity = strings.get(getVarint(in));
+        String status = strings.get(getVarint(in));
+        Instant firstSeen = getInstant(in);
+        return new StoredFinding(tool, applicationId, projectId,
+                new Finding(id, rule, toolCategory, severity, firstSeen, status));
+    }
+
+    @Override
+    public void close() throws IOException {
+        // the mapping itself is released when the buffer is collected
+        channel.close();
+    }
+
+    @Override
+    public String toString() {
+        return "FindingSegment{" +
+                "file=" + file +
+                ", sealed=" + sealed +
+                ", findings=" + size +
+                ", keys=" + index.size() +
+                '}';
+    }
+
+    static void putVarint(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    static void putVarlong(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    static void putInstant(ByteBuffer out, Instant instant) {
+        if (instant == null) {
+            out.put((byte) 0);
+            return;
+        }
+        long seconds = instant.getEpochSecond();
+        putVarlong(out, ((seconds << 1) ^ (seconds >> 63)) + 1);
+        putVarint(out, instant.getNano());
+    }
+
+    static int getVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("malformed varint");
+    }
+
+    static long getVarlong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("malformed varlong");
+    }
+
+    static Instant getInstant(ByteBuffer in) {
+        long encoded = getVarlong(in);
+        if (encoded == 0) {
+            return null;
+        }
+        long zigzag = encoded - 1;
+        return Instant.ofEpochSecond((zigzag >>> 1) ^ -(zigzag & 1), getVarint(in));
+    }
+
+    private static String getString(ByteBuffer in, int length) {
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void skipInline(ByteBuffer in) {
+        int length = getVarint(in);
+        if (length > 0) {
+            in.position(in.position() + length - 1);
+        }
+    }
+
+    private boolean matches(Key key, String applicationId, String projectId, String severity) {
+        return matches(key.application, applicationId) && matches(key.project, projectId)
+                && matches(key.severity, severity);
+    }
+
+    private boolean matches(int id, String value) {
+        return value == null || Objects.equals(stringIds.get(value), id);
+    }
+
+    /**
+     * The string ids of an index entry's application, project and severity
+     */
+    static final class Key {
+        final int application;
+        final int project;
+        final int severity;
+
+        Key(int application, int project, int severity) {
+            this.application = application;
+            this.project = project;
+            this.severity = severity;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return application == key.application && project == key.project && severity == key.severity;
+        }
+
+        @Override
+        public int hashCode() {
+            return (application * 31 + project) * 31 + severity;
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.example.consumingrest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Appends findings to a new segment file through a memory-mapped window, so writing a record is a copy into the page
+ * cache rather than a system call.  Strings other than finding ids are written once and referred to by number after
+ * that, and the index by application, project and severity is kept in memory and written as the segment's footer
+ * when it is {@link #close() sealed}.  See {@link FindingSegment} for the format.
+ * <p>
+ * Not thread safe; {@link AsyncFindingSink} calls it from its writer thread only.
+ */
+public class FindingSegmentWriter implements FindingSink {
+
+    /**
+     * Bytes mapped at a time.  The file grows by this much whenever a record does not fit what is left
+     */
+    static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final int chunkSize;
+    private final Map<String, Integer> stringIds = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+    private final Map<FindingSegment.Key, Offsets> index = new LinkedHashMap<>();
+    private ByteBuffer record = ByteBuffer.allocate(512);
+    private MappedByteBuffer mapped;
+    private long mappedAt;
+    private int size;
+    private boolean sealed;
+
+    public FindingSegmentWriter(Path file) throws IOException {
+        this(file, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param file      created; it must not exist yet
+     * @param chunkSize bytes mapped at a time
+     */
+    public FindingSegmentWriter(Path file, int chunkSize) throws IOException {
+        this.file = file;
+        this.chunkSize = chunkSize;
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        record.clear();
+        record.putInt(FindingSegment.MAGIC).put(FindingSegment.VERSION);
+        write();
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * @return the number of findings written so far
+     */
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void accept(String tool, String applicationId, String projectId, Finding finding) {
+        if (sealed) {
+            throw new IllegalStateException(file + " is already sealed");
+        }
+        // any new strings have to be written before the record that refers to them
+        int toolId = stringId(tool);
+        int applicationRef = stringId(applicationId);
+        int projectRef = stringId(projectId);
+        int ruleId = stringId(finding.getRule());
+        int toolCategoryId = stringId(finding.getToolCategory());
+        int severityId = stringId(finding.getSeverity());
+        int statusId = stringId(finding.getStatus());
+        byte[] id = finding.getId() == null ? null : finding.getId().getBytes(StandardCharsets.UTF_8);
+
+        ensureRecordCapacity(64 + (id == null ? 0 : id.length));
+        record.clear();
+        record.put(FindingSegment.TYPE_FINDING);
+        FindingSegment.putVarint(record, toolId);
+        FindingSegment.putVarint(record, applicationRef);
+        FindingSegment.putVarint(record, projectRef);
+        if (id == null) {
+            record.put((byte) 0);
+        } else {
+            FindingSegment.putVarint(record, id.length + 1);
+            record.put(id);
+        }
+        FindingSegment.putVarint(record, ruleId);
+        FindingSegment.putVarint(record, toolCategoryId);
+        FindingSegment.putVarint(record, severityId);
+        FindingSegment.putVarint(record, statusId);
+        FindingSegment.putInstant(record, finding.getFirstSeen());
+        int offset = write();
+
+        index.computeIfAbsent(new FindingSegment.Key(applicationRef, projectRef, severityId), key -> new Offsets())
+                .add(offset);
+        size++;
+    }
+
+    private int stringId(String value) {
+        if (value == null) {
+            return 0;
+        }
+        Integer id = stringIds.get(value);
+        if (id != null) {
+            return id;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ensureRecordCapacity(6 + bytes.length);
+        record.clear();
+        record.put(FindingSegment.TYPE_STRING);
+        FindingSegment.putVarint(record, bytes.length);
+        record.put(bytes);
+        write();
+        strings.add(value);
+        stringIds.put(value, strings.size());
+        return strings.size();
+    }
+
+    private void ensureRecordCapacity(int bytes) {
+        if (record.capacity() < bytes) {
+            record = ByteBuffer.allocate(Math.max(bytes, record.capacity() * 2));
+        }
+    }
+
+    /**
+     * Copy the record buffer into the mapping, mapping the next chunk of the file first if it does not fit
+     *
+     * @return the offset the record was written at
+     */
+    private int write() {
+        record.flip();
+        try {
+            if (mapped == null || mapped.remaining() < record.remaining()) {
+                long position = position();
+                if (position + Math.max(chunkSize, record.remaining()) > Integer.MAX_VALUE) {
+                    throw new IOException(file + " has reached the largest size a segment can be");
+                }
+                mapped = channel.map(FileChannel.MapMode.READ_WRITE, position,
+                        Math.max(chunkSize, record.remaining()));
+                mappedAt = position;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        int offset = (int) position();
+        mapped.put(record);
+        return offset;
+    }
+
+    private long position() {
+        return mapped == null ? 0 : mappedAt + mapped.position();
+    }
+
+    /**
+     * Nothing to do: every record is in the page cache, and readable by other processes, as soon as it is accepted
+     */
+    @Override
+    public void flush() {
+    }
+
+    /**
+     * Seal the segment: write the string table, index and trailer, force it to disk and trim the file to its length
+     */
+    @Override
+    public void close() throws IOException {
+        if (sealed) {
+            return;
+        }
+        sealed = true;
+        try {
+            int footerOffset = (int) position();
+            record.clear();
+            FindingSegment.putVarint(record, strings.size());
+            write();
+            for (String value : strings) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                ensureRecordCapacity(5 + bytes.length);
+                record.clear();
+                FindingSegment.putVarint(record, bytes.length);
+                record.put(bytes);
+                write();
+            }
+            record.clear();
+            FindingSegment.putVarint(record, index.size());
+            write();
+            for (Map.Entry<FindingSegment.Key, Offsets> entry : index.entrySet()) {
+                Offsets offsets = entry.getValue();
+                ensureRecordCapacity(20 + 5 * offsets.size);
+                record.clear();
+                FindingSegment.putVarint(record, entry.getKey().application);
+                FindingSegment.putVarint(record, entry.getKey().project);
+                FindingSegment.putVarint(record, entry.getKey().severity);
+                FindingSegment.putVarint(record, offsets.size);
+                int previous = 0;
+                for (int i = 0; i < offsets.size; i++) {
+                    FindingSegment.putVarint(record, offsets.values[i] - previous);
+                    previous = offsets.values[i];
+                }
+                write();
+            }
+            record.clear();
+            record.putLong(footerOffset).putInt(FindingSegment.SEALED_MAGIC);
+            write();
+
+            long length = position();
+            mapped.force();
+            mapped = null;
+            channel.truncate(length);
+            channel.force(true);
+        } finally {
+            channel.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "FindingSegmentWriter{" +
+                "file=" + file +
+                ", findings=" + size +
+                ", strings=" + strings.size() +
+                ", keys=" + index.size() +
+                '}';
+    }
+
+    /**
+     * A growable list of record offsets, without boxing each one
+     */
+    private static class Offsets {
+        int[] values = new int[16];
+        int size;
+
+        void add(int offset) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = offset;
+        }
+    }
+}
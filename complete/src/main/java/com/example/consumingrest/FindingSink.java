@@ -0,0 +1,32 @@
+package com.example.consumingrest;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Where reported findings go.  Selected with {@code harvest.output.format}, and always fed through an
+ * {@link AsyncFindingSink} so the harvest never waits on output
+ */
+public interface FindingSink extends Closeable {
+
+    /**
+     * @param tool          the system the finding came from, e.g. {@code polaris} or {@code codedx}
+     * @param applicationId the Polaris application or Code Dx parent project the finding was harvested under
+     * @param projectId     the project the finding belongs to
+     * @param finding       the finding to report
+     */
+    void accept(String tool, String applicationId, String projectId, Finding finding);
+
+    /**
+     * Write out everything accepted so far
+     */
+    void flush() throws IOException;
+
+    /**
+     * End the current run: write out everything accepted so far and finish whatever the sink keeps per run, such as
+     * the run's file or store segment.  Sinks with nothing per run just flush
+     */
+    default void endRun() throws IOException {
+        flush();
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.consumingrest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps every run's findings in a directory of {@link FindingSegment segments}, one per run, so reports can be read
+ * back through the segment index instead of harvesting or parsing JSON again.
+ * <p>
+ * A run's segment is created on its first finding and sealed when the run is {@link #endRun ended}.  After
+ * that, segments older than the newest {@code retainRuns} are compacted into one, keeping only the most recent record
+ * of each finding.  The merged segment is written to a temporary file and moved over the newest of the segments it
+ * replaces, so a crash part way leaves either the old segments or the merged one, never a partial merge.
+ * <p>
+ * Not thread safe; {@link AsyncFindingSink} calls it from its writer thread only.
+ */
+public class FindingStore implements FindingSink {
+
+    private static final Logger log = LoggerFactory.getLogger(FindingStore.class);
+
+    private static final String SUFFIX = ".fseg";
+
+    private final Path directory;
+    private final int retainRuns;
+    private final int chunkSize;
+    private FindingSegmentWriter writer;
+    private long segmentsWritten;
+    private long compactions;
+
+    /**
+     * @param directory  where the segments are kept, created if it does not exist yet
+     * @param retainRuns the number of most recent runs whose segments are left as they are
+     * @param chunkSize  bytes mapped at a time while writing a segment
+     */
+    public FindingStore(Path directory, int retainRuns, int chunkSize) {
+        this.directory = directory;
+        this.retainRuns = Math.max(1, retainRuns);
+        this.chunkSize = chunkSize;
+    }
+
+    public FindingStore(Path directory, int retainRuns) {
+        this(directory, retainRuns, FindingSegmentWriter.DEFAULT_CHUNK_SIZE);
+    }
+
+    @Override
+    public void accept(String tool, String applicationId, String projectId, Finding finding) {
+        if (writer == null) {
+            try {
+                writer = new FindingSegmentWriter(nextSegment(), chunkSize);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        writer.accept(tool, applicationId, projectId, finding);
+    }
+
+    /**
+     * Segments are named by the time they were started, so their names sort oldest first
+     */
+    private Path nextSegment() throws IOException {
+        Files.createDirectories(directory);
+        long stamp = System.currentTimeMillis();
+        Path file;
+        while (Files.exists(file = directory.resolve(String.format("segment-%013d%s", stamp, SUFFIX)))) {
+            stamp++;
+        }
+        return file;
+    }
+
+    /**
+     * Nothing to do: the run's records are readable as soon as they are accepted, and its segment is sealed by
+     * {@link #endRun}
+     */
+    @Override
+    public void flush() {
+    }
+
+    /**
+     * Seal the current run's segment, if it has one, then compact the older ones
+     */
+    @Override
+    public void endRun() throws IOException {
+        if (writer == null) {
+            return;
+        }
+        FindingSegmentWriter sealing = writer;
+        writer = null;
+        sealing.close();
+        segmentsWritten++;
+        log.info("sealed " + sealing);
+        compact();
+    }
+
+    /**
+     * @return every segment in the store, oldest first
+     */
+    public List<Path> segments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "segment-*" + SUFFIX)) {
+            for (Path segment : stream) {
+                segments.add(segment);
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    /**
+     * @return the most recent run's segment, or null if nothing has been stored yet
+     */
+    public FindingSegment openLatest() throws IOException {
+        List<Path> segments = segments();
+        return segments.isEmpty() ? null : FindingSegment.open(segments.get(segments.size() - 1));
+    }
+
+    /**
+     * Merge the segments older than the newest {@code retainRuns} into one, where there is more than one of them
+     */
+    void compact() throws IOException {
+        List<Path> segments = segments();
+        if (segments.size() - retainRuns < 2) {
+            return;
+        }
+        List<Path> older = segments.subList(0, segments.size() - retainRuns);
+        long started = System.nanoTime();
+
+        Map<String, StoredFinding> latest = new LinkedHashMap<>();
+        for (Path segment : older) {
+            try (FindingSegment in = FindingSegment.open(segment)) {
+                in.forEach(stored -> latest.put(stored.getTool() + '\u0000' + stored.getApplicationId() + '\u0000'
+                        + stored.getProjectId() + '\u0000' + stored.getFinding().getId(), stored));
+            }
+        }
+
+        Path merged = older.get(older.size() - 1);
+        Path temporary = directory.resolve("compacting" + SUFFIX + ".tmp");
+        Files.deleteIfExists(temporary);
+        try (FindingSegmentWriter out = new FindingSegmentWriter(temporary, chunkSize)) {
+            for (StoredFinding stored : latest.values()) {
+                out.accept(stored.getTool(), stored.getApplicationId(), stored.getProjectId(), stored.getFinding());
+            }
+        }
+        Files.move(temporary, merged, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        for (Path segment : older.subList(0, older.size() - 1)) {
+            Files.delete(segment);
+        }
+        compactions++;
+        log.info("compacted " + older.size() + " segments into " + merged + " with " + latest.size()
+                + " findings in " + (System.nanoTime() - started) / 1_000_000 + "ms");
+    }
+
+    @Override
+    public void close() throws IOException {
+        endRun();
+    }
+
+    @Override
+    public String toString() {
+        return "FindingStore{" +
+                "directory=" + directory +
+                ", segmentsWritten=" + segmentsWritten +
+                ", compactions=" + compactions +
+                '}';
+    }
+}
@@ -0,0 +1,292 @@
+package com.example.consumingrest;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.support.CronTrigger;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Runs harvests on a schedule in a process that stays up between them, so the HTTP connection pools, the Polaris JWT
+ * and the lookup caches are still warm when the next run starts.
+ * <p>
+ * Only one run happens at a time, whichever schedule started it.  A {@link Mode#DELTA delta} run that comes due while
+ * another run is in progress is skipped, since the next one will pick up whatever it would have found.  A
+ * {@link Mode#BULK bulk} run waits for the run in progress to finish instead, and no delta run can start ahead of it
+ * while it waits, so a frequent delta schedule never starves the nightly bulk one.
+ * <p>
+ * The outcome of the latest run of each schedule is kept for {@link #getLastRuns()} and published as gauges: its
+ * duration ({@code harvest.daemon.last.duration}), whether it succeeded ({@code harvest.daemon.last.success}, 1 or 0)
+ * and when it finished ({@code harvest.daemon.last.end}, epoch seconds), each tagged by schedule.  Skipped runs are
+ * counted in {@code harvest.daemon.skipped}.
+ */
+public class HarvestDaemon {
+
+    private static final Logger log = LoggerFactory.getLogger(HarvestDaemon.class);
+
+    static final String LAST_DURATION = "harvest.daemon.last.duration";
+    static final String LAST_SUCCESS = "harvest.daemon.last.success";
+    static final String LAST_END = "harvest.daemon.last.end";
+    static final String SKIPPED = "harvest.daemon.skipped";
+
+    public enum Mode {
+        /**
+         * Every finding is looked up again and its saved state refreshed, as if there had been no earlier run
+         */
+        BULK,
+        /**
+         * Findings unchanged since the last run are reported from the harvest state without repeating their lookups
+         */
+        DELTA
+    }
+
+    public enum Status {
+        RUNNING,
+        SUCCEEDED,
+        FAILED
+    }
+
+    /**
+     * One harvest over everything that is configured to be harvested
+     */
+    @FunctionalInterface
+    public interface Pass {
+        void run(Mode mode) throws Exception;
+    }
+
+    /**
+     * One harvest started by a schedule, or by {@link #runNow}
+     */
+    public static final class Run {
+
+        private final String schedule;
+        private final Mode mode;
+        private final Instant started;
+        private final Duration duration;
+        private final Status status;
+        private final String error;
+
+        Run(String schedule, Mode mode, Instant started, Duration duration, Status status, String error) {
+            this.schedule = schedule;
+            this.mode = mode;
+            this.started = started;
+            this.duration = duration;
+            this.status = status;
+            this.error = error;
+        }
+
+        public String getSchedule() {
+            return schedule;
+        }
+
+        public Mode getMode() {
+            return mode;
+        }
+
+        public Instant getStarted() {
+            return started;
+        }
+
+        /**
+         * @return how long the run took, or has taken so far if it is still running
+         */
+        public Duration getDuration() {
+            return duration;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        /**
+         * @return the failure of a failed run, otherwise null
+         */
+        public String getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            return "Run{" +
+                    "schedule='" + schedule + '\'' +
+                    ", mode=" + mode +
+                    ", started=" + started +
+                    ", duration=" + duration +
+                    ", status=" + status +
+                    (error != null ? ", error='" + error + '\'' : "") +
+                    '}';
+        }
+    }
+
+    private final Pass pass;
+    private final MeterRegistry registry;
+    private final LongSupplier clock;
+
+    /**
+     * Fair, so that a delta run's {@code tryLock(0, ...)} does not barge in ahead of a bulk run already waiting
+     */
+    private final ReentrantLock running = new ReentrantLock(true);
+
+    /**
+     * The latest finished run of each schedule
+     */
+    private final Map<String, Run> lastRuns = new ConcurrentHashMap<>();
+
+    private volatile Run current;
+
+    private final List<ScheduledFuture<?>> scheduled = new ArrayList<>();
+
+    public HarvestDaemon(Pass pass, MeterRegistry registry) {
+        this(pass, registry, System::currentTimeMillis);
+    }
+
+    HarvestDaemon(Pass pass, MeterRegistry registry, LongSupplier clock) {
+        this.pass = pass;
+        this.registry = registry;
+        this.clock = clock;
+    }
+
+    /**
+     * Start every schedule on the scheduler.  Each needs a scheduler thread of its own, so that a bulk run waiting its
+     * turn does not hold up the schedules that would be skipped
+     */
+    public synchronized void start(TaskScheduler scheduler, List<HarvestProperties.Daemon.Schedule> schedules,
+                                   TimeZone zone) {
+        for (HarvestProperties.Daemon.Schedule schedule : schedules) {
+            String name = schedule.getName();
+            Mode mode = schedule.getMode();
+            register(name);
+            Runnable task = () -> runNow(name, mode);
+            if (schedule.getCron() != null) {
+                scheduled.add(scheduler.schedule(task, new CronTrigger(schedule.getCron(), zone)));
+                log.info("harvest schedule " + name + " runs " + mode + " harvests on cron " + schedule.getCron()
+                        + " " + zone.getID());
+            } else if (schedule.getFixedDelay() != null) {
+                scheduled.add(scheduler.scheduleWithFixedDelay(task, Instant.now().plus(schedule.getInitialDelay()),
+                        schedule.getFixedDelay()));
+                log.info("harvest schedule " + name + " runs " + mode + " harvests " + schedule.getFixedDelay()
+                        + " apart, starting in " + schedule.getInitialDelay());
+            } else {
+                throw new IllegalArgumentException("harvest schedule " + name + " needs a cron or a fixed-delay");
+            }
+        }
+    }
+
+    /**
+     * Cancel every schedule.  A run in progress is left to finish
+     */
+    public synchronized void stop() {
+        for (ScheduledFuture<?> future : scheduled) {
+            future.cancel(false);
+        }
+        scheduled.clear();
+    }
+
+    /**
+     * Run a harvest now, unless another one is in progress and this is a delta run
+     *
+     * @param schedule the name the run is reported under
+     * @return true if the harvest ran, whether or not it succeeded
+     */
+    public boolean runNow(String schedule, Mode mode) {
+        register(schedule);
+        try {
+            if (mode == Mode.BULK) {
+                running.lockInterruptibly();
+            } else if (!running.tryLock(0, TimeUnit.MILLISECONDS)) {
+                log.info("skipping " + mode + " harvest for schedule " + schedule + ", another run is in progress");
+                Counter.builder(SKIPPED)
+                        .description("Scheduled harvests skipped because another run was in progress")
+                        .tag("schedule", schedule)
+                        .register(registry)
+                        .increment();
+                return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        try {
+            long start = clock.getAsLong();
+            Instant started = Instant.ofEpochMilli(start);
+            current = new Run(schedule, mode, started, null, Status.RUNNING, null);
+            log.info("starting " + mode + " harvest for schedule " + schedule);
+            Status status = Status.SUCCEEDED;
+            String error = null;
+            try {
+                pass.run(mode);
+            } catch (Exception e) {
+                log.error(mode + " harvest for schedule " + schedule + " failed", e);
+                status = Status.FAILED;
+                error = e.toString();
+            }
+            Run run = new Run(schedule, mode, started, Duration.ofMillis(clock.getAsLong() - start), status, error);
+            lastRuns.put(schedule, run);
+            log.info("finished " + run);
+            return true;
+        } finally {
+            current = null;
+            running.unlock();
+        }
+    }
+
+    /**
+     * @return the run in progress, with its duration so far, or null if there is none
+     */
+    public Run getCurrentRun() {
+        Run run = current;
+        if (run == null) {
+            return null;
+        }
+        Duration sofar = Duration.ofMillis(clock.getAsLong() - run.started.toEpochMilli());
+        return new Run(run.schedule, run.mode, run.started, sofar, Status.RUNNING, null);
+    }
+
+    /**
+     * @return the latest finished run of each schedule that has finished one, by schedule name
+     */
+    public Map<String, Run> getLastRuns() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(lastRuns));
+    }
+
+    /**
+     * The gauges read {@link #lastRuns} when scraped, so they only need registering once per schedule
+     */
+    private void register(String schedule) {
+        TimeGauge.builder(LAST_DURATION, lastRuns, TimeUnit.MILLISECONDS, runs -> runs.containsKey(schedule)
+                        ? runs.get(schedule).duration.toMillis() : Double.NaN)
+                .description("How long the latest finished harvest took")
+                .tag("schedule", schedule)
+                .register(registry);
+        Gauge.builder(LAST_SUCCESS, lastRuns, runs -> !runs.containsKey(schedule)
+                        ? Double.NaN : runs.get(schedule).status == Status.SUCCEEDED ? 1 : 0)
+                .description("1 if the latest finished harvest succeeded, 0 if it failed")
+                .tag("schedule", schedule)
+                .register(registry);
+        Gauge.builder(LAST_END, lastRuns, runs -> {
+                    Run run = runs.get(schedule);
+                    return run == null ? Double.NaN : run.started.plus(run.duration).toEpochMilli() / 1000.0;
+                })
+                .description("When the latest finished harvest ended")
+                .baseUnit("seconds")
+                .tag("schedule", schedule)
+                .register(registry);
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.consumingrest;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@code /actuator/harvest}: the run in progress, if any, and the latest finished run of each schedule
+ */
+@Endpoint(id = "harvest")
+public class HarvestDaemonEndpoint {
+
+    private final HarvestDaemon daemon;
+
+    public HarvestDaemonEndpoint(HarvestDaemon daemon) {
+        this.daemon = daemon;
+    }
+
+    @ReadOperation
+    public Map<String, Object> runs() {
+        Map<String, Object> runs = new LinkedHashMap<>();
+        runs.put("current", daemon.getCurrentRun());
+        runs.put("last", daemon.getLastRuns());
+        return runs;
+    }
+}
@@ -0,0 +1,263 @@
+package com.example.consumingrest;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Micrometer meters for the harvest: a timer and a bytes-received counter per logical Polaris or Code Dx endpoint, a
+ * findings counter per tool and a timer per tool's harvest.
+ * <p>
+ * Requests are tagged with a fixed endpoint name such as {@code polaris.issue-detail} rather than their URL, which
+ * carries issue and project ids and would otherwise create a new time series for every finding.
+ */
+public class HarvestMetrics {
+
+    private static final Logger log = LoggerFactory.getLogger(HarvestMetrics.class);
+
+    static final String REQUESTS = "harvest.requests";
+    static final String RECEIVED = "harvest.received";
+    static final String FINDINGS = "harvest.findings";
+    static final String RUN = "harvest.run";
+
+    static final String OTHER = "other";
+
+    /**
+     * Path pattern to logical endpoint name, checked in order so that the more specific patterns win
+     */
+    private static final Map<String, String> ENDPOINTS;
+
+    static {
+        Map<String, String> endpoints = new LinkedHashMap<>();
+        endpoints.put("/api/auth/v1/authenticate", "polaris.authenticate");
+        endpoints.put("/api/taxonomy/v0/taxonomies", "polaris.taxonomies");
+        endpoints.put("/api/common/v0/applications", "polaris.applications");
+        endpoints.put("/api/common/v0/applications/*", "polaris.application");
+        endpoints.put("/api/common/v0/projects/*", "polaris.project");
+        endpoints.put("/api/common/v0/branches", "polaris.branches");
+        endpoints.put("/api/common/v0/runs/*", "polaris.run");
+        endpoints.put("/api/query/v1/issues", "polaris.issues");
+        endpoints.put("/api/query/v1/issues/*", "polaris.issue-detail");
+        endpoints.put("/api/query/v0/issue-types/*", "polaris.issue-type");
+        endpoints.put("/api/triage/v1/triage-current", "polaris.triage-bulk");
+        endpoints.put("/api/triage/v1/triage-current/*", "polaris.triage");
+        endpoints.put("/codedx/api/projects", "codedx.projects");
+        endpoints.put("/codedx/api/projects/query", "codedx.projects-query");
+        endpoints.put("/codedx/api/projects/*/findings/table", "codedx.findings-table");
+        endpoints.put("/codedx/api/projects/*", "codedx.project");
+        ENDPOINTS = Collections.unmodifiableMap(endpoints);
+    }
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private final MeterRegistry registry;
+
+    public HarvestMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * @param path the path of a request URL, without the query string
+     * @return the logical endpoint it belongs to, e.g. {@code polaris.issue-detail}, or {@code other}
+     */
+    static String endpoint(String path) {
+        if (path != null) {
+            for (Map.Entry<String, String> endpoint : ENDPOINTS.entrySet()) {
+                if (PATH_MATCHER.match(endpoint.getKey(), path)) {
+                    return endpoint.getValue();
+                }
+            }
+        }
+        return OTHER;
+    }
+
+    /**
+     * @param endpoint a logical endpoint name
+     * @return the tool it belongs to, i.e. {@code polaris}, {@code codedx} or {@code other}
+     */
+    static String tool(String endpoint) {
+        int dot = endpoint.indexOf('.');
+        return dot < 0 ? endpoint : endpoint.substring(0, dot);
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    /**
+     * Stop the timer for one request and count the bytes of its response body
+     *
+     * @param status the HTTP status code, or a short description of the failure when there was no response
+     */
+    public void recordRequest(Timer.Sample sample, String method, String path, String status, long bytesReceived) {
+        String endpoint = endpoint(path);
+        String tool = tool(endpoint);
+        sample.stop(Timer.builder(REQUESTS)
+                .description("Polaris and Code Dx requests, including reading the response body")
+                .tag("tool", tool)
+                .tag("endpoint", endpoint)
+                .tag("method", method)
+                .tag("status", status)
+                .register(registry));
+        Counter.builder(RECEIVED)
+                .description("Response body bytes received")
+                .baseUnit("bytes")
+                .tag("tool", tool)
+                .tag("endpoint", endpoint)
+                .register(registry)
+                .increment(bytesReceived);
+    }
+
+    public void findingProcessed(String tool) {
+        Counter.builder(FINDINGS)
+                .description("Findings reported")
+                .tag("tool", tool)
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Stop the timer for one tool's share of a run
+     */
+    public void recordRun(Timer.Sample sample, String tool) {
+        sample.stop(Timer.builder(RUN)
+                .description("Time spent harvesting each tool")
+                .tag("tool", tool)
+                .register(registry));
+    }
+
+    /**
+     * Times WebClient requests the same way {@link HttpMetricsInterceptor} times RestTemplate requests, stopping the
+     * timer once the response body has been consumed or cancelled
+     */
+    public ExchangeFilterFunction webClientFilter() {
+        return (request, next) -> {
+            Timer.Sample sample = start();
+            String method = request.method().name();
+            String path = request.url().getPath();
+            return next.exchange(request)
+                    .doOnError(e -> recordRequest(sample, method, path, e.getClass().getSimpleName(), 0))
+                    .map(response -> {
+                        String status = Integer.toString(response.rawStatusCode());
+                        AtomicLong bytes = new AtomicLong();
+                        return response.mutate()
+                                .body(body -> body
+                                        .doOnNext(buffer -> bytes.addAndGet(buffer.readableByteCount()))
+                                        .doFinally(signal -> recordRequest(sample, method, path, status, bytes.get())))
+                                .build();
+                    });
+        };
+    }
+
+    /**
+     * The running totals of the meters at one moment.  Taken when a run starts, it lets {@link #logSummary(Snapshot)}
+     * report that run on its own in a process that harvests more than once
+     */
+    public static final class Snapshot {
+
+        private final Map<String, Long> requests = new TreeMap<>();
+        private final Map<String, Double> requestMillis = new TreeMap<>();
+        private final Map<String, Double> received = new TreeMap<>();
+        private final Map<String, Double> findings = new TreeMap<>();
+        private final Map<String, Double> runSeconds = new TreeMap<>();
+
+        public long getRequests(String endpoint) {
+            return requests.getOrDefault(endpoint, 0L);
+        }
+
+        public double getFindings(String tool) {
+            return findings.getOrDefault(tool, 0.0);
+        }
+
+        public double getRunSeconds(String tool) {
+            return runSeconds.getOrDefault(tool, 0.0);
+        }
+
+        /**
+         * @return what was counted between the earlier snapshot and this one
+         */
+        Snapshot since(Snapshot earlier) {
+            Snapshot difference = new Snapshot();
+            requests.forEach((endpoint, count) -> {
+                if (count > earlier.getRequests(endpoint)) {
+                    difference.requests.put(endpoint, count - earlier.getRequests(endpoint));
+                    difference.requestMillis.put(endpoint, requestMillis.get(endpoint)
+                            - earlier.requestMillis.getOrDefault(endpoint, 0.0));
+                    difference.received.put(endpoint, received.getOrDefault(endpoint, 0.0)
+                            - earlier.received.getOrDefault(endpoint, 0.0));
+                }
+            });
+            findings.forEach((tool, count) -> difference.findings.put(tool, count - earlier.getFindings(tool)));
+            runSeconds.forEach((tool, seconds) ->
+                    difference.runSeconds.put(tool, seconds - earlier.getRunSeconds(tool)));
+            return difference;
+        }
+    }
+
+    /**
+     * @return the totals counted since the application started
+     */
+    public Snapshot snapshot() {
+        Snapshot snapshot = new Snapshot();
+        for (Timer timer : registry.find(REQUESTS).timers()) {
+            String endpoint = timer.getId().getTag("endpoint");
+            snapshot.requests.merge(endpoint, timer.count(), Long::sum);
+            snapshot.requestMillis.merge(endpoint, timer.totalTime(TimeUnit.MILLISECONDS), Double::sum);
+        }
+        for (Counter counter : registry.find(RECEIVED).counters()) {
+            snapshot.received.merge(counter.getId().getTag("endpoint"), counter.count(), Double::sum);
+        }
+        for (Counter counter : registry.find(FINDINGS).counters()) {
+            snapshot.findings.merge(counter.getId().getTag("tool"), counter.count(), Double::sum);
+        }
+        for (Timer timer : registry.find(RUN).timers()) {
+            snapshot.runSeconds.merge(timer.getId().getTag("tool"), timer.totalTime(TimeUnit.SECONDS), Double::sum);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Log the totals since the application started, as {@link #logSummary(Snapshot)} does for one run
+     */
+    public void logSummary() {
+        logSummary(new Snapshot());
+    }
+
+    /**
+     * Log request counts, latency and bytes received per endpoint, then findings and throughput per tool, counting
+     * only what happened since the snapshot was taken.  The max latency is the meter's own recent maximum
+     */
+    public void logSummary(Snapshot since) {
+        Snapshot run = snapshot().since(since);
+
+        log.info("#################### Harvest metrics ####################");
+        for (Map.Entry<String, Long> entry : run.requests.entrySet()) {
+            String endpoint = entry.getKey();
+            long count = entry.getValue();
+            double millis = run.requestMillis.get(endpoint);
+            double max = registry.find(REQUESTS).tag("endpoint", endpoint).timers().stream()
+                    .mapToDouble(timer -> timer.max(TimeUnit.MILLISECONDS)).max().orElse(0);
+            log.info(String.format("%-24s %7d requests, %9.0f ms total, %7.1f ms mean, %7.0f ms max, %,.0f bytes",
+                    endpoint, count, millis, millis / count, max, run.received.get(endpoint)));
+        }
+
+        for (Map.Entry<String, Double> entry : run.findings.entrySet()) {
+            String tool = entry.getKey();
+            double findings = entry.getValue();
+            double seconds = run.getRunSeconds(tool);
+            log.info(String.format("%s: %.0f findings in %.1f s, %.0f findings/s", tool, findings, seconds,
+                    seconds > 0 ? findings / seconds : 0));
+        }
+    }
+}
@@ -0,0 +1,496 @@
+package com.example.consumingrest;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * How the harvest is run.  Bound from the {@code harvest.*} properties in {@code application.properties}
+ */
+@ConfigurationProperties(prefix = "harvest")
+public class HarvestProperties {
+
+    public enum Engine {
+        /**
+         * RestTemplate calls made from nested loops, optionally fanned out over a thread pool
+         */
+        BLOCKING,
+        /**
+         * Non-blocking WebClient calls composed into a backpressured stream
+         */
+        REACTIVE
+    }
+
+    private Engine engine = Engine.BLOCKING;
+
+    /**
+     * Start up and exit without harvesting, as the build does to record the class data sharing archive of the cli
+     * profile
+     */
+    private boolean startupOnly = false;
+
+    private final Reactive reactive = new Reactive();
+
+    private final Output output = new Output();
+
+    private final Store store = new Store();
+
+    private final Discovery discovery = new Discovery();
+
+    private final CodeDx codeDx = new CodeDx();
+
+    private final Daemon daemon = new Daemon();
+
+    public Engine getEngine() {
+        return engine;
+    }
+
+    public void setEngine(Engine engine) {
+        this.engine = engine;
+    }
+
+    public boolean isStartupOnly() {
+        return startupOnly;
+    }
+
+    public void setStartupOnly(boolean startupOnly) {
+        this.startupOnly = startupOnly;
+    }
+
+    public Reactive getReactive() {
+        return reactive;
+    }
+
+    public Output getOutput() {
+        return output;
+    }
+
+    public Store getStore() {
+        return store;
+    }
+
+    public Discovery getDiscovery() {
+        return discovery;
+    }
+
+    public CodeDx getCodeDx() {
+        return codeDx;
+    }
+
+    public Daemon getDaemon() {
+        return daemon;
+    }
+
+    public static class Reactive {
+
+        /**
+         * Projects harvested at the same time within an application
+         */
+        private int projectConcurrency = 4;
+
+        /**
+         * Findings enriched at the same time within a project
+         */
+        private int findingConcurrency = 32;
+
+        /**
+         * Largest single response body, such as a page of issues, that may be buffered
+         */
+        private DataSize maxInMemorySize = DataSize.ofMegabytes(64);
+
+        public int getProjectConcurrency() {
+            return projectConcurrency;
+        }
+
+        public void setProjectConcurrency(int projectConcurrency) {
+            this.projectConcurrency = projectConcurrency;
+        }
+
+        public int getFindingConcurrency() {
+            return findingConcurrency;
+        }
+
+        public void setFindingConcurrency(int findingConcurrency) {
+            this.findingConcurrency = findingConcurrency;
+        }
+
+        public DataSize getMaxInMemorySize() {
+            return maxInMemorySize;
+        }
+
+        public void setMaxInMemorySize(DataSize maxInMemorySize) {
+            this.maxInMemorySize = maxInMemorySize;
+        }
+    }
+
+    public static class Output {
+
+        public enum Format {
+            /**
+             * One line per finding in the application log
+             */
+            LOG,
+            /**
+             * One JSON object per line
+             */
+            NDJSON,
+            CSV
+        }
+
+        private Format format = Format.LOG;
+
+        /**
+         * File the findings are written to in the NDJSON and CSV formats.  Replaced on every run
+         */
+        private Path file;
+
+        /**
+         * Findings that may be waiting to be written before the harvest has to wait for the writer
+         */
+        private int ringCapacity = 65536;
+
+        /**
+         * Bytes of records collected before they are written to the file
+         */
+        private DataSize bufferSize = DataSize.ofKilobytes(256);
+
+        public Format getFormat() {
+            return format;
+        }
+
+        public void setFormat(Format format) {
+            this.format = format;
+        }
+
+        public Path getFile() {
+            return file;
+        }
+
+        public void setFile(Path file) {
+            this.file = file;
+        }
+
+        public int getRingCapacity() {
+            return ringCapacity;
+        }
+
+        public void setRingCapacity(int ringCapacity) {
+            this.ringCapacity = ringCapacity;
+        }
+
+        public DataSize getBufferSize() {
+            return bufferSize;
+        }
+
+        public void setBufferSize(DataSize bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+    }
+
+    public static class Store {
+
+        /**
+         * Also keep each run's findings in memory-mapped segment files, indexed by application, project and severity
+         */
+        private boolean enabled = false;
+
+        private Path directory = Paths.get("findings-store");
+
+        /**
+         * Runs whose segments are kept as they are; older segments are compacted into one
+         */
+        private int retainRuns = 1;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Path getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(Path directory) {
+            this.directory = directory;
+        }
+
+        public int getRetainRuns() {
+            return retainRuns;
+        }
+
+        public void setRetainRuns(int retainRuns) {
+            this.retainRuns = retainRuns;
+        }
+    }
+
+    public static class Discovery {
+
+        /**
+         * Harvest every application in Polaris and every parent project in Code Dx, instead of the single ones named
+         * by POLARIS_APPLICATION_ID and CODEDX_PROJECT_ID
+         */
+        private boolean enabled = false;
+
+        /**
+         * Glob patterns of the application ids or names to harvest.  Empty means all of them
+         */
+        private List<String> include = new ArrayList<>();
+
+        /**
+         * Glob patterns of the application ids or names to leave out
+         */
+        private List<String> exclude = new ArrayList<>();
+
+        /**
+         * The most projects harvested at the same time across all applications, by the blocking engine
+         */
+        private int parallelism = 8;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public List<String> getInclude() {
+            return include;
+        }
+
+        public void setInclude(List<String> include) {
+            this.include = include;
+        }
+
+        public List<String> getExclude() {
+            return exclude;
+        }
+
+        public void setExclude(List<String> exclude) {
+            this.exclude = exclude;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+    }
+
+    public static class CodeDx {
+
+        /**
+         * Whether the projects query reads {@code offset} as the page size and {@code limit} as the start, as Code Dx
+         * did through {@link #swappedPagingThrough}.  {@code AUTO} decides from the version the server reports
+         */
+        private CodeDxProjectQuery.Paging paging = CodeDxProjectQuery.Paging.AUTO;
+
+        /**
+         * The last Code Dx version known to swap {@code offset} and {@code limit}
+         */
+        private String swappedPagingThrough = "2022.1.2";
+
+        /**
+         * Projects requested per page of the projects query
+         */
+        private int pageSize = 100;
+
+        /**
+         * Projects whose children are queried at the same time while walking a project tree
+         */
+        private int treeConcurrency = 4;
+
+        /**
+         * Findings requested per page of a project's findings table
+         */
+        private int findingsPageSize = 1000;
+
+        /**
+         * Severity names of the findings to harvest, e.g. Critical or High.  Empty means all of them
+         */
+        private List<String> severities = new ArrayList<>();
+
+        /**
+         * Statuses of the findings to harvest, e.g. new or escalated.  Empty means all of them
+         */
+        private List<String> statuses = new ArrayList<>();
+
+        public CodeDxProjectQuery.Paging getPaging() {
+            return paging;
+        }
+
+        public void setPaging(CodeDxProjectQuery.Paging paging) {
+            this.paging = paging;
+        }
+
+        public String getSwappedPagingThrough() {
+            return swappedPagingThrough;
+        }
+
+        public void setSwappedPagingThrough(String swappedPagingThrough) {
+            this.swappedPagingThrough = swappedPagingThrough;
+        }
+
+        public int getPageSize() {
+            return pageSize;
+        }
+
+        public void setPageSize(int pageSize) {
+            this.pageSize = pageSize;
+        }
+
+        public int getTreeConcurrency() {
+            return treeConcurrency;
+        }
+
+        public void setTreeConcurrency(int treeConcurrency) {
+            this.treeConcurrency = treeConcurrency;
+        }
+
+        public int getFindingsPageSize() {
+            return findingsPageSize;
+        }
+
+        public void setFindingsPageSize(int findingsPageSize) {
+            this.findingsPageSize = findingsPageSize;
+        }
+
+        public List<String> getSeverities() {
+            return severities;
+        }
+
+        public void setSeverities(List<String> severities) {
+            this.severities = severities;
+        }
+
+        public List<String> getStatuses() {
+            return statuses;
+        }
+
+        public void setStatuses(List<String> statuses) {
+            this.statuses = statuses;
+        }
+
+        /**
+         * @return the query for each project's findings that these settings describe
+         */
+        public CodeDxFindingsQuery findingsQuery() {
+            return new CodeDxFindingsQuery(severities, statuses, findingsPageSize);
+        }
+    }
+
+    public static class Daemon {
+
+        /**
+         * Keep running after start up and harvest on the schedules below, instead of harvesting once
+         */
+        private boolean enabled = false;
+
+        /**
+         * Time zone the cron expressions are read in.  Defaults to the system's
+         */
+        private TimeZone zone = TimeZone.getDefault();
+
+        private List<Schedule> schedules = new ArrayList<>();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public TimeZone getZone() {
+            return zone;
+        }
+
+        public void setZone(TimeZone zone) {
+            this.zone = zone;
+        }
+
+        public List<Schedule> getSchedules() {
+            return schedules;
+        }
+
+        public void setSchedules(List<Schedule> schedules) {
+            this.schedules = schedules;
+        }
+
+        public static class Schedule {
+
+            /**
+             * What the schedule's runs are reported as in the logs, the metrics and {@code /actuator/harvest}
+             */
+            private String name;
+
+            private HarvestDaemon.Mode mode = HarvestDaemon.Mode.DELTA;
+
+            /**
+             * Six-field Spring cron expression, e.g. {@code 0 0 2 * * *}.  Takes precedence over fixed-delay
+             */
+            private String cron;
+
+            /**
+             * Time from the end of one run of the schedule to the start of its next
+             */
+            private Duration fixedDelay;
+
+            /**
+             * Time from start up to the first run of a fixed-delay schedule
+             */
+            private Duration initialDelay = Duration.ZERO;
+
+            public String getName() {
+                return name;
+            }
+
+            public void setName(String name) {
+                this.name = name;
+            }
+
+            public HarvestDaemon.Mode getMode() {
+                return mode;
+            }
+
+            public void setMode(HarvestDaemon.Mode mode) {
+                this.mode = mode;
+            }
+
+            public String getCron() {
+                return cron;
+            }
+
+            public void setCron(String cron) {
+                this.cron = cron;
+            }
+
+            public Duration getFixedDelay() {
+                return fixedDelay;
+            }
+
+            public void setFixedDelay(Duration fixedDelay) {
+                this.fixedDelay = fixedDelay;
+            }
+
+            public Duration getInitialDelay() {
+                return initialDelay;
+            }
+
+            public void setInitialDelay(Duration initialDelay) {
+                this.initialDelay = initialDelay;
+            }
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.consumingrest;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.DigestUtils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A small file-backed key-value store that remembers what each finding looked like on the previous run, so unchanged
+ * findings can be reported without repeating their expensive lookups.
+ * <p>
+ * The file is a log of tab-separated {@code key, value} lines.  Updates are appended as they happen, so a run that
+ * dies part way still keeps what it learned, and the log is compacted to one line per key when the store is closed.
+ */
+public class HarvestStateStore implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(HarvestStateStore.class);
+
+    private final Path file;
+    private final Map<String, String> entries = new ConcurrentHashMap<>();
+    private final BufferedWriter appender;
+
+    private HarvestStateStore(Path file) throws IOException {
+        this.file = file;
+        if (Files.exists(file)) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int tab = line.indexOf('\t');
+                    if (tab > 0) {
+                        entries.put(line.substring(0, tab), line.substring(tab + 1));
+                    }
+                }
+            }
+        } else {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+        }
+        this.appender = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+        log.info("loaded " + entries.size() + " harvest state entries from " + file);
+    }
+
+    /**
+     * @param file the store file, created if it does not exist yet
+     * @return the opened store
+     * @throws IOException if the file cannot be read or opened for writing
+     */
+    public static HarvestStateStore open(Path file) throws IOException {
+        return new HarvestStateStore(file);
+    }
+
+    public String get(String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * @param key   must not contain tabs or line breaks
+     * @param value must not contain line breaks
+     */
+    public void put(String key, String value) {
+        if (value.equals(entries.put(key, value))) {
+            return;
+        }
+        synchronized (appender) {
+            try {
+                appender.write(key);
+                appender.write('\t');
+                appender.write(value);
+                appender.newLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException("failed to append to " + file, e);
+            }
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Rewrite the file with one line per key and release it
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (appender) {
+            appender.close();
+        }
+        Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                writer.write(entry.getKey());
+                writer.write('\t');
+                writer.write(entry.getValue());
+                writer.newLine();
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * @param json a JSONObject, JSONArray or plain value
+     * @return a digest of the value that does not depend on the order of object keys
+     */
+    public static String digest(Object json) {
+        StringBuilder canonical = new StringBuilder();
+        appendCanonical(canonical, json);
+        return DigestUtils.md5DigestAsHex(canonical.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void appendCanonical(StringBuilder out, Object value) {
+        if (value instanceof JSONObject) {
+            JSONObject object = (JSONObject) value;
+            List<String> keys = new ArrayList<>();
+            for (Iterator<?> it = object.keys(); it.hasNext(); ) {
+                keys.add((String) it.next());
+            }
+            Collections.sort(keys);
+            out.append('{');
+            for (String key : keys) {
+                out.append(JSONObject.quote(key)).append(':');
+                appendCanonical(out, object.opt(key));
+                out.append(',');
+            }
+            out.append('}');
+        } else if (value instanceof JSONArray) {
+            JSONArray array = (JSONArray) value;
+            out.append('[');
+            for (int i = 0; i < array.length(); i++) {
+                appendCanonical(out, array.opt(i));
+                out.append(',');
+            }
+            out.append(']');
+        } else {
+            out.append(value instanceof String ? JSONObject.quote((String) value) : String.valueOf(value));
+        }
+    }
+}
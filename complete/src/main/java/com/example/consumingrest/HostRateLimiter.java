@@ -0,0 +1,294 @@
+package com.example.consumingrest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * A token bucket per upstream host, shared by every thread that calls it, plus the rules for retrying a request that
+ * was throttled or failed.
+ * <p>
+ * A 429 is retried whatever the method, since the server turned the request away without acting on it.  A 502, 503 or
+ * 504 and an I/O error are only retried for idempotent methods.  A Retry-After header is honored, and also pauses the
+ * host's bucket so that other threads hold off instead of running into the same 429.  Otherwise the delay grows
+ * exponentially with random jitter.
+ */
+public class HostRateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(HostRateLimiter.class);
+
+    private static final Set<String> IDEMPOTENT_METHODS = Collections.unmodifiableSet(new HashSet<>(
+            Arrays.asList("GET", "HEAD", "OPTIONS")));
+
+    private final HttpRateLimitProperties properties;
+    private final Map<String, Double> permitsByHost = new LinkedHashMap<>();
+    private final ConcurrentMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final LongSupplier nanoClock;
+
+    private final AtomicLong waited = new AtomicLong();
+    private final AtomicLong waitedNanos = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+
+    public HostRateLimiter(HttpRateLimitProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    HostRateLimiter(HttpRateLimitProperties properties, LongSupplier nanoClock) {
+        this.properties = properties;
+        this.nanoClock = nanoClock;
+        for (Map.Entry<String, Double> hostLimit : properties.getPermitsPerSecondPerHost().entrySet()) {
+            permitsByHost.put(hostKey(URI.create(hostLimit.getKey())), hostLimit.getValue());
+        }
+    }
+
+    /**
+     * @return {@code scheme://host:port} with the default port filled in, so every URL of a host shares one bucket
+     */
+    static String hostKey(URI uri) {
+        boolean secure = "https".equalsIgnoreCase(uri.getScheme());
+        int port = uri.getPort() > 0 ? uri.getPort() : (secure ? 443 : 80);
+        return uri.getScheme() + "://" + uri.getHost() + ":" + port;
+    }
+
+    /**
+     * Take a permit for a request to the given URL's host
+     *
+     * @return nanoseconds the caller must wait before sending the request
+     */
+    public long reserve(URI uri) {
+        long wait = bucket(uri).reserve(nanoClock.getAsLong());
+        if (wait > 0) {
+            waited.incrementAndGet();
+            waitedNanos.addAndGet(wait);
+        }
+        return wait;
+    }
+
+    /**
+     * Decide whether a response should be retried
+     *
+     * @param status     the HTTP status code of the response
+     * @param retryAfter the response's Retry-After header, or null
+     * @param attempt    how many times the request has been sent, starting at 1
+     * @return nanoseconds to wait before sending the request again, or -1 to hand the response back as it is
+     */
+    public long retryDelay(URI uri, String method, int status, String retryAfter, int attempt) {
+        boolean retryable = status == 429
+                || ((status == 502 || status == 503 || status == 504) && IDEMPOTENT_METHODS.contains(method));
+        if (!retryable || attempt >= properties.getRetry().getMaxAttempts()) {
+            return -1;
+        }
+        if (status == 429) {
+            throttled.incrementAndGet();
+        }
+
+        long delay;
+        long retryAfterNanos = parseRetryAfter(retryAfter, System.currentTimeMillis());
+        if (retryAfterNanos >= 0) {
+            if (retryAfterNanos > properties.getRetry().getMaxRetryAfter().toNanos()) {
+                log.warn(method + " " + uri.getPath() + " returned " + status + " with a Retry-After of "
+                        + TimeUnit.NANOSECONDS.toSeconds(retryAfterNanos) + "s, longer than we are willing to wait");
+                return -1;
+            }
+            delay = retryAfterNanos;
+            bucket(uri).pause(nanoClock.getAsLong() + delay);
+        } else {
+            delay = backoff(attempt);
+        }
+
+        retried.incrementAndGet();
+        log.warn(method + " " + uri.getPath() + " returned " + status + ", retrying in "
+                + TimeUnit.NANOSECONDS.toMillis(delay) + " ms (attempt " + (attempt + 1) + " of "
+                + properties.getRetry().getMaxAttempts() + ")");
+        return delay;
+    }
+
+    /**
+     * Decide whether a request that failed without a response should be retried
+     *
+     * @return nanoseconds to wait before sending the request again, or -1 to give up
+     */
+    public long retryDelay(URI uri, String method, Throwable error, int attempt) {
+        if (!IDEMPOTENT_METHODS.contains(method) || attempt >= properties.getRetry().getMaxAttempts()) {
+            return -1;
+        }
+        long delay = backoff(attempt);
+        retried.incrementAndGet();
+        log.warn(method + " " + uri.getPath() + " failed with " + error + ", retrying in "
+                + TimeUnit.NANOSECONDS.toMillis(delay) + " ms (attempt " + (attempt + 1) + " of "
+                + properties.getRetry().getMaxAttempts() + ")");
+        return delay;
+    }
+
+    /**
+     * @return the delay before the given retry, between half and all of the exponentially grown backoff
+     */
+    long backoff(int attempt) {
+        long initial = properties.getRetry().getInitialBackoff().toNanos();
+        long max = properties.getRetry().getMaxBackoff().toNanos();
+        long exponential = initial << Math.min(attempt - 1, 30);
+        if (exponential <= 0 || exponential > max) {
+            exponential = max;
+        }
+        long half = exponential / 2;
+        return half + ThreadLocalRandom.current().nextLong(exponential - half + 1);
+    }
+
+    /**
+     * @param retryAfter either a number of seconds or an HTTP date
+     * @return the delay it asks for in nanoseconds, or -1 if there is none or it cannot be read
+     */
+    static long parseRetryAfter(String retryAfter, long nowMillis) {
+        if (retryAfter == null || retryAfter.trim().isEmpty()) {
+            return -1;
+        }
+        String value = retryAfter.trim();
+        try {
+            return TimeUnit.SECONDS.toNanos(Math.max(0, Long.parseLong(value)));
+        } catch (NumberFormatException ignored) {
+            // not a number of seconds, try a date
+        }
+        try {
+            long millis = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis - nowMillis));
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Applies the same limits and retries to WebClient requests, waiting without blocking a thread
+     */
+    public ExchangeFilterFunction webClientFilter() {
+        return (request, next) -> exchange(request, next, 1);
+    }
+
+    private Mono<ClientResponse> exchange(ClientRequest request, ExchangeFunction next, int attempt) {
+        URI uri = request.url();
+        String method = request.method().name();
+        return Mono.defer(() -> delay(reserve(uri)).then(next.exchange(request)))
+                .map(Outcome::new)
+                .onErrorResume(e -> e instanceof WebClientRequestException || e instanceof IOException,
+                        e -> Mono.just(new Outcome(e)))
+                .flatMap(outcome -> {
+                    long retryIn = outcome.error != null
+                            ? retryDelay(uri, method, outcome.error, attempt)
+                            : retryDelay(uri, method, outcome.response.rawStatusCode(),
+                            outcome.response.headers().asHttpHeaders().getFirst(HttpHeaders.RETRY_AFTER), attempt);
+                    if (retryIn < 0) {
+                        return outcome.error != null ? Mono.error(outcome.error) : Mono.just(outcome.response);
+                    }
+                    Mono<Void> release = outcome.response != null ? outcome.response.releaseBody() : Mono.empty();
+                    return release.then(delay(retryIn)).then(Mono.defer(() -> exchange(request, next, attempt + 1)));
+                });
+    }
+
+    private static Mono<Void> delay(long nanos) {
+        return nanos > 0 ? Mono.delay(Duration.ofNanos(nanos)).then() : Mono.empty();
+    }
+
+    private TokenBucket bucket(URI uri) {
+        return buckets.computeIfAbsent(hostKey(uri), host -> new TokenBucket(
+                permitsByHost.getOrDefault(host, properties.getPermitsPerSecond()), properties.getBurst(),
+                nanoClock.getAsLong()));
+    }
+
+    @Override
+    public String toString() {
+        return "HostRateLimiter{" +
+                "waited=" + waited.get() +
+                ", waitedMillis=" + TimeUnit.NANOSECONDS.toMillis(waitedNanos.get()) +
+                ", throttled=" + throttled.get() +
+                ", retried=" + retried.get() +
+                '}';
+    }
+
+    private static class Outcome {
+        final ClientResponse response;
+        final Throwable error;
+
+        Outcome(ClientResponse response) {
+            this.response = response;
+            this.error = null;
+        }
+
+        Outcome(Throwable error) {
+            this.response = null;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Hands out permits at a fixed rate and lets up to {@code burst} of them build up while the host is idle.
+     * Permits may be reserved ahead of time, in which case the caller is told how long to wait for its turn
+     */
+    static class TokenBucket {
+        private final double permitsPerNano;
+        private final double burst;
+
+        private double tokens;
+        private long lastRefill;
+        private long pausedUntil;
+
+        TokenBucket(double permitsPerSecond, int burst, long now) {
+            this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.burst = Math.max(1, burst);
+            this.tokens = this.burst;
+            this.lastRefill = now;
+            this.pausedUntil = now;
+        }
+
+        synchronized long reserve(long now) {
+            if (permitsPerNano <= 0) {
+                return Math.max(0, pausedUntil - now);
+            }
+            // while paused no permits build up, and the first one becomes available when the pause ends
+            long from = Math.max(now, pausedUntil);
+            if (from > lastRefill) {
+                tokens = Math.min(burst, tokens + (from - lastRefill) * permitsPerNano);
+                lastRefill = from;
+            }
+            tokens -= 1;
+            long wait = lastRefill - now;
+            if (tokens < 0) {
+                wait += (long) Math.ceil(-tokens / permitsPerNano);
+            }
+            return Math.max(0, wait);
+        }
+
+        synchronized void pause(long until) {
+            if (until > pausedUntil) {
+                pausedUntil = until;
+                // resume with a single permit rather than a burst, so the host is not hit by everyone at once
+                tokens = Math.min(tokens, 1);
+                lastRefill = Math.max(lastRefill, until);
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.consumingrest;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Settings for the on-disk cache of slowly changing reference data such as applications, projects, issue types and
+ * taxonomies.  Bound from the {@code http.cache.*} properties in {@code application.properties}
+ */
+@ConfigurationProperties(prefix = "http.cache")
+public class HttpCacheProperties {
+
+    private boolean enabled = false;
+
+    private Path directory = Paths.get("cache", "http");
+
+    /**
+     * Once the cached bodies exceed this size the least recently used entries are removed
+     */
+    private DataSize maxSize = DataSize.ofMegabytes(256);
+
+    /**
+     * How long a cached response is used without asking the server, keyed by an Ant-style pattern matched against
+     * the request path.  GET requests whose path matches none of the patterns are never cached.  After the TTL the
+     * response is revalidated with If-None-Match / If-Modified-Since
+     */
+    private Map<String, Duration> ttl = new LinkedHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(Path directory) {
+        this.directory = directory;
+    }
+
+    public DataSize getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(DataSize maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public Map<String, Duration> getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(Map<String, Duration> ttl) {
+        this.ttl = ttl;
+    }
+}
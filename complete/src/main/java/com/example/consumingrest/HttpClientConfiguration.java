@@ -0,0 +1,151 @@
+package com.example.consumingrest;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.http.HeaderElement;
+import org.apache.http.HeaderElementIterator;
+import org.apache.http.HttpHost;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.message.BasicHeaderElementIterator;
+import org.apache.http.protocol.HTTP;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pooled, keep-alive HTTP client used by the {@code restTemplate} bean so concurrent calls to Polaris and Code Dx
+ * reuse connections instead of paying for a new TLS handshake on every request
+ */
+@Configuration
+@EnableConfigurationProperties({HttpClientProperties.class, HttpCacheProperties.class,
+        HttpRateLimitProperties.class})
+public class HttpClientConfiguration {
+
+    @Bean
+    public PoolingHttpClientConnectionManager httpConnectionManager(HttpClientProperties properties) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(properties.getMaxTotal());
+        connectionManager.setDefaultMaxPerRoute(properties.getMaxPerRoute());
+        // re-check connections that sat idle for a while before reusing them, in case the server dropped them
+        connectionManager.setValidateAfterInactivity(2000);
+
+        for (Map.Entry<String, Integer> hostLimit : properties.getMaxPerHost().entrySet()) {
+            connectionManager.setMaxPerRoute(toRoute(hostLimit.getKey()), hostLimit.getValue());
+        }
+        return connectionManager;
+    }
+
+    /**
+     * Leased, pending and available connections of the pool on {@code /actuator/prometheus}, as
+     * {@code httpcomponents.httpclient.pool.*} tagged {@code httpclient=harvest}
+     */
+    @Bean
+    public PoolingHttpClientConnectionManagerMetricsBinder httpConnectionPoolMetrics(
+            PoolingHttpClientConnectionManager httpConnectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(httpConnectionManager, "harvest");
+    }
+
+    @Bean
+    public CloseableHttpClient httpClient(PoolingHttpClientConnectionManager httpConnectionManager,
+                                          HttpClientProperties properties) {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout((int) properties.getConnectTimeout().toMillis())
+                .setSocketTimeout((int) properties.getReadTimeout().toMillis())
+                .setConnectionRequestTimeout((int) properties.getConnectionRequestTimeout().toMillis())
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(httpConnectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(keepAliveStrategy(properties.getKeepAlive().toMillis()))
+                .evictExpiredConnections()
+                .evictIdleConnections(properties.getIdleEviction().toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    @Bean
+    public HarvestMetrics harvestMetrics(MeterRegistry meterRegistry) {
+        return new HarvestMetrics(meterRegistry);
+    }
+
+    /**
+     * Times every request by logical endpoint.  Runs outermost, so cache hits are timed too and the figures show what
+     * the harvest actually waited for
+     */
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public HttpMetricsInterceptor httpMetricsInterceptor(HarvestMetrics harvestMetrics) {
+        return new HttpMetricsInterceptor(harvestMetrics);
+    }
+
+    /**
+     * Serves reference data from disk and revalidates it with conditional requests.  Runs after every other
+     * interceptor but the rate limiter, so a cache hit never reaches the network or uses up a permit
+     */
+    @Bean
+    @Order(Ordered.LOWEST_PRECEDENCE - 1)
+    @ConditionalOnProperty(prefix = "http.cache", name = "enabled", havingValue = "true")
+    public DiskCacheInterceptor diskCacheInterceptor(HttpCacheProperties properties) {
+        return new DiskCacheInterceptor(properties);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "http.rate-limit", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public HostRateLimiter hostRateLimiter(HttpRateLimitProperties properties) {
+        return new HostRateLimiter(properties);
+    }
+
+    /**
+     * Keeps each host within its request budget and retries throttled requests.  Runs innermost, right before the
+     * request is sent, because a retry re-executes everything after it in the chain
+     */
+    @Bean
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @ConditionalOnProperty(prefix = "http.rate-limit", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public RateLimitInterceptor rateLimitInterceptor(HostRateLimiter hostRateLimiter) {
+        return new RateLimitInterceptor(hostRateLimiter);
+    }
+
+    /**
+     * Honor the server's {@code Keep-Alive: timeout=N} header when present and fall back to the configured duration
+     */
+    private static ConnectionKeepAliveStrategy keepAliveStrategy(long defaultMillis) {
+        return (response, context) -> {
+            HeaderElementIterator it = new BasicHeaderElementIterator(response.headerIterator(HTTP.CONN_KEEP_ALIVE));
+            while (it.hasNext()) {
+                HeaderElement element = it.nextElement();
+                if ("timeout".equalsIgnoreCase(element.getName()) && element.getValue() != null) {
+                    try {
+                        return Long.parseLong(element.getValue()) * 1000;
+                    } catch (NumberFormatException ignored) {
+                        // fall through to the default
+                    }
+                }
+            }
+            return defaultMillis;
+        };
+    }
+
+    /**
+     * @param baseUrl e.g. {@code https://polaris.example.com}
+     * @return the route the pool uses for connections to that host
+     */
+    static HttpRoute toRoute(String baseUrl) {
+        URI uri = URI.create(baseUrl);
+        boolean secure = "https".equalsIgnoreCase(uri.getScheme());
+        int port = uri.getPort() > 0 ? uri.getPort() : (secure ? 443 : 80);
+        return new HttpRoute(new HttpHost(uri.getHost(), port, uri.getScheme()), null, secure);
+    }
+}
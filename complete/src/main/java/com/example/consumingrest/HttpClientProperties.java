@@ -0,0 +1,113 @@
+package com.example.consumingrest;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Connection pool settings for the HTTP client behind the {@code restTemplate} bean.  Bound from the
+ * {@code http.client.*} properties in {@code application.properties}
+ */
+@ConfigurationProperties(prefix = "http.client")
+public class HttpClientProperties {
+
+    /**
+     * Maximum number of open connections across all hosts
+     */
+    private int maxTotal = 100;
+
+    /**
+     * Maximum number of open connections to any one host unless overridden in {@link #maxPerHost}
+     */
+    private int maxPerRoute = 20;
+
+    /**
+     * Per-host overrides of {@link #maxPerRoute}, keyed by base URL, e.g. {@code https://polaris.example.com}
+     */
+    private Map<String, Integer> maxPerHost = new LinkedHashMap<>();
+
+    private Duration connectTimeout = Duration.ofSeconds(10);
+
+    private Duration readTimeout = Duration.ofMinutes(2);
+
+    /**
+     * How long a request waits for a free connection from the pool
+     */
+    private Duration connectionRequestTimeout = Duration.ofSeconds(30);
+
+    /**
+     * How long an idle connection is kept for reuse when the server does not send a Keep-Alive timeout
+     */
+    private Duration keepAlive = Duration.ofSeconds(30);
+
+    /**
+     * Connections idle for longer than this are closed by a background thread
+     */
+    private Duration idleEviction = Duration.ofMinutes(1);
+
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    public void setMaxTotal(int maxTotal) {
+        this.maxTotal = maxTotal;
+    }
+
+    public int getMaxPerRoute() {
+        return maxPerRoute;
+    }
+
+    public void setMaxPerRoute(int maxPerRoute) {
+        this.maxPerRoute = maxPerRoute;
+    }
+
+    public Map<String, Integer> getMaxPerHost() {
+        return maxPerHost;
+    }
+
+    public void setMaxPerHost(Map<String, Integer> maxPerHost) {
+        this.maxPerHost = maxPerHost;
+    }
+
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(Duration connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public Duration getReadTimeout() {
+        return readTimeout;
+    }
+
+    public void setReadTimeout(Duration readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+    public Duration getConnectionRequestTimeout() {
+        return connectionRequestTimeout;
+    }
+
+    public void setConnectionRequestTimeout(Duration connectionRequestTimeout) {
+        this.connectionRequestTimeout = connectionRequestTimeout;
+    }
+
+    public Duration getKeepAlive() {
+        return keepAlive;
+    }
+
+    public void setKeepAlive(Duration keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    public Duration getIdleEviction() {
+        return idleEviction;
+    }
+
+    public void setIdleEviction(Duration idleEviction) {
+        this.idleEviction = idleEviction;
+    }
+}
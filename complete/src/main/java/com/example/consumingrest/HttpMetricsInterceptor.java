@@ -0,0 +1,131 @@
+package com.example.consumingrest;
+
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Records every RestTemplate request in {@link HarvestMetrics}.  The timer runs until the response is closed, so it
+ * covers reading the body as well as waiting for the headers, which matters for the large streamed Code Dx findings
+ * tables
+ */
+public class HttpMetricsInterceptor implements ClientHttpRequestInterceptor {
+
+    private final HarvestMetrics metrics;
+
+    public HttpMetricsInterceptor(HarvestMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        Timer.Sample sample = metrics.start();
+        String method = request.getMethodValue();
+        String path = request.getURI().getPath();
+        ClientHttpResponse response;
+        try {
+            response = execution.execute(request, body);
+        } catch (IOException | RuntimeException e) {
+            metrics.recordRequest(sample, method, path, e.getClass().getSimpleName(), 0);
+            throw e;
+        }
+        return new MeteredResponse(response, sample, method, path);
+    }
+
+    private class MeteredResponse implements ClientHttpResponse {
+        private final ClientHttpResponse delegate;
+        private final Timer.Sample sample;
+        private final String method;
+        private final String path;
+        private long bytes;
+        private InputStream body;
+        private boolean closed;
+
+        MeteredResponse(ClientHttpResponse delegate, Timer.Sample sample, String method, String path) {
+            this.delegate = delegate;
+            this.sample = sample;
+            this.method = method;
+            this.path = path;
+        }
+
+        @Override
+        public HttpStatus getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public int getRawStatusCode() throws IOException {
+            return delegate.getRawStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (body == null) {
+                body = new FilterInputStream(delegate.getBody()) {
+                    // mark and reset would count the re-read bytes twice
+                    @Override
+                    public boolean markSupported() {
+                        return false;
+                    }
+
+                    @Override
+                    public int read() throws IOException {
+                        int b = super.read();
+                        if (b >= 0) {
+                            bytes++;
+                        }
+                        return b;
+                    }
+
+                    @Override
+                    public int read(byte[] b, int off, int len) throws IOException {
+                        int n = super.read(b, off, len);
+                        if (n > 0) {
+                            bytes += n;
+                        }
+                        return n;
+                    }
+                };
+            }
+            return body;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            String status;
+            try {
+                status = Integer.toString(delegate.getRawStatusCode());
+            } catch (IOException e) {
+                status = e.getClass().getSimpleName();
+            }
+            try {
+                delegate.close();
+            } finally {
+                metrics.recordRequest(sample, method, path, status, bytes);
+            }
+        }
+    }
+}
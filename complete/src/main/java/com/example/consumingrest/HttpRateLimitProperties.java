@@ -0,0 +1,124 @@
+package com.example.consumingrest;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Client-side request budget per upstream host and how throttled or failed requests are retried.  Bound from the
+ * {@code http.rate-limit.*} properties in {@code application.properties}
+ */
+@ConfigurationProperties(prefix = "http.rate-limit")
+public class HttpRateLimitProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Requests per second sent to any one host unless overridden in {@link #permitsPerSecondPerHost}.  0 sends
+     * requests as fast as they come, while still retrying throttled ones
+     */
+    private double permitsPerSecond = 50;
+
+    /**
+     * Per-host overrides of {@link #permitsPerSecond}, keyed by base URL, e.g. {@code https://polaris.example.com}
+     */
+    private Map<String, Double> permitsPerSecondPerHost = new LinkedHashMap<>();
+
+    /**
+     * How many requests may be sent back to back after a host has been idle
+     */
+    private int burst = 50;
+
+    private final Retry retry = new Retry();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    public void setPermitsPerSecond(double permitsPerSecond) {
+        this.permitsPerSecond = permitsPerSecond;
+    }
+
+    public Map<String, Double> getPermitsPerSecondPerHost() {
+        return permitsPerSecondPerHost;
+    }
+
+    public void setPermitsPerSecondPerHost(Map<String, Double> permitsPerSecondPerHost) {
+        this.permitsPerSecondPerHost = permitsPerSecondPerHost;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    public void setBurst(int burst) {
+        this.burst = burst;
+    }
+
+    public Retry getRetry() {
+        return retry;
+    }
+
+    public static class Retry {
+
+        /**
+         * Attempts per request including the first, so 1 disables retries
+         */
+        private int maxAttempts = 5;
+
+        /**
+         * Delay before the first retry when the server sends no Retry-After.  Doubles on every further retry, with
+         * random jitter so that threads throttled together do not retry together
+         */
+        private Duration initialBackoff = Duration.ofMillis(500);
+
+        private Duration maxBackoff = Duration.ofSeconds(30);
+
+        /**
+         * A Retry-After longer than this is not waited out, and the response is returned as it is
+         */
+        private Duration maxRetryAfter = Duration.ofMinutes(5);
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public Duration getInitialBackoff() {
+            return initialBackoff;
+        }
+
+        public void setInitialBackoff(Duration initialBackoff) {
+            this.initialBackoff = initialBackoff;
+        }
+
+        public Duration getMaxBackoff() {
+            return maxBackoff;
+        }
+
+        public void setMaxBackoff(Duration maxBackoff) {
+            this.maxBackoff = maxBackoff;
+        }
+
+        public Duration getMaxRetryAfter() {
+            return maxRetryAfter;
+        }
+
+        public void setMaxRetryAfter(Duration maxRetryAfter) {
+            this.maxRetryAfter = maxRetryAfter;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.consumingrest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Thread-safe cache of Polaris issue type id to human-readable issue type name.  There are only a few hundred issue
+ * types in a tenant, so a single instance is shared by every project and application in a run.  Entries are evicted
+ * least recently used first once the cache is full, and are reloaded once they are older than the TTL.
+ * <p>
+ * The cache can be saved to and warm-loaded from a snapshot file so that later runs skip the issue type lookups
+ * entirely.
+ */
+public class IssueTypeNameCache {
+
+    private static final Logger log = LoggerFactory.getLogger(IssueTypeNameCache.class);
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+
+    private final LinkedHashMap<String, Entry> entries;
+    private final ConcurrentMap<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param maxEntries number of issue types kept before the least recently used is evicted
+     * @param ttl        how long a name is trusted before it is fetched again
+     * @param ttlUnit    unit of {@code ttl}
+     */
+    public IssueTypeNameCache(int maxEntries, long ttl, TimeUnit ttlUnit) {
+        this(maxEntries, ttlUnit.toMillis(ttl), System::currentTimeMillis);
+    }
+
+    IssueTypeNameCache(int maxEntries, long ttlMillis, LongSupplier clock) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > IssueTypeNameCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Look up the name for an issue type, calling the loader only when it is not cached or has expired.  Concurrent
+     * misses for the same id share a single call to the loader.
+     *
+     * @param issueTypeId unique identifier for the issue type
+     * @param loader      fetches the name from Polaris
+     * @return human-readable issue name
+     */
+    public String get(String issueTypeId, Function<String, String> loader) {
+        long now = clock.getAsLong();
+        synchronized (entries) {
+            Entry entry = entries.get(issueTypeId);
+            if (entry != null && now - entry.loadedAt < ttlMillis) {
+                hits.incrementAndGet();
+                return entry.name;
+            }
+        }
+        misses.incrementAndGet();
+
+        CompletableFuture<String> mine = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(issueTypeId, mine);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+
+        try {
+            String name = loader.apply(issueTypeId);
+            put(issueTypeId, name, clock.getAsLong());
+            mine.complete(name);
+            return name;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(issueTypeId, mine);
+        }
+    }
+
+    private void put(String issueTypeId, String name, long loadedAt) {
+        synchronized (entries) {
+            entries.put(issueTypeId, new Entry(name, loadedAt));
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Warm-load entries saved by {@link #saveSnapshot(Path)}.  Expired entries are skipped, and a missing file is
+     * not an error since the first run will not have one yet.
+     *
+     * @param snapshot file to read
+     * @throws IOException if the file exists but cannot be read
+     */
+    public void loadSnapshot(Path snapshot) throws IOException {
+        if (!Files.exists(snapshot)) {
+            return;
+        }
+        long now = clock.getAsLong();
+        int loaded = 0;
+        try (BufferedReader reader = Files.newBufferedReader(snapshot, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\t", 3);
+                if (parts.length != 3) {
+                    continue;
+                }
+                long loadedAt = Long.parseLong(parts[1]);
+                if (now - loadedAt < ttlMillis) {
+                    put(parts[0], parts[2], loadedAt);
+                    loaded++;
+                }
+            }
+        }
+        log.info("loaded " + loaded + " issue types from " + snapshot);
+    }
+
+    /**
+     * Write the current entries as tab-separated {@code id, load time, name} lines.  The file is replaced atomically
+     * so a crash mid-write never leaves a truncated snapshot behind.
+     *
+     * @param snapshot file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void saveSnapshot(Path snapshot) throws IOException {
+        Map<String, Entry> copy;
+        synchronized (entries) {
+            copy = new LinkedHashMap<>(entries);
+        }
+        Path parent = snapshot.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path tmp = Files.createTempFile(parent, snapshot.getFileName().toString(), ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, Entry> e : copy.entrySet()) {
+                writer.write(e.getKey() + "\t" + e.getValue().loadedAt + "\t" + e.getValue().name);
+                writer.newLine();
+            }
+        }
+        Files.move(tmp, snapshot, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Override
+    public String toString() {
+        return "issue type cache size " + size() + " hits " + getHits() + " misses " + getMisses();
+    }
+
+    private static class Entry {
+        final String name;
+        final long loadedAt;
+
+        Entry(String name, long loadedAt) {
+            this.name = name;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.consumingrest;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The "included" array of a JSON:API response, indexed by type and id so that a relationship of any resource on the
+ * page resolves to its side-loaded resource without a scan or another request.
+ */
+public final class JsonApiIncluded {
+
+    private static final JsonApiIncluded EMPTY = new JsonApiIncluded(Collections.<String, JSONObject>emptyMap());
+
+    private final Map<String, JSONObject> resources;
+
+    private JsonApiIncluded(Map<String, JSONObject> resources) {
+        this.resources = resources;
+    }
+
+    /**
+     * @param response a JSON:API response, e.g. one page of the Polaris issues query
+     * @return its side-loaded resources, empty if it has none
+     */
+    public static JsonApiIncluded of(JSONObject response) {
+        JSONArray included = response == null ? null : response.optJSONArray("included");
+        if (included == null || included.length() == 0) {
+            return EMPTY;
+        }
+        Map<String, JSONObject> resources = new HashMap<>(included.length() * 2);
+        for (int i = 0; i < included.length(); i++) {
+            JSONObject resource = included.optJSONObject(i);
+            if (resource != null && resource.has("type") && resource.has("id")) {
+                resources.put(key(resource.getString("type"), resource.getString("id")), resource);
+            }
+        }
+        return new JsonApiIncluded(resources);
+    }
+
+    public static JsonApiIncluded empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @return the side-loaded resource, or null if the response did not include it
+     */
+    public JSONObject get(String type, String id) {
+        return type == null || id == null ? null : resources.get(key(type, id));
+    }
+
+    /**
+     * Resolve a to-many relationship such as {@code "transitions": {"data": [{"type": ..., "id": ...}, ...]}}
+     *
+     * @param relationships the "relationships" object of a resource on the page
+     * @param name          the relationship to resolve
+     * @return the related resources in relationship order, or null if the relationship is missing or any of its
+     * resources was not included, so the caller knows to fetch them another way
+     */
+    public List<JSONObject> resolveAll(JSONObject relationships, String name) {
+        JSONObject relationship = relationships == null ? null : relationships.optJSONObject(name);
+        JSONArray data = relationship == null ? null : relationship.optJSONArray("data");
+        if (data == null) {
+            return null;
+        }
+        List<JSONObject> related = new ArrayList<>(data.length());
+        for (int i = 0; i < data.length(); i++) {
+            JSONObject identifier = data.getJSONObject(i);
+            JSONObject resource = get(identifier.optString("type", null), identifier.optString("id", null));
+            if (resource == null) {
+                return null;
+            }
+            related.add(resource);
+        }
+        return related;
+    }
+
+    public int size() {
+        return resources.size();
+    }
+
+    private static String key(String type, String id) {
+        return type + '\u0000' + id;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.consumingrest;
+
+/**
+ * Reports each finding as a line in the application log, as the harvest always has
+ */
+public class LogFindingSink implements FindingSink {
+
+    @Override
+    public void accept(String tool, String applicationId, String projectId, Finding finding) {
+        ConsumingRestApplication.logFindingInfo(finding);
+    }
+
+    @Override
+    public void flush() {
+        // every line is handed to the logger as it arrives
+    }
+
+    @Override
+    public void close() {
+        // the logger outlives the sink
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.consumingrest;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * A bounded, lock-free queue for many producer threads and a single consumer thread.
+ * <p>
+ * Producers claim a sequence number with a compare-and-set on the tail and then publish their element into that
+ * slot.  The consumer reads slots in sequence order, treating an empty slot as not yet published, and clears each slot
+ * before moving the head past it, which is what tells producers the slot can be reused.
+ */
+class MpscRingBuffer<E> {
+
+    private final AtomicReferenceArray<E> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    MpscRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return false, without waiting, if the buffer is full
+     */
+    boolean offer(E element) {
+        while (true) {
+            long sequence = tail.get();
+            if (sequence - head.get() >= slots.length()) {
+                return false;
+            }
+            if (tail.compareAndSet(sequence, sequence + 1)) {
+                slots.lazySet((int) sequence & mask, element);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Hand up to {@code max} published elements to {@code consumer} in the order they were claimed.  Only ever call
+     * from the one consumer thread
+     *
+     * @return how many elements were consumed
+     */
+    int drain(Consumer<? super E> consumer, int max) {
+        long sequence = head.get();
+        int drained = 0;
+        while (drained < max) {
+            int index = (int) sequence & mask;
+            E element = slots.get(index);
+            if (element == null) {
+                break;
+            }
+            slots.lazySet(index, null);
+            head.lazySet(++sequence);
+            drained++;
+            consumer.accept(element);
+        }
+        return drained;
+    }
+
+    boolean isEmpty() {
+        return head.get() == tail.get();
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.consumingrest;
+
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * One JSON object per line, e.g.
+ * {@code {"tool":"polaris","applicationId":"...","projectId":"...","id":"...","rule":"...",
+ * "toolCategory":"Static Analysis","severity":"high","firstSeen":"2022-03-01T12:00:00Z","status":"Not dismissed"}}.
+ * {@code firstSeen} is null when it is unknown
+ */
+public class NdjsonFindingSink extends ChannelFindingSink {
+
+    public NdjsonFindingSink(Path file, int bufferSize) throws IOException {
+        super(file, bufferSize);
+    }
+
+    @Override
+    protected void appendRecord(String tool, String applicationId, String projectId, Finding finding,
+                                StringBuilder out) {
+        out.append("{\"tool\":").append(JSONObject.quote(tool))
+                .append(",\"applicationId\":").append(JSONObject.quote(applicationId))
+                .append(",\"projectId\":").append(JSONObject.quote(projectId))
+                .append(",\"id\":").append(JSONObject.quote(finding.getId()))
+                .append(",\"rule\":").append(JSONObject.quote(finding.getRule()))
+                .append(",\"toolCategory\":").append(JSONObject.quote(finding.getToolCategory()))
+                .append(",\"severity\":").append(JSONObject.quote(finding.getSeverity()))
+                .append(",\"firstSeen\":");
+        if (finding.getFirstSeen() == null) {
+            out.append("null");
+        } else {
+            out.append('"').append(finding.getFirstSeen()).append('"');
+        }
+        out.append(",\"status\":").append(JSONObject.quote(finding.getStatus())).append("}\n");
+    }
+}
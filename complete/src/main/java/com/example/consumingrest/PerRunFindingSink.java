@@ -0,0 +1,81 @@
+package com.example.consumingrest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Gives each run a file of its own.  The file is opened, replacing the previous run's, when the run reports its first
+ * finding, and closed when the run is {@link #endRun ended}.  A run that reports nothing still leaves an empty file, so
+ * the file never shows an earlier run's findings as if they were the latest.
+ * <p>
+ * Like the file sinks it opens, it is not thread safe; {@link AsyncFindingSink} calls it from its writer thread only.
+ */
+public class PerRunFindingSink implements FindingSink {
+
+    /**
+     * Opens the file for a run, truncating it if it already exists
+     */
+    @FunctionalInterface
+    public interface Opener {
+        FindingSink open() throws IOException;
+    }
+
+    private final Opener opener;
+    private FindingSink current;
+    private int runs;
+
+    public PerRunFindingSink(Opener opener) {
+        this.opener = opener;
+    }
+
+    @Override
+    public void accept(String tool, String applicationId, String projectId, Finding finding) {
+        try {
+            current().accept(tool, applicationId, projectId, finding);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private FindingSink current() throws IOException {
+        if (current == null) {
+            current = opener.open();
+        }
+        return current;
+    }
+
+    /**
+     * Write out the run's file so far, leaving it open for the rest of the run
+     */
+    @Override
+    public void flush() throws IOException {
+        if (current != null) {
+            current.flush();
+        }
+    }
+
+    /**
+     * End the run, closing its file
+     */
+    @Override
+    public void endRun() throws IOException {
+        FindingSink ending = current();
+        current = null;
+        runs++;
+        ending.close();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (current != null) {
+            FindingSink closing = current;
+            current = null;
+            closing.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PerRunFindingSink{runs=" + runs + '}';
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.consumingrest;
+
+import org.json.JSONObject;
+
+import java.time.Instant;
+
+/**
+ * The identifiers read from one entry of the Polaris issues query, extracted once per issue instead of at every use
+ */
+public final class PolarisIssue {
+
+    private final String id;
+    private final String issueKey;
+    private final String issueTypeId;
+    private final String latestRunId;
+    private final JSONObject attributes;
+    private final String issueTypeName;
+    private final boolean transitionsIncluded;
+    private final Instant mostRecentOpen;
+    private final String latestRunRevisionId;
+
+    PolarisIssue(String id, String issueKey, String issueTypeId, String latestRunId, JSONObject attributes) {
+        this(id, issueKey, issueTypeId, latestRunId, attributes, null, false, null, null);
+    }
+
+    PolarisIssue(String id, String issueKey, String issueTypeId, String latestRunId, JSONObject attributes,
+                 String issueTypeName, boolean transitionsIncluded, Instant mostRecentOpen,
+                 String latestRunRevisionId) {
+        this.id = id;
+        this.issueKey = issueKey;
+        this.issueTypeId = issueTypeId;
+        this.latestRunId = latestRunId;
+        this.attributes = attributes;
+        this.issueTypeName = issueTypeName;
+        this.transitionsIncluded = transitionsIncluded;
+        this.mostRecentOpen = mostRecentOpen;
+        this.latestRunRevisionId = latestRunRevisionId;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getIssueKey() {
+        return issueKey;
+    }
+
+    public String getIssueTypeId() {
+        return issueTypeId;
+    }
+
+    /**
+     * @return the run the issue was most recently observed on
+     */
+    public String getLatestRunId() {
+        return latestRunId;
+    }
+
+    /**
+     * @return the human-readable issue type name side-loaded with the issue, or null if it has to be looked up
+     */
+    public String getIssueTypeName() {
+        return issueTypeName;
+    }
+
+    /**
+     * @return true if every transition of the issue was side-loaded, so {@link #getMostRecentOpen()} needs no lookup
+     */
+    public boolean isTransitionsIncluded() {
+        return transitionsIncluded;
+    }
+
+    /**
+     * @return most recent time the side-loaded transitions opened the issue, or null if they never did or were not
+     * side-loaded
+     */
+    public Instant getMostRecentOpen() {
+        return mostRecentOpen;
+    }
+
+    /**
+     * @return the revision of the latest run side-loaded with the issue, or null if it has to be looked up
+     */
+    public String getLatestRunRevisionId() {
+        return latestRunRevisionId;
+    }
+
+    /**
+     * @return the issue's raw "attributes" object, used to detect changes between runs
+     */
+    JSONObject getAttributes() {
+        return attributes;
+    }
+
+    @Override
+    public String toString() {
+        return "PolarisIssue{" +
+                "id='" + id + '\'' +
+                ", issueKey='" + issueKey + '\'' +
+                ", issueTypeId='" + issueTypeId + '\'' +
+                ", latestRunId='" + latestRunId + '\'' +
+                '}';
+    }
+}
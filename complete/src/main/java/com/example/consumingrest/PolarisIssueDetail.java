@@ -0,0 +1,78 @@
+package com.example.consumingrest;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Response of the Polaris single issue query, reduced to the resources in "included" that the harvest reads.  Only
+ * transitions are of interest, so every other attribute is ignored while binding
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class PolarisIssueDetail {
+    List<Included> included = Collections.emptyList();
+
+    public PolarisIssueDetail() {
+    }
+
+    public List<Included> getIncluded() {
+        return included;
+    }
+
+    public void setIncluded(List<Included> included) {
+        this.included = included == null ? Collections.<Included>emptyList() : included;
+    }
+
+    @Override
+    public String toString() {
+        return "included: " + included.size() + " resources";
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Included {
+        String type;
+        Attributes attributes;
+
+        public String getType() {
+            return type;
+        }
+
+        public void setType(String type) {
+            this.type = type;
+        }
+
+        public Attributes getAttributes() {
+            return attributes;
+        }
+
+        public void setAttributes(Attributes attributes) {
+            this.attributes = attributes;
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Attributes {
+        @JsonProperty("transition-type")
+        String transitionType;
+        @JsonProperty("transition-date")
+        String transitionDate;
+
+        public String getTransitionType() {
+            return transitionType;
+        }
+
+        public void setTransitionType(String transitionType) {
+            this.transitionType = transitionType;
+        }
+
+        public String getTransitionDate() {
+            return transitionDate;
+        }
+
+        public void setTransitionDate(String transitionDate) {
+            this.transitionDate = transitionDate;
+        }
+    }
+}
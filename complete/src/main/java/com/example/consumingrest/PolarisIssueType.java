@@ -0,0 +1,62 @@
+package com.example.consumingrest;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Response of the Polaris issue type endpoint, reduced to the human-readable issue type name
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class PolarisIssueType {
+    Data data;
+
+    public PolarisIssueType() {
+    }
+
+    public Data getData() {
+        return data;
+    }
+
+    public void setData(Data data) {
+        this.data = data;
+    }
+
+    /**
+     * @return the human-readable issue type name, or null if the response did not carry one
+     */
+    public String getName() {
+        return data == null || data.attributes == null ? null : data.attributes.issueTypeId;
+    }
+
+    @Override
+    public String toString() {
+        return "issue type: " + getName();
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Data {
+        Attributes attributes;
+
+        public Attributes getAttributes() {
+            return attributes;
+        }
+
+        public void setAttributes(Attributes attributes) {
+            this.attributes = attributes;
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Attributes {
+        @JsonProperty("issue-type-id")
+        String issueTypeId;
+
+        public String getIssueTypeId() {
+            return issueTypeId;
+        }
+
+        public void setIssueTypeId(String issueTypeId) {
+            this.issueTypeId = issueTypeId;
+        }
+    }
+}
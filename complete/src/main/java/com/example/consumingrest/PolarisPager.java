@@ -0,0 +1,116 @@
+package com.example.consumingrest;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.IntFunction;
+
+/**
+ * Walks every page of a Polaris JSON:API collection using {@code page[limit]} and {@code page[offset]}, returning the
+ * "data" array of one page at a time.
+ * <p>
+ * When a prefetch executor is supplied, the request for page N+1 is started as soon as page N is handed out, so the
+ * next page downloads while the current one is being processed.  At most two pages are held at once: the one being
+ * processed and the one being fetched.  Without an executor pages are fetched only when asked for, which suits
+ * callers that usually stop after the first page.
+ * <p>
+ * Resources side-loaded with a page are available from {@link #getIncluded()} until the next page is asked for.
+ */
+public class PolarisPager implements Iterator<JSONArray> {
+
+    private final IntFunction<JSONObject> fetchPage;
+    private final int pageSize;
+    private final Executor prefetchExecutor;
+
+    private int nextOffset = 0;
+    private boolean more = true;
+    private CompletableFuture<JSONObject> prefetched;
+    private JsonApiIncluded included = JsonApiIncluded.empty();
+
+    /**
+     * @param fetchPage        requests the page starting at the given offset and returns the parsed response
+     * @param pageSize         the {@code page[limit]} used by {@code fetchPage}.  A shorter page marks the end
+     * @param prefetchExecutor runs the request for the following page in the background, or null to disable
+     *                         prefetching
+     */
+    public PolarisPager(IntFunction<JSONObject> fetchPage, int pageSize, Executor prefetchExecutor) {
+        this.fetchPage = fetchPage;
+        this.pageSize = pageSize;
+        this.prefetchExecutor = prefetchExecutor;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return more;
+    }
+
+    @Override
+    public JSONArray next() {
+        if (!more) {
+            throw new NoSuchElementException();
+        }
+
+        JSONObject page;
+        if (prefetched != null) {
+            page = await(prefetched);
+            prefetched = null;
+        } else {
+            page = fetchPage.apply(nextOffset);
+        }
+
+        JSONArray data = page.optJSONArray("data");
+        if (data == null) {
+            data = new JSONArray();
+        }
+        included = JsonApiIncluded.of(page);
+        nextOffset += data.length();
+        more = hasMorePages(page, data, nextOffset, pageSize);
+
+        if (more && prefetchExecutor != null) {
+            int offset = nextOffset;
+            prefetched = CompletableFuture.supplyAsync(() -> fetchPage.apply(offset), prefetchExecutor);
+        }
+
+        return data;
+    }
+
+    /**
+     * @return the "included" array of the page last returned by {@link #next()}, indexed by type and id
+     */
+    public JsonApiIncluded getIncluded() {
+        return included;
+    }
+
+    /**
+     * @param page       the response for the current page
+     * @param data       the "data" array of that page
+     * @param nextOffset offset of the first item after this page
+     * @param pageSize   the {@code page[limit]} that was requested
+     * @return whether another page should be requested
+     */
+    static boolean hasMorePages(JSONObject page, JSONArray data, int nextOffset, int pageSize) {
+        // the reported total is authoritative when present, otherwise a short page means we are done
+        int total = -1;
+        JSONObject meta = page.optJSONObject("meta");
+        if (meta != null) {
+            total = meta.optInt("total", -1);
+        }
+        return data.length() > 0 && (total >= 0 ? nextOffset < total : data.length() >= pageSize);
+    }
+
+    private static JSONObject await(CompletableFuture<JSONObject> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.consumingrest;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Holds the Polaris JWT for every caller in the process.  The token's expiry is read from its "exp" claim and a
+ * background refresh is scheduled shortly before it runs out, so callers always find a valid token without waiting.
+ * Concurrent refreshes collapse into a single authentication request.
+ * <p>
+ * A background refresh never happens sooner than halfway through the token's life, or {@link #MIN_REFRESH_DELAY_MILLIS}
+ * after it was issued, so a token that lives no longer than the refresh margin cannot set off a loop of
+ * authentications.  A failed background refresh is retried with exponential backoff for as long as the token is
+ * still valid, after which callers re-authenticate when they next need it.
+ */
+public class PolarisTokenManager implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(PolarisTokenManager.class);
+
+    /**
+     * Assumed lifetime of a token whose expiry cannot be decoded
+     */
+    static final long DEFAULT_LIFETIME_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    /**
+     * Shortest wait before a background refresh, and before the first retry of a failed one
+     */
+    static final long MIN_REFRESH_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(5);
+
+    private final Supplier<String> authenticator;
+    private final long refreshMarginMillis;
+    private final LongSupplier clock;
+    private final ScheduledExecutorService scheduler;
+
+    private final Object lock = new Object();
+    private volatile Token current;
+    private CompletableFuture<Token> inFlight;
+
+    /**
+     * @param authenticator       exchanges the Personal Access Token for a new JWT
+     * @param refreshMarginMillis how long before expiry the token is refreshed in the background
+     */
+    public PolarisTokenManager(Supplier<String> authenticator, long refreshMarginMillis) {
+        this(authenticator, refreshMarginMillis, System::currentTimeMillis,
+                Executors.newSingleThreadScheduledExecutor(daemonThreads()));
+    }
+
+    PolarisTokenManager(Supplier<String> authenticator, long refreshMarginMillis, LongSupplier clock,
+                        ScheduledExecutorService scheduler) {
+        this.authenticator = authenticator;
+        this.refreshMarginMillis = refreshMarginMillis;
+        this.clock = clock;
+        this.scheduler = scheduler;
+    }
+
+    private static CustomizableThreadFactory daemonThreads() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("polaris-token-");
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+
+    /**
+     * @return a JWT that has not expired.  Only blocks when there is no usable token yet, e.g. on the first call
+     */
+    public String getToken() {
+        Token token = current;
+        if (token != null && clock.getAsLong() < token.expiresAt) {
+            return token.jwt;
+        }
+        return refresh(token).jwt;
+    }
+
+    /**
+     * Run a request with the current token.  If Polaris rejects the token with a 401 it is refreshed and the request
+     * is retried once.
+     *
+     * @param request performs the call given a JWT
+     * @return whatever the request returns
+     */
+    public <T> T call(Function<String, T> request) {
+        String jwt = getToken();
+        try {
+            return request.apply(jwt);
+        } catch (HttpClientErrorException.Unauthorized e) {
+            log.warn("Polaris rejected the current token, re-authenticating and retrying once");
+            return request.apply(replaceRejected(jwt));
+        }
+    }
+
+    /**
+     * @param rejectedJwt a token Polaris answered with a 401
+     * @return a newer token, re-authenticating unless another caller already has
+     */
+    public String replaceRejected(String rejectedJwt) {
+        Token stale = current;
+        if (stale == null || !stale.jwt.equals(rejectedJwt)) {
+            // someone else already replaced it
+            return getToken();
+        }
+        return refresh(stale).jwt;
+    }
+
+    /**
+     * Replace {@code stale} with a freshly authenticated token.  If another thread has already replaced it the newer
+     * token is returned, and if a refresh is already running the caller waits for that one instead of starting its own.
+     */
+    private Token refresh(Token stale) {
+        CompletableFuture<Token> future;
+        boolean leader = false;
+        synchronized (lock) {
+            if (current != null && current != stale && clock.getAsLong() < current.expiresAt) {
+                return current;
+            }
+            if (inFlight == null) {
+                inFlight = new CompletableFuture<>();
+                leader = true;
+            }
+            future = inFlight;
+        }
+
+        if (leader) {
+            try {
+                String jwt = authenticator.get();
+                Token token = new Token(jwt, decodeExpiry(jwt, clock.getAsLong()));
+                synchronized (lock) {
+                    current = token;
+                    inFlight = null;
+                }
+                future.complete(token);
+                scheduleRefresh(token);
+                return token;
+            } catch (RuntimeException e) {
+                synchronized (lock) {
+                    inFlight = null;
+                }
+                future.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void scheduleRefresh(Token token) {
+        long remaining = token.expiresAt - clock.getAsLong();
+        if (remaining <= MIN_REFRESH_DELAY_MILLIS) {
+            // too short-lived, or our clock is too far ahead of Polaris', to refresh ahead of expiry
+            log.warn("the Polaris token expires in " + remaining + " ms, it will be refreshed when it is next needed");
+            return;
+        }
+        long delay = Math.max(remaining - refreshMarginMillis, Math.max(remaining / 2, MIN_REFRESH_DELAY_MILLIS));
+        scheduleRefresh(token, delay, MIN_REFRESH_DELAY_MILLIS);
+    }
+
+    /**
+     * @param retryBackoff how long to wait before retrying if this refresh fails
+     */
+    private void scheduleRefresh(Token token, long delay, long retryBackoff) {
+        if (scheduler.isShutdown()) {
+            return;
+        }
+        scheduler.schedule(() -> {
+            if (current != token) {
+                return;
+            }
+            try {
+                refresh(token);
+                log.info("refreshed Polaris token ahead of expiry");
+            } catch (RuntimeException e) {
+                if (retryBackoff < token.expiresAt - clock.getAsLong()) {
+                    log.warn("background refresh of the Polaris token failed, retrying in " + retryBackoff + " ms: "
+                            + e.getMessage());
+                    scheduleRefresh(token, retryBackoff, retryBackoff * 2);
+                } else {
+                    // callers will retry when the token actually expires
+                    log.warn("background refresh of the Polaris token failed: " + e.getMessage());
+                }
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param jwt a JSON Web Token
+     * @param now current time in milliseconds, used when the token carries no readable expiry
+     * @return expiry time of the token in milliseconds since the epoch
+     */
+    static long decodeExpiry(String jwt, long now) {
+        String[] parts = jwt.split("\\.");
+        if (parts.length >= 2) {
+            try {
+                String payload = new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8);
+                long exp = new JSONObject(payload).optLong("exp", 0);
+                if (exp > 0) {
+                    return TimeUnit.SECONDS.toMillis(exp);
+                }
+            } catch (IllegalArgumentException | JSONException e) {
+                log.warn("could not decode the expiry of the Polaris token, assuming the default lifetime");
+            }
+        }
+        return now + DEFAULT_LIFETIME_MILLIS;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private static class Token {
+        final String jwt;
+        final long expiresAt;
+
+        Token(String jwt, long expiresAt) {
+            this.jwt = jwt;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
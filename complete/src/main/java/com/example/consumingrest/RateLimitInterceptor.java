@@ -0,0 +1,78 @@
+package com.example.consumingrest;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds every RestTemplate request to its host's budget in {@link HostRateLimiter} and resends it when the response is
+ * a 429 or a transient failure.  Must run innermost, since each retry asks the rest of the chain to execute the
+ * request again
+ */
+public class RateLimitInterceptor implements ClientHttpRequestInterceptor {
+
+    interface Sleeper {
+        void sleep(long nanos) throws InterruptedException;
+    }
+
+    private final HostRateLimiter limiter;
+    private final Sleeper sleeper;
+
+    public RateLimitInterceptor(HostRateLimiter limiter) {
+        this(limiter, TimeUnit.NANOSECONDS::sleep);
+    }
+
+    RateLimitInterceptor(HostRateLimiter limiter, Sleeper sleeper) {
+        this.limiter = limiter;
+        this.sleeper = sleeper;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        URI uri = request.getURI();
+        String method = request.getMethodValue();
+        for (int attempt = 1; ; attempt++) {
+            sleep(limiter.reserve(uri));
+
+            ClientHttpResponse response;
+            try {
+                response = execution.execute(request, body);
+            } catch (IOException e) {
+                long retryIn = limiter.retryDelay(uri, method, e, attempt);
+                if (retryIn < 0) {
+                    throw e;
+                }
+                sleep(retryIn);
+                continue;
+            }
+
+            long retryIn = limiter.retryDelay(uri, method, response.getRawStatusCode(),
+                    response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER), attempt);
+            if (retryIn < 0) {
+                return response;
+            }
+            response.close();
+            sleep(retryIn);
+        }
+    }
+
+    private void sleep(long nanos) throws InterruptedIOException {
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            sleeper.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting to send a request");
+        }
+    }
+}
@@ -0,0 +1,554 @@
+package com.example.consumingrest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.Timer;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Non-blocking alternative to the RestTemplate harvest in {@link ConsumingRestApplication}, selected with
+ * {@code harvest.engine=reactive}.
+ * <p>
+ * Applications, projects, branches, issues and the per-issue lookups are composed into a single backpressured stream,
+ * with bounded {@code flatMapSequential} concurrency at the project and finding levels, so a handful of event loop
+ * threads keep many requests in flight.  Every line that would be logged is emitted into the stream in the same order
+ * the blocking path logs it, so both engines report the same findings in the same order.
+ */
+public class ReactiveHarvestEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveHarvestEngine.class);
+
+    private static final String JSON_API = "application/vnd.api+json";
+
+    private final WebClient webClient;
+    private final PolarisTokenManager tokens;
+    private final HarvestMetrics metrics;
+    private final FindingSink sink;
+    private final int projectConcurrency;
+    private final int findingConcurrency;
+    private final int codeDxPageSize;
+    private final int codeDxTreeConcurrency;
+    private final CodeDxFindingsQuery codeDxFindings;
+    private final String polarisBaseUrl;
+    private final String codeDxBaseUrl;
+    private final String codeDxToken;
+
+    private final Map<String, Mono<String>> issueTypeNames = new ConcurrentHashMap<>();
+    private final Map<String, Mono<String>> runRevisions = new ConcurrentHashMap<>();
+    private final Mono<Boolean> codeDxSwapped;
+
+    /**
+     * Cleared once Polaris rejects the triage collection query, after which triage is looked up issue by issue
+     */
+    private volatile boolean polarisBulkTriageSupported = true;
+
+    public ReactiveHarvestEngine(WebClient.Builder webClientBuilder, PolarisTokenManager tokens,
+                                 HarvestMetrics metrics, FindingSink sink, HarvestProperties.Reactive properties,
+                                 HarvestProperties.CodeDx codeDx, String polarisBaseUrl, String codeDxBaseUrl, String codeDxToken) {
+        int maxInMemorySize = (int) properties.getMaxInMemorySize().toBytes();
+        this.webClient = webClientBuilder
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(maxInMemorySize))
+                // outermost, so retries made by filters already on the builder are timed as part of the request
+                .filters(filters -> filters.add(0, metrics.webClientFilter()))
+                .build();
+        this.tokens = tokens;
+        this.metrics = metrics;
+        this.sink = sink;
+        this.projectConcurrency = properties.getProjectConcurrency();
+        this.findingConcurrency = properties.getFindingConcurrency();
+        this.polarisBaseUrl = polarisBaseUrl;
+        this.codeDxBaseUrl = codeDxBaseUrl;
+        this.codeDxToken = codeDxToken;
+        this.codeDxPageSize = codeDx.getPageSize();
+        this.codeDxTreeConcurrency = codeDx.getTreeConcurrency();
+        this.codeDxFindings = codeDx.findingsQuery();
+        this.codeDxSwapped = codeDxVersion(codeDx.getPaging())
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .map(version -> {
+                    boolean swapped = CodeDxProjectQuery.isSwapped(codeDx.getPaging(), version.orElse(null),
+                            codeDx.getSwappedPagingThrough());
+                    log.info("Code Dx version " + version.orElse(null) + ", paging " + codeDx.getPaging()
+                            + ", swapped " + swapped);
+                    return swapped;
+                })
+                .cache();
+    }
+
+    /**
+     * Harvest every project of the given Polaris applications, blocking until done
+     *
+     * @param applicationIds unique identifiers for Applications in Polaris
+     */
+    public void harvestPolaris(List<String> applicationIds) {
+        Timer.Sample run = metrics.start();
+        Flux.fromIterable(applicationIds)
+                .concatMap(this::polarisApplication)
+                .doOnNext(Runnable::run)
+                .blockLast();
+        metrics.recordRun(run, "polaris");
+    }
+
+    /**
+     * Harvest every project below the given Code Dx parent projects, blocking until done
+     *
+     * @param parentProjectIds unique identifiers for parent Projects in Code Dx
+     */
+    public void harvestCodeDx(List<String> parentProjectIds) {
+        Timer.Sample run = metrics.start();
+        Flux.fromIterable(parentProjectIds)
+                .concatMap(this::codeDxApplication)
+                .doOnNext(Runnable::run)
+                .blockLast();
+        metrics.recordRun(run, "codedx");
+    }
+
+    private Flux<Runnable> polarisApplication(String appId) {
+        Runnable start = () -> log.info("#################### Starting Polaris Tests ####################");
+
+        Mono<Map<String, String>> severities = polarisItems(offset -> UriComponentsBuilder
+                .fromHttpUrl(polarisBaseUrl + "/api/taxonomy/v0/taxonomies")
+                .queryParam("page[limit]", 1000)
+                .queryParam("page[offset]", offset)
+                .build().encode().toUri(), 1000, MediaType.APPLICATION_JSON_VALUE)
+                .filter(taxonomy -> taxonomy.getString("taxonomy-type").equals("severity"))
+                .next()
+                .map(ConsumingRestApplication::getIssueTypeSeveritiesPolaris);
+
+        Mono<JSONObject> application = getPolaris(URI.create(polarisBaseUrl + "/api/common/v0/applications/" + appId),
+                null);
+
+        return Flux.just(start).concatWith(Mono.zip(severities, application).flatMapMany(t -> {
+            JSONObject data = t.getT2().getJSONObject("data");
+            String appName = data.getJSONObject("attributes").getString("name");
+            List<String> projectIds = ConsumingRestApplication.getProjectURLsPolaris(
+                    data.getJSONObject("relationships").getJSONObject("projects").getJSONArray("data"));
+
+            Runnable header = () -> log.info("fetching projects for application " + appId + " name " + appName);
+            return Flux.just(header).concatWith(Flux.fromIterable(projectIds)
+                    .flatMapSequential(projId -> polarisProject(appId, projId, t.getT1()), projectConcurrency));
+        }));
+    }
+
+    private Flux<Runnable> polarisProject(String appId, String projId, Map<String, String> issueTypeNameToSeverity) {
+        Mono<Optional<String>> branch = polarisDefaultBranch(projId).map(Optional::of)
+                .defaultIfEmpty(Optional.empty());
+        Mono<String> projectName = getPolaris(URI.create(polarisBaseUrl + "/api/common/v0/projects/" + projId), null)
+                .map(json -> json.getJSONObject("data").getJSONObject("attributes").getString("name"));
+
+        return Mono.zip(branch, projectName).flatMapMany(t -> {
+            if (!t.getT1().isPresent()) {
+                return Flux.empty();
+            }
+            String branchId = t.getT1().get();
+
+            Runnable header = () -> log.info("fetching issues for project " + projId + " name " + t.getT2());
+
+            // issue id -> latest run id, resolved into approval links once the project's findings are reported
+            Map<String, String> pendingApprovals = new LinkedHashMap<>();
+            Flux<Runnable> findings = polarisProjectTriage(projId).flatMapMany(triage -> polarisPages(offset ->
+                    UriComponentsBuilder
+                    .fromHttpUrl(polarisBaseUrl + "/api/query/v1/issues")
+                    .queryParam("project-id", projId)
+                    .queryParam("branch-id", branchId)
+                    .queryParam("include[issue][]", (Object[]) FindingParsers.POLARIS_ISSUE_INCLUDES)
+                    .queryParam("page[limit]", 1000)
+                    .queryParam("page[offset]", offset)
+                    .build().encode().toUri(), 1000, JSON_API)
+                    .concatMapIterable(page -> {
+                        List<PolarisIssue> issues = new ArrayList<>(page.items.size());
+                        for (JSONObject item : page.items) {
+                            issues.add(FindingParsers.polarisIssue(item, page.included));
+                        }
+                        return issues;
+                    })
+                    .flatMapSequential(finding -> enrichPolaris(finding, projId, branchId, issueTypeNameToSeverity,
+                            triage), findingConcurrency)
+                    .map(result -> {
+                        if (result.approvalRunId != null) {
+                            pendingApprovals.put(result.finding.getId(), result.approvalRunId);
+                        }
+                        return () -> {
+                            sink.accept("polaris", appId, projId, result.finding);
+                            metrics.findingProcessed("polaris");
+                        };
+                    }));
+
+            Flux<Runnable> approvals = Flux.defer(() -> Flux.fromIterable(new ArrayList<>(pendingApprovals.entrySet()))
+                    .flatMapSequential(approval -> runRevision(approval.getValue()).map(revId -> (Runnable) () ->
+                            ConsumingRestApplication.logDismissalApprovalPolaris(polarisBaseUrl, projId, branchId,
+                                    revId, approval.getKey())), findingConcurrency));
+
+            return Flux.just(header).concatWith(findings).concatWith(approvals);
+        });
+    }
+
+    private Mono<String> polarisDefaultBranch(String projId) {
+        return polarisItems(offset -> UriComponentsBuilder
+                .fromHttpUrl(polarisBaseUrl + "/api/common/v0/branches")
+                .queryParam("page[limit]", 500)
+                .queryParam("page[offset]", offset)
+                .queryParam("filter[branch][project][id][$eq]", projId)
+                .build().encode().toUri(), 500, null)
+                .filter(branch -> branch.getJSONObject("attributes").getBoolean("main-for-project"))
+                .map(branch -> branch.getString("id"))
+                .next()
+                .onErrorResume(JSONException.class, e -> {
+                    log.error("failed to extract a branch for this project " + projId);
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * The current triage of every issue in a project from the paged collection query, keyed by issue key, the same
+     * way the blocking engine loads it.  Empty when it has to be looked up issue by issue instead
+     */
+    private Mono<Map<String, JSONObject>> polarisProjectTriage(String projId) {
+        if (!polarisBulkTriageSupported) {
+            return Mono.just(Collections.emptyMap());
+        }
+        return polarisItems(offset -> UriComponentsBuilder
+                .fromHttpUrl(polarisBaseUrl + "/api/triage/v1/triage-current")
+                .queryParam("filter[triage-current][project-id][$eq]", projId)
+                .queryParam("page[limit]", 500)
+                .queryParam("page[offset]", offset)
+                .build().encode().toUri(), 500, JSON_API)
+                .collectMap(ConsumingRestApplication::getTriageIssueKeyPolaris,
+                        item -> new JSONObject().put("data", item))
+                .onErrorResume(WebClientResponseException.class, e -> {
+                    HttpStatus status = HttpStatus.resolve(e.getRawStatusCode());
+                    if (ConsumingRestApplication.BULK_TRIAGE_UNSUPPORTED.contains(status)) {
+                        log.warn("bulk triage query not available (" + status + "), falling back to per-issue "
+                                + "triage requests");
+                        polarisBulkTriageSupported = false;
+                    } else {
+                        // e.g. a 429 the rate limiter gave up on; the next project tries the bulk query again
+                        log.warn("bulk triage query failed (" + e.getRawStatusCode() + "), falling back to "
+                                + "per-issue triage requests for project " + projId);
+                    }
+                    return Mono.just(Collections.emptyMap());
+                });
+    }
+
+    private Mono<ConsumingRestApplication.PolarisFindingResult> enrichPolaris(PolarisIssue finding, String projId,
+                                                                              String branchId,
+                                                                              Map<String, String> severities,
+                                                                              Map<String, JSONObject> projectTriage) {
+        // resources side-loaded with the issue answer their lookups without a request
+        if (finding.getIssueTypeName() != null) {
+            issueTypeNames.putIfAbsent(finding.getIssueTypeId(), Mono.just(finding.getIssueTypeName()));
+        }
+        if (finding.getLatestRunRevisionId() != null) {
+            runRevisions.putIfAbsent(finding.getLatestRunId(), Mono.just(finding.getLatestRunRevisionId()));
+        }
+
+        // an issue that was never opened has no first seen date, which Mono.zip would otherwise treat as no result
+        Mono<Optional<Instant>> mostRecentOpen = finding.isTransitionsIncluded()
+                ? Mono.just(Optional.ofNullable(finding.getMostRecentOpen()))
+                : getPolaris(UriComponentsBuilder
+                .fromHttpUrl(polarisBaseUrl + "/api/query/v1/issues/" + finding.getId())
+                .queryParam("project-id", projId)
+                .queryParam("branch-id", branchId)
+                .build().encode().toUri(), JSON_API, PolarisIssueDetail.class)
+                .map(detail -> Optional.ofNullable(FindingParsers.mostRecentOpen(detail)));
+
+        JSONObject preloaded = projectTriage.get(finding.getIssueKey());
+        Mono<JSONObject> triage = preloaded != null ? Mono.just(preloaded)
+                : getPolaris(URI.create(polarisBaseUrl + "/api/triage/v1/triage-current/"
+                + "project-id:" + projId + ":issue-key:" + finding.getIssueKey()), JSON_API);
+
+        return Mono.zip(issueTypeName(finding.getIssueTypeId()), mostRecentOpen, triage).map(t -> {
+            String issueTypeName = t.getT1();
+            String dismissalStatus = ConsumingRestApplication.getDismissalStatusPolaris(t.getT3());
+            return new ConsumingRestApplication.PolarisFindingResult(new Finding(finding.getId(), issueTypeName,
+                    "Static Analysis", severities.getOrDefault(issueTypeName, "Unknown"), t.getT2().orElse(null),
+                    ConsumingRestApplication.getTriageStatusPolaris(t.getT3())),
+                    dismissalStatus.equals("REQUESTED") ? finding.getLatestRunId() : null);
+        });
+    }
+
+    private Mono<String> issueTypeName(String issueTypeId) {
+        return cached(issueTypeNames, issueTypeId, id -> getPolaris(
+                URI.create(polarisBaseUrl + "/api/query/v0/issue-types/" + id), JSON_API, PolarisIssueType.class)
+                .map(PolarisIssueType::getName)
+                .switchIfEmpty(Mono.error(() -> new IllegalStateException(
+                        "Polaris returned no name for issue type " + id))));
+    }
+
+    private Mono<String> runRevision(String runId) {
+        return cached(runRevisions, runId, id -> getPolaris(
+                URI.create(polarisBaseUrl + "/api/common/v0/runs/" + id), JSON_API)
+                .map(ConsumingRestApplication::getRevisionIdPolaris));
+    }
+
+    /**
+     * The lookup for {@code key}, shared by everyone who asks for it.  A lookup that fails is dropped from the cache
+     * once it has failed, so the next harvest asks again rather than replaying the failure for as long as the
+     * engine lives
+     */
+    private static <T> Mono<T> cached(Map<String, Mono<T>> cache, String key, Function<String, Mono<T>> lookup) {
+        return cache.computeIfAbsent(key, k -> {
+            AtomicReference<Mono<T>> self = new AtomicReference<>();
+            Mono<T> shared = lookup.apply(k)
+                    .doOnError(e -> cache.remove(k, self.get()))
+                    .cache();
+            self.set(shared);
+            return shared;
+        });
+    }
+
+    /**
+     * Every item of a paged Polaris collection.  The next page is requested only once the current one has been
+     * handed downstream, so a consumer that stops early (e.g. with {@code next()}) stops the paging too
+     */
+    private Flux<JSONObject> polarisItems(IntFunction<URI> pageUri, int pageSize, String accept) {
+        return polarisPages(pageUri, pageSize, accept).concatMapIterable(page -> page.items);
+    }
+
+    /**
+     * Like {@link #polarisItems}, a page at a time, with the resources side-loaded with each page
+     */
+    private Flux<Page> polarisPages(IntFunction<URI> pageUri, int pageSize, String accept) {
+        return getPolaris(pageUri.apply(0), accept)
+                .map(body -> new Page(0, body, pageSize))
+                .expand(page -> page.more
+                        ? getPolaris(pageUri.apply(page.nextOffset), accept)
+                        .map(body -> new Page(page.nextOffset, body, pageSize))
+                        : Mono.empty());
+    }
+
+    /**
+     * GET a Polaris resource with the current JWT, re-authenticating and retrying once on a 401
+     */
+    private Mono<JSONObject> getPolaris(URI uri, String accept) {
+        return getPolaris(uri, accept, String.class).map(JSONObject::new);
+    }
+
+    /**
+     * Like {@link #getPolaris(URI, String)}, but binds the response body straight to {@code responseType} with
+     * Jackson
+     */
+    private <T> Mono<T> getPolaris(URI uri, String accept, Class<T> responseType) {
+        // the token manager only blocks when it has no usable token, keep that off the event loop
+        return Mono.fromCallable(tokens::getToken)
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(jwt -> sendPolaris(uri, accept, jwt, responseType)
+                        .onErrorResume(WebClientResponseException.Unauthorized.class, e -> {
+                            log.warn("Polaris rejected the current token, re-authenticating and retrying once");
+                            return Mono.fromCallable(() -> tokens.replaceRejected(jwt))
+                                    .subscribeOn(Schedulers.boundedElastic())
+                                    .flatMap(fresh -> sendPolaris(uri, accept, fresh, responseType));
+                        }));
+    }
+
+    private <T> Mono<T> sendPolaris(URI uri, String accept, String jwt, Class<T> responseType) {
+        return webClient.get()
+                .uri(uri)
+                .headers(headers -> {
+                    headers.set(HttpHeaders.AUTHORIZATION, "Bearer " + jwt);
+                    if (accept != null) {
+                        headers.set(HttpHeaders.ACCEPT, accept);
+                    }
+                })
+                .retrieve()
+                .bodyToMono(responseType);
+    }
+
+    private Flux<Runnable> codeDxApplication(String appId) {
+        Runnable start = () -> log.info("#################### Starting CodeDx Tests ####################");
+
+        Mono<String> appName = webClient.get()
+                .uri(codeDxBaseUrl + "/codedx/api/projects/" + appId)
+                .headers(this::codeDxHeaders)
+                .retrieve()
+                .bodyToMono(String.class)
+                .map(body -> new JSONObject(body).getString("name"));
+
+        return Flux.just(start).concatWith(Mono.zip(codeDxSwapped, appName).flatMapMany(t -> {
+            int rootId = Integer.parseInt(appId);
+            Set<Integer> seen = ConcurrentHashMap.newKeySet();
+            seen.add(rootId);
+
+            Runnable header = () -> log.info("fetching projects for application " + appId + " name " + t.getT2());
+            // each project is harvested as soon as it is found, while the rest of the tree is still being queried
+            return Flux.just(header).concatWith(codeDxDescendants(rootId, t.getT1(), seen)
+                    .flatMapSequential(proj -> codeDxProject(appId, proj), projectConcurrency));
+        }));
+    }
+
+    /**
+     * Every project below {@code parentId}, each one followed by its own descendants.  The subtrees of up to
+     * {@code codeDxTreeConcurrency} siblings are walked at once
+     */
+    private Flux<JSONObject> codeDxDescendants(int parentId, boolean swapped, Set<Integer> seen) {
+        return codeDxChildren(parentId, swapped, seen)
+                .flatMapSequential(child -> Flux.just(child)
+                        .concatWith(codeDxDescendants(child.getInt("id"), swapped, seen)), codeDxTreeConcurrency);
+    }
+
+    /**
+     * The direct children of {@code parentId} that have not been seen before, a page at a time.  A page with none
+     * stops the paging, as does a short one
+     */
+    private Flux<JSONObject> codeDxChildren(int parentId, boolean swapped, Set<Integer> seen) {
+        return codeDxChildPage(parentId, 0, swapped, seen)
+                .expand(page -> page.more
+                        ? codeDxChildPage(parentId, page.nextOffset, swapped, seen)
+                        : Mono.empty())
+                .concatMapIterable(page -> page.items);
+    }
+
+    private Mono<ChildPage> codeDxChildPage(int parentId, int offset, boolean swapped, Set<Integer> seen) {
+        return webClient.post()
+                .uri(codeDxBaseUrl + "/codedx/api/projects/query")
+                .headers(this::codeDxHeaders)
+                .bodyValue(CodeDxProjectQuery.body(parentId, offset, codeDxPageSize, swapped))
+                .retrieve()
+                .bodyToMono(String.class)
+                .map(body -> new ChildPage(offset, new JSONArray(body), codeDxPageSize, seen));
+    }
+
+    /**
+     * The version the Code Dx server reports, or empty if paging is set explicitly or the server won't say
+     */
+    private Mono<String> codeDxVersion(CodeDxProjectQuery.Paging paging) {
+        if (paging != CodeDxProjectQuery.Paging.AUTO) {
+            return Mono.empty();
+        }
+        return webClient.get()
+                .uri(codeDxBaseUrl + CodeDxProjectQuery.SYSTEM_INFO_PATH)
+                .headers(this::codeDxHeaders)
+                .retrieve()
+                .bodyToMono(String.class)
+                .flatMap(body -> Mono.justOrEmpty(CodeDxProjectQuery.version(body)))
+                .onErrorResume(e -> {
+                    log.warn("could not read the Code Dx version, assuming project queries swap offset and limit", e);
+                    return Mono.empty();
+                });
+    }
+
+    private Flux<Runnable> codeDxProject(String appId, JSONObject proj) {
+        Integer p_id = (Integer) proj.get("id");
+        String p_name = proj.getString("name");
+        Runnable header = () -> log.info("fetching all subfindings for project " + p_id + " with name " + p_name);
+        String projectId = Integer.toString(p_id);
+
+        Flux<Runnable> findings = Flux.defer(() -> {
+                    CodeDxFindingsQuery.Paging paging = codeDxFindings.paging();
+                    return codeDxFindingsPage(p_id, paging)
+                            .expand(page -> page.more ? codeDxFindingsPage(p_id, paging) : Mono.empty());
+                })
+                .concatMapIterable(page -> page.findings)
+                .map(finding -> () -> {
+                    ConsumingRestApplication.handleCodeDxFinding(finding, appId, projectId, sink);
+                    metrics.findingProcessed("codedx");
+                });
+
+        return Flux.just(header).concatWith(findings);
+    }
+
+    /**
+     * One page of a project's findings.  The page is decoded one element at a time, so only the fields of each finding
+     * that are kept are held until the page is handed downstream
+     */
+    private Mono<FindingsPage> codeDxFindingsPage(int p_id, CodeDxFindingsQuery.Paging paging) {
+        return Mono.defer(() -> webClient.post()
+                .uri(codeDxBaseUrl + "/codedx/api/projects/" + p_id + "/findings/table")
+                .headers(this::codeDxHeaders)
+                .bodyValue(paging.nextBody())
+                .retrieve()
+                .bodyToFlux(JsonNode.class)
+                .map(CodeDxFinding::fromJson)
+                .filter(finding -> paging.accept(finding.getId()))
+                .collectList()
+                .map(findings -> {
+                    if (paging.isRepeated()) {
+                        log.warn("Code Dx answered page " + paging.getPage() + " of project " + p_id
+                                + " with the page before it, so it ignores paging; stopped there");
+                    }
+                    return new FindingsPage(findings, paging.hasMore());
+                }));
+    }
+
+    private void codeDxHeaders(HttpHeaders headers) {
+        headers.set(HttpHeaders.AUTHORIZATION, "Bearer " + codeDxToken);
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setAccept(java.util.Collections.singletonList(MediaType.APPLICATION_JSON));
+    }
+
+    private static class FindingsPage {
+        final List<CodeDxFinding> findings;
+        final boolean more;
+
+        FindingsPage(List<CodeDxFinding> findings, boolean more) {
+            this.findings = findings;
+            this.more = more;
+        }
+    }
+
+    private static class ChildPage {
+        final int nextOffset;
+        final boolean more;
+        final List<JSONObject> items;
+
+        ChildPage(int offset, JSONArray page, int pageSize, Set<Integer> seen) {
+            this.nextOffset = offset + page.length();
+            this.items = new ArrayList<>(page.length());
+            for (int i = 0; i < page.length(); i++) {
+                JSONObject child = page.getJSONObject(i);
+                // a child seen twice would otherwise be harvested twice, and a cycle would never end
+                if (seen.add(child.getInt("id"))) {
+                    items.add(child);
+                }
+            }
+            this.more = !items.isEmpty() && CodeDxProjectQuery.hasMore(page, pageSize);
+        }
+    }
+
+    private static class Page {
+        final int nextOffset;
+        final boolean more;
+        final List<JSONObject> items;
+        final JsonApiIncluded included;
+
+        Page(int offset, JSONObject body, int pageSize) {
+            JSONArray data = body.optJSONArray("data");
+            if (data == null) {
+                data = new JSONArray();
+            }
+            this.nextOffset = offset + data.length();
+            this.more = PolarisPager.hasMorePages(body, data, nextOffset, pageSize);
+            this.included = JsonApiIncluded.of(body);
+            this.items = new ArrayList<>(data.length());
+            for (int i = 0; i < data.length(); i++) {
+                items.add(data.getJSONObject(i));
+            }
+        }
+    }
+}
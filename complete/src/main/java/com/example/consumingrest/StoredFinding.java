@@ -0,0 +1,45 @@
+package com.example.consumingrest;
+
+/**
+ * A finding read back from a {@link FindingSegment}, with where it was harvested from
+ */
+public final class StoredFinding {
+
+    private final String tool;
+    private final String applicationId;
+    private final String projectId;
+    private final Finding finding;
+
+    public StoredFinding(String tool, String applicationId, String projectId, Finding finding) {
+        this.tool = tool;
+        this.applicationId = applicationId;
+        this.projectId = projectId;
+        this.finding = finding;
+    }
+
+    public String getTool() {
+        return tool;
+    }
+
+    public String getApplicationId() {
+        return applicationId;
+    }
+
+    public String getProjectId() {
+        return projectId;
+    }
+
+    public Finding getFinding() {
+        return finding;
+    }
+
+    @Override
+    public String toString() {
+        return "StoredFinding{" +
+                "tool='" + tool + '\'' +
+                ", applicationId='" + applicationId + '\'' +
+                ", projectId='" + projectId + '\'' +
+                ", finding=" + finding +
+                '}';
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.consumingrest;
+
+/**
+ * Canonicalizes the handful of values that repeat across millions of findings, such as severity names, tool
+ * categories, rule names and statuses, so every finding holding one shares a single {@code String} instead of a copy
+ * of its own.
+ * <p>
+ * The pool is a fixed-size table indexed by hash, where a value that collides with a different one simply replaces it.
+ * It never grows, never needs cleaning up and never blocks, at the cost of an occasional duplicate when two common
+ * values share a slot.  Slots are read and written without locking: a {@code String} is immutable and safely
+ * published, so a racing thread at worst sees an older value and stores its own copy.
+ */
+public final class StringPool {
+
+    /**
+     * Shared by every parser, so a value read from one tool or project is reused by the rest
+     */
+    public static final StringPool FINDING_VALUES = new StringPool(4096);
+
+    private final String[] table;
+    private final int mask;
+
+    /**
+     * @param capacity number of slots, rounded up to a power of two
+     */
+    public StringPool(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.table = new String[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * @param value a value to canonicalize, or null
+     * @return an equal pooled instance, or {@code value} itself after pooling it
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        int slot = spread(value.hashCode()) & mask;
+        String pooled = table[slot];
+        if (value.equals(pooled)) {
+            return pooled;
+        }
+        table[slot] = value;
+        return value;
+    }
+
+    /**
+     * Like {@link #intern(String)}, but for text still in a parser's buffer, so a value that is already pooled is
+     * returned without allocating a {@code String} for it at all
+     *
+     * @param chars  buffer holding the text
+     * @param offset index of the first character of the text
+     * @param length number of characters in the text
+     * @return an equal pooled instance
+     */
+    public String intern(char[] chars, int offset, int length) {
+        // the same hash as String.hashCode, so both methods find the same slot
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + chars[offset + i];
+        }
+        int slot = spread(hash) & mask;
+        String pooled = table[slot];
+        if (pooled != null && contentEquals(pooled, chars, offset, length)) {
+            return pooled;
+        }
+        String value = new String(chars, offset, length);
+        table[slot] = value;
+        return value;
+    }
+
+    private static boolean contentEquals(String pooled, char[] chars, int offset, int length) {
+        if (pooled.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (pooled.charAt(i) != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Mix the high bits of the hash into the low ones used for the slot, as {@link java.util.HashMap} does
+     */
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.consumingrest;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Hands every finding to each of several sinks in turn, such as the chosen output format and the {@link FindingStore}
+ */
+public class TeeFindingSink implements FindingSink {
+
+    private final List<FindingSink> sinks;
+
+    public TeeFindingSink(FindingSink... sinks) {
+        this.sinks = Arrays.asList(sinks);
+    }
+
+    @Override
+    public void accept(String tool, String applicationId, String projectId, Finding finding) {
+        for (FindingSink sink : sinks) {
+            sink.accept(tool, applicationId, projectId, finding);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        for (FindingSink sink : sinks) {
+            sink.flush();
+        }
+    }
+
+    @Override
+    public void endRun() throws IOException {
+        for (FindingSink sink : sinks) {
+            sink.endRun();
+        }
+    }
+
+    /**
+     * Close every sink, even when an earlier one fails
+     */
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (FindingSink sink : sinks) {
+            try {
+                sink.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "TeeFindingSink" + sinks;
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.consumingrest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Harvests many applications at once on a work-stealing {@link ForkJoinPool}.  Discovering an application's projects
+ * is one task, and each project is forked as a task of its own as soon as it is discovered, so when a few applications
+ * are much larger than the rest, workers that run out of small ones steal the remaining projects of the large ones
+ * instead of going idle.
+ * <p>
+ * The tasks are {@link CountedCompleter}s, which never block a worker waiting on another task.  The pool therefore
+ * never adds compensating threads, and {@code parallelism} is a hard cap on how many projects are harvested at the
+ * same time, however long the tasks spend blocked on HTTP calls.
+ * <p>
+ * A failing application or project is logged and counted, and the rest of the harvest carries on.
+ */
+public class WorkStealingHarvest implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkStealingHarvest.class);
+
+    private final ForkJoinPool pool;
+
+    private final AtomicLong applications = new AtomicLong();
+    private final AtomicLong projects = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    /**
+     * @param parallelism the most applications and projects harvested at the same time
+     * @param threadName  prefix of the worker thread names
+     */
+    public WorkStealingHarvest(int parallelism, String threadName) {
+        AtomicInteger threads = new AtomicInteger();
+        this.pool = new ForkJoinPool(parallelism, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName(threadName + threads.incrementAndGet());
+            return thread;
+        }, null, false);
+    }
+
+    /**
+     * Harvest every project of every application, returning once all of them have finished or failed
+     *
+     * @param tool           the system being harvested, for log messages
+     * @param applicationIds the applications to harvest
+     * @param projectsOf     discovers an application's projects, handing the id of each one to the given consumer
+     *                       as soon as it is found, from any thread.  It must not return until it has handed over
+     *                       every project
+     * @param harvestProject harvests one project, given its application id and project id
+     */
+    public void run(String tool, Collection<String> applicationIds, BiConsumer<String, Consumer<String>> projectsOf,
+                    BiConsumer<String, String> harvestProject) {
+        pool.invoke(new Task(null, tool + " harvest") {
+            @Override
+            void work() {
+                for (String applicationId : applicationIds) {
+                    spawn(new ApplicationTask(this, tool, applicationId, projectsOf, harvestProject));
+                }
+            }
+        });
+    }
+
+    /**
+     * @return the number of projects harvested so far, including failed ones
+     */
+    public long getProjects() {
+        return projects.get();
+    }
+
+    /**
+     * @return the number of applications and projects that failed
+     */
+    public long getFailures() {
+        return failures.get();
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+        try {
+            pool.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "WorkStealingHarvest{" +
+                "parallelism=" + pool.getParallelism() +
+                ", applications=" + applications.get() +
+                ", projects=" + projects.get() +
+                ", failures=" + failures.get() +
+                ", steals=" + pool.getStealCount() +
+                '}';
+    }
+
+    private abstract class Task extends CountedCompleter<Void> {
+
+        private final String description;
+
+        Task(CountedCompleter<?> parent, String description) {
+            super(parent);
+            this.description = description;
+        }
+
+        /**
+         * Do this task's own work, {@link #spawn spawning} any tasks that follow from it
+         */
+        abstract void work();
+
+        /**
+         * Start a task that this one will not complete before.  May be called from any thread while {@link #work()}
+         * is running, or from the spawned tasks themselves
+         */
+        void spawn(Task child) {
+            addToPendingCount(1);
+            Thread current = Thread.currentThread();
+            if (current instanceof ForkJoinWorkerThread && ((ForkJoinWorkerThread) current).getPool() == pool) {
+                child.fork();
+            } else {
+                // forking from any other thread would hand the task to the common pool
+                pool.execute(child);
+            }
+        }
+
+        @Override
+        public final void compute() {
+            try {
+                work();
+            } catch (RuntimeException e) {
+                failures.incrementAndGet();
+                log.error("harvesting " + description + " failed", e);
+            }
+            // this task completes once it and every task it spawned have called tryComplete, in whichever order
+            tryComplete();
+        }
+    }
+
+    private class ApplicationTask extends Task {
+
+        private final String tool;
+        private final String applicationId;
+        private final BiConsumer<String, Consumer<String>> projectsOf;
+        private final BiConsumer<String, String> harvestProject;
+
+        ApplicationTask(CountedCompleter<?> parent, String tool, String applicationId,
+                        BiConsumer<String, Consumer<String>> projectsOf, BiConsumer<String, String> harvestProject) {
+            super(parent, tool + " application " + applicationId);
+            this.tool = tool;
+            this.applicationId = applicationId;
+            this.projectsOf = projectsOf;
+            this.harvestProject = harvestProject;
+        }
+
+        @Override
+        void work() {
+            projectsOf.accept(applicationId, projectId -> spawn(new Task(this,
+                    tool + " project " + projectId + " of application " + applicationId) {
+                @Override
+                void work() {
+                    projects.incrementAndGet();
+                    harvestProject.accept(applicationId, projectId);
+                }
+            }));
+            applications.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.consumingrest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.RestTemplate;
+
+public class CodeDxFindingsQueryTest {
+
+	private final CodeDxFindingsQuery query = new CodeDxFindingsQuery(Arrays.asList("Critical", "High"),
+			Arrays.asList("new", "escalated"), 7);
+
+	@Test
+	public void buildsTheFilterAndPageOfARequest() {
+		JSONObject body = new JSONObject(query.body(3));
+		assertThat(body.getJSONObject("pagination").getInt("page")).isEqualTo(3);
+		assertThat(body.getJSONObject("pagination").getInt("perPage")).isEqualTo(7);
+		JSONArray severities = body.getJSONObject("filter").getJSONArray("severity");
+		assertThat(severities.length()).isEqualTo(2);
+		assertThat(severities.getString(1)).isEqualTo("High");
+		assertThat(new JSONObject(new CodeDxFindingsQuery(null, null, 7).body(1)).getJSONObject("filter").length())
+				.isZero();
+	}
+
+	@Test
+	public void pagesThroughFilteredFindings() throws Exception {
+		SyntheticTenant tenant = new SyntheticTenant().codeDxProjects(1, 200);
+		try (FakeToolServer server = new FakeToolServer(tenant, new FakeToolServer.Options())) {
+			RestTemplate restTemplate = new RestTemplate();
+			String url = server.getBaseUrl() + "/codedx/api/projects/" + tenant.codeDxChildProjectId(0)
+					+ "/findings/table";
+			List<CodeDxFinding> findings = new ArrayList<>();
+			int read;
+			int page = 1;
+			do {
+				HttpHeaders headers = new HttpHeaders();
+				headers.setContentType(MediaType.APPLICATION_JSON);
+				HttpEntity<String> request = new HttpEntity<>(query.body(page++), headers);
+				Integer count = restTemplate.execute(url, HttpMethod.POST, restTemplate.httpEntityCallback(request),
+						response -> CodeDxFindingsReader.read(response.getBody(), findings::add));
+				read = count == null ? 0 : count;
+				assertThat(read).isLessThanOrEqualTo(7);
+			} while (query.hasMore(read));
+
+			// the fake tenant gives every critical finding the status New and every high one Escalated
+			assertThat(findings).hasSize(80).allSatisfy(finding -> {
+				assertThat(finding.getSeverity()).isIn("Critical", "High");
+				assertThat(finding.getStatusName()).isIn("New", "Escalated");
+			});
+			// eleven full pages and a short one
+			assertThat(server.getRequests("codedx-findings-table")).isEqualTo(12);
+		}
+	}
+
+	@Test
+	public void stopsWhenTheServerRepeatsAPage() {
+		CodeDxFindingsQuery.Paging paging = new CodeDxFindingsQuery(null, null, 3).paging();
+		List<Integer> reported = new ArrayList<>();
+		int[][] pages = {{4, 5, 6}, {7, 8, 9}, {7, 8, 9}, {7, 8, 9}};
+		int requested = 0;
+		do {
+			assertThat(new JSONObject(paging.nextBody()).getJSONObject("pagination").getInt("page"))
+					.isEqualTo(requested + 1);
+			for (int id : pages[requested++]) {
+				if (paging.accept(id)) {
+					reported.add(id);
+				}
+			}
+		} while (paging.hasMore());
+
+		assertThat(requested).isEqualTo(3);
+		assertThat(paging.isRepeated()).isTrue();
+		assertThat(reported).containsExactly(4, 5, 6, 7, 8, 9);
+	}
+
+	@Test
+	public void aShortPageEndsTheWalk() {
+		CodeDxFindingsQuery.Paging paging = new CodeDxFindingsQuery(null, null, 3).paging();
+		paging.nextBody();
+		assertThat(paging.accept(1)).isTrue();
+		assertThat(paging.accept(2)).isTrue();
+
+		assertThat(paging.hasMore()).isFalse();
+		assertThat(paging.isRepeated()).isFalse();
+	}
+}
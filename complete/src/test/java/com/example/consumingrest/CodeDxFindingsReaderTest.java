@@ -0,0 +1,51 @@
+package com.example.consumingrest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.junit.jupiter.api.Test;
+
+public class CodeDxFindingsReaderTest {
+
+	private static final String TABLE = "[" +
+			"{\"id\": 17, \"severity\": {\"id\": 2, \"name\": \"High\"}," +
+			" \"detectionMethod\": {\"id\": 1, \"name\": \"Static Analysis\"}," +
+			" \"descriptor\": {\"id\": 9, \"name\": \"SQL Injection\", \"tags\": [\"a\", {\"b\": 1}]}," +
+			" \"location\": {\"path\": \"src/A.java\", \"lines\": [1, 2]}," +
+			" \"firstSeenOn\": \"03/14/2022\", \"statusName\": \"New\"}," +
+			"{\"statusName\": \"Fixed\", \"firstSeenOn\": \"01/02/2021\", \"id\": 18," +
+			" \"descriptor\": {\"name\": \"XSS\"}, \"severity\": {\"name\": \"Low\"}," +
+			" \"detectionMethod\": {\"name\": \"Dynamic Analysis\"}, \"extra\": null}" +
+			"]";
+
+	@Test
+	public void readsSameFieldsAsTreeParsing() throws Exception {
+		List<CodeDxFinding> streamed = new ArrayList<>();
+		int count = CodeDxFindingsReader.read(
+				new ByteArrayInputStream(TABLE.getBytes(StandardCharsets.UTF_8)), streamed::add);
+
+		JSONArray tree = new JSONArray(TABLE);
+		assertThat(count).isEqualTo(2);
+		for (int i = 0; i < tree.length(); i++) {
+			assertThat(streamed.get(i).toString())
+					.isEqualTo(CodeDxFinding.fromJson(tree.getJSONObject(i)).toString());
+		}
+		assertThat(streamed.get(0).getDescriptor()).isEqualTo("SQL Injection");
+		assertThat(streamed.get(1).getId()).isEqualTo(18);
+	}
+
+	@Test
+	public void readsEmptyTable() throws Exception {
+		int count = CodeDxFindingsReader.read(
+				new ByteArrayInputStream("[]".getBytes(StandardCharsets.UTF_8)), f -> {
+				});
+
+		assertThat(count).isZero();
+	}
+
+}
@@ -0,0 +1,174 @@
+package com.example.consumingrest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class CodeDxProjectTreeTest {
+
+	private final ExecutorService pool = Executors.newFixedThreadPool(4);
+
+	@AfterEach
+	void shutdown() {
+		pool.shutdownNow();
+	}
+
+	/**
+	 * Every project 1..n has {@code fanOut} children, down to {@code depth} levels below project 1
+	 */
+	private static Map<Integer, List<Integer>> tree(int fanOut, int depth) {
+		Map<Integer, List<Integer>> children = new ConcurrentHashMap<>();
+		List<Integer> level = Collections.singletonList(1);
+		int next = 2;
+		for (int d = 0; d < depth; d++) {
+			List<Integer> below = new ArrayList<>();
+			for (int parent : level) {
+				List<Integer> ids = new ArrayList<>();
+				for (int c = 0; c < fanOut; c++) {
+					ids.add(next++);
+				}
+				children.put(parent, ids);
+				below.addAll(ids);
+			}
+			level = below;
+		}
+		return children;
+	}
+
+	private static JSONArray page(Map<Integer, List<Integer>> tree, int parentId, int offset, int limit) {
+		List<Integer> ids = tree.getOrDefault(parentId, Collections.emptyList());
+		JSONArray page = new JSONArray();
+		for (int i = offset; i < Math.min(ids.size(), offset + limit); i++) {
+			page.put(new JSONObject().put("id", ids.get(i)).put("name", "Project " + ids.get(i)));
+		}
+		return page;
+	}
+
+	@Test
+	public void walksEveryDescendantAPageAtATime() {
+		Map<Integer, List<Integer>> tree = tree(5, 3);
+		AtomicInteger queries = new AtomicInteger();
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger mostRunning = new AtomicInteger();
+		Map<Integer, Integer> reported = new ConcurrentHashMap<>();
+
+		CodeDxProjectTree walker = new CodeDxProjectTree((parentId, offset, limit) -> {
+			mostRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+			queries.incrementAndGet();
+			try {
+				Thread.sleep(1);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			running.decrementAndGet();
+			return page(tree, parentId, offset, limit);
+		}, 2, pool);
+
+		int count = walker.walk(1, project -> reported.merge(project.getId(), project.getParentId(), (a, b) -> -1));
+
+		// 5 + 25 + 125 projects below the root, each one reported once with its own parent
+		assertThat(count).isEqualTo(155);
+		assertThat(reported).hasSize(155).doesNotContainKey(1).doesNotContainValue(-1);
+		assertThat(reported.get(2)).isEqualTo(1);
+		assertThat(reported.get(7)).isEqualTo(2);
+		// three pages (2, 2, 1) for each of the 31 parents and one empty page for each of the 125 leaves
+		assertThat(queries.get()).isEqualTo(31 * 3 + 125);
+		assertThat(mostRunning.get()).isBetween(1, 4);
+	}
+
+	@Test
+	public void stopsAtAPageWithNothingNew() {
+		// a server that ignores the paging returns every child on every page
+		Set<Integer> parentsQueried = ConcurrentHashMap.newKeySet();
+		AtomicInteger queries = new AtomicInteger();
+		CodeDxProjectTree walker = new CodeDxProjectTree((parentId, offset, limit) -> {
+			queries.incrementAndGet();
+			parentsQueried.add(parentId);
+			return parentId == 1 ? page(tree(2, 1), 1, 0, 2) : new JSONArray();
+		}, 2, pool);
+
+		assertThat(walker.walk(1, project -> {
+		})).isEqualTo(2);
+		assertThat(parentsQueried).containsExactlyInAnyOrder(1, 2, 3);
+		assertThat(queries.get()).isEqualTo(4);
+	}
+
+	@Test
+	public void failsOnceTheQueriesInFlightHaveFinished() throws InterruptedException {
+		Map<Integer, List<Integer>> tree = tree(3, 2);
+		AtomicInteger reported = new AtomicInteger();
+		CodeDxProjectTree walker = new CodeDxProjectTree((parentId, offset, limit) -> {
+			if (parentId == 3) {
+				throw new IllegalStateException("project 3 is gone");
+			}
+			return page(tree, parentId, offset, limit);
+		}, 10, pool);
+
+		assertThatThrownBy(() -> walker.walk(1, project -> reported.incrementAndGet()))
+				.isInstanceOf(IllegalStateException.class).hasMessage("project 3 is gone");
+		int atFailure = reported.get();
+		pool.shutdown();
+		// nothing was left running to report more projects after the walk completed
+		assertThat(pool.awaitTermination(1, TimeUnit.SECONDS)).isTrue();
+		assertThat(reported.get()).isEqualTo(atFailure).isLessThan(12);
+	}
+
+	@Test
+	public void feedsAWorkStealingHarvestFromItsOwnThreads() {
+		Map<Integer, List<Integer>> tree = tree(4, 2);
+		CodeDxProjectTree walker = new CodeDxProjectTree((parentId, offset, limit) -> page(tree, parentId, offset,
+				limit), 100, pool);
+		Set<String> harvested = ConcurrentHashMap.newKeySet();
+
+		try (WorkStealingHarvest harvest = new WorkStealingHarvest(2, "test-harvest-")) {
+			harvest.run("codedx", Collections.singletonList("1"),
+					(app, found) -> walker.walk(Integer.parseInt(app),
+							project -> found.accept(Integer.toString(project.getId()))),
+					(app, project) -> {
+						assertThat(Thread.currentThread().getName()).startsWith("test-harvest-");
+						harvested.add(project);
+					});
+			assertThat(harvest.getFailures()).isZero();
+		}
+
+		assertThat(harvested).hasSize(20);
+	}
+
+	@Test
+	public void swapsOffsetAndLimitForServersThatNeedIt() {
+		JSONObject swapped = new JSONObject(CodeDxProjectQuery.body(7, 200, 100, true));
+		assertThat(swapped.getInt("offset")).isEqualTo(100);
+		assertThat(swapped.getInt("limit")).isEqualTo(200);
+		assertThat(swapped.getJSONObject("filter").getInt("parentId")).isEqualTo(7);
+		JSONObject standard = new JSONObject(CodeDxProjectQuery.body(7, 200, 100, false));
+		assertThat(standard.getInt("offset")).isEqualTo(200);
+		assertThat(standard.getInt("limit")).isEqualTo(100);
+
+		CodeDxProjectQuery.Paging auto = CodeDxProjectQuery.Paging.AUTO;
+		assertThat(CodeDxProjectQuery.isSwapped(auto, "2022.1.2", "2022.1.2")).isTrue();
+		assertThat(CodeDxProjectQuery.isSwapped(auto, "2021.12.7", "2022.1.2")).isTrue();
+		assertThat(CodeDxProjectQuery.isSwapped(auto, "2022.1.10", "2022.1.2")).isFalse();
+		assertThat(CodeDxProjectQuery.isSwapped(auto, "2022.4.0-beta", "2022.1.2")).isFalse();
+		assertThat(CodeDxProjectQuery.isSwapped(auto, null, "2022.1.2")).isTrue();
+		assertThat(CodeDxProjectQuery.isSwapped(CodeDxProjectQuery.Paging.STANDARD, null, "2022.1.2")).isFalse();
+		assertThat(CodeDxProjectQuery.isSwapped(CodeDxProjectQuery.Paging.SWAPPED, "2030.1", "2022.1.2")).isTrue();
+
+		assertThat(CodeDxProjectQuery.version("{\"version\": \"2022.1.2\"}")).isEqualTo("2022.1.2");
+		assertThat(CodeDxProjectQuery.version("{}")).isNull();
+	}
+}
@@ -0,0 +1,182 @@
+package com.example.consumingrest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.headerDoesNotExist;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.client.RestTemplate;
+
+public class DiskCacheInterceptorTest {
+
+	private static final String URL = "https://polaris.example.com/api/common/v0/projects/p1";
+
+	private final AtomicLong now = new AtomicLong(1_000_000L);
+
+	@TempDir
+	Path dir;
+
+	private DiskCacheInterceptor cache;
+
+	private RestTemplate restTemplate;
+
+	private MockRestServiceServer server;
+
+	@BeforeEach
+	public void setUp() {
+		cache = new DiskCacheInterceptor(properties(), now::get);
+
+		restTemplate = new RestTemplate();
+		restTemplate.getInterceptors().add(cache);
+		server = MockRestServiceServer.bindTo(restTemplate).build();
+	}
+
+	@Test
+	public void servesFreshEntriesFromDisk() {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setETag("\"v1\"");
+		server.expect(ExpectedCount.once(), requestTo(URL))
+				.andRespond(withSuccess("{\"name\": \"one\"}", MediaType.APPLICATION_JSON).headers(headers));
+
+		assertThat(restTemplate.getForObject(URL, String.class)).contains("one");
+		assertThat(restTemplate.getForObject(URL, String.class)).contains("one");
+
+		server.verify();
+		assertThat(cache.getHits()).isEqualTo(1);
+		assertThat(cache.getMisses()).isEqualTo(1);
+	}
+
+	@Test
+	public void revalidatesStaleEntriesWithEtag() {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setETag("\"v1\"");
+		server.expect(ExpectedCount.once(), requestTo(URL))
+				.andRespond(withSuccess("{\"name\": \"one\"}", MediaType.APPLICATION_JSON).headers(headers));
+		server.expect(ExpectedCount.once(), requestTo(URL))
+				.andExpect(header(HttpHeaders.IF_NONE_MATCH, "\"v1\""))
+				.andRespond(withStatus(HttpStatus.NOT_MODIFIED));
+
+		restTemplate.getForObject(URL, String.class);
+		now.addAndGet(Duration.ofMinutes(2).toMillis());
+
+		assertThat(restTemplate.getForObject(URL, String.class)).contains("one");
+		server.verify();
+		assertThat(cache.getRevalidated()).isEqualTo(1);
+	}
+
+	@Test
+	public void refetchesAnEntryEvictedWhileItWasRevalidated() {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setETag("\"v1\"");
+		server.expect(ExpectedCount.once(), requestTo(URL))
+				.andRespond(withSuccess("{\"name\": \"one\"}", MediaType.APPLICATION_JSON).headers(headers));
+		server.expect(ExpectedCount.once(), requestTo(URL))
+				.andExpect(header(HttpHeaders.IF_NONE_MATCH, "\"v1\""))
+				.andRespond(request -> {
+					// another request evicts the body while this one is waiting for its 304
+					for (Path body : bodies()) {
+						Files.delete(body);
+					}
+					return withStatus(HttpStatus.NOT_MODIFIED).createResponse(request);
+				});
+		server.expect(ExpectedCount.once(), requestTo(URL))
+				.andExpect(headerDoesNotExist(HttpHeaders.IF_NONE_MATCH))
+				.andRespond(withSuccess("{\"name\": \"two\"}", MediaType.APPLICATION_JSON));
+
+		restTemplate.getForObject(URL, String.class);
+		now.addAndGet(Duration.ofMinutes(2).toMillis());
+
+		assertThat(restTemplate.getForObject(URL, String.class)).contains("two");
+		server.verify();
+		assertThat(cache.getRevalidated()).isZero();
+		assertThat(cache.getMisses()).isEqualTo(2);
+	}
+
+	@Test
+	public void evictsTheLeastRecentlyUsedEntriesCountingWhatWasCachedBeforeARestart() throws Exception {
+		String body = "{\"v\": \"" + String.join("", Collections.nCopies(32, "x")) + "\"}";
+		HttpCacheProperties properties = properties();
+		properties.setMaxSize(DataSize.ofBytes(100));
+		cache = new DiskCacheInterceptor(properties, now::get);
+		restTemplate.getInterceptors().set(0, cache);
+		server.expect(ExpectedCount.once(), requestTo(URL))
+				.andRespond(withSuccess(body, MediaType.APPLICATION_JSON));
+		server.expect(ExpectedCount.once(), requestTo(URL + "2"))
+				.andRespond(withSuccess(body, MediaType.APPLICATION_JSON));
+		restTemplate.getForObject(URL, String.class);
+		now.addAndGet(1000);
+		restTemplate.getForObject(URL + "2", String.class);
+		server.verify();
+		assertThat(bodies()).hasSize(2);
+
+		// the restarted cache starts out counting both bodies, so a third one takes it over the limit
+		DiskCacheInterceptor restarted = new DiskCacheInterceptor(properties, now::get);
+		RestTemplate afterRestart = new RestTemplate();
+		afterRestart.getInterceptors().add(restarted);
+		MockRestServiceServer serverAfterRestart = MockRestServiceServer.bindTo(afterRestart).build();
+		serverAfterRestart.expect(ExpectedCount.once(), requestTo(URL + "3"))
+				.andRespond(withSuccess(body, MediaType.APPLICATION_JSON));
+		serverAfterRestart.expect(ExpectedCount.once(), requestTo(URL))
+				.andRespond(withSuccess(body, MediaType.APPLICATION_JSON));
+
+		now.addAndGet(1000);
+		afterRestart.getForObject(URL + "3", String.class);
+		assertThat(bodies()).hasSize(2);
+		afterRestart.getForObject(URL + "2", String.class);
+		afterRestart.getForObject(URL + "3", String.class);
+		afterRestart.getForObject(URL, String.class);
+
+		serverAfterRestart.verify();
+		assertThat(restarted.getHits()).isEqualTo(2);
+		assertThat(restarted.getMisses()).isEqualTo(2);
+	}
+
+	@Test
+	public void ignoresPathsWithoutTtl() {
+		String other = "https://polaris.example.com/api/query/v1/issues";
+		server.expect(ExpectedCount.twice(), requestTo(other))
+				.andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
+
+		restTemplate.getForObject(other, String.class);
+		restTemplate.getForObject(other, String.class);
+
+		server.verify();
+		assertThat(cache.getMisses()).isZero();
+	}
+
+	private HttpCacheProperties properties() {
+		HttpCacheProperties properties = new HttpCacheProperties();
+		properties.setDirectory(dir);
+		properties.getTtl().put("/api/common/v0/projects/*", Duration.ofMinutes(1));
+		return properties;
+	}
+
+	private List<Path> bodies() throws IOException {
+		try (Stream<Path> files = Files.list(dir)) {
+			return files.filter(file -> file.toString().endsWith(".body")).collect(Collectors.toList());
+		}
+	}
+
+}
@@ -0,0 +1,890 @@
+package com.example.consumingrest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Stands in for Polaris and Code Dx on a local port, serving a {@link SyntheticTenant} from every endpoint the harvest
+ * calls.  Responses are generated on the fly and streamed, and latency, server errors and 429s can be injected, so
+ * the harvest can be load-tested without touching a real tenant.
+ * <p>
+ * Can also be started on its own with {@link #main(String[])} and the application pointed at it through the usual
+ * environment variables.
+ */
+public class FakeToolServer implements AutoCloseable {
+
+	private static final JsonFactory JSON = new JsonFactory();
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private static final DateTimeFormatter CODEDX_DATE = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+
+	private static final Pattern APPLICATION = Pattern.compile("/api/common/v0/applications/([^/]+)");
+	private static final Pattern PROJECT = Pattern.compile("/api/common/v0/projects/([^/]+)");
+	private static final Pattern ISSUE = Pattern.compile("/api/query/v1/issues/issue-(\\d+)-(\\d+)");
+	private static final Pattern ISSUE_TYPE = Pattern.compile("/api/query/v0/issue-types/([^/]+)");
+	private static final Pattern TRIAGE = Pattern.compile(
+			"/api/triage/v1/triage-current/project-id:proj-(\\d+):issue-key:key-\\d+-(\\d+)");
+	private static final Pattern RUN = Pattern.compile("/api/common/v0/runs/(run-[^/]+)");
+	private static final Pattern CODEDX_PROJECT = Pattern.compile("/codedx/api/projects/(\\d+)");
+	private static final Pattern CODEDX_FINDINGS = Pattern.compile("/codedx/api/projects/d?(\\d+)/findings/table");
+
+	private final SyntheticTenant tenant;
+	private final Options options;
+	private final HttpServer server;
+	private final ExecutorService executor;
+
+	private final Map<String, AtomicLong> requests = new ConcurrentHashMap<>();
+	private final AtomicLong throttled = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	private final AtomicLong tokensIssued = new AtomicLong();
+
+	/**
+	 * Path prefix to how many more of its requests are answered with a 503
+	 */
+	private final Map<String, AtomicInteger> failing = new ConcurrentHashMap<>();
+
+	public FakeToolServer(SyntheticTenant tenant, Options options) throws IOException {
+		this.tenant = tenant;
+		this.options = options;
+		// small responses otherwise stall on Nagle's algorithm meeting the client's delayed ACK.  Read once, when the
+		// first server is created
+		System.setProperty("sun.net.httpserver.nodelay", "true");
+		this.executor = Executors.newFixedThreadPool(options.threads, new CustomizableThreadFactory("fake-tool-"));
+		this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), options.port),
+				1024);
+		this.server.setExecutor(executor);
+		this.server.createContext("/", this::handle);
+		this.server.start();
+	}
+
+	/**
+	 * @return base URL of the server, usable as both POLARIS_BASE_URL and CODEDX_BASE_URL
+	 */
+	public String getBaseUrl() {
+		return "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+
+	/**
+	 * @param endpoint endpoint name, as listed by {@link #getRequestCounts()}
+	 * @return number of requests answered successfully by that endpoint
+	 */
+	public long getRequests(String endpoint) {
+		AtomicLong count = requests.get(endpoint);
+		return count == null ? 0 : count.get();
+	}
+
+	/**
+	 * @return requests answered successfully, by endpoint name
+	 */
+	public Map<String, Long> getRequestCounts() {
+		Map<String, Long> counts = new TreeMap<>();
+		requests.forEach((endpoint, count) -> counts.put(endpoint, count.get()));
+		return counts;
+	}
+
+	public long getThrottled() {
+		return throttled.get();
+	}
+
+	public long getFailed() {
+		return failed.get();
+	}
+
+	/**
+	 * Answer the next {@code times} requests whose path starts with {@code pathPrefix} with a 503
+	 */
+	public void failNext(String pathPrefix, int times) {
+		failing.put(pathPrefix, new AtomicInteger(times));
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	private void handle(HttpExchange ex) throws IOException {
+		try {
+			String method = ex.getRequestMethod();
+			String path = ex.getRequestURI().getPath();
+			Map<String, String> query = parseQuery(ex.getRequestURI().getRawQuery());
+			byte[] body = StreamUtils.copyToByteArray(ex.getRequestBody());
+
+			if (method.equals("POST") && path.equals("/api/auth/v1/authenticate")) {
+				respond(ex, "auth", 200, json -> json.writeStringField("jwt", issueToken()));
+				return;
+			}
+			if (path.startsWith("/api/") && !validToken(ex.getRequestHeaders().getFirst("Authorization"))) {
+				ex.sendResponseHeaders(401, -1);
+				return;
+			}
+			if (injectFault(ex)) {
+				return;
+			}
+			route(ex, method, path, query, body);
+		} catch (RuntimeException e) {
+			// a malformed request
+			failed.incrementAndGet();
+			if (ex.getResponseCode() == -1) {
+				ex.sendResponseHeaders(400, -1);
+			}
+		} finally {
+			ex.close();
+		}
+	}
+
+	private void route(HttpExchange ex, String method, String path, Map<String, String> query, byte[] body)
+			throws IOException {
+		Matcher m;
+		if (method.equals("GET") && path.equals("/api/common/v0/applications")) {
+			applications(ex, query);
+		} else if (method.equals("GET") && (m = APPLICATION.matcher(path)).matches()) {
+			application(ex, m.group(1));
+		} else if (method.equals("GET") && (m = PROJECT.matcher(path)).matches()) {
+			project(ex, m.group(1));
+		} else if (method.equals("GET") && path.equals("/api/common/v0/branches")) {
+			branches(ex, query);
+		} else if (method.equals("GET") && path.equals("/api/query/v1/issues")) {
+			issues(ex, query);
+		} else if (method.equals("GET") && (m = ISSUE.matcher(path)).matches()) {
+			issue(ex, Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)));
+		} else if (method.equals("GET") && (m = ISSUE_TYPE.matcher(path)).matches()) {
+			issueType(ex, m.group(1));
+		} else if (method.equals("GET") && (m = TRIAGE.matcher(path)).matches()) {
+			int project = Integer.parseInt(m.group(1));
+			int issue = Integer.parseInt(m.group(2));
+			respond(ex, "triage-current", 200, json -> {
+				json.writeFieldName("data");
+				writeTriage(json, project, issue);
+			});
+		} else if (method.equals("GET") && path.equals("/api/triage/v1/triage-current")) {
+			bulkTriage(ex, query);
+		} else if (method.equals("GET") && (m = RUN.matcher(path)).matches()) {
+			run(ex, m.group(1));
+		} else if (method.equals("GET") && path.equals("/api/taxonomy/v0/taxonomies")) {
+			taxonomies(ex);
+		} else if (method.equals("GET") && path.equals(CodeDxProjectQuery.SYSTEM_INFO_PATH)) {
+			respond(ex, "codedx-system-info", 200, json -> json.writeStringField("version", tenant.codeDxVersion));
+		} else if (method.equals("GET") && path.equals("/codedx/api/projects")) {
+			codeDxProjects(ex);
+		} else if (method.equals("POST") && path.equals("/codedx/api/projects/query")) {
+			codeDxProjectQuery(ex, body);
+		} else if (method.equals("GET") && (m = CODEDX_PROJECT.matcher(path)).matches()) {
+			int project = Integer.parseInt(m.group(1));
+			respond(ex, "codedx-project", 200, json -> {
+				json.writeNumberField("id", project);
+				json.writeStringField("name", tenant.codeDxProjectName(project));
+			});
+		} else if (method.equals("POST") && (m = CODEDX_FINDINGS.matcher(path)).matches()) {
+			codeDxFindings(ex, Integer.parseInt(m.group(1)), body);
+		} else {
+			ex.sendResponseHeaders(404, -1);
+		}
+	}
+
+	private void applications(HttpExchange ex, Map<String, String> query) throws IOException {
+		Page page = new Page(query, 1);
+		respond(ex, "applications-list", 200, json -> {
+			json.writeArrayFieldStart("data");
+			for (int i = page.from; i < page.to; i++) {
+				json.writeStartObject();
+				json.writeStringField("type", "application");
+				json.writeStringField("id", tenant.polarisApplicationId);
+				json.writeObjectFieldStart("attributes");
+				json.writeStringField("name", "Synthetic application");
+				json.writeEndObject();
+				json.writeEndObject();
+			}
+			json.writeEndArray();
+			page.writeMeta(json);
+		});
+	}
+
+	private void application(HttpExchange ex, String applicationId) throws IOException {
+		if (!applicationId.equals(tenant.polarisApplicationId)) {
+			ex.sendResponseHeaders(404, -1);
+			return;
+		}
+		respond(ex, "applications", 200, json -> {
+			json.writeObjectFieldStart("data");
+			json.writeStringField("type", "application");
+			json.writeStringField("id", applicationId);
+			json.writeObjectFieldStart("attributes");
+			json.writeStringField("name", "Synthetic application");
+			json.writeEndObject();
+			json.writeObjectFieldStart("relationships");
+			json.writeObjectFieldStart("projects");
+			json.writeArrayFieldStart("data");
+			for (int p = 0; p < tenant.polarisProjects; p++) {
+				json.writeStartObject();
+				json.writeStringField("type", "project");
+				json.writeStringField("id", tenant.projectId(p));
+				json.writeEndObject();
+			}
+			json.writeEndArray();
+			json.writeEndObject();
+			json.writeEndObject();
+			json.writeEndObject();
+		});
+	}
+
+	private void project(HttpExchange ex, String projectId) throws IOException {
+		int project = SyntheticTenant.index(projectId, "proj-");
+		if (project < 0 || project >= tenant.polarisProjects) {
+			ex.sendResponseHeaders(404, -1);
+			return;
+		}
+		respond(ex, "projects", 200, json -> {
+			json.writeObjectFieldStart("data");
+			json.writeStringField("type", "project");
+			json.writeStringField("id", projectId);
+			json.writeObjectFieldStart("attributes");
+			json.writeStringField("name", "Synthetic project " + project);
+			json.writeEndObject();
+			json.writeEndObject();
+		});
+	}
+
+	private void branches(HttpExchange ex, Map<String, String> query) throws IOException {
+		int project = SyntheticTenant.index(query.get("filter[branch][project][id][$eq]"), "proj-");
+		// a feature branch ahead of the default one, so callers have to look past the first entry
+		String[] ids = {"branch-" + project + "-feature", tenant.branchId(project)};
+		int total = project < 0 || project >= tenant.polarisProjects ? 0 : ids.length;
+		Page page = new Page(query, total);
+		respond(ex, "branches", 200, json -> {
+			json.writeArrayFieldStart("data");
+			for (int i = page.from; i < page.to; i++) {
+				json.writeStartObject();
+				json.writeStringField("type", "branch");
+				json.writeStringField("id", ids[i]);
+				json.writeObjectFieldStart("attributes");
+				json.writeStringField("name", i == 1 ? "main" : "feature");
+				json.writeBooleanField("main-for-project", i == 1);
+				json.writeEndObject();
+				json.writeEndObject();
+			}
+			json.writeEndArray();
+			page.writeMeta(json);
+		});
+	}
+
+	private void issues(HttpExchange ex, Map<String, String> query) throws IOException {
+		int project = SyntheticTenant.index(query.get("project-id"), "proj-");
+		boolean known = project >= 0 && project < tenant.polarisProjects
+				&& tenant.branchId(project).equals(query.get("branch-id"));
+		Page page = new Page(query, known ? tenant.issuesPerProject : 0);
+		Set<String> include = new HashSet<>();
+		if (options.sideLoading && query.containsKey("include[issue][]")) {
+			include.addAll(Arrays.asList(query.get("include[issue][]").split(",")));
+		}
+		respond(ex, "issues", 200, json -> {
+			json.writeArrayFieldStart("data");
+			for (int i = page.from; i < page.to; i++) {
+				json.writeStartObject();
+				json.writeStringField("type", "issue");
+				json.writeStringField("id", tenant.issueId(project, i));
+				json.writeObjectFieldStart("attributes");
+				json.writeStringField("issue-key", tenant.issueKey(project, i));
+				json.writeStringField("finding-key", "finding-" + project + "-" + i);
+				json.writeStringField("sub-tool", "sast");
+				json.writeEndObject();
+				json.writeObjectFieldStart("relationships");
+				writeRelationship(json, "issue-type", "issue-type", tenant.issueTypeId(project, i));
+				writeRelationship(json, "latest-observed-on-run", "run", tenant.runId(project, i));
+				writeRelationship(json, "path", "path", "path-" + project + "-" + i % 50);
+				if (include.contains("transitions")) {
+					json.writeObjectFieldStart("transitions");
+					json.writeArrayFieldStart("data");
+					for (int t = 0; t < tenant.transitionsPerIssue; t++) {
+						json.writeStartObject();
+						json.writeStringField("type", "transition");
+						json.writeStringField("id", "tr-" + project + "-" + i + "-" + t);
+						json.writeEndObject();
+					}
+					json.writeEndArray();
+					json.writeEndObject();
+				}
+				json.writeEndObject();
+				json.writeEndObject();
+			}
+			json.writeEndArray();
+			if (!include.isEmpty()) {
+				writeIncluded(json, project, page, include);
+			}
+			page.writeMeta(json);
+		});
+	}
+
+	/**
+	 * Side-load the related resources of every issue on the page, each one once however many issues share it
+	 */
+	private void writeIncluded(JsonGenerator json, int project, Page page, Set<String> include) throws IOException {
+		Set<String> written = new HashSet<>();
+		json.writeArrayFieldStart("included");
+		for (int i = page.from; i < page.to; i++) {
+			String issueTypeId = tenant.issueTypeId(project, i);
+			if (include.contains("issue-type") && written.add("issue-type:" + issueTypeId)) {
+				String name = tenant.issueTypeName(issueTypeId);
+				json.writeStartObject();
+				json.writeStringField("type", "issue-type");
+				json.writeStringField("id", issueTypeId);
+				json.writeObjectFieldStart("attributes");
+				json.writeStringField("issue-type-id", name);
+				json.writeStringField("name", name);
+				json.writeEndObject();
+				json.writeEndObject();
+			}
+			String runId = tenant.runId(project, i);
+			if (include.contains("latest-observed-on-run") && written.add("run:" + runId)) {
+				json.writeStartObject();
+				json.writeStringField("type", "run");
+				json.writeStringField("id", runId);
+				json.writeObjectFieldStart("relationships");
+				writeRelationship(json, "revision", "revision", tenant.revisionId(runId));
+				json.writeEndObject();
+				json.writeEndObject();
+			}
+			if (include.contains("transitions")) {
+				writeTransitions(json, project, i);
+			}
+		}
+		json.writeEndArray();
+	}
+
+	private void writeTransitions(JsonGenerator json, int project, int issue) throws IOException {
+		LocalDate first = LocalDate.of(2021, 1, 1).plusDays(issue % 365);
+		for (int t = 0; t < tenant.transitionsPerIssue; t++) {
+			json.writeStartObject();
+			json.writeStringField("type", "transition");
+			json.writeStringField("id", "tr-" + project + "-" + issue + "-" + t);
+			json.writeObjectFieldStart("attributes");
+			json.writeStringField("transition-type", t % 2 == 0 ? "opened" : "closed");
+			json.writeStringField("transition-date", first.plusDays(30L * t) + "T12:00:00.000000Z");
+			json.writeEndObject();
+			json.writeEndObject();
+		}
+	}
+
+	private void issue(HttpExchange ex, int project, int issue) throws IOException {
+		if (project >= tenant.polarisProjects || issue >= tenant.issuesPerProject) {
+			ex.sendResponseHeaders(404, -1);
+			return;
+		}
+		respond(ex, "issue", 200, json -> {
+			json.writeObjectFieldStart("data");
+			json.writeStringField("type", "issue");
+			json.writeStringField("id", tenant.issueId(project, issue));
+			json.writeEndObject();
+			json.writeArrayFieldStart("included");
+			writeTransitions(json, project, issue);
+			json.writeStartObject();
+			json.writeStringField("type", "issue-type");
+			json.writeStringField("id", tenant.issueTypeId(project, issue));
+			json.writeEndObject();
+			json.writeEndArray();
+		});
+	}
+
+	private void issueType(HttpExchange ex, String issueTypeId) throws IOException {
+		String name = tenant.issueTypeName(issueTypeId);
+		if (name == null) {
+			ex.sendResponseHeaders(404, -1);
+			return;
+		}
+		respond(ex, "issue-types", 200, json -> {
+			json.writeObjectFieldStart("data");
+			json.writeStringField("type", "issue-type");
+			json.writeStringField("id", issueTypeId);
+			json.writeObjectFieldStart("attributes");
+			json.writeStringField("issue-type-id", name);
+			json.writeStringField("name", name);
+			json.writeEndObject();
+			json.writeEndObject();
+		});
+	}
+
+	private void bulkTriage(HttpExchange ex, Map<String, String> query) throws IOException {
+		if (!options.bulkTriage) {
+			ex.sendResponseHeaders(400, -1);
+			return;
+		}
+		int project = SyntheticTenant.index(query.get("filter[triage-current][project-id][$eq]"), "proj-");
+		Page page = new Page(query, project >= 0 && project < tenant.polarisProjects ? tenant.issuesPerProject : 0);
+		respond(ex, "triage-current-bulk", 200, json -> {
+			json.writeArrayFieldStart("data");
+			for (int i = page.from; i < page.to; i++) {
+				writeTriage(json, project, i);
+			}
+			json.writeEndArray();
+			page.writeMeta(json);
+		});
+	}
+
+	private void writeTriage(JsonGenerator json, int project, int issue) throws IOException {
+		json.writeStartObject();
+		json.writeStringField("type", "triage-current");
+		json.writeStringField("id", "project-id:" + tenant.projectId(project) + ":issue-key:"
+				+ tenant.issueKey(project, issue));
+		json.writeObjectFieldStart("attributes");
+		json.writeStringField("issue-key", tenant.issueKey(project, issue));
+		json.writeStringField("dismissal-status", tenant.dismissalRequested(issue) ? "REQUESTED" : "NONE");
+		json.writeArrayFieldStart("triage-current-values");
+		json.writeStartObject();
+		json.writeStringField("attribute-semantic-id", "COMMENTARY");
+		json.writeStringField("value", "synthetic comment " + issue);
+		json.writeEndObject();
+		json.writeStartObject();
+		json.writeStringField("attribute-semantic-id", "DISMISS");
+		json.writeStringField("value", tenant.dismissal(issue));
+		json.writeEndObject();
+		json.writeEndArray();
+		json.writeEndObject();
+		json.writeEndObject();
+	}
+
+	private void run(HttpExchange ex, String runId) throws IOException {
+		respond(ex, "runs", 200, json -> {
+			json.writeObjectFieldStart("data");
+			json.writeStringField("type", "run");
+			json.writeStringField("id", runId);
+			json.writeObjectFieldStart("relationships");
+			writeRelationship(json, "revision", "revision", tenant.revisionId(runId));
+			json.writeEndObject();
+			json.writeEndObject();
+		});
+	}
+
+	private void taxonomies(HttpExchange ex) throws IOException {
+		respond(ex, "taxonomies", 200, json -> {
+			json.writeArrayFieldStart("data");
+			json.writeStartObject();
+			json.writeStringField("id", "tax-issue-kind");
+			json.writeStringField("taxonomy-type", "issue-kind");
+			json.writeObjectFieldStart("taxonomy");
+			json.writeArrayFieldStart("taxa");
+			json.writeEndArray();
+			json.writeEndObject();
+			json.writeEndObject();
+
+			json.writeStartObject();
+			json.writeStringField("id", "tax-severity");
+			json.writeStringField("taxonomy-type", "severity");
+			json.writeObjectFieldStart("taxonomy");
+			json.writeArrayFieldStart("taxa");
+			for (int s = 0; s < SyntheticTenant.SEVERITIES.length; s++) {
+				json.writeStartObject();
+				json.writeStringField("id", SyntheticTenant.SEVERITIES[s]);
+				json.writeArrayFieldStart("issue-types");
+				for (int t = s; t < tenant.issueTypes; t += SyntheticTenant.SEVERITIES.length) {
+					json.writeString(tenant.issueTypeName("type-" + t));
+				}
+				json.writeEndArray();
+				json.writeEndObject();
+			}
+			json.writeEndArray();
+			json.writeEndObject();
+			json.writeEndObject();
+			json.writeEndArray();
+			json.writeObjectFieldStart("meta");
+			json.writeNumberField("total", 2);
+			json.writeEndObject();
+		});
+	}
+
+	private void codeDxProjects(HttpExchange ex) throws IOException {
+		respond(ex, "codedx-projects", 200, json -> {
+			json.writeArrayFieldStart("projects");
+			json.writeStartObject();
+			json.writeNumberField("id", tenant.codeDxParentProjectId);
+			json.writeStringField("name", tenant.codeDxProjectName(tenant.codeDxParentProjectId));
+			json.writeNullField("parentId");
+			json.writeEndObject();
+			for (int c = 0; c < tenant.codeDxProjects; c++) {
+				int id = tenant.codeDxChildProjectId(c);
+				json.writeStartObject();
+				json.writeNumberField("id", id);
+				json.writeStringField("name", tenant.codeDxProjectName(id));
+				json.writeNumberField("parentId", tenant.codeDxParentProjectId);
+				json.writeEndObject();
+			}
+			json.writeEndArray();
+		});
+	}
+
+	private void codeDxProjectQuery(HttpExchange ex, byte[] body) throws IOException {
+		JsonNode request = MAPPER.readTree(body);
+		int parent = request.path("filter").path("parentId").asInt(-1);
+		int total = parent == tenant.codeDxParentProjectId ? tenant.codeDxProjects : 0;
+		// Code Dx up to v2022.1.2 swaps offset and limit
+		boolean swapped = tenant.codeDxSwapsPaging();
+		int limit = request.path(swapped ? "offset" : "limit").asInt(Integer.MAX_VALUE);
+		int offset = request.path(swapped ? "limit" : "offset").asInt(0);
+		int from = Math.min(offset, total);
+		int to = (int) Math.min((long) from + limit, total);
+		respondArray(ex, "codedx-projects-query", json -> {
+			for (int c = from; c < to; c++) {
+				int id = tenant.codeDxChildProjectId(c);
+				json.writeStartObject();
+				json.writeNumberField("id", id);
+				json.writeStringField("name", tenant.codeDxProjectName(id));
+				json.writeNumberField("parentId", parent);
+				json.writeEndObject();
+			}
+		});
+	}
+
+	private void codeDxFindings(HttpExchange ex, int projectId, byte[] body) throws IOException {
+		int child = projectId - tenant.codeDxChildProjectId(0);
+		int total = child >= 0 && child < tenant.codeDxProjects ? tenant.findingsPerCodeDxProject : 0;
+		JsonNode request = body.length == 0 ? MAPPER.createObjectNode() : MAPPER.readTree(body);
+		Set<String> severities = lowerCase(request.path("filter").path("severity"));
+		Set<String> statuses = lowerCase(request.path("filter").path("status"));
+		// the indexes of the findings that pass the filter, in order
+		int[] matching = new int[total];
+		int matched = 0;
+		for (int i = 0; i < total; i++) {
+			String status = codeDxStatusKey(SyntheticTenant.CODEDX_STATUSES[i % 5]);
+			if ((severities.isEmpty() || severities.contains(tenant.severity(i)))
+					&& (statuses.isEmpty() || statuses.contains(status))) {
+				matching[matched++] = i;
+			}
+		}
+		int from = 0;
+		int to = matched;
+		JsonNode pagination = request.get("pagination");
+		if (pagination != null) {
+			int perPage = pagination.path("perPage").asInt(matched);
+			int page = Math.max(1, pagination.path("page").asInt(1));
+			from = (int) Math.min((long) (page - 1) * perPage, matched);
+			to = (int) Math.min((long) from + perPage, matched);
+		}
+		int first = from;
+		int last = to;
+		respondArray(ex, "codedx-findings-table", json -> {
+			for (int m = first; m < last; m++) {
+				int i = matching[m];
+				json.writeStartObject();
+				json.writeNumberField("id", child * tenant.findingsPerCodeDxProject + i + 1);
+				json.writeObjectFieldStart("severity");
+				json.writeStringField("name", capitalize(tenant.severity(i)));
+				json.writeEndObject();
+				json.writeObjectFieldStart("detectionMethod");
+				json.writeStringField("name", i % 4 == 0 ? "Dynamic Analysis" : "Static Analysis");
+				json.writeEndObject();
+				json.writeObjectFieldStart("descriptor");
+				json.writeStringField("name", "Rule " + i % 97);
+				json.writeEndObject();
+				json.writeObjectFieldStart("location");
+				json.writeStringField("path", "src/main/java/Synthetic" + i % 50 + ".java");
+				json.writeNumberField("lineStart", i % 400);
+				json.writeEndObject();
+				json.writeStringField("firstSeenOn", LocalDate.of(2021, 1, 1).plusDays(i % 365).format(CODEDX_DATE));
+				json.writeStringField("statusName", SyntheticTenant.CODEDX_STATUSES[i % 5]);
+				json.writeEndObject();
+			}
+		});
+	}
+
+	private static void writeRelationship(JsonGenerator json, String name, String type, String id)
+			throws IOException {
+		json.writeObjectFieldStart(name);
+		json.writeObjectFieldStart("data");
+		json.writeStringField("type", type);
+		json.writeStringField("id", id);
+		json.writeEndObject();
+		json.writeEndObject();
+	}
+
+	/**
+	 * @return the way a status is named in a Code Dx filter, e.g. false-positive for False Positive
+	 */
+	private static String codeDxStatusKey(String statusName) {
+		return statusName.toLowerCase(Locale.ROOT).replace(' ', '-');
+	}
+
+	private static Set<String> lowerCase(JsonNode values) {
+		Set<String> set = new HashSet<>();
+		for (JsonNode value : values) {
+			set.add(value.asText().toLowerCase(Locale.ROOT));
+		}
+		return set;
+	}
+
+	private static String capitalize(String value) {
+		return Character.toUpperCase(value.charAt(0)) + value.substring(1);
+	}
+
+	private String issueToken() {
+		long exp = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) + options.tokenLifetimeSeconds;
+		Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+		String header = encoder.encodeToString("{\"alg\":\"none\"}".getBytes(StandardCharsets.UTF_8));
+		String payload = encoder.encodeToString(("{\"exp\":" + exp + ",\"jti\":" + tokensIssued.incrementAndGet()
+				+ "}").getBytes(StandardCharsets.UTF_8));
+		return header + "." + payload + ".sig";
+	}
+
+	private static boolean validToken(String authorization) {
+		if (authorization == null || !authorization.startsWith("Bearer ")) {
+			return false;
+		}
+		long expiresAt = PolarisTokenManager.decodeExpiry(authorization.substring("Bearer ".length()), 0);
+		return expiresAt > System.currentTimeMillis();
+	}
+
+	/**
+	 * @return true if a fault was sent instead of the real response
+	 */
+	private boolean injectFault(HttpExchange ex) throws IOException {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		long delay = options.latencyMillis + (options.jitterMillis > 0 ? random.nextLong(options.jitterMillis) : 0);
+		if (delay > 0) {
+			try {
+				Thread.sleep(delay);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		if (options.throttleRate > 0 && random.nextDouble() < options.throttleRate) {
+			throttled.incrementAndGet();
+			ex.getResponseHeaders().set("Retry-After", Integer.toString(options.retryAfterSeconds));
+			ex.sendResponseHeaders(429, -1);
+			return true;
+		}
+		String path = ex.getRequestURI().getPath();
+		for (Map.Entry<String, AtomicInteger> failure : failing.entrySet()) {
+			if (path.startsWith(failure.getKey())
+					&& failure.getValue().getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+				failed.incrementAndGet();
+				ex.sendResponseHeaders(503, -1);
+				return true;
+			}
+		}
+		if (options.errorRate > 0 && random.nextDouble() < options.errorRate) {
+			failed.incrementAndGet();
+			ex.sendResponseHeaders(503, -1);
+			return true;
+		}
+		return false;
+	}
+
+	private interface JsonBody {
+		void write(JsonGenerator json) throws IOException;
+	}
+
+	/**
+	 * Send a JSON object, whose fields are written by {@code body}, as the response.  Objects are small, so they are
+	 * sent with a Content-Length rather than chunked
+	 */
+	private void respond(HttpExchange ex, String endpoint, int status, JsonBody body) throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream(1024);
+		try (JsonGenerator json = JSON.createGenerator(buffer, JsonEncoding.UTF8)) {
+			json.writeStartObject();
+			body.write(json);
+			json.writeEndObject();
+		}
+		// counted before the response is sent, so a client that has read it always sees it counted
+		requests.computeIfAbsent(endpoint, e -> new AtomicLong()).incrementAndGet();
+		ex.getResponseHeaders().set("Content-Type", "application/vnd.api+json");
+		ex.sendResponseHeaders(status, buffer.size());
+		try (OutputStream out = ex.getResponseBody()) {
+			buffer.writeTo(out);
+		}
+	}
+
+	/**
+	 * Stream a JSON array, whose elements are written by {@code body}, as the response
+	 */
+	private void respondArray(HttpExchange ex, String endpoint, JsonBody body) throws IOException {
+		requests.computeIfAbsent(endpoint, e -> new AtomicLong()).incrementAndGet();
+		ex.getResponseHeaders().set("Content-Type", "application/json");
+		ex.sendResponseHeaders(200, 0);
+		try (OutputStream out = ex.getResponseBody();
+			 JsonGenerator json = JSON.createGenerator(out, JsonEncoding.UTF8)) {
+			json.writeStartArray();
+			body.write(json);
+			json.writeEndArray();
+		}
+	}
+
+	private static Map<String, String> parseQuery(String rawQuery) {
+		if (rawQuery == null || rawQuery.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		Map<String, String> query = new HashMap<>();
+		for (String pair : rawQuery.split("&")) {
+			int eq = pair.indexOf('=');
+			String key = eq < 0 ? pair : pair.substring(0, eq);
+			String value = eq < 0 ? "" : pair.substring(eq + 1);
+			// a repeated parameter, such as include[issue][], keeps every value
+			query.merge(decode(key), decode(value), (a, b) -> a + "," + b);
+		}
+		return query;
+	}
+
+	private static String decode(String value) {
+		try {
+			return URLDecoder.decode(value, "UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * The slice of a collection selected by {@code page[offset]} and {@code page[limit]}
+	 */
+	private static class Page {
+		final int from;
+		final int to;
+		final int total;
+		final int limit;
+
+		Page(Map<String, String> query, int total) {
+			this.total = total;
+			this.limit = Integer.parseInt(query.getOrDefault("page[limit]", "25"));
+			this.from = Math.min(Integer.parseInt(query.getOrDefault("page[offset]", "0")), total);
+			this.to = (int) Math.min((long) from + limit, total);
+		}
+
+		void writeMeta(JsonGenerator json) throws IOException {
+			json.writeObjectFieldStart("meta");
+			json.writeNumberField("total", total);
+			json.writeNumberField("offset", from);
+			json.writeNumberField("limit", limit);
+			json.writeEndObject();
+		}
+	}
+
+	/**
+	 * How the server behaves, independent of the data it serves
+	 */
+	public static class Options {
+
+		/**
+		 * Port to listen on, or 0 for any free port
+		 */
+		int port = 0;
+
+		int threads = 64;
+
+		/**
+		 * Added to every response except authentication
+		 */
+		long latencyMillis = 0;
+
+		/**
+		 * Up to this much more latency, chosen at random per request
+		 */
+		long jitterMillis = 0;
+
+		/**
+		 * Fraction of requests answered with a 503
+		 */
+		double errorRate = 0;
+
+		/**
+		 * Fraction of requests answered with a 429 and a Retry-After header
+		 */
+		double throttleRate = 0;
+
+		int retryAfterSeconds = 1;
+
+		long tokenLifetimeSeconds = 600;
+
+		/**
+		 * Whether the collection query for triage is served, otherwise it answers 400
+		 */
+		boolean bulkTriage = true;
+
+		/**
+		 * Whether the issues query honors {@code include[issue][]}, otherwise it never side-loads anything
+		 */
+		boolean sideLoading = true;
+
+		/**
+		 * Options read from {@code fake.*} system properties, for load tests run from the command line
+		 */
+		static Options fromSystemProperties() {
+			Options options = new Options();
+			options.port = Integer.getInteger("fake.port", options.port);
+			options.threads = Integer.getInteger("fake.threads", options.threads);
+			options.latencyMillis = Long.getLong("fake.latency-ms", options.latencyMillis);
+			options.jitterMillis = Long.getLong("fake.jitter-ms", options.jitterMillis);
+			options.errorRate = Double.parseDouble(System.getProperty("fake.error-rate", "0"));
+			options.throttleRate = Double.parseDouble(System.getProperty("fake.throttle-rate", "0"));
+			options.bulkTriage = Boolean.parseBoolean(System.getProperty("fake.bulk-triage", "true"));
+			options.sideLoading = Boolean.parseBoolean(System.getProperty("fake.side-loading", "true"));
+			return options;
+		}
+	}
+
+	/**
+	 * The tenant scale from {@code fake.*} system properties, falling back to the given defaults
+	 */
+	static SyntheticTenant tenantFromSystemProperties(SyntheticTenant defaults) {
+		return defaults
+				.polarisProjects(Integer.getInteger("fake.polaris.projects", defaults.polarisProjects),
+						Integer.getInteger("fake.polaris.issues", defaults.issuesPerProject))
+				.codeDxProjects(Integer.getInteger("fake.codedx.projects", defaults.codeDxProjects),
+						Integer.getInteger("fake.codedx.findings", defaults.findingsPerCodeDxProject));
+	}
+
+	/**
+	 * Serve a synthetic tenant until killed, e.g. {@code ./mvnw test-compile exec:java
+	 * -Dexec.mainClass=com.example.consumingrest.FakeToolServer -Dexec.classpathScope=test -Dfake.port=8089
+	 * -Dfake.polaris.issues=100000}
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		Options options = Options.fromSystemProperties();
+		if (options.port == 0) {
+			options.port = 8089;
+		}
+		SyntheticTenant tenant = tenantFromSystemProperties(new SyntheticTenant());
+		FakeToolServer server = new FakeToolServer(tenant, options);
+		System.out.println("serving " + tenant + ", point the application at it with:");
+		System.out.println("export POLARIS_BASE_URL=" + server.getBaseUrl());
+		System.out.println("export CODEDX_BASE_URL=" + server.getBaseUrl());
+		System.out.println("export POLARIS_PAT_TOKEN=fake");
+		System.out.println("export CODEDX_PAT_TOKEN=fake");
+		System.out.println("export POLARIS_APPLICATION_ID=" + tenant.polarisApplicationId);
+		System.out.println("export CODEDX_PROJECT_ID=" + tenant.codeDxParentProjectId);
+		Thread.currentThread().join();
+	}
+}
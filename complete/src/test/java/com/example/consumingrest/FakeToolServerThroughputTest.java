@@ -0,0 +1,139 @@
+package com.example.consumingrest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import ch.qos.logback.classic.Level;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * Runs a full harvest of both tools against {@link FakeToolServer} and reports findings per second.  The tenant is
+ * small by default so the build stays quick; scale it up with e.g. {@code -Dfake.polaris.issues=100000
+ * -Dfake.latency-ms=20}.
+ */
+public class FakeToolServerThroughputTest {
+
+	private static final Logger log = LoggerFactory.getLogger(FakeToolServerThroughputTest.class);
+
+	private final ch.qos.logback.classic.Logger rootLog =
+			(ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
+
+	private final ch.qos.logback.classic.Logger findingLog =
+			(ch.qos.logback.classic.Logger) LoggerFactory.getLogger(ConsumingRestApplication.class);
+
+	private Level rootLogLevel;
+
+	private Level findingLogLevel;
+
+	private SyntheticTenant tenant;
+
+	private FakeToolServer server;
+
+	private PolarisTokenManager tokens;
+
+	@TempDir
+	Path dir;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		// outside a Spring context logback defaults to DEBUG, and one line per finding would drown the report
+		rootLogLevel = rootLog.getLevel();
+		rootLog.setLevel(Level.INFO);
+		findingLogLevel = findingLog.getLevel();
+		findingLog.setLevel(Level.WARN);
+
+		tenant = FakeToolServer.tenantFromSystemProperties(new SyntheticTenant()
+				.polarisProjects(4, 500)
+				.codeDxProjects(4, 5000));
+		server = new FakeToolServer(tenant, FakeToolServer.Options.fromSystemProperties());
+
+		RestTemplate restTemplate = new RestTemplate();
+		tokens = new PolarisTokenManager(() -> {
+			MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+			form.add("accesstoken", "fake");
+			String body = restTemplate.postForObject(server.getBaseUrl() + "/api/auth/v1/authenticate", form,
+					String.class);
+			return new JSONObject(body).getString("jwt");
+		}, TimeUnit.MINUTES.toMillis(2));
+	}
+
+	@AfterEach
+	public void tearDown() {
+		tokens.close();
+		server.close();
+		findingLog.setLevel(findingLogLevel);
+		rootLog.setLevel(rootLogLevel);
+	}
+
+	@Test
+	public void fullHarvestThroughput() throws IOException {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		HarvestMetrics metrics = new HarvestMetrics(registry);
+		Path output = dir.resolve("findings.ndjson");
+		AsyncFindingSink findings = new AsyncFindingSink(new NdjsonFindingSink(output, 256 * 1024), 65536);
+		ReactiveHarvestEngine engine = new ReactiveHarvestEngine(WebClient.builder(), tokens, metrics, findings,
+				new HarvestProperties().getReactive(), new HarvestProperties().getCodeDx(), server.getBaseUrl(),
+				server.getBaseUrl(), "fake");
+
+		long polarisStart = System.nanoTime();
+		engine.harvestPolaris(Collections.singletonList(tenant.polarisApplicationId));
+		findings.flush();
+		long polarisNanos = System.nanoTime() - polarisStart;
+
+		long codeDxStart = System.nanoTime();
+		engine.harvestCodeDx(Collections.singletonList(Integer.toString(tenant.codeDxParentProjectId)));
+		findings.close();
+		long codeDxNanos = System.nanoTime() - codeDxStart;
+
+		log.info(String.format("Polaris: %d findings in %d ms, %.0f findings/s", tenant.totalPolarisIssues(),
+				TimeUnit.NANOSECONDS.toMillis(polarisNanos), perSecond(tenant.totalPolarisIssues(), polarisNanos)));
+		log.info(String.format("Code Dx: %d findings in %d ms, %.0f findings/s", tenant.totalCodeDxFindings(),
+				TimeUnit.NANOSECONDS.toMillis(codeDxNanos), perSecond(tenant.totalCodeDxFindings(), codeDxNanos)));
+		log.info("requests served " + server.getRequestCounts() + ", throttled " + server.getThrottled()
+				+ ", failed " + server.getFailed());
+		log.info(findings.toString());
+		metrics.logSummary();
+
+		// issue types, transitions and runs are side-loaded with the issues, and triage is loaded once per project
+		assertThat(server.getRequests("issue")).isZero();
+		assertThat(server.getRequests("triage-current")).isZero();
+		assertThat(server.getRequests("triage-current-bulk")).isEqualTo(tenant.polarisProjects);
+		assertThat(server.getRequests("issue-types")).isZero();
+		assertThat(server.getRequests("runs")).isZero();
+		// full pages of the default size, then the short page that ends each project
+		int pageSize = new HarvestProperties().getCodeDx().getFindingsPageSize();
+		assertThat(server.getRequests("codedx-findings-table"))
+				.isEqualTo((long) tenant.codeDxProjects * (tenant.findingsPerCodeDxProject / pageSize + 1));
+		assertThat(registry.find(HarvestMetrics.FINDINGS).tag("tool", "polaris").counter().count())
+				.isEqualTo(tenant.totalPolarisIssues());
+		assertThat(registry.find(HarvestMetrics.FINDINGS).tag("tool", "codedx").counter().count())
+				.isEqualTo(tenant.totalCodeDxFindings());
+		assertThat(registry.find(HarvestMetrics.REQUESTS).tag("endpoint", "polaris.issue-detail").timer()).isNull();
+		try (Stream<String> lines = Files.lines(output)) {
+			assertThat(lines.count()).isEqualTo(tenant.totalPolarisIssues() + tenant.totalCodeDxFindings());
+		}
+	}
+
+	private static double perSecond(long count, long nanos) {
+		return count / (nanos / (double) TimeUnit.SECONDS.toNanos(1));
+	}
+
+}
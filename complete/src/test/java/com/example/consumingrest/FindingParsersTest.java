@@ -0,0 +1,115 @@
+package com.example.consumingrest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+public class FindingParsersTest {
+
+	private static final String ISSUE_DETAIL = "{\"data\": {\"id\": \"i1\"}, \"included\": [" +
+			"{\"type\": \"transition\", \"attributes\": {\"transition-type\": \"opened\"," +
+			" \"transition-date\": \"2021-03-01T10:00:00.123456Z\"}}," +
+			"{\"type\": \"transition\", \"attributes\": {\"transition-type\": \"opened\"," +
+			" \"transition-date\": \"2021-06-01T10:00:00.654321Z\"}}," +
+			"{\"type\": \"transition\", \"attributes\": {\"transition-type\": \"closed\"," +
+			" \"transition-date\": \"2021-09-01T10:00:00.000000Z\"}}," +
+			"{\"type\": \"issue-type\", \"attributes\": {\"name\": \"SQL Injection\"}}" +
+			"]}";
+
+	@Test
+	public void keepsTheLatestOpenedTransition() throws Exception {
+		PolarisIssueDetail detail = new ObjectMapper().readValue(ISSUE_DETAIL, PolarisIssueDetail.class);
+
+		assertThat(FindingParsers.mostRecentOpen(detail))
+				.isEqualTo(Instant.parse("2021-06-01T10:00:00.654321Z"));
+	}
+
+	@Test
+	public void neverOpenedIssueHasNoFirstSeenDate() {
+		assertThat(FindingParsers.mostRecentOpen(new PolarisIssueDetail())).isNull();
+	}
+
+	@Test
+	public void extractsIssueIdentifiers() {
+		PolarisIssue issue = FindingParsers.polarisIssue(new JSONObject("{\"id\": \"i1\"," +
+				" \"attributes\": {\"issue-key\": \"k1\"}," +
+				" \"relationships\": {\"issue-type\": {\"data\": {\"id\": \"t1\"}}," +
+				" \"latest-observed-on-run\": {\"data\": {\"id\": \"r1\"}}}}"));
+
+		assertThat(issue.getId()).isEqualTo("i1");
+		assertThat(issue.getIssueKey()).isEqualTo("k1");
+		assertThat(issue.getIssueTypeId()).isEqualTo("t1");
+		assertThat(issue.getLatestRunId()).isEqualTo("r1");
+	}
+
+	@Test
+	public void resolvesSideLoadedRelationshipsFromTheIndex() {
+		JSONObject page = new JSONObject("{\"data\": [" +
+				"{\"id\": \"i1\", \"attributes\": {\"issue-key\": \"k1\"}," +
+				" \"relationships\": {\"issue-type\": {\"data\": {\"type\": \"issue-type\", \"id\": \"t1\"}}," +
+				" \"latest-observed-on-run\": {\"data\": {\"type\": \"run\", \"id\": \"r1\"}}," +
+				" \"transitions\": {\"data\": [{\"type\": \"transition\", \"id\": \"tr1\"}," +
+				" {\"type\": \"transition\", \"id\": \"tr2\"}]}}}," +
+				"{\"id\": \"i2\", \"attributes\": {\"issue-key\": \"k2\"}," +
+				" \"relationships\": {\"issue-type\": {\"data\": {\"type\": \"issue-type\", \"id\": \"t2\"}}," +
+				" \"latest-observed-on-run\": {\"data\": {\"type\": \"run\", \"id\": \"r2\"}}," +
+				" \"transitions\": {\"data\": [{\"type\": \"transition\", \"id\": \"tr-missing\"}]}}}" +
+				"], \"included\": [" +
+				"{\"type\": \"issue-type\", \"id\": \"t1\", \"attributes\": {\"issue-type-id\": \"SQL Injection\"}}," +
+				"{\"type\": \"run\", \"id\": \"r1\"," +
+				" \"relationships\": {\"revision\": {\"data\": {\"type\": \"revision\", \"id\": \"rev1\"}}}}," +
+				"{\"type\": \"transition\", \"id\": \"tr1\", \"attributes\": {\"transition-type\": \"opened\"," +
+				" \"transition-date\": \"2021-03-01T10:00:00Z\"}}," +
+				"{\"type\": \"transition\", \"id\": \"tr2\", \"attributes\": {\"transition-type\": \"closed\"," +
+				" \"transition-date\": \"2021-04-01T10:00:00Z\"}}" +
+				"]}");
+		JsonApiIncluded included = JsonApiIncluded.of(page);
+		assertThat(included.size()).isEqualTo(4);
+
+		List<PolarisIssue> issues = FindingParsers.polarisIssues(page.getJSONArray("data"), included);
+		PolarisIssue resolved = issues.get(0);
+		assertThat(resolved.getIssueTypeName()).isEqualTo("SQL Injection");
+		assertThat(resolved.getLatestRunRevisionId()).isEqualTo("rev1");
+		assertThat(resolved.isTransitionsIncluded()).isTrue();
+		assertThat(resolved.getMostRecentOpen()).isEqualTo(Instant.parse("2021-03-01T10:00:00Z"));
+
+		// anything not side-loaded is left for the per-issue lookups
+		PolarisIssue unresolved = issues.get(1);
+		assertThat(unresolved.getIssueTypeName()).isNull();
+		assertThat(unresolved.getLatestRunRevisionId()).isNull();
+		assertThat(unresolved.isTransitionsIncluded()).isFalse();
+		assertThat(FindingParsers.polarisIssue(page.getJSONArray("data").getJSONObject(0)).isTransitionsIncluded())
+				.isFalse();
+	}
+
+	@Test
+	public void namesTheMissingIssueField() {
+		JSONObject incomplete = new JSONObject("{\"id\": \"i1\", \"attributes\": {\"issue-key\": \"k1\"}}");
+
+		assertThatThrownBy(() -> FindingParsers.polarisIssue(incomplete))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("relationships.issue-type");
+	}
+
+	@Test
+	public void parsesCodeDxFirstSeenDates() {
+		Finding finding = FindingParsers.codeDxFinding(
+				new CodeDxFinding(17, "High", "Static Analysis", "SQL Injection", "03/14/2022", "New"));
+
+		assertThat(finding.getId()).isEqualTo("17");
+		assertThat(finding.getRule()).isEqualTo("SQL Injection");
+		assertThat(finding.getFirstSeen())
+				.isEqualTo(LocalDate.of(2022, 3, 14).atStartOfDay(ZoneId.systemDefault()).toInstant());
+		assertThat(FindingParsers.codeDxFinding(
+				new CodeDxFinding(18, "Low", "Static Analysis", "XSS", "yesterday", "New"))).isNull();
+	}
+
+}
@@ -0,0 +1,193 @@
+package com.example.consumingrest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class FindingSinkTest {
+
+	@TempDir
+	Path dir;
+
+	private static Finding finding(int i) {
+		return new Finding("id-" + i, "Rule " + i, "Static Analysis", "high",
+				i % 2 == 0 ? Instant.parse("2022-03-01T12:00:00Z") : null, "New");
+	}
+
+	@Test
+	public void ringBufferKeepsEveryProducersOrder() throws Exception {
+		MpscRingBuffer<int[]> ring = new MpscRingBuffer<>(16);
+		int producers = 4;
+		int perProducer = 5000;
+		ExecutorService pool = Executors.newFixedThreadPool(producers);
+		CountDownLatch start = new CountDownLatch(1);
+		for (int p = 0; p < producers; p++) {
+			int producer = p;
+			pool.execute(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				for (int i = 0; i < perProducer; i++) {
+					while (!ring.offer(new int[]{producer, i})) {
+						Thread.yield();
+					}
+				}
+			});
+		}
+		start.countDown();
+
+		int[] next = new int[producers];
+		int received = 0;
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+		while (received < producers * perProducer && System.nanoTime() < deadline) {
+			received += ring.drain(item -> {
+				assertThat(item[1]).isEqualTo(next[item[0]]);
+				next[item[0]]++;
+			}, 100);
+		}
+		pool.shutdown();
+
+		assertThat(received).isEqualTo(producers * perProducer);
+		assertThat(ring.isEmpty()).isTrue();
+		assertThat(ring.capacity()).isEqualTo(16);
+	}
+
+	@Test
+	public void writesCsvInAcceptOrderThroughATinyRing() throws IOException {
+		Path file = dir.resolve("findings.csv");
+		// a ring of 2 and a buffer smaller than one record make the harvest side wait and the writer flush often
+		try (AsyncFindingSink sink = new AsyncFindingSink(new CsvFindingSink(file, 16), 2)) {
+			for (int i = 0; i < 1000; i++) {
+				sink.accept(i % 3 == 0 ? "codedx" : "polaris", "app-1", "proj-" + i % 2, finding(i));
+			}
+			sink.flush();
+			assertThat(Files.readAllLines(file)).hasSize(1001);
+		}
+
+		List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+		assertThat(lines.get(0))
+				.isEqualTo("tool,application_id,project_id,id,rule,tool_category,severity,first_seen,status");
+		assertThat(lines.get(1))
+				.isEqualTo("codedx,app-1,proj-0,id-0,Rule 0,Static Analysis,high,2022-03-01T12:00:00Z,New");
+		assertThat(lines.get(2)).isEqualTo("polaris,app-1,proj-1,id-1,Rule 1,Static Analysis,high,,New");
+		assertThat(lines.get(1000)).startsWith("codedx,app-1,proj-1,id-999,");
+	}
+
+	@Test
+	public void quotesCsvFieldsThatNeedIt() {
+		assertThat(CsvFindingSink.appendField("plain", new StringBuilder()).toString()).isEqualTo("plain");
+		assertThat(CsvFindingSink.appendField("a, b", new StringBuilder()).toString()).isEqualTo("\"a, b\"");
+		assertThat(CsvFindingSink.appendField("say \"hi\"", new StringBuilder()).toString())
+				.isEqualTo("\"say \"\"hi\"\"\"");
+		assertThat(CsvFindingSink.appendField("two\nlines", new StringBuilder()).toString())
+				.isEqualTo("\"two\nlines\"");
+	}
+
+	@Test
+	public void writesOneJsonObjectPerLine() throws IOException {
+		Path file = dir.resolve("findings.ndjson");
+		try (NdjsonFindingSink sink = new NdjsonFindingSink(file, 1024)) {
+			sink.accept("polaris", "app-1", "proj-1", new Finding("p-1", "SQL \"injection\"", "Static Analysis",
+					"critical", Instant.parse("2022-03-01T12:00:00Z"), "Not dismissed"));
+			sink.accept("codedx", "7", "8", finding(1));
+		}
+
+		List<JSONObject> records = new ArrayList<>();
+		for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+			records.add(new JSONObject(line));
+		}
+		assertThat(records).hasSize(2);
+		assertThat(records.get(0).getString("tool")).isEqualTo("polaris");
+		assertThat(records.get(0).getString("applicationId")).isEqualTo("app-1");
+		assertThat(records.get(1).getString("projectId")).isEqualTo("8");
+		assertThat(records.get(0).getString("rule")).isEqualTo("SQL \"injection\"");
+		assertThat(records.get(0).getString("firstSeen")).isEqualTo("2022-03-01T12:00:00Z");
+		assertThat(records.get(1).isNull("firstSeen")).isTrue();
+		assertThat(records.get(1).getString("status")).isEqualTo("New");
+	}
+
+	@Test
+	public void replacesTheFileOnEveryRun() throws IOException {
+		Path file = dir.resolve("findings.ndjson");
+		try (AsyncFindingSink sink = new AsyncFindingSink(
+				new PerRunFindingSink(() -> new NdjsonFindingSink(file, 1024)), 8)) {
+			for (int i = 0; i < 3; i++) {
+				sink.accept("polaris", "app-1", "proj-1", finding(i));
+			}
+			sink.endRun();
+			assertThat(Files.readAllLines(file)).hasSize(3);
+
+			sink.accept("codedx", "7", "8", finding(3));
+			sink.endRun();
+			assertThat(Files.readAllLines(file)).hasSize(1).allMatch(line -> line.contains("\"id-3\""));
+
+			sink.endRun();
+			assertThat(Files.readAllLines(file)).isEmpty();
+		}
+	}
+
+	@Test
+	public void flushingLeavesTheRunOpenUntilItEnds() throws IOException {
+		Path file = dir.resolve("findings.ndjson");
+		FindingStore store = new FindingStore(dir.resolve("store"), 3);
+		try (AsyncFindingSink sink = new AsyncFindingSink(new TeeFindingSink(
+				new PerRunFindingSink(() -> new NdjsonFindingSink(file, 1024)), store), 8)) {
+			sink.accept("polaris", "app-1", "proj-1", finding(0));
+			sink.flush();
+			sink.accept("polaris", "app-1", "proj-1", finding(1));
+			sink.flush();
+			assertThat(Files.readAllLines(file)).hasSize(2);
+			try (FindingSegment segment = FindingSegment.open(store.segments().get(0))) {
+				assertThat(segment.isSealed()).isFalse();
+			}
+
+			sink.endRun();
+			assertThat(Files.readAllLines(file)).hasSize(2);
+			assertThat(store.segments()).hasSize(1);
+			try (FindingSegment segment = FindingSegment.open(store.segments().get(0))) {
+				assertThat(segment.isSealed()).isTrue();
+				assertThat(segment.size()).isEqualTo(2);
+			}
+		}
+	}
+
+	@Test
+	public void reportsWriterFailures() {
+		AsyncFindingSink sink = new AsyncFindingSink(new FindingSink() {
+			@Override
+			public void accept(String tool, String applicationId, String projectId, Finding finding) {
+				throw new IllegalStateException("disk full");
+			}
+
+			@Override
+			public void flush() {
+			}
+
+			@Override
+			public void close() {
+			}
+		}, 8);
+
+		sink.accept("polaris", "app-1", "proj-1", finding(1));
+		assertThatThrownBy(sink::flush).hasRootCauseMessage("disk full");
+		assertThatThrownBy(() -> sink.accept("polaris", "app-1", "proj-1", finding(2)))
+				.isInstanceOf(IllegalStateException.class);
+	}
+}
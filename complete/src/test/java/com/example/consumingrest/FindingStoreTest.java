@@ -0,0 +1,132 @@
+package com.example.consumingrest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class FindingStoreTest {
+
+	private static final String[] SEVERITIES = {"critical", "high", "medium", "low"};
+
+	@TempDir
+	Path dir;
+
+	private static Finding finding(int i, String status) {
+		return new Finding("id-" + i, "Rule " + i % 7, "Static Analysis", SEVERITIES[i % 4],
+				i % 2 == 0 ? Instant.parse("2022-03-01T12:00:00.123456789Z") : null, status);
+	}
+
+	private static void writeRun(FindingSink sink, int findings, String status) {
+		for (int i = 0; i < findings; i++) {
+			sink.accept(i % 5 == 0 ? "codedx" : "polaris", "app-" + i % 2, "proj-" + i % 3, finding(i, status));
+		}
+	}
+
+	@Test
+	public void readsBackWhatWasWrittenThroughTheIndex() throws IOException {
+		Path file = dir.resolve("one.fseg");
+		// a chunk smaller than the string table makes the writer map the file many times over
+		try (FindingSegmentWriter writer = new FindingSegmentWriter(file, 64)) {
+			writeRun(writer, 1000, "New");
+			writer.accept("polaris", null, "proj-x", new Finding(null, "Rule é", null, "info", null, null));
+		}
+
+		try (FindingSegment segment = FindingSegment.open(file)) {
+			assertThat(segment.isSealed()).isTrue();
+			assertThat(segment.size()).isEqualTo(1001);
+
+			List<StoredFinding> highs = segment.find("app-1", "proj-2", "high");
+			assertThat(highs).isNotEmpty().allSatisfy(stored -> {
+				assertThat(stored.getApplicationId()).isEqualTo("app-1");
+				assertThat(stored.getProjectId()).isEqualTo("proj-2");
+				assertThat(stored.getFinding().getSeverity()).isEqualTo("high");
+			});
+			assertThat(highs.get(0).getFinding().getId()).isEqualTo("id-5");
+			assertThat(highs.get(0).getTool()).isEqualTo("codedx");
+			assertThat(highs.get(0).getFinding().getFirstSeen()).isNull();
+			assertThat(segment.find("app-1", null, null)).hasSize(500);
+			assertThat(segment.find("app-9", null, null)).isEmpty();
+
+			Finding first = segment.find(null, null, "critical").get(0).getFinding();
+			assertThat(first.getId()).isEqualTo("id-0");
+			assertThat(first.getRule()).isEqualTo("Rule 0");
+			assertThat(first.getFirstSeen()).isEqualTo(Instant.parse("2022-03-01T12:00:00.123456789Z"));
+			assertThat(first.getStatus()).isEqualTo("New");
+
+			assertThat(segment.countBySeverity("app-0", null))
+					.containsExactly(entry("critical", 250), entry("medium", 250));
+			assertThat(segment.countBySeverity(null, "proj-x")).containsExactly(entry("info", 1));
+
+			StoredFinding nulls = segment.find(null, "proj-x", null).get(0);
+			assertThat(nulls.getApplicationId()).isNull();
+			assertThat(nulls.getFinding().getId()).isNull();
+			assertThat(nulls.getFinding().getRule()).isEqualTo("Rule é");
+			assertThat(nulls.getFinding().getToolCategory()).isNull();
+		}
+	}
+
+	@Test
+	public void scansASegmentThatWasNeverSealed() throws IOException {
+		Path file = dir.resolve("crashed.fseg");
+		FindingSegmentWriter writer = new FindingSegmentWriter(file, 4096);
+		writeRun(writer, 100, "New");
+		// the run dies here: no footer, and the rest of the last mapped chunk is still zero filled
+		assertThat(Files.size(file)).isEqualTo(4096);
+
+		try (FindingSegment segment = FindingSegment.open(file)) {
+			assertThat(segment.isSealed()).isFalse();
+			assertThat(segment.size()).isEqualTo(100);
+			assertThat(segment.countBySeverity(null, null).values()).containsExactly(25, 25, 25, 25);
+			List<StoredFinding> all = new ArrayList<>();
+			segment.forEach(all::add);
+			assertThat(all).hasSize(100);
+			assertThat(all.get(99).getFinding().getId()).isEqualTo("id-99");
+		}
+	}
+
+	@Test
+	public void compactsOlderRunsKeepingTheLatestOfEachFinding() throws IOException {
+		FindingStore store = new FindingStore(dir, 1, 1024);
+		writeRun(store, 100, "New");
+		store.endRun();
+		writeRun(store, 150, "Triaged");
+		store.endRun();
+		assertThat(store.segments()).hasSize(2);
+
+		writeRun(store, 50, "Fixed");
+		store.close();
+
+		List<Path> segments = store.segments();
+		assertThat(segments).hasSize(2);
+		try (FindingSegment merged = FindingSegment.open(segments.get(0))) {
+			assertThat(merged.isSealed()).isTrue();
+			assertThat(merged.size()).isEqualTo(150);
+			List<StoredFinding> all = new ArrayList<>();
+			merged.forEach(all::add);
+			assertThat(all).allSatisfy(stored -> assertThat(stored.getFinding().getStatus()).isEqualTo("Triaged"));
+		}
+		try (FindingSegment latest = store.openLatest()) {
+			assertThat(latest.getFile()).isEqualTo(segments.get(1));
+			assertThat(latest.size()).isEqualTo(50);
+		}
+		try (FindingSegment empty = FindingSegment.open(emptySegment())) {
+			assertThat(empty.size()).isZero();
+			assertThat(empty.find(null, null, null)).isEmpty();
+		}
+	}
+
+	private Path emptySegment() throws IOException {
+		Path file = dir.resolve("empty.fseg");
+		new FindingSegmentWriter(file).close();
+		return file;
+	}
+}
@@ -0,0 +1,155 @@
+package com.example.consumingrest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+public class HarvestDaemonTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	private static void await(CountDownLatch latch) throws InterruptedException {
+		assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+	}
+
+	private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!condition.getAsBoolean()) {
+			assertThat(System.nanoTime()).isLessThan(deadline);
+			Thread.sleep(1);
+		}
+	}
+
+	@Test
+	public void skipsADeltaRunWhileAnotherIsInProgress() throws Exception {
+		AtomicLong clock = new AtomicLong(1_000_000);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		HarvestDaemon daemon = new HarvestDaemon(mode -> {
+			started.countDown();
+			await(release);
+			clock.addAndGet(90_000);
+		}, registry, clock::get);
+
+		Thread nightly = new Thread(() -> daemon.runNow("nightly", HarvestDaemon.Mode.BULK));
+		nightly.start();
+		await(started);
+
+		assertThat(daemon.runNow("delta", HarvestDaemon.Mode.DELTA)).isFalse();
+		assertThat(registry.get(HarvestDaemon.SKIPPED).tag("schedule", "delta").counter().count()).isEqualTo(1);
+		assertThat(daemon.getCurrentRun().getSchedule()).isEqualTo("nightly");
+		assertThat(daemon.getCurrentRun().getStatus()).isEqualTo(HarvestDaemon.Status.RUNNING);
+		assertThat(daemon.getLastRuns()).isEmpty();
+
+		release.countDown();
+		nightly.join(5000);
+
+		HarvestDaemon.Run run = daemon.getLastRuns().get("nightly");
+		assertThat(run.getStatus()).isEqualTo(HarvestDaemon.Status.SUCCEEDED);
+		assertThat(run.getMode()).isEqualTo(HarvestDaemon.Mode.BULK);
+		assertThat(run.getDuration()).isEqualTo(Duration.ofSeconds(90));
+		assertThat(run.getError()).isNull();
+		assertThat(daemon.getCurrentRun()).isNull();
+		assertThat(registry.get(HarvestDaemon.LAST_DURATION).tag("schedule", "nightly").timeGauge()
+				.value(TimeUnit.SECONDS)).isEqualTo(90);
+		assertThat(registry.get(HarvestDaemon.LAST_SUCCESS).tag("schedule", "nightly").gauge().value()).isEqualTo(1);
+		assertThat(registry.get(HarvestDaemon.LAST_END).tag("schedule", "nightly").gauge().value()).isEqualTo(1090);
+		assertThat(registry.get(HarvestDaemon.LAST_SUCCESS).tag("schedule", "delta").gauge().value()).isNaN();
+	}
+
+	@Test
+	public void aBulkRunWaitsItsTurnAndDeltaRunsCannotJumpAhead() throws Exception {
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger mostRunning = new AtomicInteger();
+		List<HarvestDaemon.Mode> ran = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch deltaStarted = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		HarvestDaemon daemon = new HarvestDaemon(mode -> {
+			mostRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+			ran.add(mode);
+			if (mode == HarvestDaemon.Mode.DELTA) {
+				deltaStarted.countDown();
+				await(release);
+			}
+			running.decrementAndGet();
+		}, registry);
+
+		Thread delta = new Thread(() -> daemon.runNow("delta", HarvestDaemon.Mode.DELTA));
+		delta.start();
+		await(deltaStarted);
+		Thread nightly = new Thread(() -> daemon.runNow("nightly", HarvestDaemon.Mode.BULK));
+		nightly.start();
+		waitUntil(() -> nightly.getState() == Thread.State.WAITING);
+
+		// the bulk run is queued, so the next delta run is skipped rather than starting first
+		assertThat(daemon.runNow("delta", HarvestDaemon.Mode.DELTA)).isFalse();
+
+		release.countDown();
+		delta.join(5000);
+		nightly.join(5000);
+		assertThat(ran).containsExactly(HarvestDaemon.Mode.DELTA, HarvestDaemon.Mode.BULK);
+		assertThat(mostRunning.get()).isEqualTo(1);
+		assertThat(daemon.getLastRuns()).containsOnlyKeys("delta", "nightly");
+	}
+
+	@Test
+	public void recordsAFailedRunAndKeepsGoing() {
+		AtomicInteger calls = new AtomicInteger();
+		HarvestDaemon daemon = new HarvestDaemon(mode -> {
+			if (calls.incrementAndGet() == 1) {
+				throw new IllegalStateException("Polaris is down");
+			}
+		}, registry);
+
+		assertThat(daemon.runNow("delta", HarvestDaemon.Mode.DELTA)).isTrue();
+		HarvestDaemon.Run failed = daemon.getLastRuns().get("delta");
+		assertThat(failed.getStatus()).isEqualTo(HarvestDaemon.Status.FAILED);
+		assertThat(failed.getError()).contains("Polaris is down");
+		assertThat(registry.get(HarvestDaemon.LAST_SUCCESS).tag("schedule", "delta").gauge().value()).isZero();
+
+		assertThat(daemon.runNow("delta", HarvestDaemon.Mode.DELTA)).isTrue();
+		assertThat(daemon.getLastRuns().get("delta").getStatus()).isEqualTo(HarvestDaemon.Status.SUCCEEDED);
+		assertThat(registry.get(HarvestDaemon.LAST_SUCCESS).tag("schedule", "delta").gauge().value()).isEqualTo(1);
+	}
+
+	@Test
+	public void runsEachScheduleUntilStopped() throws Exception {
+		CountDownLatch threeRuns = new CountDownLatch(3);
+		HarvestDaemon daemon = new HarvestDaemon(mode -> threeRuns.countDown(), registry);
+		HarvestProperties.Daemon.Schedule delta = new HarvestProperties.Daemon.Schedule();
+		delta.setName("delta");
+		delta.setFixedDelay(Duration.ofMillis(10));
+		HarvestProperties.Daemon.Schedule nightly = new HarvestProperties.Daemon.Schedule();
+		nightly.setName("nightly");
+		nightly.setMode(HarvestDaemon.Mode.BULK);
+		nightly.setCron("0 0 2 * * *");
+
+		ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+		scheduler.setPoolSize(2);
+		scheduler.initialize();
+		try {
+			daemon.start(scheduler, Arrays.asList(delta, nightly), TimeZone.getDefault());
+			await(threeRuns);
+			daemon.stop();
+		} finally {
+			scheduler.shutdown();
+		}
+
+		assertThat(daemon.getLastRuns()).containsOnlyKeys("delta");
+		assertThat(registry.find(HarvestDaemon.LAST_SUCCESS).tag("schedule", "nightly").gauge()).isNotNull();
+	}
+}
@@ -0,0 +1,139 @@
+package com.example.consumingrest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import ch.qos.logback.classic.Level;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * Harvests the same {@link FakeToolServer} tenant with the blocking and the reactive engine and checks both write the
+ * same findings.  The engines finish projects in different orders, so the NDJSON lines are compared sorted.
+ */
+public class HarvestEngineParityTest {
+
+	private final ch.qos.logback.classic.Logger rootLog =
+			(ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
+
+	private final ch.qos.logback.classic.Logger findingLog =
+			(ch.qos.logback.classic.Logger) LoggerFactory.getLogger(ConsumingRestApplication.class);
+
+	private Level rootLogLevel;
+
+	private Level findingLogLevel;
+
+	private SyntheticTenant tenant;
+
+	private FakeToolServer server;
+
+	@TempDir
+	Path dir;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		rootLogLevel = rootLog.getLevel();
+		rootLog.setLevel(Level.INFO);
+		findingLogLevel = findingLog.getLevel();
+		findingLog.setLevel(Level.WARN);
+
+		tenant = new SyntheticTenant()
+				.polarisProjects(3, 40)
+				.codeDxProjects(3, 250);
+		server = new FakeToolServer(tenant, new FakeToolServer.Options());
+	}
+
+	@AfterEach
+	public void tearDown() {
+		server.close();
+		findingLog.setLevel(findingLogLevel);
+		rootLog.setLevel(rootLogLevel);
+	}
+
+	@Test
+	public void bothEnginesWriteTheSameFindings() throws IOException {
+		List<String> blocking = harvestBlocking(dir.resolve("blocking.ndjson"));
+		List<String> reactive = harvestReactive(dir.resolve("reactive.ndjson"));
+
+		assertThat(blocking).hasSize((int) (tenant.totalPolarisIssues() + tenant.totalCodeDxFindings()));
+		assertThat(reactive).containsExactlyElementsOf(blocking);
+	}
+
+	private List<String> harvestBlocking(Path output) throws IOException {
+		Map<String, String> env = new HashMap<>();
+		env.put("POLARIS_BASE_URL", server.getBaseUrl());
+		env.put("CODEDX_BASE_URL", server.getBaseUrl());
+		env.put("POLARIS_PAT_TOKEN", "fake");
+		env.put("CODEDX_PAT_TOKEN", "fake");
+		env.put("POLARIS_APPLICATION_ID", tenant.polarisApplicationId);
+		env.put("CODEDX_PROJECT_ID", Integer.toString(tenant.codeDxParentProjectId));
+		ConsumingRestApplication application = new ConsumingRestApplication(env::get);
+
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		RestTemplate restTemplate = new RestTemplate();
+		DefaultListableBeanFactory noBeans = new DefaultListableBeanFactory();
+		AsyncFindingSink findings = new AsyncFindingSink(new NdjsonFindingSink(output, 64 * 1024), 4096);
+		try (PolarisTokenManager tokens = application.polarisTokenManager(restTemplate)) {
+			HarvestDaemon daemon = application.harvestDaemon(restTemplate, tokens,
+					new PoolingHttpClientConnectionManager(), noBeans.getBeanProvider(DiskCacheInterceptor.class),
+					new HarvestProperties(), noBeans.getBeanProvider(ReactiveHarvestEngine.class),
+					new HarvestMetrics(registry), findings, noBeans.getBeanProvider(HostRateLimiter.class), registry);
+			daemon.runNow("parity", HarvestDaemon.Mode.BULK);
+			assertThat(daemon.getLastRuns().get("parity").getError()).isNull();
+		} finally {
+			findings.close();
+		}
+		return sortedLines(output);
+	}
+
+	private List<String> harvestReactive(Path output) throws IOException {
+		RestTemplate restTemplate = new RestTemplate();
+		AsyncFindingSink findings = new AsyncFindingSink(new NdjsonFindingSink(output, 64 * 1024), 4096);
+		try (PolarisTokenManager tokens = new PolarisTokenManager(() -> {
+			MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+			form.add("accesstoken", "fake");
+			String body = restTemplate.postForObject(server.getBaseUrl() + "/api/auth/v1/authenticate", form,
+					String.class);
+			return new JSONObject(body).getString("jwt");
+		}, TimeUnit.MINUTES.toMillis(2))) {
+			ReactiveHarvestEngine engine = new ReactiveHarvestEngine(WebClient.builder(), tokens,
+					new HarvestMetrics(new SimpleMeterRegistry()), findings, new HarvestProperties().getReactive(),
+					new HarvestProperties().getCodeDx(), server.getBaseUrl(), server.getBaseUrl(), "fake");
+			engine.harvestPolaris(Collections.singletonList(tenant.polarisApplicationId));
+			engine.harvestCodeDx(Collections.singletonList(Integer.toString(tenant.codeDxParentProjectId)));
+		} finally {
+			findings.close();
+		}
+		return sortedLines(output);
+	}
+
+	private static List<String> sortedLines(Path file) throws IOException {
+		try (Stream<String> lines = Files.lines(file)) {
+			return lines.sorted().collect(Collectors.toList());
+		}
+	}
+
+}
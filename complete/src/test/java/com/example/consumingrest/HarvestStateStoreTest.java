@@ -0,0 +1,41 @@
+package com.example.consumingrest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class HarvestStateStoreTest {
+
+	@Test
+	public void keepsLatestValuePerKeyAcrossRuns(@TempDir Path dir) throws Exception {
+		Path file = dir.resolve("state").resolve("harvest.tsv");
+		try (HarvestStateStore store = HarvestStateStore.open(file)) {
+			store.put("polaris:p1:k1", "run-1|abc");
+			store.put("polaris:p1:k1", "run-2|abc");
+			store.put("codedx:7:12", "12|New");
+		}
+
+		assertThat(Files.readAllLines(file)).hasSize(2);
+		try (HarvestStateStore store = HarvestStateStore.open(file)) {
+			assertThat(store.get("polaris:p1:k1")).isEqualTo("run-2|abc");
+			assertThat(store.get("codedx:7:12")).isEqualTo("12|New");
+			assertThat(store.size()).isEqualTo(2);
+		}
+	}
+
+	@Test
+	public void digestIgnoresKeyOrder() {
+		JSONObject first = new JSONObject("{\"a\": 1, \"b\": {\"x\": [1, \"y\"], \"z\": null}}");
+		JSONObject second = new JSONObject("{\"b\": {\"z\": null, \"x\": [1, \"y\"]}, \"a\": 1}");
+		JSONObject changed = new JSONObject("{\"a\": 2, \"b\": {\"x\": [1, \"y\"], \"z\": null}}");
+
+		assertThat(HarvestStateStore.digest(first)).isEqualTo(HarvestStateStore.digest(second));
+		assertThat(HarvestStateStore.digest(first)).isNotEqualTo(HarvestStateStore.digest(changed));
+	}
+
+}
@@ -0,0 +1,192 @@
+package com.example.consumingrest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+
+public class HostRateLimiterTest {
+
+	private static final String URL = "https://polaris.example.com/api/common/v0/projects/p1";
+
+	private final AtomicLong now = new AtomicLong(0);
+
+	private final List<Long> sleeps = new ArrayList<>();
+
+	private HttpRateLimitProperties properties(double permitsPerSecond, int burst) {
+		HttpRateLimitProperties properties = new HttpRateLimitProperties();
+		properties.setPermitsPerSecond(permitsPerSecond);
+		properties.setBurst(burst);
+		properties.getRetry().setMaxAttempts(3);
+		properties.getRetry().setInitialBackoff(Duration.ofMillis(100));
+		return properties;
+	}
+
+	private RestTemplate restTemplate(HostRateLimiter limiter) {
+		RestTemplate restTemplate = new RestTemplate();
+		restTemplate.getInterceptors().add(new RateLimitInterceptor(limiter, nanos -> {
+			sleeps.add(nanos);
+			now.addAndGet(nanos);
+		}));
+		return restTemplate;
+	}
+
+	@Test
+	public void pacesRequestsOnceTheBurstIsUsedUp() {
+		HostRateLimiter limiter = new HostRateLimiter(properties(10, 2), now::get);
+		URI uri = URI.create(URL);
+
+		assertThat(limiter.reserve(uri)).isEqualTo(0);
+		assertThat(limiter.reserve(uri)).isEqualTo(0);
+		assertThat(limiter.reserve(uri)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+		assertThat(limiter.reserve(uri)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(200));
+
+		// another host has a bucket of its own
+		assertThat(limiter.reserve(URI.create("https://codedx.example.com/codedx/api/projects/1"))).isEqualTo(0);
+
+		now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+		assertThat(limiter.reserve(uri)).isEqualTo(0);
+	}
+
+	@Test
+	public void readsRetryAfterAsSecondsOrDate() {
+		assertThat(HostRateLimiter.parseRetryAfter("3", 0)).isEqualTo(TimeUnit.SECONDS.toNanos(3));
+		assertThat(HostRateLimiter.parseRetryAfter("Thu, 01 Jan 1970 00:00:10 GMT", 4000))
+				.isEqualTo(TimeUnit.SECONDS.toNanos(6));
+		assertThat(HostRateLimiter.parseRetryAfter(null, 0)).isEqualTo(-1);
+		assertThat(HostRateLimiter.parseRetryAfter("soon", 0)).isEqualTo(-1);
+	}
+
+	@Test
+	public void retriesThrottledRequestsAfterRetryAfter() {
+		RestTemplate restTemplate = restTemplate(new HostRateLimiter(properties(0, 1), now::get));
+		MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+
+		HttpHeaders headers = new HttpHeaders();
+		headers.set(HttpHeaders.RETRY_AFTER, "2");
+		server.expect(requestTo(URL)).andRespond(withStatus(HttpStatus.TOO_MANY_REQUESTS).headers(headers));
+		server.expect(requestTo(URL)).andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
+
+		assertThat(restTemplate.getForObject(URL, String.class)).isEqualTo("{}");
+		assertThat(sleeps).containsExactly(TimeUnit.SECONDS.toNanos(2));
+		server.verify();
+	}
+
+	@Test
+	public void throttledResponseHoldsOffTheWholeHost() {
+		HostRateLimiter limiter = new HostRateLimiter(properties(10, 5), now::get);
+		URI uri = URI.create(URL);
+
+		assertThat(limiter.retryDelay(uri, "GET", 429, "2", 1)).isEqualTo(TimeUnit.SECONDS.toNanos(2));
+
+		// requests from other threads that arrive during the Retry-After wait it out too
+		assertThat(limiter.reserve(URI.create("https://polaris.example.com/api/query/v1/issues")))
+				.isEqualTo(TimeUnit.SECONDS.toNanos(2));
+		assertThat(limiter.reserve(URI.create("https://codedx.example.com/codedx/api/projects/1"))).isEqualTo(0);
+	}
+
+	@Test
+	public void givesUpOnRetryAfterLongerThanTheLimit() {
+		HostRateLimiter limiter = new HostRateLimiter(properties(10, 5), now::get);
+
+		assertThat(limiter.retryDelay(URI.create(URL), "GET", 429, "3600", 1)).isEqualTo(-1);
+		assertThat(limiter.retryDelay(URI.create(URL), "GET", 404, null, 1)).isEqualTo(-1);
+	}
+
+	@Test
+	public void retriesUnavailableGetsWithBackoffUntilAttemptsRunOut() {
+		RestTemplate restTemplate = restTemplate(new HostRateLimiter(properties(0, 1), now::get));
+		MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+		server.expect(ExpectedCount.times(3), requestTo(URL)).andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+
+		assertThatThrownBy(() -> restTemplate.getForObject(URL, String.class))
+				.isInstanceOf(HttpServerErrorException.ServiceUnavailable.class);
+		assertThat(sleeps).hasSize(2);
+		assertThat(sleeps.get(0)).isBetween(TimeUnit.MILLISECONDS.toNanos(50), TimeUnit.MILLISECONDS.toNanos(100));
+		assertThat(sleeps.get(1)).isBetween(TimeUnit.MILLISECONDS.toNanos(100), TimeUnit.MILLISECONDS.toNanos(200));
+		server.verify();
+	}
+
+	@Test
+	public void doesNotResendUnavailablePosts() {
+		RestTemplate restTemplate = restTemplate(new HostRateLimiter(properties(0, 1), now::get));
+		MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+		server.expect(ExpectedCount.once(), requestTo(URL)).andExpect(method(HttpMethod.POST))
+				.andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+
+		assertThatThrownBy(() -> restTemplate.postForObject(URL, "{}", String.class))
+				.isInstanceOf(HttpServerErrorException.ServiceUnavailable.class);
+		assertThat(sleeps).isEmpty();
+		server.verify();
+	}
+
+	@Test
+	public void reactiveHarvestSurvivesThrottling() throws Exception {
+		SyntheticTenant tenant = new SyntheticTenant().polarisProjects(2, 30).codeDxProjects(2, 30);
+		FakeToolServer.Options options = new FakeToolServer.Options();
+		options.throttleRate = 0.1;
+		options.retryAfterSeconds = 0;
+		// triage looked up per issue gives the throttle enough requests to be sure to hit some
+		options.bulkTriage = false;
+		HttpRateLimitProperties properties = properties(0, 1);
+		properties.getRetry().setMaxAttempts(10);
+		properties.getRetry().setInitialBackoff(Duration.ofMillis(1));
+		HostRateLimiter limiter = new HostRateLimiter(properties);
+
+		try (FakeToolServer server = new FakeToolServer(tenant, options)) {
+			RestTemplate restTemplate = new RestTemplate();
+			restTemplate.getInterceptors().add(new RateLimitInterceptor(limiter));
+			PolarisTokenManager tokens = new PolarisTokenManager(() -> {
+				MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+				form.add("accesstoken", "fake");
+				String body = restTemplate.postForObject(server.getBaseUrl() + "/api/auth/v1/authenticate", form,
+						String.class);
+				return new JSONObject(body).getString("jwt");
+			}, TimeUnit.MINUTES.toMillis(2));
+
+			SimpleMeterRegistry registry = new SimpleMeterRegistry();
+			ReactiveHarvestEngine engine = new ReactiveHarvestEngine(
+					WebClient.builder().filter(limiter.webClientFilter()), tokens, new HarvestMetrics(registry),
+					new LogFindingSink(), new HarvestProperties().getReactive(), new HarvestProperties().getCodeDx(),
+					server.getBaseUrl(), server.getBaseUrl(), "fake");
+			try {
+				engine.harvestPolaris(Collections.singletonList(tenant.polarisApplicationId));
+				engine.harvestCodeDx(Collections.singletonList(Integer.toString(tenant.codeDxParentProjectId)));
+			} finally {
+				tokens.close();
+			}
+
+			assertThat(server.getThrottled()).isGreaterThan(0);
+			assertThat(registry.find(HarvestMetrics.FINDINGS).tag("tool", "polaris").counter().count())
+					.isEqualTo(tenant.totalPolarisIssues());
+			assertThat(registry.find(HarvestMetrics.FINDINGS).tag("tool", "codedx").counter().count())
+					.isEqualTo(tenant.totalCodeDxFindings());
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package com.example.consumingrest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.PropertiesPropertySourceLoader;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ByteArrayResource;
+
+public class HttpClientConfigurationTest {
+
+	private static HttpClientProperties bind(String properties) throws Exception {
+		StandardEnvironment environment = new StandardEnvironment();
+		new PropertiesPropertySourceLoader()
+				.load("test", new ByteArrayResource(properties.getBytes(StandardCharsets.ISO_8859_1)))
+				.forEach(environment.getPropertySources()::addFirst);
+		ConfigurationPropertySources.attach(environment);
+		return Binder.get(environment).bindOrCreate("http.client", HttpClientProperties.class);
+	}
+
+	@Test
+	public void bindsPerHostLimitsKeyedByBaseUrl() throws Exception {
+		HttpClientProperties properties = bind("http.client.max-per-host[https\\://polaris.example.com]=40\n"
+				+ "http.client.max-per-host[http\\://codedx.example.com\\:8080]=5\n");
+
+		assertThat(properties.getMaxPerHost()).containsOnlyKeys("https://polaris.example.com",
+				"http://codedx.example.com:8080");
+		PoolingHttpClientConnectionManager pool = new HttpClientConfiguration().httpConnectionManager(properties);
+		assertThat(pool.getMaxPerRoute(HttpClientConfiguration.toRoute("https://polaris.example.com"))).isEqualTo(40);
+		assertThat(pool.getMaxPerRoute(HttpClientConfiguration.toRoute("http://codedx.example.com:8080"))).isEqualTo(5);
+		assertThat(pool.getMaxPerRoute(HttpClientConfiguration.toRoute("https://other.example.com"))).isEqualTo(20);
+	}
+
+	@Test
+	public void publishesPoolUtilization() throws Exception {
+		HttpClientProperties properties = bind("http.client.max-total=7\n");
+		PoolingHttpClientConnectionManager pool = new HttpClientConfiguration().httpConnectionManager(properties);
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+		new HttpClientConfiguration().httpConnectionPoolMetrics(pool).bindTo(registry);
+
+		assertThat(registry.get("httpcomponents.httpclient.pool.total.max").tag("httpclient", "harvest").gauge()
+				.value()).isEqualTo(7);
+		assertThat(registry.get("httpcomponents.httpclient.pool.total.connections").tag("state", "leased").gauge()
+				.value()).isZero();
+		assertThat(registry.get("httpcomponents.httpclient.pool.total.connections").tag("state", "available")
+				.gauge().value()).isZero();
+		assertThat(registry.get("httpcomponents.httpclient.pool.total.pending").gauge().value()).isZero();
+	}
+}
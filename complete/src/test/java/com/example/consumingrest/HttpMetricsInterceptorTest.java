@@ -0,0 +1,103 @@
+package com.example.consumingrest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+public class HttpMetricsInterceptorTest {
+
+	private static final String POLARIS = "https://polaris.example.com";
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	private RestTemplate restTemplate;
+
+	private MockRestServiceServer server;
+
+	@BeforeEach
+	public void setUp() {
+		restTemplate = new RestTemplate();
+		restTemplate.getInterceptors().add(new HttpMetricsInterceptor(new HarvestMetrics(registry)));
+		server = MockRestServiceServer.bindTo(restTemplate).build();
+	}
+
+	@Test
+	public void classifiesPathsByLogicalEndpoint() {
+		assertThat(HarvestMetrics.endpoint("/api/query/v1/issues")).isEqualTo("polaris.issues");
+		assertThat(HarvestMetrics.endpoint("/api/query/v1/issues/issue-1-2")).isEqualTo("polaris.issue-detail");
+		assertThat(HarvestMetrics.endpoint("/api/triage/v1/triage-current/project-id:p:issue-key:k"))
+				.isEqualTo("polaris.triage");
+		assertThat(HarvestMetrics.endpoint("/codedx/api/projects/query")).isEqualTo("codedx.projects-query");
+		assertThat(HarvestMetrics.endpoint("/codedx/api/projects/d12/findings/table"))
+				.isEqualTo("codedx.findings-table");
+		assertThat(HarvestMetrics.endpoint("/codedx/api/projects/12")).isEqualTo("codedx.project");
+		assertThat(HarvestMetrics.endpoint("/info.0.json")).isEqualTo("other");
+		assertThat(HarvestMetrics.tool("codedx.project")).isEqualTo("codedx");
+	}
+
+	@Test
+	public void timesRequestsByEndpointAndCountsBodyBytes() {
+		String body = "{\"data\": []}";
+		server.expect(requestTo(POLARIS + "/api/query/v1/issues/issue-1"))
+				.andRespond(withSuccess(body, MediaType.APPLICATION_JSON));
+		server.expect(requestTo(POLARIS + "/api/query/v1/issues/issue-2"))
+				.andRespond(withSuccess(body, MediaType.APPLICATION_JSON));
+
+		restTemplate.getForObject(POLARIS + "/api/query/v1/issues/issue-1", String.class);
+		restTemplate.getForObject(POLARIS + "/api/query/v1/issues/issue-2", String.class);
+
+		Timer timer = registry.find(HarvestMetrics.REQUESTS).tag("endpoint", "polaris.issue-detail")
+				.tag("status", "200").timer();
+		assertThat(timer).isNotNull();
+		assertThat(timer.count()).isEqualTo(2);
+		assertThat(registry.find(HarvestMetrics.REQUESTS).timers()).hasSize(1);
+		assertThat(registry.find(HarvestMetrics.RECEIVED).tag("tool", "polaris").counter().count())
+				.isEqualTo(2 * body.length());
+	}
+
+	@Test
+	public void recordsErrorStatuses() {
+		server.expect(requestTo(POLARIS + "/api/common/v0/runs/r1")).andRespond(withStatus(HttpStatus.NOT_FOUND));
+
+		assertThatThrownBy(() -> restTemplate.getForObject(POLARIS + "/api/common/v0/runs/r1", String.class))
+				.isInstanceOf(HttpClientErrorException.NotFound.class);
+
+		assertThat(registry.find(HarvestMetrics.REQUESTS).tag("endpoint", "polaris.run").tag("status", "404")
+				.timer().count()).isEqualTo(1);
+	}
+
+	@Test
+	public void aSnapshotLeavesOutEarlierRuns() {
+		HarvestMetrics metrics = new HarvestMetrics(registry);
+		server.expect(requestTo(POLARIS + "/api/query/v1/issues/issue-1")).andRespond(withSuccess());
+		server.expect(requestTo(POLARIS + "/api/query/v1/issues/issue-2")).andRespond(withSuccess());
+		restTemplate.getForObject(POLARIS + "/api/query/v1/issues/issue-1", String.class);
+		metrics.findingProcessed("polaris");
+		metrics.recordRun(metrics.start(), "polaris");
+
+		HarvestMetrics.Snapshot runStart = metrics.snapshot();
+		restTemplate.getForObject(POLARIS + "/api/query/v1/issues/issue-2", String.class);
+		metrics.findingProcessed("polaris");
+		metrics.findingProcessed("polaris");
+		HarvestMetrics.Snapshot run = metrics.snapshot().since(runStart);
+
+		assertThat(metrics.snapshot().getRequests("polaris.issue-detail")).isEqualTo(2);
+		assertThat(run.getRequests("polaris.issue-detail")).isEqualTo(1);
+		assertThat(run.getFindings("polaris")).isEqualTo(2);
+		assertThat(run.getRunSeconds("polaris")).isZero();
+		metrics.logSummary(runStart);
+	}
+}
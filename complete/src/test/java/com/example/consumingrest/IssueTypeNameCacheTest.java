@@ -0,0 +1,75 @@
+package com.example.consumingrest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class IssueTypeNameCacheTest {
+
+	private final AtomicLong now = new AtomicLong(1_000L);
+
+	private final AtomicInteger loads = new AtomicInteger();
+
+	private String load(String id) {
+		loads.incrementAndGet();
+		return "name-" + id;
+	}
+
+	@Test
+	public void countsHitsAndMisses() {
+		IssueTypeNameCache cache = new IssueTypeNameCache(10, 60_000L, now::get);
+
+		assertThat(cache.get("a", this::load)).isEqualTo("name-a");
+		assertThat(cache.get("a", this::load)).isEqualTo("name-a");
+		assertThat(cache.get("b", this::load)).isEqualTo("name-b");
+
+		assertThat(loads.get()).isEqualTo(2);
+		assertThat(cache.getHits()).isEqualTo(1);
+		assertThat(cache.getMisses()).isEqualTo(2);
+	}
+
+	@Test
+	public void evictsLeastRecentlyUsed() {
+		IssueTypeNameCache cache = new IssueTypeNameCache(2, 60_000L, now::get);
+		cache.get("a", this::load);
+		cache.get("b", this::load);
+		cache.get("a", this::load);
+		cache.get("c", this::load);
+
+		assertThat(cache.size()).isEqualTo(2);
+		cache.get("a", this::load);
+		assertThat(loads.get()).isEqualTo(3);
+		cache.get("b", this::load);
+		assertThat(loads.get()).isEqualTo(4);
+	}
+
+	@Test
+	public void reloadsExpiredEntries() {
+		IssueTypeNameCache cache = new IssueTypeNameCache(10, 100L, now::get);
+		cache.get("a", this::load);
+		now.addAndGet(100L);
+		cache.get("a", this::load);
+
+		assertThat(loads.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void snapshotWarmsNewCache(@TempDir Path dir) throws Exception {
+		Path snapshot = dir.resolve("issue-types.tsv");
+		IssueTypeNameCache first = new IssueTypeNameCache(10, 60_000L, now::get);
+		first.get("a", this::load);
+		first.saveSnapshot(snapshot);
+
+		IssueTypeNameCache second = new IssueTypeNameCache(10, 60_000L, now::get);
+		second.loadSnapshot(snapshot);
+
+		assertThat(second.get("a", id -> "unexpected")).isEqualTo("name-a");
+		assertThat(second.getHits()).isEqualTo(1);
+	}
+
+}
@@ -0,0 +1,119 @@
+package com.example.consumingrest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ch.qos.logback.classic.Level;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Delta harvests with {@code HARVEST_STATE_FILE} set, against a {@link FakeToolServer} that has no bulk triage query,
+ * so triage is looked up issue by issue
+ */
+public class PolarisDeltaHarvestTest {
+
+	private final ch.qos.logback.classic.Logger rootLog =
+			(ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
+
+	private final ch.qos.logback.classic.Logger findingLog =
+			(ch.qos.logback.classic.Logger) LoggerFactory.getLogger(ConsumingRestApplication.class);
+
+	private Level rootLogLevel;
+
+	private Level findingLogLevel;
+
+	private final SyntheticTenant tenant = new SyntheticTenant().polarisProjects(1, 14).codeDxProjects(1, 1);
+
+	private FakeToolServer server;
+
+	@TempDir
+	Path dir;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		rootLogLevel = rootLog.getLevel();
+		rootLog.setLevel(Level.INFO);
+		findingLogLevel = findingLog.getLevel();
+		findingLog.setLevel(Level.WARN);
+
+		FakeToolServer.Options options = new FakeToolServer.Options();
+		options.bulkTriage = false;
+		server = new FakeToolServer(tenant, options);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		server.close();
+		findingLog.setLevel(findingLogLevel);
+		rootLog.setLevel(rootLogLevel);
+	}
+
+	@Test
+	public void reportsTriageChangedSinceTheLastDeltaRun() throws IOException {
+		Map<String, String> env = new HashMap<>();
+		env.put("POLARIS_BASE_URL", server.getBaseUrl());
+		env.put("CODEDX_BASE_URL", server.getBaseUrl());
+		env.put("POLARIS_PAT_TOKEN", "fake");
+		env.put("CODEDX_PAT_TOKEN", "fake");
+		env.put("POLARIS_APPLICATION_ID", tenant.polarisApplicationId);
+		env.put("CODEDX_PROJECT_ID", Integer.toString(tenant.codeDxParentProjectId));
+		env.put("HARVEST_STATE_FILE", dir.resolve("harvest-state").toString());
+		ConsumingRestApplication application = new ConsumingRestApplication(env::get);
+
+		Path output = dir.resolve("findings.ndjson");
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		RestTemplate restTemplate = new RestTemplate();
+		DefaultListableBeanFactory noBeans = new DefaultListableBeanFactory();
+		AsyncFindingSink findings = new AsyncFindingSink(
+				new PerRunFindingSink(() -> new NdjsonFindingSink(output, 64 * 1024)), 4096);
+		try (PolarisTokenManager tokens = application.polarisTokenManager(restTemplate)) {
+			HarvestDaemon daemon = application.harvestDaemon(restTemplate, tokens,
+					new PoolingHttpClientConnectionManager(), noBeans.getBeanProvider(DiskCacheInterceptor.class),
+					new HarvestProperties(), noBeans.getBeanProvider(ReactiveHarvestEngine.class),
+					new HarvestMetrics(registry), findings, noBeans.getBeanProvider(HostRateLimiter.class), registry);
+
+			daemon.runNow("delta", HarvestDaemon.Mode.DELTA);
+			assertThat(polarisStatuses(output)).containsExactly("DISMISSED_AS_FP", "NOT_DISMISSED",
+					"NOT_DISMISSED", "NOT_DISMISSED", "NOT_DISMISSED", "NOT_DISMISSED", "NOT_DISMISSED",
+					"DISMISSED_AS_FP", "NOT_DISMISSED", "NOT_DISMISSED", "NOT_DISMISSED", "NOT_DISMISSED",
+					"NOT_DISMISSED", "NOT_DISMISSED");
+
+			// every issue is dismissed between runs, which leaves the issues themselves as they were
+			tenant.dismissedEvery = 1;
+			daemon.runNow("delta", HarvestDaemon.Mode.DELTA);
+			assertThat(daemon.getLastRuns().get("delta").getError()).isNull();
+			assertThat(polarisStatuses(output)).hasSize(14).containsOnly("DISMISSED_AS_FP");
+		} finally {
+			findings.close();
+		}
+	}
+
+	private static List<String> polarisStatuses(Path output) throws IOException {
+		List<String> statuses = new ArrayList<>();
+		for (String line : Files.readAllLines(output)) {
+			JSONObject finding = new JSONObject(line);
+			if (finding.getString("tool").equals("polaris")) {
+				statuses.add(finding.getString("status"));
+			}
+		}
+		return statuses;
+	}
+}
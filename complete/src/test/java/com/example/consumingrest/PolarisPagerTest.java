@@ -0,0 +1,77 @@
+package com.example.consumingrest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+public class PolarisPagerTest {
+
+	private final List<Integer> requestedOffsets = new ArrayList<>();
+
+	private JSONObject page(int offset, int limit, int total, boolean withMeta) {
+		synchronized (requestedOffsets) {
+			requestedOffsets.add(offset);
+		}
+		JSONArray data = new JSONArray();
+		for (int i = offset; i < Math.min(offset + limit, total); i++) {
+			data.put(new JSONObject().put("id", Integer.toString(i)));
+		}
+		JSONObject page = new JSONObject().put("data", data);
+		if (withMeta) {
+			page.put("meta", new JSONObject().put("total", total).put("offset", offset).put("limit", limit));
+		}
+		return page;
+	}
+
+	private static List<String> drain(PolarisPager pager) {
+		List<String> ids = new ArrayList<>();
+		while (pager.hasNext()) {
+			JSONArray data = pager.next();
+			for (int i = 0; i < data.length(); i++) {
+				ids.add(data.getJSONObject(i).getString("id"));
+			}
+		}
+		return ids;
+	}
+
+	@Test
+	public void walksEveryPageUntilShortPage() {
+		PolarisPager pager = new PolarisPager(offset -> page(offset, 10, 25, false), 10, null);
+
+		assertThat(drain(pager)).hasSize(25).startsWith("0").endsWith("24");
+		assertThat(requestedOffsets).containsExactly(0, 10, 20);
+	}
+
+	@Test
+	public void stopsAtReportedTotal() {
+		PolarisPager pager = new PolarisPager(offset -> page(offset, 10, 20, true), 10, null);
+
+		assertThat(drain(pager)).hasSize(20);
+		assertThat(requestedOffsets).containsExactly(0, 10);
+	}
+
+	@Test
+	public void prefetchKeepsOrder() {
+		ExecutorService prefetch = Executors.newSingleThreadExecutor();
+		try {
+			PolarisPager pager = new PolarisPager(offset -> page(offset, 7, 50, true), 7, prefetch);
+			List<String> ids = drain(pager);
+
+			assertThat(ids).hasSize(50);
+			for (int i = 0; i < ids.size(); i++) {
+				assertThat(ids.get(i)).isEqualTo(Integer.toString(i));
+			}
+		}
+		finally {
+			prefetch.shutdownNow();
+		}
+	}
+
+}
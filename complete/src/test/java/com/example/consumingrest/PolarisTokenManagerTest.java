@@ -0,0 +1,213 @@
+package com.example.consumingrest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+
+public class PolarisTokenManagerTest {
+
+	private final AtomicLong now = new AtomicLong(TimeUnit.SECONDS.toMillis(1_000));
+
+	private final AtomicInteger authentications = new AtomicInteger();
+
+	private final AtomicLong lifetimeSeconds = new AtomicLong(600);
+
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+	@AfterEach
+	public void shutdown() {
+		scheduler.shutdownNow();
+	}
+
+	private static String jwt(long expSeconds, int serial) {
+		Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+		String header = encoder.encodeToString("{\"alg\":\"none\"}".getBytes(StandardCharsets.UTF_8));
+		String payload = encoder.encodeToString(("{\"exp\":" + expSeconds + ",\"jti\":" + serial + "}")
+				.getBytes(StandardCharsets.UTF_8));
+		return header + "." + payload + ".sig";
+	}
+
+	private String authenticate() {
+		int serial = authentications.incrementAndGet();
+		return jwt(TimeUnit.MILLISECONDS.toSeconds(now.get()) + lifetimeSeconds.get(), serial);
+	}
+
+	/**
+	 * Holds on to scheduled refreshes until the test runs them, so they follow the fake clock instead of real time
+	 */
+	private static class ManualScheduler extends ScheduledThreadPoolExecutor {
+
+		final List<Long> delays = new ArrayList<>();
+
+		final Deque<Runnable> tasks = new ArrayDeque<>();
+
+		ManualScheduler() {
+			super(1);
+		}
+
+		@Override
+		public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+			delays.add(unit.toMillis(delay));
+			tasks.add(command);
+			return null;
+		}
+
+		void runNext() {
+			tasks.poll().run();
+		}
+	}
+
+	@Test
+	public void decodesExpiryClaim() {
+		assertThat(PolarisTokenManager.decodeExpiry(jwt(1234, 1), 0)).isEqualTo(1_234_000L);
+		assertThat(PolarisTokenManager.decodeExpiry("not-a-jwt", 5))
+				.isEqualTo(5 + PolarisTokenManager.DEFAULT_LIFETIME_MILLIS);
+	}
+
+	@Test
+	public void reusesTokenUntilExpiry() {
+		PolarisTokenManager tokens = new PolarisTokenManager(this::authenticate, 60_000L, now::get, scheduler);
+
+		String first = tokens.getToken();
+		assertThat(tokens.getToken()).isSameAs(first);
+
+		now.addAndGet(TimeUnit.SECONDS.toMillis(601));
+		assertThat(tokens.getToken()).isNotEqualTo(first);
+		assertThat(authentications.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void concurrentCallersShareOneAuthentication() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		PolarisTokenManager tokens = new PolarisTokenManager(() -> {
+			try {
+				release.await();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return authenticate();
+		}, 60_000L, now::get, scheduler);
+
+		ExecutorService callers = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<String>> results = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				results.add(callers.submit(tokens::getToken));
+			}
+			Thread.sleep(100);
+			release.countDown();
+			for (Future<String> result : results) {
+				assertThat(result.get()).isEqualTo(results.get(0).get());
+			}
+		}
+		finally {
+			callers.shutdownNow();
+		}
+		assertThat(authentications.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void retriesOnceAfterUnauthorized() {
+		PolarisTokenManager tokens = new PolarisTokenManager(this::authenticate, 60_000L, now::get, scheduler);
+		AtomicInteger attempts = new AtomicInteger();
+
+		String used = tokens.call(jwt -> {
+			if (attempts.incrementAndGet() == 1) {
+				throw HttpClientErrorException.create(HttpStatus.UNAUTHORIZED, "Unauthorized", null, null, null);
+			}
+			return jwt;
+		});
+
+		assertThat(attempts.get()).isEqualTo(2);
+		assertThat(authentications.get()).isEqualTo(2);
+		assertThat(used).isEqualTo(tokens.getToken());
+	}
+
+	@Test
+	public void refreshesInTheBackgroundBeforeExpiry() {
+		ManualScheduler manual = new ManualScheduler();
+		PolarisTokenManager tokens = new PolarisTokenManager(this::authenticate, 60_000L, now::get, manual);
+
+		String first = tokens.getToken();
+		assertThat(manual.delays).containsExactly(540_000L);
+
+		now.addAndGet(540_000);
+		manual.runNext();
+		assertThat(authentications.get()).isEqualTo(2);
+		// the first token has another minute to live, but callers already get the new one
+		assertThat(tokens.getToken()).isNotEqualTo(first);
+		assertThat(authentications.get()).isEqualTo(2);
+		assertThat(manual.delays).containsExactly(540_000L, 540_000L);
+	}
+
+	@Test
+	public void aTokenThatLivesNoLongerThanTheMarginDoesNotLoop() {
+		ManualScheduler manual = new ManualScheduler();
+		lifetimeSeconds.set(60);
+		PolarisTokenManager tokens = new PolarisTokenManager(this::authenticate, 120_000L, now::get, manual);
+
+		tokens.getToken();
+		for (int i = 0; i < 3; i++) {
+			manual.runNext();
+		}
+		// halfway through each token's life rather than straight away
+		assertThat(manual.delays).containsExactly(30_000L, 30_000L, 30_000L, 30_000L);
+		assertThat(authentications.get()).isEqualTo(4);
+
+		// a token about to expire, or already expired by our clock, is left for callers to refresh
+		lifetimeSeconds.set(-30);
+		manual.runNext();
+		assertThat(authentications.get()).isEqualTo(5);
+		assertThat(manual.tasks).isEmpty();
+		assertThat(tokens.getToken()).isNotNull();
+		assertThat(authentications.get()).isEqualTo(6);
+		assertThat(manual.tasks).isEmpty();
+	}
+
+	@Test
+	public void backsOffAfterAFailedBackgroundRefresh() {
+		ManualScheduler manual = new ManualScheduler();
+		PolarisTokenManager tokens = new PolarisTokenManager(() -> {
+			if (authentications.get() > 0) {
+				authentications.incrementAndGet();
+				throw new IllegalStateException("Polaris is down");
+			}
+			return authenticate();
+		}, 60_000L, now::get, manual);
+
+		String first = tokens.getToken();
+		now.addAndGet(540_000);
+		while (!manual.tasks.isEmpty()) {
+			manual.runNext();
+			now.addAndGet(manual.delays.get(manual.delays.size() - 1));
+		}
+
+		// retries 5, 10 and 20 s apart fit in the minute the token had left, one 40 s later would outlast it
+		assertThat(manual.delays).containsExactly(540_000L, 5_000L, 10_000L, 20_000L);
+		assertThat(authentications.get()).isEqualTo(5);
+		// the old token is still handed out until it expires
+		assertThat(tokens.getToken()).isEqualTo(first);
+	}
+}
@@ -0,0 +1,105 @@
+package com.example.consumingrest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+
+public class ReactiveHarvestEngineTest {
+
+	private final SyntheticTenant tenant = new SyntheticTenant().polarisProjects(1, 20).codeDxProjects(1, 1);
+
+	private FakeToolServer server;
+
+	private PolarisTokenManager tokens;
+
+	private AsyncFindingSink findings;
+
+	@TempDir
+	Path dir;
+
+	@AfterEach
+	public void tearDown() throws IOException {
+		findings.close();
+		tokens.close();
+		server.close();
+	}
+
+	private ReactiveHarvestEngine engine(FakeToolServer.Options options) throws IOException {
+		server = new FakeToolServer(tenant, options);
+		RestTemplate restTemplate = new RestTemplate();
+		tokens = new PolarisTokenManager(() -> {
+			MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+			form.add("accesstoken", "fake");
+			String body = restTemplate.postForObject(server.getBaseUrl() + "/api/auth/v1/authenticate", form,
+					String.class);
+			return new JSONObject(body).getString("jwt");
+		}, TimeUnit.MINUTES.toMillis(2));
+		findings = new AsyncFindingSink(new NdjsonFindingSink(dir.resolve("findings.ndjson"), 64 * 1024), 4096);
+		return new ReactiveHarvestEngine(WebClient.builder(), tokens, new HarvestMetrics(new SimpleMeterRegistry()),
+				findings, new HarvestProperties().getReactive(), new HarvestProperties().getCodeDx(),
+				server.getBaseUrl(), server.getBaseUrl(), "fake");
+	}
+
+	@Test
+	public void aFailedLookupIsAskedAgainByTheNextHarvest() throws IOException {
+		FakeToolServer.Options options = new FakeToolServer.Options();
+		options.sideLoading = false;
+		ReactiveHarvestEngine engine = engine(options);
+		server.failNext("/api/query/v0/issue-types/", 1);
+
+		assertThatThrownBy(() -> engine.harvestPolaris(Collections.singletonList(tenant.polarisApplicationId)))
+				.hasMessageContaining("503");
+		findings.flush();
+		int reportedBeforeFailing = Files.readAllLines(dir.resolve("findings.ndjson")).size();
+
+		engine.harvestPolaris(Collections.singletonList(tenant.polarisApplicationId));
+		findings.flush();
+		assertThat(Files.readAllLines(dir.resolve("findings.ndjson"))).hasSize(reportedBeforeFailing + 20);
+	}
+
+	@Test
+	public void aFailedBranchRequestFailsTheHarvestRatherThanSkippingTheProject() throws IOException {
+		ReactiveHarvestEngine engine = engine(new FakeToolServer.Options());
+		server.failNext("/api/common/v0/branches", 1);
+
+		assertThatThrownBy(() -> engine.harvestPolaris(Collections.singletonList(tenant.polarisApplicationId)))
+				.hasMessageContaining("503");
+	}
+
+	@Test
+	public void triageIsLoadedOncePerProject() throws IOException {
+		ReactiveHarvestEngine engine = engine(new FakeToolServer.Options());
+
+		engine.harvestPolaris(Collections.singletonList(tenant.polarisApplicationId));
+		assertThat(server.getRequests("triage-current-bulk")).isEqualTo(1);
+		assertThat(server.getRequests("triage-current")).isZero();
+	}
+
+	@Test
+	public void triageIsLookedUpPerIssueWhenTheBulkQueryIsNotAvailable() throws IOException {
+		FakeToolServer.Options options = new FakeToolServer.Options();
+		options.bulkTriage = false;
+		ReactiveHarvestEngine engine = engine(options);
+
+		engine.harvestPolaris(Collections.singletonList(tenant.polarisApplicationId));
+		assertThat(server.getRequests("triage-current")).isEqualTo(20);
+		findings.flush();
+		assertThat(Files.readAllLines(dir.resolve("findings.ndjson"))).hasSize(20);
+	}
+}
@@ -0,0 +1,61 @@
+package com.example.consumingrest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class StringPoolTest {
+
+	@Test
+	public void returnsTheSameInstanceForEqualValues() {
+		StringPool pool = new StringPool(64);
+		String first = pool.intern(new String("Static Analysis"));
+		String second = pool.intern(new String("Static Analysis"));
+
+		assertThat(second).isSameAs(first);
+		char[] buffer = "xxStatic Analysisyy".toCharArray();
+		assertThat(pool.intern(buffer, 2, "Static Analysis".length())).isSameAs(first);
+		assertThat(pool.intern(null)).isNull();
+	}
+
+	@Test
+	public void aCollidingValueTakesOverTheSlot() {
+		// "Aa" and "BB" share a hash code, so they always land in the same slot
+		StringPool pool = new StringPool(2);
+		String aa = pool.intern(new String("Aa"));
+		String bb = pool.intern(new String("BB"));
+
+		assertThat(pool.intern(new String("BB"))).isSameAs(bb);
+		String aaAgain = pool.intern(new String("Aa"));
+		assertThat(aaAgain).isEqualTo("Aa").isNotSameAs(aa);
+		assertThat(pool.intern("Aa".toCharArray(), 0, 2)).isSameAs(aaAgain);
+	}
+
+	@Test
+	public void findingsReadFromATableShareTheirRepeatedValues() throws Exception {
+		StringBuilder table = new StringBuilder("[");
+		for (int i = 0; i < 3; i++) {
+			table.append(i == 0 ? "" : ",").append("{\"id\": ").append(i)
+					.append(", \"severity\": {\"name\": \"High\"}, \"detectionMethod\": {\"name\": \"Static Analysis\"},")
+					.append(" \"descriptor\": {\"name\": \"SQL Injection\"}, \"firstSeenOn\": \"03/14/2022\",")
+					.append(" \"statusName\": \"New\"}");
+		}
+		table.append("]");
+		List<CodeDxFinding> findings = new ArrayList<>();
+		CodeDxFindingsReader.read(new ByteArrayInputStream(table.toString().getBytes(StandardCharsets.UTF_8)),
+				findings::add);
+
+		assertThat(findings).hasSize(3);
+		for (CodeDxFinding finding : findings) {
+			assertThat(finding.getSeverity()).isSameAs(findings.get(0).getSeverity());
+			assertThat(finding.getDetectionMethod()).isSameAs(findings.get(0).getDetectionMethod());
+			assertThat(finding.getDescriptor()).isSameAs(findings.get(0).getDescriptor());
+			assertThat(finding.getStatusName()).isSameAs(findings.get(0).getStatusName());
+		}
+	}
+}
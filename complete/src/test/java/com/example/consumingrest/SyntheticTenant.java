@@ -0,0 +1,162 @@
+package com.example.consumingrest;
+
+/**
+ * A made-up Polaris and Code Dx tenant for {@link FakeToolServer}.  Nothing is stored per finding: every project,
+ * issue, run and triage record is derived from its index, so a tenant can hold millions of findings.
+ */
+public class SyntheticTenant {
+
+	static final String[] SEVERITIES = {"critical", "high", "medium", "low", "audit"};
+
+	static final String[] CODEDX_STATUSES = {"New", "Escalated", "Fixed", "False Positive", "Ignored"};
+
+	String polarisApplicationId = "app-1";
+
+	int polarisProjects = 2;
+
+	int issuesPerProject = 100;
+
+	int issueTypes = 40;
+
+	/**
+	 * Issues are spread over this many scan runs per project, which all share the project's default branch
+	 */
+	int runsPerProject = 3;
+
+	/**
+	 * Transitions in each issue's history, alternating opened and closed
+	 */
+	int transitionsPerIssue = 2;
+
+	/**
+	 * Every n-th issue has a dismissal awaiting approval, or 0 for none
+	 */
+	int dismissalRequestedEvery = 20;
+
+	/**
+	 * Every n-th issue has been dismissed as a false positive, or 0 for none.  Change it between harvests to triage
+	 * issues while the server is running
+	 */
+	volatile int dismissedEvery = 7;
+
+	/**
+	 * Reported by the system info endpoint.  Versions up to 2022.1.2 swap offset and limit in project queries
+	 */
+	String codeDxVersion = "2022.1.2";
+
+	int codeDxParentProjectId = 1;
+
+	int codeDxProjects = 2;
+
+	int findingsPerCodeDxProject = 100;
+
+	public SyntheticTenant polarisProjects(int projects, int issuesPerProject) {
+		this.polarisProjects = projects;
+		this.issuesPerProject = issuesPerProject;
+		return this;
+	}
+
+	public SyntheticTenant codeDxProjects(int projects, int findingsPerProject) {
+		this.codeDxProjects = projects;
+		this.findingsPerCodeDxProject = findingsPerProject;
+		return this;
+	}
+
+	public long totalPolarisIssues() {
+		return (long) polarisProjects * issuesPerProject;
+	}
+
+	public long totalCodeDxFindings() {
+		return (long) codeDxProjects * findingsPerCodeDxProject;
+	}
+
+	String projectId(int project) {
+		return "proj-" + project;
+	}
+
+	String branchId(int project) {
+		return "branch-" + project + "-main";
+	}
+
+	String issueId(int project, int issue) {
+		return "issue-" + project + "-" + issue;
+	}
+
+	String issueKey(int project, int issue) {
+		return "key-" + project + "-" + issue;
+	}
+
+	String issueTypeId(int project, int issue) {
+		return "type-" + Math.floorMod(project * 31 + issue * 17, issueTypes);
+	}
+
+	/**
+	 * @return the human-readable name for an issue type id, or null if there is no such type
+	 */
+	String issueTypeName(String issueTypeId) {
+		int type = index(issueTypeId, "type-");
+		return type < 0 || type >= issueTypes ? null : "Issue type " + type;
+	}
+
+	String severity(int issueType) {
+		return SEVERITIES[issueType % SEVERITIES.length];
+	}
+
+	String runId(int project, int issue) {
+		return "run-" + project + "-" + issue % runsPerProject;
+	}
+
+	String revisionId(String runId) {
+		return "rev-" + runId.substring("run-".length());
+	}
+
+	boolean dismissalRequested(int issue) {
+		return dismissalRequestedEvery > 0 && issue % dismissalRequestedEvery == 0;
+	}
+
+	/**
+	 * @return the i-th issue's triage value for DISMISS, or null if it has not been dismissed
+	 */
+	String dismissal(int issue) {
+		return dismissedEvery > 0 && issue % dismissedEvery == 0 ? "DISMISSED_AS_FP" : null;
+	}
+
+	boolean codeDxSwapsPaging() {
+		return CodeDxProjectQuery.compareVersions(codeDxVersion, "2022.1.2") <= 0;
+	}
+
+	String codeDxProjectName(int project) {
+		return project == codeDxParentProjectId ? "Parent project" : "Code Dx project " + project;
+	}
+
+	/**
+	 * @return the Code Dx project ids that are children of the parent project
+	 */
+	int codeDxChildProjectId(int child) {
+		return codeDxParentProjectId + 1 + child;
+	}
+
+	/**
+	 * @return the zero-based index encoded after {@code prefix} in an id, or -1 if it is not one of ours
+	 */
+	static int index(String id, String prefix) {
+		if (id == null || !id.startsWith(prefix)) {
+			return -1;
+		}
+		try {
+			return Integer.parseInt(id.substring(prefix.length()));
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "SyntheticTenant{" +
+				"polarisProjects=" + polarisProjects +
+				", issuesPerProject=" + issuesPerProject +
+				", codeDxProjects=" + codeDxProjects +
+				", findingsPerCodeDxProject=" + findingsPerCodeDxProject +
+				'}';
+	}
+}
@@ -0,0 +1,120 @@
+package com.example.consumingrest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class WorkStealingHarvestTest {
+
+	private static List<String> projects(String applicationId, int count) {
+		List<String> projects = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			projects.add(applicationId + "/proj-" + i);
+		}
+		return projects;
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Test
+	public void spreadsOneLargeApplicationOverEveryWorkerWithinTheCap() {
+		Map<String, Integer> harvested = new ConcurrentHashMap<>();
+		Set<String> largeAppThreads = ConcurrentHashMap.newKeySet();
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger mostRunning = new AtomicInteger();
+
+		try (WorkStealingHarvest harvest = new WorkStealingHarvest(4, "test-harvest-")) {
+			harvest.run("polaris", Arrays.asList("large", "small-1", "small-2"),
+					(app, found) -> projects(app, app.equals("large") ? 40 : 2).forEach(found),
+					(app, project) -> {
+						mostRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+						if (app.equals("large")) {
+							largeAppThreads.add(Thread.currentThread().getName());
+						}
+						sleep(5);
+						harvested.merge(project, 1, Integer::sum);
+						running.decrementAndGet();
+					});
+
+			assertThat(harvest.getProjects()).isEqualTo(44);
+			assertThat(harvest.getFailures()).isZero();
+			assertThat(harvest.toString()).contains("applications=3");
+		}
+
+		assertThat(harvested).hasSize(44).allSatisfy((project, times) -> assertThat(times).isEqualTo(1));
+		assertThat(mostRunning.get()).isLessThanOrEqualTo(4);
+		// the large application's projects were not left to the one worker that listed them
+		assertThat(largeAppThreads.size()).isGreaterThan(1);
+		assertThat(largeAppThreads).allSatisfy(name -> assertThat(name).startsWith("test-harvest-"));
+	}
+
+	@Test
+	public void carriesOnPastFailingApplicationsAndProjects() {
+		Set<String> harvested = ConcurrentHashMap.newKeySet();
+
+		try (WorkStealingHarvest harvest = new WorkStealingHarvest(2, "test-harvest-")) {
+			harvest.run("codedx", Arrays.asList("1", "2", "3"),
+					(app, found) -> {
+						if (app.equals("2")) {
+							throw new IllegalStateException("parent project 2 is gone");
+						}
+						projects(app, 3).forEach(found);
+					},
+					(app, project) -> {
+						if (project.equals("3/proj-1")) {
+							throw new IllegalStateException("project failed");
+						}
+						harvested.add(project);
+					});
+
+			assertThat(harvest.getFailures()).isEqualTo(2);
+			assertThat(harvest.getProjects()).isEqualTo(6);
+		}
+
+		assertThat(harvested).containsExactlyInAnyOrder("1/proj-0", "1/proj-1", "1/proj-2", "3/proj-0", "3/proj-2");
+	}
+
+	@Test
+	public void finishesWithNothingToHarvest() {
+		try (WorkStealingHarvest harvest = new WorkStealingHarvest(2, "test-harvest-")) {
+			harvest.run("polaris", Collections.emptyList(), (app, found) -> found.accept("proj-0"), (app, project) -> {
+			});
+			harvest.run("polaris", Collections.singletonList("empty"), (app, found) -> {
+			}, (app, project) -> {
+			});
+			assertThat(harvest.getProjects()).isZero();
+		}
+	}
+
+	@Test
+	public void filtersApplicationsByIdOrNameGlobs() {
+		ApplicationFilter everything = new ApplicationFilter(Collections.emptyList(), null);
+		assertThat(everything.test("app-1", null)).isTrue();
+
+		ApplicationFilter filter = new ApplicationFilter(Arrays.asList("payments-*", "42"),
+				Collections.singletonList("*SANDBOX*"));
+		assertThat(filter.test("app-1", "Payments-API")).isTrue();
+		assertThat(filter.test("42", "Legacy")).isTrue();
+		assertThat(filter.test("420", "Legacy")).isFalse();
+		assertThat(filter.test("app-2", "payments-sandbox")).isFalse();
+		assertThat(filter.test("app-3", "Billing")).isFalse();
+
+		assertThat(ApplicationFilter.glob("a.b?c").matcher("a.bXc").matches()).isTrue();
+		assertThat(ApplicationFilter.glob("a.b?c").matcher("aXbXc").matches()).isFalse();
+	}
+}